@@ -0,0 +1,18 @@
+package com.bit.examsystem.common.dto;
+
+import lombok.Data;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 分片发送试卷时的一个分片 (EXAM_CHUNK)
+ * 试卷头 (EXAM_START) 先行发送，题目按大小分成若干片依次发送，学生端边收边渲染。
+ */
+@Data
+public class ExamChunkDTO implements Serializable {
+    private String examId;
+    private Integer seq;                  // 分片序号，从 0 开始连续递增
+    private List<QuestionDTO> questions;  // 本片包含的题目
+    private boolean last;                 // 是否为最后一片
+    private Long checksum;                // 仅最后一片携带：全部题目的 CRC32，见 ExamPaperChunker#checksum
+}
@@ -11,4 +11,5 @@ public class ExamPaperDTO implements Serializable {
     private Integer durationMinutes;
     private Long startTime;
     private List<QuestionDTO> questions; // 这里的题目列表是 DTO 类型的
+    private Integer questionCount; // 分片发送时的题目总数，此时 questions 为空，题目随后由 EXAM_CHUNK 送达；一次性发送时为 null
 }
\ No newline at end of file
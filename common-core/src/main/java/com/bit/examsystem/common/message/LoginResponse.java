@@ -12,4 +12,9 @@ import java.io.Serializable;
 public class LoginResponse implements Serializable {
     private boolean success;
     private String message; // e.g., "Login successful" or "Student ID already online."
+    private String codec;   // 服务器选定的编码，之后双方按此编码发送；为 null 时保持 JSON
+
+    public LoginResponse(boolean success, String message) {
+        this(success, message, null);
+    }
 }
\ No newline at end of file
@@ -1,21 +1,73 @@
 package com.bit.examsystem.common.message;
 
+import com.bit.examsystem.common.dto.ExamChunkDTO;
+import com.bit.examsystem.common.dto.ExamPaperDTO;
+import com.bit.examsystem.common.model.Student;
+import com.bit.examsystem.common.model.StudentAnswer;
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import java.util.List;
+
+/**
+ * 消息类型
+ * code 作为帧头中的类型标签 (1 字节)，一经发布不可修改；
+ * bodyType 为该类型消息体的具体类型，解码器据此直接反序列化，为 null 表示无消息体。
+ */
 public enum MessageType {
     // 登录
-    LOGIN_REQ,      // 包含 Student 对象
-    LOGIN_RESP,     // 包含 Boolean 或 String(错误信息)
+    LOGIN_REQ(1, new TypeReference<Student>() {}),             // 包含 Student 对象
+    LOGIN_RESP(2, new TypeReference<LoginResponse>() {}),      // 包含 LoginResponse
 
     // 考试流程
-    EXAM_WAITING,   // 包含等待信息字符串
-    EXAM_START,     // 包含 ExamPaper 对象
-    EXAM_END,       // 无 Payload
+    EXAM_WAITING(3, new TypeReference<String>() {}),           // 包含等待信息字符串
+    EXAM_START(4, new TypeReference<ExamPaperDTO>() {}),       // 包含 ExamPaperDTO 对象
+    EXAM_END(5, null),                                         // 无 Payload
+    EXAM_CHUNK(9, new TypeReference<ExamChunkDTO>() {}),       // 分片发送的试卷题目，跟在 EXAM_START 之后
 
     // 答题
-    ANSWER_SUBMIT,  // 包含 List<StudentAnswer>
+    ANSWER_SUBMIT(6, new TypeReference<List<StudentAnswer>>() {}), // 包含 List<StudentAnswer>
+    ANSWER_ACK(11, new TypeReference<SubmitResponse>() {}),    // 答卷写入数据库 (或失败) 后回复，包含 SubmitResponse
 
     // 结果
-    RESULT_PUB,     // 包含成绩 Integer
+    RESULT_PUB(7, new TypeReference<Integer>() {}),            // 包含成绩 Integer
 
     // 系统
-    HEARTBEAT       // 心跳
-}
\ No newline at end of file
+    HEARTBEAT(8, null),                                        // 心跳，无 Payload
+    BATCH(10, new TypeReference<List<Message<?>>>() {});       // 批量信封：body 为若干条 Message，编码为一帧，解码后逐条交给业务 Handler
+
+    private static final MessageType[] BY_CODE = new MessageType[256];
+
+    static {
+        for (MessageType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final int code;
+    private final TypeReference<?> bodyType;
+
+    MessageType(int code, TypeReference<?> bodyType) {
+        this.code = code;
+        this.bodyType = bodyType;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public TypeReference<?> getBodyType() {
+        return bodyType;
+    }
+
+    public boolean hasBody() {
+        return bodyType != null;
+    }
+
+    /**
+     * 根据帧头中的类型标签查找消息类型
+     * @return 对应的类型，未知标签 (如更新版本的对端发来的新类型) 返回 null
+     */
+    public static MessageType fromCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
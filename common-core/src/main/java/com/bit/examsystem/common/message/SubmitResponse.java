@@ -0,0 +1,16 @@
+package com.bit.examsystem.common.message;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmitResponse implements Serializable {
+    private boolean success; // 答卷是否已写入教师端数据库
+    private String message;  // e.g., "Answers saved." or "Server busy, please submit again."
+    private int answerCount; // 已保存的答案数
+}
@@ -2,6 +2,7 @@ package com.bit.examsystem.common.model;
 
 import lombok.Data;
 import java.io.Serializable;
+import java.util.List;
 
 @Data
 public class Student implements Serializable {
@@ -9,4 +10,5 @@ public class Student implements Serializable {
     private String name;    // 姓名
     private String ip;      // 连接IP
     private boolean isOnline; // UI展示用
+    private List<String> codecs; // 登录握手时声明支持的编码 (如 "smile", "json")，旧版本客户端为 null
 }
\ No newline at end of file
@@ -0,0 +1,126 @@
+package com.bit.examsystem.common.network;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+
+import java.util.List;
+
+/**
+ * 消息体编码格式
+ * 每个连接使用的编码在登录握手时协商 (LOGIN_REQ 声明支持的编码，LOGIN_RESP 返回选定的编码)，
+ * 未协商或旧版本客户端一律使用 JSON。帧头中记录了消息体的编码 (见 {@link FrameFormat})，
+ * 因此切换编码前后的帧都能正确解析。
+ */
+public interface Codec {
+
+    Codec JSON = new JsonCodec();
+    Codec SMILE = new SmileCodec();
+
+    /**
+     * 按优先级排列的全部编码，协商时取双方都支持的第一个
+     */
+    List<Codec> SUPPORTED = List.of(SMILE, JSON);
+
+    /**
+     * 当前 Channel 出站使用的编码
+     */
+    AttributeKey<Codec> CHANNEL_CODEC = AttributeKey.valueOf("examsystem.codec");
+
+    /**
+     * @return 握手时使用的编码名称，如 "json"
+     */
+    String name();
+
+    /**
+     * @return 写入帧头的编码编号 (0 ~ 3)，一经发布不可修改
+     */
+    int id();
+
+    /**
+     * 将对象编码后追加写入 out
+     */
+    void encode(Object value, ByteBuf out);
+
+    /**
+     * 从 in 的 [index, index + length) 区间解码，不移动读写指针
+     */
+    <T> T decode(ByteBuf in, int index, int length, TypeReference<T> type);
+
+    /**
+     * 判断 index 处开始的内容是否为本编码格式
+     */
+    boolean matches(ByteBuf in, int index);
+
+    /**
+     * 获取 Channel 当前的出站编码，未设置时为 JSON
+     */
+    static Codec of(Channel channel) {
+        Codec codec = channel.attr(CHANNEL_CODEC).get();
+        return codec != null ? codec : JSON;
+    }
+
+    /**
+     * 按名称查找编码
+     * @return 对应的编码，不支持时返回 null
+     */
+    static Codec forName(String name) {
+        for (Codec codec : SUPPORTED) {
+            if (codec.name().equalsIgnoreCase(name)) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按帧头中的编号查找编码
+     * @return 对应的编码，不支持时返回 null
+     */
+    static Codec forId(int id) {
+        for (Codec codec : SUPPORTED) {
+            if (codec.id() == id) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 根据对方声明的编码列表选择双方都支持的最优编码
+     * @param offered 对方支持的编码名称，可以为 null (旧版本客户端)
+     */
+    static Codec negotiate(List<String> offered) {
+        if (offered != null) {
+            for (Codec codec : SUPPORTED) {
+                for (String name : offered) {
+                    if (codec.name().equalsIgnoreCase(name)) {
+                        return codec;
+                    }
+                }
+            }
+        }
+        return JSON;
+    }
+
+    /**
+     * 根据帧内容识别编码格式，无法识别时按 JSON 处理
+     * 仅用于没有帧头的旧版本帧
+     */
+    static Codec detect(ByteBuf in, int index) {
+        for (Codec codec : SUPPORTED) {
+            if (codec.matches(in, index)) {
+                return codec;
+            }
+        }
+        return JSON;
+    }
+
+    /**
+     * @return 本端支持的全部编码名称，用于登录握手
+     */
+    static List<String> supportedNames() {
+        return SUPPORTED.stream().map(Codec::name).toList();
+    }
+}
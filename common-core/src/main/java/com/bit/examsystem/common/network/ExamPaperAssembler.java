@@ -0,0 +1,92 @@
+package com.bit.examsystem.common.network;
+
+import com.bit.examsystem.common.dto.ExamChunkDTO;
+import com.bit.examsystem.common.dto.ExamPaperDTO;
+import com.bit.examsystem.common.dto.QuestionDTO;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * 试卷分片接收端
+ * 按序接收 {@link ExamPaperChunker} 生成的分片，逐片累加校验和；本身不保存题目，
+ * 每片的题目由调用方立即追加到试卷并渲染，不必等到最后一片。
+ * 非线程安全，应在同一个 Channel 的 I/O 线程中使用。
+ */
+public class ExamPaperAssembler {
+
+    private final ExamPaperDTO header;
+    private final CRC32 crc = new CRC32();
+    private int nextSeq;
+    private int received;
+    private boolean complete;
+
+    public ExamPaperAssembler(ExamPaperDTO header) {
+        this.header = header;
+    }
+
+    /**
+     * 判断 EXAM_START 携带的是否为分片发送的试卷头
+     */
+    public static boolean isChunked(ExamPaperDTO paper) {
+        return paper != null && paper.getQuestionCount() != null;
+    }
+
+    /**
+     * 接收一个分片
+     * @return 本片的题目，按试卷顺序排列
+     * @throws IllegalStateException 分片不属于本试卷、乱序，或最后一片的题目数/校验和不一致
+     */
+    public List<QuestionDTO> accept(ExamChunkDTO chunk) {
+        if (complete) {
+            throw new IllegalStateException("Exam paper " + header.getExamId() + " is already complete.");
+        }
+        if (!Objects.equals(header.getExamId(), chunk.getExamId())) {
+            throw new IllegalStateException("Chunk belongs to exam " + chunk.getExamId()
+                    + ", expected " + header.getExamId() + ".");
+        }
+        if (chunk.getSeq() == null || chunk.getSeq() != nextSeq) {
+            throw new IllegalStateException("Exam chunk out of order: expected " + nextSeq
+                    + ", got " + chunk.getSeq() + ".");
+        }
+        nextSeq++;
+
+        List<QuestionDTO> questions = chunk.getQuestions() != null ? chunk.getQuestions() : List.of();
+        for (QuestionDTO question : questions) {
+            ExamPaperChunker.update(crc, question);
+        }
+        received += questions.size();
+
+        if (chunk.isLast()) {
+            if (received != header.getQuestionCount()) {
+                throw new IllegalStateException("Exam paper incomplete: expected " + header.getQuestionCount()
+                        + " questions, received " + received + ".");
+            }
+            if (chunk.getChecksum() == null || chunk.getChecksum() != crc.getValue()) {
+                throw new IllegalStateException("Exam paper checksum mismatch: expected " + chunk.getChecksum()
+                        + ", computed " + crc.getValue() + ".");
+            }
+            complete = true;
+        }
+        return questions;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return 已接收的分片数
+     */
+    public int getChunkCount() {
+        return nextSeq;
+    }
+
+    /**
+     * @return 已接收的题目数
+     */
+    public int getReceivedCount() {
+        return received;
+    }
+}
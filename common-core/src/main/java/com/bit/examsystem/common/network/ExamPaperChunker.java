@@ -0,0 +1,137 @@
+package com.bit.examsystem.common.network;
+
+import com.bit.examsystem.common.dto.ExamChunkDTO;
+import com.bit.examsystem.common.dto.ExamPaperDTO;
+import com.bit.examsystem.common.dto.QuestionDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 试卷分片工具
+ * 大试卷 (如 200 道长题干的题目) 一次性编码会超过 {@link ProtocolInitializer#MAX_FRAME_LENGTH}，
+ * 因此先发送不含题目的试卷头 (EXAM_START)，再按字节预算把题目分成若干 EXAM_CHUNK 依次发送。
+ * 最后一片携带全部题目的校验和，由 {@link ExamPaperAssembler} 校验。
+ */
+public final class ExamPaperChunker {
+
+    /**
+     * 每个分片中题目的估算字节数上限，可通过 -Dexam.net.examChunkBytes 调整
+     */
+    public static final int DEFAULT_CHUNK_BYTES = Integer.getInteger("exam.net.examChunkBytes", 16 * 1024);
+
+    // 每道题中字段名、类型、分数等的固定开销
+    private static final int QUESTION_OVERHEAD = 96;
+
+    private ExamPaperChunker() {
+    }
+
+    /**
+     * 生成试卷头：复制试卷的基本信息，不含题目，questionCount 为题目总数
+     */
+    public static ExamPaperDTO header(ExamPaperDTO paper) {
+        ExamPaperDTO header = new ExamPaperDTO();
+        header.setExamId(paper.getExamId());
+        header.setTitle(paper.getTitle());
+        header.setDurationMinutes(paper.getDurationMinutes());
+        header.setStartTime(paper.getStartTime());
+        header.setQuestions(new ArrayList<>());
+        header.setQuestionCount(questionsOf(paper).size());
+        return header;
+    }
+
+    /**
+     * 按字节预算把题目分片，至少返回一片 (空试卷也会有一个 last 分片携带校验和)
+     * @param paper 完整试卷
+     * @param maxChunkBytes 每片题目的估算字节数上限；单道题超过上限时独占一片
+     */
+    public static List<ExamChunkDTO> split(ExamPaperDTO paper, int maxChunkBytes) {
+        List<ExamChunkDTO> chunks = new ArrayList<>();
+        CRC32 crc = new CRC32();
+        List<QuestionDTO> current = new ArrayList<>();
+        int currentBytes = 0;
+
+        for (QuestionDTO question : questionsOf(paper)) {
+            int bytes = estimateBytes(question);
+            if (!current.isEmpty() && currentBytes + bytes > maxChunkBytes) {
+                chunks.add(chunk(paper, chunks.size(), current));
+                current = new ArrayList<>();
+                currentBytes = 0;
+            }
+            current.add(question);
+            currentBytes += bytes;
+            update(crc, question);
+        }
+
+        ExamChunkDTO last = chunk(paper, chunks.size(), current);
+        last.setLast(true);
+        last.setChecksum(crc.getValue());
+        chunks.add(last);
+        return chunks;
+    }
+
+    /**
+     * 计算题目列表的校验和 (CRC32)，覆盖题目 ID、题干、类型、选项和分值
+     */
+    public static long checksum(List<QuestionDTO> questions) {
+        CRC32 crc = new CRC32();
+        for (QuestionDTO question : questions) {
+            update(crc, question);
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * 将一道题累加到校验和中，供接收端逐片累加
+     */
+    static void update(CRC32 crc, QuestionDTO question) {
+        update(crc, question.getId());
+        update(crc, question.getTitle());
+        update(crc, question.getType() != null ? question.getType().name() : null);
+        if (question.getOptions() != null) {
+            for (String option : question.getOptions()) {
+                update(crc, option);
+            }
+        }
+        update(crc, question.getScore() != null ? question.getScore().toString() : null);
+        crc.update('\n');
+    }
+
+    private static void update(CRC32 crc, String value) {
+        if (value != null) {
+            crc.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        crc.update(0);
+    }
+
+    /**
+     * 估算一道题编码后的字节数：字符按 UTF-8 最坏情况 3 字节计，不实际编码
+     */
+    static int estimateBytes(QuestionDTO question) {
+        int chars = length(question.getId()) + length(question.getTitle());
+        if (question.getOptions() != null) {
+            for (String option : question.getOptions()) {
+                chars += length(option) + 3;
+            }
+        }
+        return QUESTION_OVERHEAD + chars * 3;
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    private static ExamChunkDTO chunk(ExamPaperDTO paper, int seq, List<QuestionDTO> questions) {
+        ExamChunkDTO chunk = new ExamChunkDTO();
+        chunk.setExamId(paper.getExamId());
+        chunk.setSeq(seq);
+        chunk.setQuestions(questions);
+        return chunk;
+    }
+
+    private static List<QuestionDTO> questionsOf(ExamPaperDTO paper) {
+        return paper.getQuestions() != null ? paper.getQuestions() : List.of();
+    }
+}
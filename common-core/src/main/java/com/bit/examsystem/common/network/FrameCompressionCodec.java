@@ -0,0 +1,209 @@
+package com.bit.examsystem.common.network;
+
+import com.bit.examsystem.common.message.MessageType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageCodec;
+
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 帧压缩：位于 LengthFieldBasedFrameDecoder 与 MessageEncoder/MessageDecoder 之间
+ *
+ * 出站：消息体不小于阈值的帧用 deflate 压缩消息体，并在帧头首字节置 {@link FrameFormat#COMPRESSED} 标志位；
+ * 小帧、心跳和登录消息、旧格式帧以及已经压缩过的帧 (如广播时预压缩的帧) 原样透传。
+ * 入站：带压缩标志的帧解压后清除标志位，再交给 MessageDecoder。
+ *
+ * 压缩帧布局：
+ * <pre>
+ * [4字节长度] [帧头 (首字节带压缩标志)] [4字节 解压后消息体长度] [deflate 数据]
+ * </pre>
+ */
+public class FrameCompressionCodec extends MessageToMessageCodec<ByteBuf, ByteBuf> {
+
+    /**
+     * 消息体达到该字节数才压缩，可通过 -Dexam.net.compressThreshold 调整，0 或负数表示不压缩出站帧 (入站仍可解压)
+     */
+    public static final int COMPRESS_THRESHOLD = Integer.getInteger("exam.net.compressThreshold", 1024);
+
+    /**
+     * 解压后消息体的最大长度，防止恶意构造的压缩帧耗尽内存
+     */
+    public static final int MAX_INFLATED_LENGTH = Integer.getInteger("exam.net.maxInflatedLength", 4 * 1024 * 1024);
+
+    // 这些消息很小或需要尽快处理，始终不压缩
+    private static final Set<MessageType> NEVER_COMPRESSED =
+            EnumSet.of(MessageType.HEARTBEAT, MessageType.LOGIN_REQ, MessageType.LOGIN_RESP);
+
+    private static final int LENGTH_FIELD = 4;
+    private static final int INFLATED_LENGTH_FIELD = 4;
+
+    // 每个连接按需创建，大多数连接只需要其中一个
+    private Deflater deflater;
+    private Inflater inflater;
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf frame, List<Object> out) {
+        if (!shouldCompress(frame)) {
+            out.add(frame.retain());
+            return;
+        }
+        if (deflater == null) {
+            deflater = new Deflater();
+        }
+        out.add(compress(ctx.alloc(), frame, deflater));
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        if (in.readableBytes() < FrameFormat.HEADER_LENGTH || !isCompressed(in.getByte(in.readerIndex()))) {
+            out.add(in.retain());
+            return;
+        }
+        if (inflater == null) {
+            inflater = new Inflater();
+        }
+        try {
+            out.add(inflate(ctx.alloc(), in, inflater));
+        } catch (Exception e) {
+            // 与 MessageDecoder 一致：异常包直接丢弃，不中断连接
+            System.err.println("Frame Inflate Error: " + e.getMessage() + ". Dropped.");
+        }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        if (deflater != null) {
+            deflater.end();
+        }
+        if (inflater != null) {
+            inflater.end();
+        }
+        super.handlerRemoved(ctx);
+    }
+
+    /**
+     * 压缩一个由 {@link MessageEncoder#encodeFrame} 编码好的帧，供广播时压缩一次、多次发送
+     * @return 压缩后的新帧 (原帧已释放)；不需要压缩或压缩无收益时返回原帧
+     */
+    public static ByteBuf compressFrame(ByteBufAllocator alloc, ByteBuf frame) {
+        if (!shouldCompress(frame)) {
+            return frame;
+        }
+        Deflater deflater = new Deflater();
+        try {
+            ByteBuf compressed = compress(alloc, frame, deflater);
+            if (compressed != frame) {
+                frame.release();
+            }
+            return compressed;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 判断带长度头的出站帧是否需要压缩
+     */
+    static boolean shouldCompress(ByteBuf frame) {
+        if (COMPRESS_THRESHOLD <= 0
+                || frame.readableBytes() - LENGTH_FIELD - FrameFormat.HEADER_LENGTH < COMPRESS_THRESHOLD) {
+            return false;
+        }
+        byte first = frame.getByte(frame.readerIndex() + LENGTH_FIELD);
+        if (!FrameFormat.isTagged(first) || isCompressed(first)) {
+            return false;
+        }
+        MessageType type = MessageType.fromCode(frame.getUnsignedByte(frame.readerIndex() + LENGTH_FIELD + 1));
+        return type != null && !NEVER_COMPRESSED.contains(type);
+    }
+
+    static boolean isCompressed(byte first) {
+        return FrameFormat.isTagged(first) && (first & FrameFormat.COMPRESSED) != 0;
+    }
+
+    /**
+     * @return 压缩后的新帧 (不释放原帧)；压缩后没有变小时返回 retain 过的原帧，调用方统一释放一次原帧即可
+     */
+    private static ByteBuf compress(ByteBufAllocator alloc, ByteBuf frame, Deflater deflater) {
+        int headerIndex = frame.readerIndex() + LENGTH_FIELD;
+        int bodyIndex = headerIndex + FrameFormat.HEADER_LENGTH;
+        int bodyLength = frame.writerIndex() - bodyIndex;
+
+        ByteBuf out = alloc.ioBuffer(LENGTH_FIELD + FrameFormat.HEADER_LENGTH + INFLATED_LENGTH_FIELD + bodyLength / 2);
+        try {
+            // 1. 长度头占位，复制帧头并置压缩标志
+            out.writeInt(0);
+            out.writeBytes(frame, headerIndex, FrameFormat.HEADER_LENGTH);
+            out.setByte(LENGTH_FIELD, frame.getByte(headerIndex) | FrameFormat.COMPRESSED);
+            out.writeInt(bodyLength);
+
+            // 2. 压缩消息体
+            deflater.reset();
+            deflater.setInput(frame.nioBuffer(bodyIndex, bodyLength));
+            deflater.finish();
+            while (!deflater.finished()) {
+                out.ensureWritable(512);
+                ByteBuffer target = out.nioBuffer(out.writerIndex(), out.writableBytes());
+                out.writerIndex(out.writerIndex() + deflater.deflate(target));
+            }
+
+            // 3. 没有收益就发送原帧
+            if (out.readableBytes() >= frame.readableBytes()) {
+                out.release();
+                return frame.retain();
+            }
+            out.setInt(0, out.readableBytes() - LENGTH_FIELD);
+            return out;
+        } catch (RuntimeException e) {
+            out.release();
+            throw e;
+        }
+    }
+
+    /**
+     * @param in 已剥离长度头的入站帧
+     * @return 清除压缩标志、消息体已解压的新帧
+     */
+    private static ByteBuf inflate(ByteBufAllocator alloc, ByteBuf in, Inflater inflater) throws DataFormatException {
+        int headerIndex = in.readerIndex();
+        int bodyIndex = headerIndex + FrameFormat.HEADER_LENGTH + INFLATED_LENGTH_FIELD;
+        if (in.writerIndex() < bodyIndex) {
+            throw new DataFormatException("compressed frame too short: " + in.readableBytes() + " bytes");
+        }
+        int inflatedLength = in.getInt(headerIndex + FrameFormat.HEADER_LENGTH);
+        if (inflatedLength < 0 || inflatedLength > MAX_INFLATED_LENGTH) {
+            throw new DataFormatException("inflated length out of range: " + inflatedLength);
+        }
+
+        ByteBuf out = alloc.ioBuffer(FrameFormat.HEADER_LENGTH + inflatedLength);
+        try {
+            out.writeBytes(in, headerIndex, FrameFormat.HEADER_LENGTH);
+            out.setByte(0, in.getByte(headerIndex) & ~FrameFormat.COMPRESSED);
+
+            inflater.reset();
+            inflater.setInput(in.nioBuffer(bodyIndex, in.writerIndex() - bodyIndex));
+            ByteBuffer target = out.nioBuffer(out.writerIndex(), inflatedLength);
+            while (target.hasRemaining() && !inflater.finished()) {
+                if (inflater.inflate(target) == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+            }
+            if (target.hasRemaining() || !inflater.finished()) {
+                throw new DataFormatException("inflated body does not match declared length " + inflatedLength);
+            }
+            out.writerIndex(out.writerIndex() + inflatedLength);
+            return out;
+        } catch (DataFormatException | RuntimeException e) {
+            out.release();
+            throw e;
+        }
+    }
+}
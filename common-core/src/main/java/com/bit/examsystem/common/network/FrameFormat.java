@@ -0,0 +1,66 @@
+package com.bit.examsystem.common.network;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+
+/**
+ * 帧格式
+ *
+ * 当前版本的帧布局 (长度字段由 LengthFieldBasedFrameDecoder 剥离)：
+ * <pre>
+ * [4字节长度] [1字节 版本|标志位] [1字节 MessageType 标签] [8字节 时间戳] [消息体]
+ * </pre>
+ * 第 5 个字节的低 4 位为协议版本，第 4、5 位为消息体编码 ({@link Codec#id()})，高 2 位为标志位：
+ * 最高位 {@link #COMPRESSED} 表示消息体经过 deflate 压缩 (见 {@link FrameCompressionCodec})，次高位保留。
+ * 消息体只包含 Message.body，按 MessageType 注册的类型直接反序列化；无消息体的类型 (如 HEARTBEAT) 长度为 0。
+ *
+ * 旧版本客户端的帧没有帧头，整个 Message 以 JSON 编码，首字节为 '{'，其低 4 位不等于 {@link #VERSION}，
+ * 据此区分。收到旧格式的帧后，该 Channel 的出站消息也改用旧格式 (见 {@link #LEGACY_FRAMES})。
+ *
+ * @param codec 消息体编码
+ * @param legacy 是否为无帧头的旧格式
+ */
+public record FrameFormat(Codec codec, boolean legacy) {
+
+    public static final int VERSION = 1;
+    public static final int HEADER_LENGTH = 1 + 1 + 8;
+
+    static final int VERSION_MASK = 0x0F;
+    static final int CODEC_SHIFT = 4;
+    static final int CODEC_MASK = 0x30;
+    static final int COMPRESSED = 0x80;
+
+    /**
+     * 收到无帧头的旧版本帧后置为 true
+     */
+    public static final AttributeKey<Boolean> LEGACY_FRAMES = AttributeKey.valueOf("examsystem.legacyFrames");
+
+    /**
+     * 获取 Channel 当前的出站帧格式
+     */
+    public static FrameFormat of(Channel channel) {
+        return new FrameFormat(Codec.of(channel), Boolean.TRUE.equals(channel.attr(LEGACY_FRAMES).get()));
+    }
+
+    /**
+     * @return 本格式的帧头首字节
+     */
+    int headerByte() {
+        return VERSION | (codec.id() << CODEC_SHIFT);
+    }
+
+    /**
+     * 判断首字节是否为当前版本的帧头
+     */
+    static boolean isTagged(byte first) {
+        return (first & VERSION_MASK) == VERSION;
+    }
+
+    /**
+     * 从帧头首字节中取出消息体编码
+     * @return 对应的编码，未知编号返回 null
+     */
+    static Codec codecOf(byte first) {
+        return Codec.forId((first & CODEC_MASK) >>> CODEC_SHIFT);
+    }
+}
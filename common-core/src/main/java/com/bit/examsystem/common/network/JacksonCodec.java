@@ -0,0 +1,56 @@
+package com.bit.examsystem.common.network;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 基于 Jackson ObjectMapper 的编码实现
+ * 直接在 ByteBuf 上读写：heap buffer 使用底层数组 + 偏移量，direct buffer 使用流，均不经过 String。
+ */
+abstract class JacksonCodec implements Codec {
+
+    private final ObjectMapper mapper;
+
+    protected JacksonCodec(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    @Override
+    public void encode(Object value, ByteBuf out) {
+        try {
+            OutputStream stream = new ByteBufOutputStream(out);
+            mapper.writeValue(stream, value);
+        } catch (IOException e) {
+            throw new RuntimeException(name() + " serialization failed", e);
+        }
+    }
+
+    @Override
+    public <T> T decode(ByteBuf in, int index, int length, TypeReference<T> type) {
+        if (length == 0) {
+            return null;
+        }
+        try {
+            if (in.hasArray()) {
+                return mapper.readValue(in.array(), in.arrayOffset() + index, length, type);
+            }
+            try (InputStream stream = new ByteBufInputStream(in.slice(index, length))) {
+                return mapper.readValue(stream, type);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(name() + " deserialization failed", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name();
+    }
+}
@@ -0,0 +1,31 @@
+package com.bit.examsystem.common.network;
+
+import com.bit.examsystem.common.util.JsonUtil;
+import com.fasterxml.jackson.core.JsonFactory;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * 文本 JSON 编码，所有版本的客户端都支持
+ */
+final class JsonCodec extends JacksonCodec {
+
+    JsonCodec() {
+        super(JsonUtil.createMapper(new JsonFactory()));
+    }
+
+    @Override
+    public String name() {
+        return "json";
+    }
+
+    @Override
+    public int id() {
+        return 0;
+    }
+
+    @Override
+    public boolean matches(ByteBuf in, int index) {
+        // 我们的帧总是一个 JSON 对象
+        return in.writerIndex() > index && in.getByte(index) == '{';
+    }
+}
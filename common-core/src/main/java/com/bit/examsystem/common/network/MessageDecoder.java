@@ -1,43 +1,158 @@
 package com.bit.examsystem.common.network;
 
 import com.bit.examsystem.common.message.Message;
+import com.bit.examsystem.common.message.MessageType;
 import com.bit.examsystem.common.util.JsonUtil;
 // --- 必须导入 TypeReference ---
 import com.fasterxml.jackson.core.type.TypeReference;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageDecoder;
+import io.netty.util.ByteProcessor;
 
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
  * 解码器：入站 Handler
- * 将 JSON 字符串的 ByteBuf 解码为 Message<Object> 对象
+ * 将一帧 ByteBuf 解码为 Message<Object> 对象，body 已经是 MessageType 注册的具体类型
+ * (如 Student、List<StudentAnswer>、ExamPaperDTO)，业务 Handler 无需再做类型转换。
+ *
+ * 帧头中的类型标签决定消息体的目标类型，无消息体的类型 (如 HEARTBEAT) 不做任何解析。
+ * 直接从 ByteBuf 的可读区间交给 Jackson 解析，不再先拷贝成 String。
+ * 没有帧头的旧版本帧仍可解析，见 {@link FrameFormat}。
  */
 public class MessageDecoder extends MessageToMessageDecoder<ByteBuf> {
 
+    private static final TypeReference<Message<Object>> LEGACY_MESSAGE_TYPE = new TypeReference<>() {};
+
+    // 与 String.trim() 一致：0x00 ~ 0x20 视为空白 (UTF-8 多字节序列的字节均为负数，不会误判)
+    private static final ByteProcessor SKIP_WHITESPACE = value -> value >= 0 && value <= ' ';
+
+    // 旧版本的心跳包字段顺序固定为 type, timestamp, body，可按前缀直接识别
+    private static final byte[] LEGACY_HEARTBEAT_PREFIX =
+            "{\"type\":\"HEARTBEAT\"".getBytes(StandardCharsets.US_ASCII);
+
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
-        // 1. 读取 ByteBuf 中的所有字节转为 String
-        String jsonStr = in.toString(StandardCharsets.UTF_8);
-
-        if (jsonStr == null || jsonStr.trim().isEmpty()) {
+        if (!in.isReadable()) {
             return;
         }
 
         try {
-            // 2. 反序列化为 Message<Object> 对象
-            // 这里明确指定泛型为 Object，因为在拿到具体的 MessageType 之前，
-            // Jackson 只能把 body 解析成 LinkedHashMap (即 Object)
-            Message<Object> msg = JsonUtil.fromJson(jsonStr, new TypeReference<Message<Object>>() {});
-
-            // 3. 传递给下一个 Handler
-            out.add(msg);
+            if (FrameFormat.isTagged(in.getByte(in.readerIndex()))) {
+                decodeTagged(in, out, true);
+            } else {
+                Message<Object> msg = decodeLegacy(ctx, in);
+                // 传递给下一个 Handler
+                if (msg != null) {
+                    out.add(msg);
+                }
+            }
         } catch (Exception e) {
-            System.err.println("JSON Decode Error: " + jsonStr);
+            // 只有出错时才构造 String 用于打印
+            System.err.println("Message Decode Error: " + in.toString(StandardCharsets.UTF_8));
             e.printStackTrace();
             // 异常包直接丢弃，不中断连接
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 解码一个带帧头的帧，结果加入 out；BATCH 帧展开为其中的每条消息
+     * @param allowBatch 是否允许 BATCH (批量信封内不允许嵌套)
+     */
+    private void decodeTagged(ByteBuf in, List<Object> out, boolean allowBatch) {
+        if (in.readableBytes() < FrameFormat.HEADER_LENGTH) {
+            System.err.println("Frame too short for header: " + in.readableBytes() + " bytes. Dropped.");
+            return;
+        }
+
+        // 1. 读取帧头
+        byte first = in.readByte();
+        if ((first & FrameFormat.COMPRESSED) != 0) {
+            // 正常情况下 FrameCompressionCodec 已解压并清除标志位
+            System.err.println("Compressed frame reached MessageDecoder without FrameCompressionCodec. Dropped.");
+            return;
+        }
+        int typeCode = in.readUnsignedByte();
+        long timestamp = in.readLong();
+
+        MessageType type = MessageType.fromCode(typeCode);
+        if (type == null) {
+            System.err.println("Unknown message type tag: " + typeCode + ". Dropped.");
+            return;
+        }
+
+        if (type == MessageType.BATCH) {
+            if (!allowBatch) {
+                System.err.println("Nested BATCH frame. Dropped.");
+                return;
+            }
+            // 批量信封：逐条解码 [4字节长度][帧头][消息体]
+            while (in.readableBytes() >= 4) {
+                int length = in.readInt();
+                if (length < 0 || length > in.readableBytes()) {
+                    System.err.println("Corrupt BATCH item length: " + length + ". Rest of batch dropped.");
+                    return;
+                }
+                decodeTagged(in.readSlice(length), out, false);
+            }
+            return;
+        }
+
+        Message<Object> msg = new Message<>(type, null);
+        msg.setTimestamp(timestamp);
+
+        // 2. 无消息体的类型直接跳过；否则直接反序列化为该类型注册的具体类
+        if (type.hasBody() && in.isReadable()) {
+            Codec codec = FrameFormat.codecOf(first);
+            if (codec == null) {
+                System.err.println("Unknown body codec in frame header: " + first + ". Dropped.");
+                return;
+            }
+            msg.setBody(codec.decode(in, in.readerIndex(), in.readableBytes(), type.getBodyType()));
+        }
+        out.add(msg);
+    }
+
+    private Message<Object> decodeLegacy(ChannelHandlerContext ctx, ByteBuf in) {
+        // 1. 跳过前导空白，空帧直接丢弃
+        int start = in.forEachByte(SKIP_WHITESPACE);
+        if (start < 0) {
+            return null;
+        }
+
+        // 对端是旧版本客户端，之后回复它的消息也使用旧格式
+        ctx.channel().attr(FrameFormat.LEGACY_FRAMES).set(Boolean.TRUE);
+
+        // 2. 心跳包不需要反序列化，只用于刷新 IdleStateHandler 的计时
+        if (isLegacyHeartbeat(in, start)) {
+            return new Message<>(MessageType.HEARTBEAT, null);
+        }
+
+        // 3. 旧格式只能先把 body 解析成 LinkedHashMap，再按类型转换
+        Codec codec = Codec.detect(in, start);
+        Message<Object> msg = codec.decode(in, start, in.writerIndex() - start, LEGACY_MESSAGE_TYPE);
+        if (msg == null || msg.getType() == null) {
+            return null;
+        }
+        if (msg.getType().hasBody() && msg.getBody() != null) {
+            msg.setBody(JsonUtil.convert(msg.getBody(), msg.getType().getBodyType()));
+        } else {
+            msg.setBody(null);
+        }
+        return msg;
+    }
+
+    private static boolean isLegacyHeartbeat(ByteBuf in, int start) {
+        if (in.writerIndex() - start < LEGACY_HEARTBEAT_PREFIX.length) {
+            return false;
+        }
+        for (int i = 0; i < LEGACY_HEARTBEAT_PREFIX.length; i++) {
+            if (in.getByte(start + i) != LEGACY_HEARTBEAT_PREFIX[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,16 +1,21 @@
 package com.bit.examsystem.common.network;
 
 import com.bit.examsystem.common.message.Message;
-import com.bit.examsystem.common.util.JsonUtil;
+import com.bit.examsystem.common.message.MessageType;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
 
-import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 /**
  * 编码器：出站 Handler
- * 将 Message<?> 对象编码为：[4字节长度] + [JSON字节数组]
+ * 将 Message<?> 对象编码为：[4字节长度] + [帧头] + [消息体字节数组]
+ * 帧布局见 {@link FrameFormat}；消息体使用当前 Channel 协商的编码 (见 {@link Codec})，默认为 JSON。
+ *
+ * 只匹配 Message 类型；已经编码好的 ByteBuf 帧 (如广播时预编码的帧) 会原样透传给下一个 Handler。
+ * BATCH 消息把其中的每条消息编码进同一帧，减少帧数和写入次数。
  */
 public class MessageEncoder extends MessageToByteEncoder<Message<?>> {
 
@@ -19,17 +24,76 @@ public class MessageEncoder extends MessageToByteEncoder<Message<?>> {
         if (msg == null) {
             return;
         }
+        writeFrame(msg, out, FrameFormat.of(ctx.channel()));
+    }
 
-        // 1. 对象转 JSON 字符串
-        String jsonStr = JsonUtil.toJson(msg);
+    /**
+     * 将消息编码为一个完整的帧，供广播时一次编码、多次发送
+     * @param alloc 分配器
+     * @param msg 要编码的消息
+     * @param format 帧格式，只能发送给同一格式的 Channel
+     * @return 引用计数为 1 的帧，由调用者负责释放 (或交给 write 释放)
+     */
+    public static ByteBuf encodeFrame(ByteBufAllocator alloc, Message<?> msg, FrameFormat format) {
+        ByteBuf frame = alloc.ioBuffer();
+        try {
+            writeFrame(msg, frame, format);
+            return frame;
+        } catch (RuntimeException e) {
+            frame.release();
+            throw e;
+        }
+    }
 
-        // 2. 字符串转字节数组 (使用 UTF-8)
-        byte[] bytes = jsonStr.getBytes(StandardCharsets.UTF_8);
+    private static void writeFrame(Message<?> msg, ByteBuf out, FrameFormat format) {
+        if (format.legacy() && msg.getType() == MessageType.BATCH) {
+            // 旧版本客户端不认识 BATCH：拆成多个普通帧，仍然在同一次写入中发出
+            for (Message<?> item : batchItems(msg)) {
+                writeFrame(item, out, format);
+            }
+            return;
+        }
+
+        // 1. 预留长度头 (int 占 4 字节)
+        int lengthIndex = out.writerIndex();
+        out.writeInt(0);
 
-        // 3. 写入长度头 (int 占 4 字节)
-        out.writeInt(bytes.length);
+        if (format.legacy()) {
+            // 旧版本客户端：整个 Message 编码，没有帧头
+            format.codec().encode(msg, out);
+        } else {
+            writeTagged(msg, out, format);
+        }
+
+        // 4. 回填长度头
+        out.setInt(lengthIndex, out.writerIndex() - lengthIndex - 4);
+    }
+
+    private static void writeTagged(Message<?> msg, ByteBuf out, FrameFormat format) {
+        // 2. 帧头：版本|编码、类型标签、时间戳
+        out.writeByte(format.headerByte());
+        out.writeByte(msg.getType().getCode());
+        out.writeLong(msg.getTimestamp() != null ? msg.getTimestamp() : System.currentTimeMillis());
+
+        if (msg.getType() == MessageType.BATCH) {
+            // 3a. 批量信封：消息体为若干 [4字节长度][帧头][消息体]，不允许嵌套
+            for (Message<?> item : batchItems(msg)) {
+                if (item.getType() == MessageType.BATCH) {
+                    throw new IllegalArgumentException("Nested BATCH messages are not supported.");
+                }
+                int itemLengthIndex = out.writerIndex();
+                out.writeInt(0);
+                writeTagged(item, out, format);
+                out.setInt(itemLengthIndex, out.writerIndex() - itemLengthIndex - 4);
+            }
+        } else if (msg.getType().hasBody() && msg.getBody() != null) {
+            // 3b. 消息体直接编码写入 ByteBuf，省去 String 和 byte[] 两次拷贝；无消息体的类型不写入任何内容
+            format.codec().encode(msg.getBody(), out);
+        }
+    }
 
-        // 4. 写入内容主体
-        out.writeBytes(bytes);
+    @SuppressWarnings("unchecked")
+    private static List<Message<?>> batchItems(Message<?> batch) {
+        return batch.getBody() != null ? (List<Message<?>>) batch.getBody() : List.of();
     }
-}
\ No newline at end of file
+}
@@ -3,6 +3,7 @@ package com.bit.examsystem.common.network;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.timeout.IdleStateHandler;
 import java.util.concurrent.TimeUnit;
 
@@ -18,17 +19,32 @@ public abstract class ProtocolInitializer extends ChannelInitializer<SocketChann
     public static final int READER_IDLE_SECONDS = 30; // Server-side setting
     public static final int WRITER_IDLE_SECONDS = 10; // Client-side setting
 
+    // 单帧上限 64KB。大试卷不提高此上限，而是由 ExamPaperChunker 分片发送
+    public static final int MAX_FRAME_LENGTH = 65535;
+
+    // 合并 flush：读事件处理期间的 flush 推迟到 channelReadComplete，连续多少次 flush 后强制写出一次
+    // 可通过 -Dexam.net.explicitFlushAfterFlushes 调整，0 或负数表示不合并
+    public static final int EXPLICIT_FLUSH_AFTER_FLUSHES = Integer.getInteger("exam.net.explicitFlushAfterFlushes", 256);
+
     @Override
     protected void initChannel(SocketChannel ch) throws Exception {
+        // 0. flush 合并：位于 Pipeline 最前 (出站最后)，把一次读循环中的多次 flush 合并为一次写系统调用
+        if (EXPLICIT_FLUSH_AFTER_FLUSHES > 0) {
+            ch.pipeline().addLast(new FlushConsolidationHandler(EXPLICIT_FLUSH_AFTER_FLUSHES, true));
+        }
+
         // 1. 添加帧解码器，解决粘包/拆包问题
-        // maxFrameLength: 65535 (最大包长 64KB，根据试卷大小可调整)
+        // maxFrameLength: 65535 (最大包长 64KB，大试卷分片发送，见 ExamPaperChunker)
         // lengthFieldOffset: 0 (长度字段在最前面)
         // lengthFieldLength: 4 (长度字段占 4 字节)
         // lengthAdjustment: 0 (长度字段的值 = 内容的长度，不需要调整)
         // initialBytesToStrip: 4 (传递给后续 Handler 时，剥离掉长度字段，只保留 JSON 内容)
-        ch.pipeline().addLast(new LengthFieldBasedFrameDecoder(65535, 0, 4, 0, 4));
+        ch.pipeline().addLast(new LengthFieldBasedFrameDecoder(MAX_FRAME_LENGTH, 0, 4, 0, 4));
+
+        // 2. 帧压缩：出站时压缩大帧，入站时解压 (须位于帧解码器与消息编解码器之间)
+        ch.pipeline().addLast(new FrameCompressionCodec());
 
-        // 2. 添加我们自定义的编解码器
+        // 3. 添加我们自定义的编解码器
         ch.pipeline().addLast(new MessageEncoder());
         ch.pipeline().addLast(new MessageDecoder());
 
@@ -36,7 +52,7 @@ public abstract class ProtocolInitializer extends ChannelInitializer<SocketChann
         // Server will check for read idleness, client will check for write idleness.
         ch.pipeline().addLast(new IdleStateHandler(READER_IDLE_SECONDS, WRITER_IDLE_SECONDS, 0, TimeUnit.SECONDS));
 
-        // 3. 添加具体的业务 Handler (由子类实现)
+        // 4. 添加具体的业务 Handler (由子类实现)
         // 比如 Teacher 端添加 TeacherHandler，Student 端添加 StudentHandler
         addBusinessHandler(ch);
     }
@@ -0,0 +1,37 @@
+package com.bit.examsystem.common.network;
+
+import com.bit.examsystem.common.util.JsonUtil;
+import com.fasterxml.jackson.dataformat.smile.SmileConstants;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Smile 二进制编码 (Jackson 的二进制 JSON)
+ * 数据模型与 JSON 完全一致，但字段名/短字符串会被回引用，数字使用变长编码，
+ * 对题目 ID、选项前缀等大量重复的内容体积更小、解析更快。
+ */
+final class SmileCodec extends JacksonCodec {
+
+    SmileCodec() {
+        // 默认会写入 ":)\n" 头部，解码端据此识别格式
+        super(JsonUtil.createMapper(new SmileFactory()));
+    }
+
+    @Override
+    public String name() {
+        return "smile";
+    }
+
+    @Override
+    public int id() {
+        return 1;
+    }
+
+    @Override
+    public boolean matches(ByteBuf in, int index) {
+        return in.writerIndex() - index >= 3
+                && in.getByte(index) == SmileConstants.HEADER_BYTE_1
+                && in.getByte(index + 1) == SmileConstants.HEADER_BYTE_2
+                && in.getByte(index + 2) == SmileConstants.HEADER_BYTE_3;
+    }
+}
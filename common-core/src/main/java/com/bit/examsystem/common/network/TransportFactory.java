@@ -0,0 +1,144 @@
+package com.bit.examsystem.common.network;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+/**
+ * 传输层工厂
+ * Linux 上优先使用 epoll 原生传输 (更少的 GC 和系统调用，支持 SO_REUSEPORT 等选项)，不可用时回退到 NIO。
+ *
+ * 可通过系统属性调整：
+ * <ul>
+ *     <li>-Dexam.net.transport=auto|epoll|nio：默认 auto</li>
+ *     <li>-Dexam.net.reusePort=true：服务端监听端口开启 SO_REUSEPORT (仅 epoll)</li>
+ *     <li>-Dexam.net.quickAck=true：连接开启 TCP_QUICKACK (仅 epoll)</li>
+ * </ul>
+ */
+public final class TransportFactory {
+
+    public static final String EPOLL = "epoll";
+    public static final String NIO = "nio";
+
+    private static final boolean REUSE_PORT = Boolean.getBoolean("exam.net.reusePort");
+    private static final boolean QUICK_ACK = Boolean.getBoolean("exam.net.quickAck");
+
+    private final boolean epoll;
+
+    private TransportFactory(boolean epoll) {
+        this.epoll = epoll;
+    }
+
+    private static class SingletonHolder {
+        private static final TransportFactory INSTANCE = select(System.getProperty("exam.net.transport", "auto"));
+    }
+
+    /**
+     * @return 按 -Dexam.net.transport 选定的传输 (首次调用时选定并打印日志)
+     */
+    public static TransportFactory getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    /**
+     * 按名称选择传输
+     * @param name auto、epoll 或 nio；要求 epoll 但不可用时回退到 NIO 并打印原因
+     */
+    public static TransportFactory select(String name) {
+        if (NIO.equalsIgnoreCase(name)) {
+            System.out.println("[Transport] Using NIO (configured).");
+            return new TransportFactory(false);
+        }
+        if (Epoll.isAvailable()) {
+            System.out.println("[Transport] Using native epoll.");
+            return new TransportFactory(true);
+        }
+        String cause = String.valueOf(Epoll.unavailabilityCause());
+        if (EPOLL.equalsIgnoreCase(name)) {
+            System.err.println("[Transport] epoll requested but unavailable, falling back to NIO: " + cause);
+        } else {
+            System.out.println("[Transport] Using NIO (epoll unavailable: " + cause + ").");
+        }
+        return new TransportFactory(false);
+    }
+
+    public String name() {
+        return epoll ? EPOLL : NIO;
+    }
+
+    public boolean isEpoll() {
+        return epoll;
+    }
+
+    /**
+     * @param threads 线程数，0 表示 Netty 默认值 (CPU 核数 * 2)
+     */
+    public EventLoopGroup newEventLoopGroup(int threads) {
+        return epoll ? new EpollEventLoopGroup(threads) : new NioEventLoopGroup(threads);
+    }
+
+    public Class<? extends ServerChannel> serverChannelClass() {
+        return epoll ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+    }
+
+    public Class<? extends SocketChannel> socketChannelClass() {
+        return epoll ? EpollSocketChannel.class : NioSocketChannel.class;
+    }
+
+    /**
+     * SO_REUSEPORT 只有 epoll 支持，多个 acceptor 绑定同一端口时需要
+     */
+    public boolean supportsReusePort() {
+        return epoll;
+    }
+
+    /**
+     * 设置服务端的 Channel 类型及 epoll 专有选项
+     */
+    public ServerBootstrap configure(ServerBootstrap bootstrap) {
+        return configure(bootstrap, REUSE_PORT);
+    }
+
+    /**
+     * 设置服务端的 Channel 类型及 epoll 专有选项
+     * @param reusePort 是否开启 SO_REUSEPORT (NIO 下忽略；-Dexam.net.reusePort=true 时总是开启)
+     */
+    public ServerBootstrap configure(ServerBootstrap bootstrap, boolean reusePort) {
+        bootstrap.channel(serverChannelClass());
+        if (epoll) {
+            if (reusePort || REUSE_PORT) {
+                bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+            }
+            if (QUICK_ACK) {
+                bootstrap.childOption(EpollChannelOption.TCP_QUICKACK, true);
+            }
+        }
+        return bootstrap;
+    }
+
+    /**
+     * 设置客户端的 Channel 类型及 epoll 专有选项
+     */
+    public Bootstrap configure(Bootstrap bootstrap) {
+        bootstrap.channel(socketChannelClass());
+        if (epoll && QUICK_ACK) {
+            bootstrap.option(EpollChannelOption.TCP_QUICKACK, true);
+        }
+        return bootstrap;
+    }
+
+    @Override
+    public String toString() {
+        return name();
+    }
+}
@@ -1,5 +1,6 @@
 package com.bit.examsystem.common.util;
 
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
@@ -15,22 +16,30 @@ import java.io.IOException;
  */
 public class JsonUtil {
 
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final ObjectMapper objectMapper = createMapper(new JsonFactory());
+
+    /**
+     * 创建一个与本工具类配置一致的 ObjectMapper
+     * 传入不同的 JsonFactory 即可得到其他数据格式 (如 Smile) 的 Mapper，保证各编码行为一致
+     */
+    public static ObjectMapper createMapper(JsonFactory factory) {
+        ObjectMapper mapper = new ObjectMapper(factory);
 
-    static {
         // --- 核心配置 ---
 
         // 1. 注册 Java 8 时间模块 (支持 LocalDate, LocalDateTime 等)
-        objectMapper.registerModule(new JavaTimeModule());
+        mapper.registerModule(new JavaTimeModule());
 
         // 2. 禁用"将日期写为时间戳"，改为 ISO-8601 字符串格式
-        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
 
         // 3. 反序列化时，遇到 JSON 中存在但 Java 类中不存在的字段，不报错（增强兼容性）
-        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
         // 4. 允许序列化空对象 (即没有字段的对象)
-        objectMapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+        mapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+
+        return mapper;
     }
 
     /**
@@ -0,0 +1,133 @@
+package com.bit.examsystem.common.network;
+
+import com.bit.examsystem.common.dto.ExamPaperDTO;
+import com.bit.examsystem.common.dto.QuestionDTO;
+import com.bit.examsystem.common.message.Message;
+import com.bit.examsystem.common.message.MessageType;
+import com.bit.examsystem.common.model.QuestionType;
+import com.bit.examsystem.common.model.StudentAnswer;
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 各编码的体积与 CPU 开销对比 (手动运行 main，不参与单元测试)
+ * 场景：EXAM_START (100 道题的试卷) 和 ANSWER_SUBMIT (100 个答案)，以及整帧 deflate 压缩后的体积
+ */
+public class CodecBenchmark {
+
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 10_000;
+    private static final TypeReference<Message<Object>> MESSAGE_TYPE = new TypeReference<>() {};
+
+    public static void main(String[] args) {
+        run("EXAM_START", new Message<>(MessageType.EXAM_START, createPaper(100)));
+        run("ANSWER_SUBMIT", new Message<>(MessageType.ANSWER_SUBMIT, createAnswers(100)));
+        compress("EXAM_START", new Message<>(MessageType.EXAM_START, createPaper(100)));
+        compress("ANSWER_SUBMIT", new Message<>(MessageType.ANSWER_SUBMIT, createAnswers(100)));
+    }
+
+    private static void compress(String scenario, Message<?> message) {
+        for (Codec codec : Codec.SUPPORTED) {
+            FrameFormat format = new FrameFormat(codec, false);
+            for (int i = 0; i < WARMUP; i++) {
+                FrameCompressionCodec.compressFrame(PooledByteBufAllocator.DEFAULT,
+                        MessageEncoder.encodeFrame(PooledByteBufAllocator.DEFAULT, message, format)).release();
+            }
+
+            int rawSize = 0;
+            int compressedSize = 0;
+            long compressNanos = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                ByteBuf frame = MessageEncoder.encodeFrame(PooledByteBufAllocator.DEFAULT, message, format);
+                rawSize = frame.readableBytes();
+                long t0 = System.nanoTime();
+                frame = FrameCompressionCodec.compressFrame(PooledByteBufAllocator.DEFAULT, frame);
+                compressNanos += System.nanoTime() - t0;
+                compressedSize = frame.readableBytes();
+                frame.release();
+            }
+
+            System.out.printf("%-14s %-6s %8d -> %6d bytes (%.1fx)   deflate %8.2f us%n",
+                    scenario, codec.name(), rawSize, compressedSize, (double) rawSize / compressedSize,
+                    compressNanos / 1e3 / ITERATIONS);
+        }
+    }
+
+    private static void run(String scenario, Message<?> message) {
+        for (Codec codec : Codec.SUPPORTED) {
+            ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer();
+            try {
+                codec.encode(message, buf);
+                int size = buf.readableBytes();
+
+                for (int i = 0; i < WARMUP; i++) {
+                    roundTrip(codec, message, buf);
+                }
+
+                long encodeNanos = 0;
+                long decodeNanos = 0;
+                for (int i = 0; i < ITERATIONS; i++) {
+                    buf.clear();
+                    long t0 = System.nanoTime();
+                    codec.encode(message, buf);
+                    long t1 = System.nanoTime();
+                    codec.decode(buf, buf.readerIndex(), buf.readableBytes(), MESSAGE_TYPE);
+                    long t2 = System.nanoTime();
+                    encodeNanos += t1 - t0;
+                    decodeNanos += t2 - t1;
+                }
+
+                System.out.printf("%-14s %-6s %8d bytes   encode %8.2f us   decode %8.2f us%n",
+                        scenario, codec.name(), size,
+                        encodeNanos / 1e3 / ITERATIONS, decodeNanos / 1e3 / ITERATIONS);
+            } finally {
+                buf.release();
+            }
+        }
+    }
+
+    private static void roundTrip(Codec codec, Message<?> message, ByteBuf buf) {
+        buf.clear();
+        codec.encode(message, buf);
+        codec.decode(buf, buf.readerIndex(), buf.readableBytes(), MESSAGE_TYPE);
+    }
+
+    private static ExamPaperDTO createPaper(int questionCount) {
+        ExamPaperDTO paper = new ExamPaperDTO();
+        paper.setExamId(UUID.randomUUID().toString());
+        paper.setTitle("2025 年秋季学期 Java 程序设计期末考试");
+        paper.setDurationMinutes(120);
+        paper.setStartTime(System.currentTimeMillis());
+
+        List<QuestionDTO> questions = new ArrayList<>();
+        for (int i = 0; i < questionCount; i++) {
+            QuestionDTO q = new QuestionDTO();
+            q.setId(UUID.randomUUID().toString());
+            q.setExamId(paper.getExamId());
+            q.setTitle("第 " + (i + 1) + " 题：下列关于 Java 虚拟机内存模型与垃圾回收机制的说法中，哪一项是正确的？");
+            q.setType(i % 4 == 3 ? QuestionType.MULTI_CHOICE : QuestionType.SINGLE_CHOICE);
+            q.setOptions(List.of("A. 堆内存由所有线程共享", "B. 栈内存由所有线程共享",
+                    "C. 方法区只存放静态变量", "D. 程序计数器会发生内存溢出"));
+            q.setScore(1);
+            questions.add(q);
+        }
+        paper.setQuestions(questions);
+        return paper;
+    }
+
+    private static List<StudentAnswer> createAnswers(int count) {
+        List<StudentAnswer> answers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            StudentAnswer answer = new StudentAnswer();
+            answer.setQuestionId(UUID.randomUUID().toString());
+            answer.setAnswer(i % 4 == 3 ? "ABD" : "C");
+            answers.add(answer);
+        }
+        return answers;
+    }
+}
@@ -1,14 +1,24 @@
 package com.bit.examsystem.common.network;
 
+import com.bit.examsystem.common.dto.ExamPaperDTO;
+import com.bit.examsystem.common.dto.QuestionDTO;
+import com.bit.examsystem.common.message.LoginResponse;
 import com.bit.examsystem.common.message.Message;
 import com.bit.examsystem.common.message.MessageType;
+import com.bit.examsystem.common.model.QuestionType;
 import com.bit.examsystem.common.model.Student;
 import com.bit.examsystem.common.util.JsonUtil;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class CodecTest {
@@ -42,11 +52,11 @@ class CodecTest {
 
         // 验证长度头 (前4个字节)
         int length = encodedByteBuf.readInt();
-        // 剩下的字节应该是 JSON 字符串
+        // 剩下的字节是帧头 + JSON 消息体
         int jsonByteLength = encodedByteBuf.readableBytes();
         assertEquals(length, jsonByteLength, "长度头记录的长度应等于实际剩余字节数");
 
-        // 此时 encodedByteBuf 的 readerIndex 已经跳过了前4个字节，剩下的就是纯 JSON
+        // 此时 encodedByteBuf 的 readerIndex 已经跳过了前4个字节
         // 为了后续解码测试，我们需要重置 readerIndex 或者重新包装
         // 这里我们简单粗暴一点：把刚才读出来的数据（重置读指针后）重新喂给 Inbound
         encodedByteBuf.resetReaderIndex();
@@ -64,16 +74,12 @@ class CodecTest {
         // 验证外层属性
         assertEquals(MessageType.LOGIN_REQ, decodedMsg.getType());
 
-        // 验证 Body (关键点：验证泛型擦除后的处理)
+        // 验证 Body：解码器按帧头中的类型标签直接反序列化为具体类型
         Object body = decodedMsg.getBody();
         System.out.println("解码后的 Body 类型: " + body.getClass().getName());
+        assertInstanceOf(Student.class, body);
 
-        // Jackson 默认将未知泛型解为 LinkedHashMap
-        assertTrue(body instanceof java.util.Map);
-
-        // ==================== 测试类型转换 ====================
-        // 使用我们在 JsonUtil 中添加的 convert 方法恢复对象
-        Student decodedStudent = JsonUtil.convert(body, Student.class);
+        Student decodedStudent = (Student) body;
 
         assertNotNull(decodedStudent);
         assertEquals("2024001", decodedStudent.getId());
@@ -81,4 +87,294 @@ class CodecTest {
 
         System.out.println("测试通过！对象成功还原： " + decodedStudent);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testRoundTripWithPooledDirectBuffer() {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new LengthFieldBasedFrameDecoder(65535, 0, 4, 0, 4),
+                new MessageDecoder(),
+                new MessageEncoder()
+        );
+        // 使用池化分配器，MessageToByteEncoder 默认优先分配 direct buffer
+        channel.config().setAllocator(PooledByteBufAllocator.DEFAULT);
+
+        Student student = new Student();
+        student.setId("2024002");
+        student.setName("张三");
+
+        assertTrue(channel.writeOutbound(new Message<>(MessageType.LOGIN_REQ, student)));
+        ByteBuf encoded = channel.readOutbound();
+        assertTrue(encoded.isDirect(), "编码结果应为 direct buffer");
+        assertFalse(encoded.hasArray());
+
+        // 解码路径走 ByteBufInputStream，不经过 String
+        assertTrue(channel.writeInbound(encoded));
+        Message<Object> decodedMsg = channel.readInbound();
+        assertNotNull(decodedMsg);
+        assertEquals(MessageType.LOGIN_REQ, decodedMsg.getType());
+
+        Student decodedStudent = (Student) decodedMsg.getBody();
+        assertEquals("2024002", decodedStudent.getId());
+        assertEquals("张三", decodedStudent.getName());
+
+        // 帧已被 MessageDecoder 释放，不能泄漏
+        assertEquals(0, encoded.refCnt());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void testHeartbeatAndBlankFrames() {
+        EmbeddedChannel channel = new EmbeddedChannel(new MessageDecoder());
+
+        // 空白帧直接丢弃
+        ByteBuf blank = PooledByteBufAllocator.DEFAULT.directBuffer();
+        blank.writeCharSequence(" \r\n\t ", StandardCharsets.UTF_8);
+        assertFalse(channel.writeInbound(blank));
+        assertEquals(0, blank.refCnt());
+
+        // 旧版本客户端的心跳包按前缀识别，不解析 body
+        String heartbeatJson = JsonUtil.toJson(new Message<>(MessageType.HEARTBEAT, "ping"));
+        assertTrue(channel.writeInbound(Unpooled.copiedBuffer(heartbeatJson, StandardCharsets.UTF_8)));
+        Message<Object> heartbeat = channel.readInbound();
+        assertEquals(MessageType.HEARTBEAT, heartbeat.getType());
+        assertNull(heartbeat.getBody());
+
+        // 损坏的包被丢弃，连接不受影响
+        assertFalse(channel.writeInbound(Unpooled.copiedBuffer("{\"type\":", StandardCharsets.UTF_8)));
+        assertTrue(channel.isActive());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void testPreEncodedFramePassesThroughEncoder() {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new LengthFieldBasedFrameDecoder(65535, 0, 4, 0, 4),
+                new MessageDecoder(),
+                new MessageEncoder()
+        );
+
+        Message<String> original = new Message<>(MessageType.EXAM_WAITING, "请稍候");
+        ByteBuf frame = MessageEncoder.encodeFrame(PooledByteBufAllocator.DEFAULT, original,
+                new FrameFormat(Codec.JSON, false));
+
+        // 与广播时相同：每个 Channel 写入同一帧的 retainedDuplicate()
+        assertTrue(channel.writeOutbound(frame.retainedDuplicate()));
+        ByteBuf written = channel.readOutbound();
+        assertEquals(frame.readableBytes(), written.readableBytes(), "预编码帧应原样透传");
+
+        assertTrue(channel.writeInbound(written));
+        Message<Object> decoded = channel.readInbound();
+        assertEquals(MessageType.EXAM_WAITING, decoded.getType());
+        assertEquals("请稍候", decoded.getBody());
+
+        assertTrue(frame.release());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void testNegotiatedSmileCodecRoundTrip() {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new LengthFieldBasedFrameDecoder(65535, 0, 4, 0, 4),
+                new MessageDecoder(),
+                new MessageEncoder()
+        );
+
+        // 新客户端声明 smile，旧客户端不声明
+        assertSame(Codec.SMILE, Codec.negotiate(Codec.supportedNames()));
+        assertSame(Codec.JSON, Codec.negotiate(null));
+        assertSame(Codec.JSON, Codec.negotiate(List.of("json")));
+
+        Student student = new Student();
+        student.setId("2024003");
+        student.setName("李四");
+        Message<Student> original = new Message<>(MessageType.LOGIN_REQ, student);
+
+        // 握手前使用 JSON
+        assertTrue(channel.writeOutbound(original));
+        ByteBuf jsonFrame = channel.readOutbound();
+        int jsonLength = jsonFrame.getInt(0);
+        jsonFrame.release();
+
+        // 握手后切换为 Smile
+        channel.attr(Codec.CHANNEL_CODEC).set(Codec.SMILE);
+        assertTrue(channel.writeOutbound(original));
+        ByteBuf smileFrame = channel.readOutbound();
+        assertSame(Codec.SMILE, FrameFormat.codecOf(smileFrame.getByte(4)), "帧头应标明 Smile 编码");
+        assertTrue(Codec.SMILE.matches(smileFrame, 4 + FrameFormat.HEADER_LENGTH), "消息体应以 Smile 头部开始");
+        assertTrue(smileFrame.getInt(0) < jsonLength, "Smile 编码应比 JSON 更紧凑");
+
+        // 解码端按帧头识别编码，无需知道对方协商结果
+        assertTrue(channel.writeInbound(smileFrame));
+        Message<Object> decoded = channel.readInbound();
+        assertEquals(MessageType.LOGIN_REQ, decoded.getType());
+        Student decodedStudent = (Student) decoded.getBody();
+        assertEquals("2024003", decodedStudent.getId());
+        assertEquals("李四", decodedStudent.getName());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void testTaggedHeartbeatHasNoBody() {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new LengthFieldBasedFrameDecoder(65535, 0, 4, 0, 4),
+                new MessageDecoder(),
+                new MessageEncoder()
+        );
+
+        // HEARTBEAT 没有消息体，即使调用方带了 body 也不会写入
+        Message<String> heartbeat = new Message<>(MessageType.HEARTBEAT, "ping");
+        heartbeat.setTimestamp(123456789L);
+        assertTrue(channel.writeOutbound(heartbeat));
+        ByteBuf frame = channel.readOutbound();
+        assertEquals(FrameFormat.HEADER_LENGTH, frame.getInt(0), "心跳帧只有帧头");
+        assertEquals(MessageType.HEARTBEAT.getCode(), frame.getUnsignedByte(5));
+
+        assertTrue(channel.writeInbound(frame));
+        Message<Object> decoded = channel.readInbound();
+        assertEquals(MessageType.HEARTBEAT, decoded.getType());
+        assertEquals(123456789L, decoded.getTimestamp());
+        assertNull(decoded.getBody());
+        assertNull(channel.attr(FrameFormat.LEGACY_FRAMES).get());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void testLegacyFrameSwitchesChannelToLegacyFormat() {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new LengthFieldBasedFrameDecoder(65535, 0, 4, 0, 4),
+                new MessageDecoder(),
+                new MessageEncoder()
+        );
+
+        // 旧版本客户端：整个 Message 以 JSON 编码，没有帧头
+        Student student = new Student();
+        student.setId("2024004");
+        student.setName("王五");
+        byte[] json = JsonUtil.toJson(new Message<>(MessageType.LOGIN_REQ, student)).getBytes(StandardCharsets.UTF_8);
+        ByteBuf legacyFrame = Unpooled.buffer();
+        legacyFrame.writeInt(json.length).writeBytes(json);
+
+        assertTrue(channel.writeInbound(legacyFrame));
+        Message<Object> decoded = channel.readInbound();
+        assertEquals(MessageType.LOGIN_REQ, decoded.getType());
+        assertEquals("2024004", ((Student) decoded.getBody()).getId());
+        assertEquals(Boolean.TRUE, channel.attr(FrameFormat.LEGACY_FRAMES).get());
+
+        // 之后发给它的消息也使用旧格式，旧客户端能直接解析
+        assertTrue(channel.writeOutbound(new Message<>(MessageType.EXAM_WAITING, "请稍候")));
+        ByteBuf reply = channel.readOutbound();
+        assertEquals('{', reply.getByte(4));
+        reply.skipBytes(4);
+        Message<Object> legacyReply = JsonUtil.fromJson(reply.toString(StandardCharsets.UTF_8), Message.class);
+        assertEquals(MessageType.EXAM_WAITING, legacyReply.getType());
+        assertEquals("请稍候", legacyReply.getBody());
+        reply.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void testLargeFramesAreCompressedAndSmallOnesStayRaw() {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new LengthFieldBasedFrameDecoder(65535, 0, 4, 0, 4),
+                new FrameCompressionCodec(),
+                new MessageDecoder(),
+                new MessageEncoder()
+        );
+
+        // 选项和题目 ID 大量重复的试卷
+        ExamPaperDTO paper = new ExamPaperDTO();
+        paper.setExamId("EXAM-ZIP");
+        paper.setTitle("压缩测试");
+        List<QuestionDTO> questions = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            QuestionDTO q = new QuestionDTO();
+            q.setId("EXAM-ZIP-Q" + i);
+            q.setTitle("下列说法中正确的是？");
+            q.setType(QuestionType.SINGLE_CHOICE);
+            q.setOptions(List.of("A. 正确", "B. 错误", "C. 都对", "D. 都不对"));
+            q.setScore(2);
+            questions.add(q);
+        }
+        paper.setQuestions(questions);
+        Message<ExamPaperDTO> original = new Message<>(MessageType.EXAM_START, paper);
+
+        ByteBuf raw = MessageEncoder.encodeFrame(PooledByteBufAllocator.DEFAULT, original, new FrameFormat(Codec.JSON, false));
+        int rawLength = raw.readableBytes();
+        raw.release();
+
+        assertTrue(channel.writeOutbound(original));
+        ByteBuf compressed = channel.readOutbound();
+        assertTrue(FrameCompressionCodec.isCompressed(compressed.getByte(4)), "大帧应置压缩标志");
+        assertTrue(compressed.readableBytes() * 3 < rawLength, "重复文本应至少压缩到三分之一");
+
+        assertTrue(channel.writeInbound(compressed));
+        Message<Object> decoded = channel.readInbound();
+        assertEquals(MessageType.EXAM_START, decoded.getType());
+        assertEquals(paper, decoded.getBody());
+
+        // 心跳不压缩
+        assertTrue(channel.writeOutbound(new Message<>(MessageType.HEARTBEAT, null)));
+        ByteBuf heartbeat = channel.readOutbound();
+        assertFalse(FrameCompressionCodec.isCompressed(heartbeat.getByte(4)));
+        heartbeat.release();
+
+        // 广播时预压缩的帧原样透传，不会重复压缩
+        ByteBuf frame = FrameCompressionCodec.compressFrame(PooledByteBufAllocator.DEFAULT,
+                MessageEncoder.encodeFrame(PooledByteBufAllocator.DEFAULT, original, new FrameFormat(Codec.JSON, false)));
+        assertTrue(channel.writeOutbound(frame.retainedDuplicate()));
+        ByteBuf written = channel.readOutbound();
+        assertEquals(frame.readableBytes(), written.readableBytes());
+        assertTrue(channel.writeInbound(written));
+        assertEquals(paper, ((Message<?>) channel.readInbound()).getBody());
+        assertTrue(frame.release());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void testBatchEnvelopeRoundTrip() {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new LengthFieldBasedFrameDecoder(65535, 0, 4, 0, 4),
+                new MessageDecoder(),
+                new MessageEncoder()
+        );
+
+        List<Message<?>> items = List.of(
+                new Message<>(MessageType.LOGIN_RESP, new LoginResponse(true, "ok", Codec.JSON.name())),
+                new Message<>(MessageType.EXAM_WAITING, "请稍候"),
+                new Message<>(MessageType.HEARTBEAT, null));
+
+        // 三条消息编码为一帧
+        assertTrue(channel.writeOutbound(new Message<>(MessageType.BATCH, items)));
+        ByteBuf frame = channel.readOutbound();
+        assertEquals(MessageType.BATCH.getCode(), frame.getUnsignedByte(5));
+        assertNull(channel.readOutbound(), "批量消息只应产生一帧");
+
+        // 解码后逐条交给下一个 Handler，顺序不变
+        assertTrue(channel.writeInbound(frame));
+        Message<Object> first = channel.readInbound();
+        Message<Object> second = channel.readInbound();
+        Message<Object> third = channel.readInbound();
+        assertNull(channel.readInbound());
+        assertEquals(MessageType.LOGIN_RESP, first.getType());
+        assertTrue(((LoginResponse) first.getBody()).isSuccess());
+        assertEquals("请稍候", second.getBody());
+        assertEquals(MessageType.HEARTBEAT, third.getType());
+        assertNull(third.getBody());
+
+        // 旧版本客户端不认识 BATCH：拆成多个旧格式帧，仍在同一个 ByteBuf 中写出
+        channel.attr(FrameFormat.LEGACY_FRAMES).set(Boolean.TRUE);
+        assertTrue(channel.writeOutbound(new Message<>(MessageType.BATCH, items)));
+        ByteBuf legacy = channel.readOutbound();
+        assertEquals('{', legacy.getByte(4));
+        assertTrue(channel.writeInbound(legacy));
+        assertEquals(MessageType.LOGIN_RESP, ((Message<?>) channel.readInbound()).getType());
+        assertEquals(MessageType.EXAM_WAITING, ((Message<?>) channel.readInbound()).getType());
+        assertEquals(MessageType.HEARTBEAT, ((Message<?>) channel.readInbound()).getType());
+        assertFalse(channel.finish());
+
+        // 不允许嵌套
+        EmbeddedChannel nested = new EmbeddedChannel(new MessageEncoder());
+        assertThrows(Exception.class, () -> nested.writeOutbound(
+                new Message<>(MessageType.BATCH, List.of(new Message<>(MessageType.BATCH, List.of())))));
+    }
+}
@@ -0,0 +1,124 @@
+package com.bit.examsystem.common.network;
+
+import com.bit.examsystem.common.dto.ExamChunkDTO;
+import com.bit.examsystem.common.dto.ExamPaperDTO;
+import com.bit.examsystem.common.dto.QuestionDTO;
+import com.bit.examsystem.common.message.Message;
+import com.bit.examsystem.common.message.MessageType;
+import com.bit.examsystem.common.model.QuestionType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExamPaperChunkerTest {
+
+    /**
+     * 200 道长题干的试卷，一次性编码会超过 64KB
+     */
+    private static ExamPaperDTO largePaper() {
+        ExamPaperDTO paper = new ExamPaperDTO();
+        paper.setExamId("EXAM-LARGE");
+        paper.setTitle("期末考试");
+        paper.setDurationMinutes(120);
+        paper.setStartTime(System.currentTimeMillis());
+        List<QuestionDTO> questions = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            QuestionDTO q = new QuestionDTO();
+            q.setId("Q" + i);
+            q.setExamId(paper.getExamId());
+            q.setTitle("第 " + i + " 题：" + "这是一段很长的题干，用于模拟真实试卷中的材料阅读题。".repeat(10));
+            q.setType(QuestionType.SINGLE_CHOICE);
+            q.setOptions(List.of("A. 选项一的描述文字", "B. 选项二的描述文字", "C. 选项三的描述文字", "D. 选项四的描述文字"));
+            q.setScore(1);
+            questions.add(q);
+        }
+        paper.setQuestions(questions);
+        return paper;
+    }
+
+    private static int frameLength(Message<?> message) {
+        ByteBuf frame = MessageEncoder.encodeFrame(ByteBufAllocator.DEFAULT, message, new FrameFormat(Codec.JSON, false));
+        try {
+            return frame.readableBytes() - 4;
+        } finally {
+            frame.release();
+        }
+    }
+
+    @Test
+    void testLargePaperIsSplitIntoBoundedChunks() {
+        ExamPaperDTO paper = largePaper();
+        assertTrue(frameLength(new Message<>(MessageType.EXAM_START, paper)) > ProtocolInitializer.MAX_FRAME_LENGTH,
+                "整卷一次性发送应超过单帧上限");
+
+        ExamPaperDTO header = ExamPaperChunker.header(paper);
+        assertEquals(200, header.getQuestionCount());
+        assertTrue(header.getQuestions().isEmpty());
+
+        List<ExamChunkDTO> chunks = ExamPaperChunker.split(paper, ExamPaperChunker.DEFAULT_CHUNK_BYTES);
+        assertTrue(chunks.size() > 1);
+        for (int i = 0; i < chunks.size(); i++) {
+            ExamChunkDTO chunk = chunks.get(i);
+            assertEquals(i, chunk.getSeq());
+            assertEquals(i == chunks.size() - 1, chunk.isLast());
+            int length = frameLength(new Message<>(MessageType.EXAM_CHUNK, chunk));
+            assertTrue(length <= ExamPaperChunker.DEFAULT_CHUNK_BYTES + FrameFormat.HEADER_LENGTH + 128,
+                    "分片 " + i + " 超出字节预算: " + length);
+        }
+        assertEquals(ExamPaperChunker.checksum(paper.getQuestions()), chunks.get(chunks.size() - 1).getChecksum());
+    }
+
+    @Test
+    void testAssemblerRebuildsPaperIncrementally() {
+        ExamPaperDTO paper = largePaper();
+        ExamPaperDTO header = ExamPaperChunker.header(paper);
+        assertTrue(ExamPaperAssembler.isChunked(header));
+        assertFalse(ExamPaperAssembler.isChunked(paper));
+
+        ExamPaperAssembler assembler = new ExamPaperAssembler(header);
+        List<QuestionDTO> rebuilt = new ArrayList<>();
+        for (ExamChunkDTO chunk : ExamPaperChunker.split(paper, 4096)) {
+            assertFalse(assembler.isComplete());
+            rebuilt.addAll(assembler.accept(chunk));
+        }
+        assertTrue(assembler.isComplete());
+        assertEquals(paper.getQuestions(), rebuilt);
+    }
+
+    @Test
+    void testAssemblerRejectsOutOfOrderAndCorruptChunks() {
+        ExamPaperDTO paper = largePaper();
+        List<ExamChunkDTO> chunks = ExamPaperChunker.split(paper, 4096);
+
+        // 乱序
+        ExamPaperAssembler outOfOrder = new ExamPaperAssembler(ExamPaperChunker.header(paper));
+        assertThrows(IllegalStateException.class, () -> outOfOrder.accept(chunks.get(1)));
+
+        // 内容被篡改，最后一片校验失败
+        chunks.get(0).getQuestions().get(0).setTitle("被篡改的题干");
+        ExamPaperAssembler corrupt = new ExamPaperAssembler(ExamPaperChunker.header(paper));
+        for (int i = 0; i < chunks.size() - 1; i++) {
+            corrupt.accept(chunks.get(i));
+        }
+        assertThrows(IllegalStateException.class, () -> corrupt.accept(chunks.get(chunks.size() - 1)));
+        assertFalse(corrupt.isComplete());
+    }
+
+    @Test
+    void testEmptyPaperStillSendsLastChunk() {
+        ExamPaperDTO paper = new ExamPaperDTO();
+        paper.setExamId("EXAM-EMPTY");
+        List<ExamChunkDTO> chunks = ExamPaperChunker.split(paper, 4096);
+        assertEquals(1, chunks.size());
+        assertTrue(chunks.get(0).isLast());
+
+        ExamPaperAssembler assembler = new ExamPaperAssembler(ExamPaperChunker.header(paper));
+        assertTrue(assembler.accept(chunks.get(0)).isEmpty());
+        assertTrue(assembler.isComplete());
+    }
+}
@@ -0,0 +1,215 @@
+package com.bit.examsystem.common.network;
+
+import com.bit.examsystem.common.message.LoginResponse;
+import com.bit.examsystem.common.message.Message;
+import com.bit.examsystem.common.message.MessageType;
+import com.bit.examsystem.common.model.Student;
+import com.bit.examsystem.common.model.StudentAnswer;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.flush.FlushConsolidationHandler;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 登录波次下服务端的 flush 次数 (手动运行 main，不参与单元测试)
+ *
+ * N 个客户端同时连接，每个客户端把 LOGIN_REQ 和 ANSWER_SUBMIT 一次写出；
+ * 服务端对 LOGIN_REQ 回复 LOGIN_RESP + EXAM_WAITING，对 ANSWER_SUBMIT 回复 RESULT_PUB (代替回执)。
+ * 在 Pipeline 最前面统计真正到达传输层的 flush 与帧数，每次 flush 对应一次 write/writev 系统调用。
+ *
+ * 三种写法：
+ * <ul>
+ *     <li>flush-each：每条回复 writeAndFlush，不合并 (旧行为)</li>
+ *     <li>consolidated：回复只 write，channelReadComplete 时 flush，经 FlushConsolidationHandler 合并</li>
+ *     <li>batch：在此基础上把同一轮读的回复打包为一条 BATCH 消息</li>
+ * </ul>
+ *
+ * 用法：FlushConsolidationBenchmark [客户端数，默认 500] [轮数，默认 3]
+ */
+public class FlushConsolidationBenchmark {
+
+    private enum Mode { FLUSH_EACH, CONSOLIDATED, BATCH }
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        TransportFactory transport = TransportFactory.getInstance();
+
+        for (Mode mode : Mode.values()) {
+            run(transport, mode, clients, 0); // 预热
+            for (int round = 0; round < rounds; round++) {
+                run(transport, mode, clients, round + 1);
+            }
+        }
+    }
+
+    private static void run(TransportFactory transport, Mode mode, int clients, int round) throws InterruptedException {
+        EventLoopGroup bossGroup = transport.newEventLoopGroup(1);
+        EventLoopGroup workerGroup = transport.newEventLoopGroup(0);
+        EventLoopGroup clientGroup = transport.newEventLoopGroup(0);
+        FlushCounter counter = new FlushCounter();
+        try {
+            ServerBootstrap server = new ServerBootstrap();
+            transport.configure(server)
+                    .group(bossGroup, workerGroup)
+                    .option(ChannelOption.SO_BACKLOG, clients)
+                    .childHandler(new ProtocolInitializer() {
+                        @Override
+                        protected void addBusinessHandler(SocketChannel ch) {
+                            if (mode == Mode.FLUSH_EACH && ch.pipeline().get(FlushConsolidationHandler.class) != null) {
+                                ch.pipeline().remove(FlushConsolidationHandler.class);
+                            }
+                            ch.pipeline().addFirst(counter);
+                            ch.pipeline().addLast(new ReplyHandler(mode));
+                        }
+                    });
+            Channel serverChannel = server.bind("127.0.0.1", 0).sync().channel();
+            InetSocketAddress address = (InetSocketAddress) serverChannel.localAddress();
+
+            CountDownLatch done = new CountDownLatch(clients);
+            List<Channel> channels = new ArrayList<>(clients);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < clients; i++) {
+                final int index = i;
+                Bootstrap client = new Bootstrap();
+                transport.configure(client)
+                        .group(clientGroup)
+                        .option(ChannelOption.TCP_NODELAY, true)
+                        .handler(new ProtocolInitializer() {
+                            @Override
+                            protected void addBusinessHandler(SocketChannel ch) {
+                                ch.pipeline().addLast(new WaveClientHandler(index, done));
+                            }
+                        });
+                channels.add(client.connect(address).channel());
+            }
+            boolean completed = done.await(60, TimeUnit.SECONDS);
+            long elapsed = System.nanoTime() - start;
+
+            System.out.printf("%-5s %-12s %-8s %d clients in %8.2f ms%s   server flushes %5d (%.2f/client)   frames %5d%n",
+                    transport, mode.name().toLowerCase().replace('_', '-'), round == 0 ? "warmup" : "round " + round,
+                    clients - done.getCount(), elapsed / 1e6, completed ? "" : " (timed out)",
+                    counter.flushes.sum(), counter.flushes.sum() / (double) clients, counter.writes.sum());
+
+            for (Channel channel : channels) {
+                channel.close();
+            }
+            serverChannel.close().sync();
+        } finally {
+            clientGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            workerGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            bossGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
+
+    /**
+     * 位于 Pipeline 最前 (出站最后)，看到的就是交给传输层的 write 与 flush
+     */
+    @ChannelHandler.Sharable
+    private static class FlushCounter extends ChannelOutboundHandlerAdapter {
+        final LongAdder writes = new LongAdder();
+        final LongAdder flushes = new LongAdder();
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            writes.increment();
+            super.write(ctx, msg, promise);
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) throws Exception {
+            flushes.increment();
+            super.flush(ctx);
+        }
+    }
+
+    private static class ReplyHandler extends SimpleChannelInboundHandler<Message<Object>> {
+        private final Mode mode;
+        private final List<Message<?>> pending = new ArrayList<>();
+
+        ReplyHandler(Mode mode) {
+            this.mode = mode;
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, Message<Object> msg) {
+            if (msg.getType() == MessageType.LOGIN_REQ) {
+                reply(ctx, new Message<>(MessageType.LOGIN_RESP, new LoginResponse(true, "Login successful.")));
+                reply(ctx, new Message<>(MessageType.EXAM_WAITING, "Waiting for the exam to start."));
+            } else if (msg.getType() == MessageType.ANSWER_SUBMIT) {
+                reply(ctx, new Message<>(MessageType.RESULT_PUB, 0));
+            }
+        }
+
+        private void reply(ChannelHandlerContext ctx, Message<?> message) {
+            switch (mode) {
+                case FLUSH_EACH -> ctx.writeAndFlush(message);
+                case CONSOLIDATED -> ctx.write(message);
+                case BATCH -> pending.add(message);
+            }
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            if (pending.size() == 1) {
+                ctx.write(pending.get(0));
+            } else if (!pending.isEmpty()) {
+                ctx.write(new Message<>(MessageType.BATCH, new ArrayList<>(pending)));
+            }
+            pending.clear();
+            if (mode != Mode.FLUSH_EACH) {
+                ctx.flush();
+            }
+            ctx.fireChannelReadComplete();
+        }
+    }
+
+    private static class WaveClientHandler extends SimpleChannelInboundHandler<Message<Object>> {
+        private final int index;
+        private final CountDownLatch done;
+
+        WaveClientHandler(int index, CountDownLatch done) {
+            this.index = index;
+            this.done = done;
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            Student student = new Student();
+            student.setId(String.format("S%05d", index));
+            student.setName("Student " + index);
+            student.setCodecs(Codec.supportedNames());
+
+            StudentAnswer answer = new StudentAnswer();
+            answer.setQuestionId("Q1");
+            answer.setAnswer("A");
+
+            // 登录与提交一起写出，服务端通常在同一轮读中收到两条消息
+            ctx.write(new Message<>(MessageType.LOGIN_REQ, student));
+            ctx.writeAndFlush(new Message<>(MessageType.ANSWER_SUBMIT, List.of(answer)));
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, Message<Object> msg) {
+            if (msg.getType() == MessageType.RESULT_PUB) {
+                done.countDown();
+            }
+        }
+    }
+}
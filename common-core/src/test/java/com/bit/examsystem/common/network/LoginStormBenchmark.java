@@ -0,0 +1,155 @@
+package com.bit.examsystem.common.network;
+
+import com.bit.examsystem.common.message.LoginResponse;
+import com.bit.examsystem.common.message.Message;
+import com.bit.examsystem.common.message.MessageType;
+import com.bit.examsystem.common.model.Student;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.SocketChannel;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 登录风暴：N 个客户端同时连接并发送 LOGIN_REQ，对比 epoll 与 NIO 的总耗时和登录延迟 (手动运行 main，不参与单元测试)
+ * 服务端只回复 LOGIN_RESP，不访问数据库，测的是传输层和编解码。
+ *
+ * 用法：LoginStormBenchmark [客户端数，默认 1000] [轮数，默认 5]
+ */
+public class LoginStormBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        List<TransportFactory> transports = new ArrayList<>();
+        transports.add(TransportFactory.select(TransportFactory.NIO));
+        TransportFactory epoll = TransportFactory.select(TransportFactory.EPOLL);
+        if (epoll.isEpoll()) {
+            transports.add(epoll);
+        }
+
+        for (TransportFactory transport : transports) {
+            run(transport, clients, 0); // 预热
+            for (int round = 0; round < rounds; round++) {
+                run(transport, clients, round + 1);
+            }
+        }
+    }
+
+    private static void run(TransportFactory transport, int clients, int round) throws InterruptedException {
+        EventLoopGroup bossGroup = transport.newEventLoopGroup(1);
+        EventLoopGroup workerGroup = transport.newEventLoopGroup(0);
+        EventLoopGroup clientGroup = transport.newEventLoopGroup(0);
+        try {
+            ServerBootstrap server = new ServerBootstrap();
+            transport.configure(server)
+                    .group(bossGroup, workerGroup)
+                    .option(ChannelOption.SO_BACKLOG, clients)
+                    .childHandler(new ProtocolInitializer() {
+                        @Override
+                        protected void addBusinessHandler(SocketChannel ch) {
+                            ch.pipeline().addLast(LoginReplyHandler.INSTANCE);
+                        }
+                    });
+            Channel serverChannel = server.bind("127.0.0.1", 0).sync().channel();
+            InetSocketAddress address = (InetSocketAddress) serverChannel.localAddress();
+
+            CountDownLatch loggedIn = new CountDownLatch(clients);
+            AtomicLongArray latencies = new AtomicLongArray(clients);
+            List<Channel> channels = new ArrayList<>(clients);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < clients; i++) {
+                final int index = i;
+                Bootstrap client = new Bootstrap();
+                transport.configure(client)
+                        .group(clientGroup)
+                        .option(ChannelOption.TCP_NODELAY, true)
+                        .handler(new ProtocolInitializer() {
+                            @Override
+                            protected void addBusinessHandler(SocketChannel ch) {
+                                ch.pipeline().addLast(new LoginClientHandler(index, latencies, loggedIn));
+                            }
+                        });
+                channels.add(client.connect(address).channel());
+            }
+            boolean completed = loggedIn.await(60, TimeUnit.SECONDS);
+            long elapsed = System.nanoTime() - start;
+
+            long[] sorted = new long[clients];
+            for (int i = 0; i < clients; i++) {
+                sorted[i] = latencies.get(i);
+            }
+            Arrays.sort(sorted);
+            System.out.printf("%-5s %-8s %d logins in %8.2f ms%s   p50 %6.2f ms   p99 %6.2f ms%n",
+                    transport, round == 0 ? "warmup" : "round " + round, clients - loggedIn.getCount(), elapsed / 1e6,
+                    completed ? "" : " (timed out)",
+                    sorted[clients / 2] / 1e6, sorted[(int) (clients * 0.99)] / 1e6);
+
+            for (Channel channel : channels) {
+                channel.close();
+            }
+            serverChannel.close().sync();
+        } finally {
+            clientGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            workerGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            bossGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
+
+    @ChannelHandler.Sharable
+    private static class LoginReplyHandler extends SimpleChannelInboundHandler<Message<Object>> {
+        static final LoginReplyHandler INSTANCE = new LoginReplyHandler();
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, Message<Object> msg) {
+            if (msg.getType() == MessageType.LOGIN_REQ) {
+                ctx.writeAndFlush(new Message<>(MessageType.LOGIN_RESP, new LoginResponse(true, "Login successful.")));
+            }
+        }
+    }
+
+    private static class LoginClientHandler extends SimpleChannelInboundHandler<Message<Object>> {
+        private final int index;
+        private final AtomicLongArray latencies;
+        private final CountDownLatch loggedIn;
+        private long sentAt;
+
+        LoginClientHandler(int index, AtomicLongArray latencies, CountDownLatch loggedIn) {
+            this.index = index;
+            this.latencies = latencies;
+            this.loggedIn = loggedIn;
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            Student student = new Student();
+            student.setId(String.format("S%05d", index));
+            student.setName("Student " + index);
+            student.setCodecs(Codec.supportedNames());
+            sentAt = System.nanoTime();
+            ctx.writeAndFlush(new Message<>(MessageType.LOGIN_REQ, student));
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, Message<Object> msg) {
+            if (msg.getType() == MessageType.LOGIN_RESP) {
+                latencies.set(index, System.nanoTime() - sentAt);
+                loggedIn.countDown();
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.bit.examsystem.student.controller;
 
 import com.bit.examsystem.common.dto.ExamPaperDTO;
 import com.bit.examsystem.common.dto.QuestionDTO;
+import com.bit.examsystem.common.message.SubmitResponse;
 import com.bit.examsystem.common.model.QuestionType;
 import com.bit.examsystem.common.model.StudentAnswer;
 import com.bit.examsystem.student.service.StudentService;
@@ -27,6 +28,7 @@ public class ExamController {
     @FXML private Button submitButton;
 
     private final StudentService studentService;
+    private int questionNumber = 1;
 
     public ExamController(StudentService studentService) {
         this.studentService = studentService;
@@ -55,12 +57,14 @@ public class ExamController {
                 })
         );
 
-        // Dynamically build the UI for each question
-        buildQuestionUI(exam.getQuestions());
+        // Dynamically build the UI for each question.
+        // A chunked paper starts with no questions; the rest are appended as each chunk arrives.
+        buildQuestionUI(new ArrayList<>(exam.getQuestions()));
+        studentService.setOnExamQuestionsAppended(this::buildQuestionUI);
+        studentService.setOnSubmitAcknowledged(this::handleSubmitAck);
     }
 
     private void buildQuestionUI(List<QuestionDTO> questions) {
-        int questionNumber = 1;
         for (QuestionDTO q : questions) {
             VBox questionBox = new VBox(5);
             questionBox.setStyle("-fx-border-color: #ccc; -fx-border-width: 1; -fx-padding: 10; -fx-border-radius: 5;");
@@ -191,11 +195,29 @@ public class ExamController {
         studentService.submitAnswers();
 
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
-        alert.setTitle("提交成功");
-        alert.setHeaderText("答案已收集，准备提交！");
+        alert.setTitle("正在提交");
+        alert.setHeaderText("答案已发送，等待教师端确认保存。");
         alert.setContentText("共收集到 " + answers.size() + " 道题的答案。");
-        alert.showAndWait();
+        alert.show();
 
         // Optionally, disable the submit button or navigate away.
     }
+
+    private void handleSubmitAck(SubmitResponse response) {
+        Alert alert;
+        if (response.isSuccess()) {
+            alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle("提交成功");
+            alert.setHeaderText("教师端已保存你的答卷！");
+            alert.setContentText("共保存 " + response.getAnswerCount() + " 道题的答案。");
+        } else {
+            // 保存失败时答案仍在本地缓存中，允许重新提交
+            submitButton.setDisable(false);
+            alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("提交失败");
+            alert.setHeaderText(null);
+            alert.setContentText(response.getMessage());
+        }
+        alert.show();
+    }
 }
\ No newline at end of file
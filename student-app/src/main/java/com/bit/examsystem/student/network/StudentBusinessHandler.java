@@ -1,5 +1,6 @@
 package com.bit.examsystem.student.network;
 
+import com.bit.examsystem.common.dto.ExamChunkDTO;
 import com.bit.examsystem.common.dto.ExamPaperDTO;
 import com.bit.examsystem.common.dto.QuestionDTO;
 import com.bit.examsystem.common.model.QuestionType;
@@ -7,12 +8,13 @@ import com.bit.examsystem.common.model.QuestionType;
 import com.bit.examsystem.common.message.LoginResponse;
 import com.bit.examsystem.common.message.Message; // 新增
 import com.bit.examsystem.common.message.MessageType; // 新增
+import com.bit.examsystem.common.message.SubmitResponse;
 import com.bit.examsystem.common.model.Student; // 新增
+import com.bit.examsystem.common.network.Codec;
+import com.bit.examsystem.common.network.ExamPaperAssembler;
 import com.bit.examsystem.common.network.ProtocolInitializer;
-import com.bit.examsystem.common.util.JsonUtil;
 import com.bit.examsystem.student.service.StudentServiceImpl; // 新增
 import com.bit.examsystem.student.util.ViewManager;
-import com.fasterxml.jackson.core.type.TypeReference;
 
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
@@ -30,6 +32,9 @@ public class StudentBusinessHandler extends SimpleChannelInboundHandler<Message<
 
     private final StudentClient client;
 
+    // 正在分片接收的试卷，收齐或出错后置为 null
+    private ExamPaperAssembler examAssembler;
+
     // 传入 StudentClient 的引用，以便在断线时调用其重连方法
     public StudentBusinessHandler(StudentClient client) {
         this.client = client;
@@ -48,7 +53,8 @@ public class StudentBusinessHandler extends SimpleChannelInboundHandler<Message<
             if (e.state() == IdleState.WRITER_IDLE) {
                 // The connection has been idle for writing, so we send a heartbeat.
                 System.out.println("Writer idle for " + writerIdle + "s. Sending heartbeat to server.");
-                Message<String> heartbeatMsg = new Message<>(MessageType.HEARTBEAT, "ping");
+                // HEARTBEAT 没有消息体，帧中只有帧头
+                Message<Void> heartbeatMsg = new Message<>(MessageType.HEARTBEAT, null);
                 ctx.writeAndFlush(heartbeatMsg);
             }
         } else {
@@ -82,6 +88,14 @@ public class StudentBusinessHandler extends SimpleChannelInboundHandler<Message<
             case EXAM_START: // <-- Add this case
                 handleExamStart(ctx, msg);
                 break;
+            case EXAM_CHUNK:
+                handleExamChunk(ctx, msg);
+                break;
+            case ANSWER_ACK:
+                // 答卷已写入教师端数据库 (或写入失败)
+                SubmitResponse ack = (SubmitResponse) msg.getBody();
+                Platform.runLater(() -> StudentServiceImpl.getInstance().handleSubmitAck(ack));
+                break;
             // Handle other message types like EXAM_START later
             default:
                 System.out.println("Received unhandled message type: " + msg.getType());
@@ -90,9 +104,16 @@ public class StudentBusinessHandler extends SimpleChannelInboundHandler<Message<
     }
 
     private void handleLoginResponse(ChannelHandlerContext ctx, Message<Object> msg) {
-        LoginResponse response = JsonUtil.convert(msg.getBody(), LoginResponse.class);
+        // 解码器已按 LOGIN_RESP 注册的类型反序列化
+        LoginResponse response = (LoginResponse) msg.getBody();
 
         if (response.isSuccess()) {
+            // 服务器选定了编码，之后的出站消息改用该编码 (旧版本服务器不返回，保持 JSON)
+            Codec codec = Codec.forName(response.getCodec());
+            if (codec != null) {
+                ctx.channel().attr(Codec.CHANNEL_CODEC).set(codec);
+            }
+
             // UI操作，必须在JavaFX线程执行
             Platform.runLater(() -> {
                 System.out.println("[Login Success] 跳转至等待大厅");
@@ -115,21 +136,19 @@ public class StudentBusinessHandler extends SimpleChannelInboundHandler<Message<
     }
 
     private void handleExamStart(ChannelHandlerContext ctx, Message<Object> msg) {
-        ExamPaperDTO exam = JsonUtil.convert(msg.getBody(), new TypeReference<>() {});
+        ExamPaperDTO exam = (ExamPaperDTO) msg.getBody();
+
+        // 分片发送的试卷：这里只有试卷头，题目随后由 EXAM_CHUNK 送达
+        if (ExamPaperAssembler.isChunked(exam)) {
+            examAssembler = new ExamPaperAssembler(exam);
+            exam.setQuestions(new ArrayList<>());
+        } else {
+            examAssembler = null;
+        }
 
         // --- Proactive Data Cleaning ---
-        if (exam != null && exam.getQuestions() != null) {
-            for (QuestionDTO question : exam.getQuestions()) {
-                // Ensure the options list is never null.
-                if (question.getOptions() == null) {
-                    if (question.getType() == QuestionType.JUDGE) {
-                        question.setOptions(new ArrayList<>(Arrays.asList("T", "F")));
-                    } else {
-                        question.setOptions(new ArrayList<>()); // 保证不是 null
-                    }
-//                    question.setOptions(new ArrayList<>());
-                }
-            }
+        if (exam != null) {
+            normalizeOptions(exam.getQuestions());
         }
 
         // Save the exam paper in the service
@@ -141,6 +160,56 @@ public class StudentBusinessHandler extends SimpleChannelInboundHandler<Message<
         });
     }
 
+    private void handleExamChunk(ChannelHandlerContext ctx, Message<Object> msg) {
+        ExamChunkDTO chunk = (ExamChunkDTO) msg.getBody();
+        if (examAssembler == null) {
+            System.err.println("Received exam chunk " + chunk.getSeq() + " without a paper header. Ignored.");
+            return;
+        }
+
+        List<QuestionDTO> questions;
+        try {
+            questions = examAssembler.accept(chunk);
+        } catch (IllegalStateException e) {
+            System.err.println("[Exam Chunk] " + e.getMessage());
+            examAssembler = null;
+            Platform.runLater(() -> {
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+                alert.setTitle("试卷接收失败");
+                alert.setHeaderText(null);
+                alert.setContentText("试卷未能完整接收，请联系监考老师。");
+                alert.showAndWait();
+            });
+            return;
+        }
+        normalizeOptions(questions);
+
+        // 与切换场景一样排队到 JavaFX 线程，保证先建好考试界面再追加题目
+        Platform.runLater(() -> StudentServiceImpl.getInstance().appendExamQuestions(questions));
+
+        if (examAssembler.isComplete()) {
+            System.out.println("Exam paper received: " + examAssembler.getReceivedCount()
+                    + " questions in " + examAssembler.getChunkCount() + " chunks.");
+            examAssembler = null;
+        }
+    }
+
+    private void normalizeOptions(List<QuestionDTO> questions) {
+        if (questions == null) {
+            return;
+        }
+        for (QuestionDTO question : questions) {
+            // Ensure the options list is never null.
+            if (question.getOptions() == null) {
+                if (question.getType() == QuestionType.JUDGE) {
+                    question.setOptions(new ArrayList<>(Arrays.asList("T", "F")));
+                } else {
+                    question.setOptions(new ArrayList<>()); // 保证不是 null
+                }
+            }
+        }
+    }
+
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         // System.err.println("Connection to server lost. Attempting to reconnect...");
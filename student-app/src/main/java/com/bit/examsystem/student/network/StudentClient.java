@@ -2,11 +2,10 @@ package com.bit.examsystem.student.network;
 
 import com.bit.examsystem.common.message.Message;
 import com.bit.examsystem.common.network.ProtocolInitializer;
+import com.bit.examsystem.common.network.TransportFactory;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -30,11 +29,12 @@ public class StudentClient {
         private static final StudentClient INSTANCE = new StudentClient();
     }
     private StudentClient() {
-        // 初始化 Netty 组件
-        group = new NioEventLoopGroup();
+        // 初始化 Netty 组件 (Linux 上为 epoll，否则为 NIO)
+        TransportFactory transport = TransportFactory.getInstance();
+        group = transport.newEventLoopGroup(0);
         bootstrap = new Bootstrap();
-        bootstrap.group(group)
-                .channel(NioSocketChannel.class)
+        transport.configure(bootstrap)
+                .group(group)
                 .option(ChannelOption.TCP_NODELAY, true) // 禁用Nagle算法，实时性高
                 .handler(new ProtocolInitializer() {
                     @Override
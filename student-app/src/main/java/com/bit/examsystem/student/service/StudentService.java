@@ -2,6 +2,8 @@ package com.bit.examsystem.student.service;
 
 import com.bit.examsystem.common.model.Student;
 import com.bit.examsystem.common.dto.ExamPaperDTO;
+import com.bit.examsystem.common.dto.QuestionDTO;
+import com.bit.examsystem.common.message.SubmitResponse;
 import com.bit.examsystem.common.model.StudentAnswer;
 import java.util.List;
 import java.util.Map;
@@ -20,6 +22,19 @@ public interface StudentService {
     void setCurrentExam(ExamPaperDTO exam);
     ExamPaperDTO getCurrentExam();
 
+    /**
+     * Appends questions of a chunked exam paper to the current exam as they arrive.
+     * Must be called on the JavaFX thread, which is also where the exam view reads the question list.
+     * @param questions The questions of one EXAM_CHUNK, in paper order.
+     */
+    void appendExamQuestions(List<QuestionDTO> questions);
+
+    /**
+     * Registers the callback invoked after {@link #appendExamQuestions(List)}, so the exam view can
+     * render the new questions without waiting for the rest of the paper.
+     */
+    void setOnExamQuestionsAppended(Consumer<List<QuestionDTO>> listener);
+
     void startExamTimer(Consumer<String> onTick, Runnable onFinish);
     void stopExamTimer();
 
@@ -46,5 +61,17 @@ public interface StudentService {
      */
     void submitAnswers();
 
+    /**
+     * Handles the server's ANSWER_ACK. The cached answers are cleared only after the server
+     * confirms they were saved, so a failed submission can be sent again.
+     * Must be called on the JavaFX thread.
+     */
+    void handleSubmitAck(SubmitResponse response);
+
+    /**
+     * Registers the callback invoked by {@link #handleSubmitAck(SubmitResponse)}.
+     */
+    void setOnSubmitAcknowledged(Consumer<SubmitResponse> listener);
+
     String getAnswerForQuestion(String questionId);
 }
\ No newline at end of file
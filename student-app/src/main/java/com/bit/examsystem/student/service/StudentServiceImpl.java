@@ -1,10 +1,13 @@
 package com.bit.examsystem.student.service;
 
 import com.bit.examsystem.common.dto.ExamPaperDTO;
+import com.bit.examsystem.common.dto.QuestionDTO;
 import com.bit.examsystem.common.model.Student;
 import com.bit.examsystem.common.model.StudentAnswer;
 import com.bit.examsystem.common.message.Message;
 import com.bit.examsystem.common.message.MessageType;
+import com.bit.examsystem.common.message.SubmitResponse;
+import com.bit.examsystem.common.network.Codec;
 import com.bit.examsystem.student.network.StudentClient;
 
 import java.util.ArrayList;
@@ -21,6 +24,8 @@ public class StudentServiceImpl implements StudentService {
     private Student currentStudent;
     private final StudentClient studentClient;
     private ExamPaperDTO currentExam;
+    private Consumer<List<QuestionDTO>> onExamQuestionsAppended;
+    private Consumer<SubmitResponse> onSubmitAcknowledged;
     private Timer examTimer;
     private long endTime;
 
@@ -46,6 +51,7 @@ public class StudentServiceImpl implements StudentService {
         currentStudent.setName(name);
         currentStudent.setIp(getLocalIp());
         currentStudent.setOnline(true);
+        currentStudent.setCodecs(Codec.supportedNames()); // 登录握手时声明支持的编码
 
         // 2. 发起网络连接
         studentClient.connect(serverIp, serverPort);
@@ -83,6 +89,22 @@ public class StudentServiceImpl implements StudentService {
         return this.currentExam;
     }
 
+    @Override
+    public void appendExamQuestions(List<QuestionDTO> questions) {
+        if (currentExam == null) {
+            return;
+        }
+        currentExam.getQuestions().addAll(questions);
+        if (onExamQuestionsAppended != null) {
+            onExamQuestionsAppended.accept(questions);
+        }
+    }
+
+    @Override
+    public void setOnExamQuestionsAppended(Consumer<List<QuestionDTO>> listener) {
+        this.onExamQuestionsAppended = listener;
+    }
+
     @Override
     public void startExamTimer(Consumer<String> onTick, Runnable onFinish) {
         stopExamTimer(); // Ensure no previous timer is running
@@ -163,7 +185,25 @@ public class StudentServiceImpl implements StudentService {
         System.out.println("Service: Sending " + answers.size() + " answers to the server.");
         studentClient.sendMessage(submissionMessage);
 
-        clearAnswers();
+        // 等教师端确认写入后再清空本地缓存 (见 handleSubmitAck)
+    }
+
+    @Override
+    public void handleSubmitAck(SubmitResponse response) {
+        if (response.isSuccess()) {
+            System.out.println("Service: Server saved " + response.getAnswerCount() + " answers.");
+            clearAnswers();
+        } else {
+            System.err.println("Service: Submission failed: " + response.getMessage());
+        }
+        if (onSubmitAcknowledged != null) {
+            onSubmitAcknowledged.accept(response);
+        }
+    }
+
+    @Override
+    public void setOnSubmitAcknowledged(Consumer<SubmitResponse> listener) {
+        this.onSubmitAcknowledged = listener;
     }
 
     // New private helper method
@@ -68,6 +68,7 @@ public class TeacherApp extends Application {
         if (examService != null) {
             examService.stopServer();
         }
+        DatabaseManager.shutdown();
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,111 @@
+package com.bit.examsystem.teacher.controller;
+
+import com.bit.examsystem.common.model.ExamPaper;
+import com.bit.examsystem.teacher.dto.ExamItemStats;
+import com.bit.examsystem.teacher.dto.ItemStats;
+import com.bit.examsystem.teacher.service.ExamManagementService;
+import com.bit.examsystem.teacher.service.ResultService;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.fxml.FXML;
+import javafx.scene.control.*;
+
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 试题分析视图：显示阅卷时保存的汇总，打开时只读一行数据
+ */
+public class ItemStatsController {
+    @FXML private ComboBox<ExamPaper> examComboBox;
+    @FXML private Label summaryLabel;
+    @FXML private TableView<ItemStats> statsTableView;
+    @FXML private TableColumn<ItemStats, String> titleColumn;
+    @FXML private TableColumn<ItemStats, String> typeColumn;
+    @FXML private TableColumn<ItemStats, Integer> responsesColumn;
+    @FXML private TableColumn<ItemStats, String> difficultyColumn;
+    @FXML private TableColumn<ItemStats, String> discriminationColumn;
+    @FXML private TableColumn<ItemStats, String> blankRateColumn;
+    @FXML private TableColumn<ItemStats, String> optionsColumn;
+
+    private final ResultService resultService;
+    private final ExamManagementService examManagementService;
+    private final ObservableList<ItemStats> items = FXCollections.observableArrayList();
+
+    public ItemStatsController(ResultService resultService, ExamManagementService examManagementService) {
+        this.resultService = resultService;
+        this.examManagementService = examManagementService;
+    }
+
+    @FXML
+    public void initialize() {
+        statsTableView.setItems(items);
+        titleColumn.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().getTitle()));
+        typeColumn.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().getType()));
+        responsesColumn.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().getResponses()));
+        difficultyColumn.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(
+                String.format("%.2f", cellData.getValue().getDifficulty())));
+        discriminationColumn.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(
+                String.format("%.2f", cellData.getValue().getDiscrimination())));
+        blankRateColumn.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(
+                String.format("%.1f%%", cellData.getValue().getBlankRate() * 100)));
+        optionsColumn.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(formatOptions(cellData.getValue())));
+
+        try {
+            examComboBox.setItems(FXCollections.observableList(examManagementService.getAllExams()));
+            examComboBox.setCellFactory(lv -> new ListCell<>() {
+                @Override
+                protected void updateItem(ExamPaper item, boolean empty) {
+                    super.updateItem(item, empty);
+                    setText(empty ? null : item.getTitle());
+                }
+            });
+            examComboBox.getSelectionModel().selectedItemProperty().addListener(
+                    (obs, oldVal, newVal) -> loadStats(newVal));
+        } catch (SQLException e) {
+            e.printStackTrace(); // Show alert
+        }
+    }
+
+    private void loadStats(ExamPaper exam) {
+        items.clear();
+        summaryLabel.setText("");
+        if (exam == null) {
+            return;
+        }
+        try {
+            Optional<ExamItemStats> stats = resultService.getItemStats(exam.getExamId());
+            if (stats.isPresent()) {
+                items.setAll(stats.get().getItems());
+                summaryLabel.setText(String.format("%d 名学生，统计于 %s", stats.get().getStudentCount(),
+                        new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(stats.get().getUpdatedAt()))));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace(); // Show alert
+        }
+    }
+
+    /**
+     * 例如 "A:12 B:30 C:5 D:3 其他:1"；填空题只显示无法按选项统计的回答数
+     */
+    private static String formatOptions(ItemStats item) {
+        List<String> labels = item.getOptionLabels();
+        int[] counts = item.getOptionCounts();
+        if (counts == null || labels == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < labels.size() && i < counts.length; i++) {
+            sb.append(labels.get(i)).append(':').append(counts[i]).append(' ');
+        }
+        if (counts.length > labels.size() && (labels.isEmpty() || counts[counts.length - 1] > 0)) {
+            sb.append(labels.isEmpty() ? "作答:" : "其他:").append(counts[counts.length - 1]);
+        }
+        return sb.toString().trim();
+    }
+}
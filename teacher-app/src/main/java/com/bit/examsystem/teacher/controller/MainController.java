@@ -2,11 +2,15 @@ package com.bit.examsystem.teacher.controller;
 
 import com.bit.examsystem.common.model.Student;
 import com.bit.examsystem.common.model.ExamPaper;
+import com.bit.examsystem.teacher.db.StatementCacheStats;
+import com.bit.examsystem.teacher.network.AcceptStats;
+import com.bit.examsystem.teacher.network.EventLoopLatency;
 import com.bit.examsystem.teacher.network.ClientConnectionManager;
 import com.bit.examsystem.teacher.network.listener.OnlineStudentListener;
 import com.bit.examsystem.teacher.service.*;
 import com.bit.examsystem.teacher.service.listener.SubmissionListener;
 import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -35,12 +39,17 @@ public class MainController implements OnlineStudentListener, SubmissionListener
     @FXML private TableColumn<Student, String> nameColumn;
     @FXML private TableColumn<Student, String> ipColumn;
     @FXML private TableColumn<Student, Boolean> statusColumn;
+    @FXML private TableColumn<Student, String> pendingBytesColumn;
     @FXML private ComboBox<ExamPaper> examSelectionComboBox;
     @FXML private Label examStatusLabel;
     @FXML private Label examTimerLabel;
     @FXML private Label currentExamTitleLabel;
     @FXML private Label onlineStudentCountLabel;
     @FXML private Label submittedCountLabel;
+    @FXML private Label acceptRateLabel;
+    @FXML private Label refusedCountLabel;
+    @FXML private Label eventLoopLatencyLabel;
+    @FXML private Label statementCacheLabel;
     @FXML private TabPane mainTabPane; // To switch tabs programmatically
     @FXML private Button gradeExamButton;
     @FXML private Label statusBarLabel;
@@ -58,6 +67,7 @@ public class MainController implements OnlineStudentListener, SubmissionListener
 
     private Timer examTimer;
     private long examEndTime;
+    private Timer acceptStatsTimer;
 
     /**
      * 构造函数注入：这是实现依赖注入的关键。
@@ -81,6 +91,8 @@ public class MainController implements OnlineStudentListener, SubmissionListener
         nameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
         ipColumn.setCellValueFactory(new PropertyValueFactory<>("ip"));
         statusColumn.setCellValueFactory(new PropertyValueFactory<>("online")); // Assumes Student has an isOnline() method
+        // Outbound bytes not yet sent to this student; refreshed every second together with the accept stats.
+        pendingBytesColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(formatPending(cell.getValue().getId())));
 
         // Bind the TableView's items to our ObservableList
         studentsTableView.setItems(observableStudentList);
@@ -110,6 +122,7 @@ public class MainController implements OnlineStudentListener, SubmissionListener
         loadAvailableExams();
 
         updateDashboard();
+        startAcceptStatsTimer();
     }
 
     private void loadAvailableExams() {
@@ -323,6 +336,23 @@ public class MainController implements OnlineStudentListener, SubmissionListener
         }
     }
 
+    @FXML
+    void handleShowItemStats(ActionEvent event) {
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/item-stats-view.fxml"));
+            loader.setControllerFactory(param ->
+                    new ItemStatsController(new ResultService(), new ExamManagementServiceImpl()));
+
+            Stage statsStage = new Stage();
+            statsStage.setTitle("试题分析");
+            statsStage.initModality(Modality.WINDOW_MODAL);
+            statsStage.setScene(new Scene(loader.load()));
+            statsStage.showAndWait();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     @FXML
     void handleShowResults(ActionEvent event) {
         try {
@@ -330,7 +360,7 @@ public class MainController implements OnlineStudentListener, SubmissionListener
 
             // Setup DI for the new controller
             loader.setControllerFactory(param ->
-                    new ResultsController(new ResultService(), new ExamManagementServiceImpl()));
+                    new ResultsController(new ResultService(), new ExamManagementServiceImpl(), gradingService));
 
             Stage resultsStage = new Stage();
             resultsStage.setTitle("考试成绩");
@@ -372,6 +402,74 @@ public class MainController implements OnlineStudentListener, SubmissionListener
         }, 0, 1000); // Start now, tick every second
     }
 
+    /**
+     * Samples the server's accept statistics, event loop latency and statement cache counters once per second so a login storm
+     * or a submission peak is visible on the dashboard.
+     */
+    private void startAcceptStatsTimer() {
+        acceptStatsTimer = new Timer(true); // Daemon thread
+        acceptStatsTimer.scheduleAtFixedRate(new TimerTask() {
+            @Override
+            public void run() {
+                AcceptStats stats = examService.sampleAcceptStats();
+                EventLoopLatency latency = examService.sampleEventLoopLatency();
+                StatementCacheStats cacheStats = examService.getStatementCacheStats();
+                Platform.runLater(() -> {
+                    updateAcceptStats(stats);
+                    updateEventLoopLatency(latency);
+                    updateStatementCacheStats(cacheStats);
+                });
+            }
+        }, 0, 1000);
+    }
+
+    private String formatPending(String studentId) {
+        long bytes = connectionManager.getPendingOutboundBytes(studentId);
+        if (bytes < 0) {
+            return "-";
+        }
+        String text = bytes < 1024 ? bytes + " B" : String.format("%.1f KB", bytes / 1024.0);
+        return connectionManager.isLagging(studentId) ? text + " (拥塞)" : text;
+    }
+
+    private void updateAcceptStats(AcceptStats stats) {
+        studentsTableView.refresh();
+
+        if (stats == null) {
+            acceptRateLabel.setText("-");
+            refusedCountLabel.setText("-");
+            return;
+        }
+        acceptRateLabel.setText(String.format("%.0f /s (峰值 %.0f /s)", stats.getAcceptRate(), stats.getPeakAcceptRate()));
+        if (stats.getRefusedTotal() < 0) {
+            refusedCountLabel.setText("不可用");
+            refusedCountLabel.setStyle("");
+        } else {
+            refusedCountLabel.setText(String.valueOf(stats.getRefusedTotal()));
+            refusedCountLabel.setStyle(stats.getRefusedTotal() > 0 ? "-fx-text-fill: #f44336;" : "");
+        }
+    }
+
+    private void updateEventLoopLatency(EventLoopLatency latency) {
+        if (latency == null) {
+            eventLoopLatencyLabel.setText("-");
+            eventLoopLatencyLabel.setStyle("");
+            return;
+        }
+        eventLoopLatencyLabel.setText(String.format("%.1f ms (最大 %.1f ms)", latency.getAvgMillis(), latency.getMaxMillis()));
+        // 超过 50ms 时心跳和消息已有明显延迟
+        eventLoopLatencyLabel.setStyle(latency.getMaxMillis() > 50 ? "-fx-text-fill: #f44336;" : "");
+    }
+
+    private void updateStatementCacheStats(StatementCacheStats stats) {
+        if (stats == null) {
+            statementCacheLabel.setText("-");
+            return;
+        }
+        statementCacheLabel.setText(String.format("%.1f%% (命中 %d / 未命中 %d)",
+                stats.getHitRate() * 100, stats.getHits(), stats.getMisses()));
+    }
+
     private void stopLocalExamTimer() {
         if (examTimer != null) {
             examTimer.cancel();
@@ -1,16 +1,21 @@
 package com.bit.examsystem.teacher.controller;
 
 import com.bit.examsystem.common.model.ExamPaper;
+import com.bit.examsystem.common.model.Question;
 import com.bit.examsystem.teacher.dto.StudentResult;
 import com.bit.examsystem.teacher.service.ExamManagementService;
+import com.bit.examsystem.teacher.service.GradingService;
 import com.bit.examsystem.teacher.service.ResultService;
+import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.layout.HBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
@@ -18,23 +23,40 @@ import javafx.stage.Stage;
 import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
 
 public class ResultsController {
     @FXML private ComboBox<ExamPaper> examComboBox;
     @FXML private TableView<StudentResult> resultsTableView;
     @FXML private TableColumn<StudentResult, String> studentIdColumn;
     @FXML private TableColumn<StudentResult, String> studentNameColumn;
+    @FXML private TableColumn<StudentResult, Integer> rankColumn;
     @FXML private TableColumn<StudentResult, Integer> totalScoreColumn;
+    @FXML private TableColumn<StudentResult, String> gradedColumn;
     @FXML private TableColumn<StudentResult, Void> detailsColumn;
+    @FXML private HBox exportBox;
+    @FXML private ProgressBar exportProgressBar;
+    @FXML private Label exportStatusLabel;
+    @FXML private Button cancelExportButton;
 
     private final ResultService resultService;
     private final ExamManagementService examManagementService;
+    private final GradingService gradingService;
     private final ObservableList<StudentResult> studentResults = FXCollections.observableArrayList();
+    private Task<List<StudentResult>> loadTask; // 只在 FX 线程上读写
+    private Task<Long> exportTask;               // 只在 FX 线程上读写
+    private Task<?> maintenanceTask;             // 重新批改或校验成绩，只在 FX 线程上读写
 
-    public ResultsController(ResultService resultService, ExamManagementService examManagementService) {
+    public ResultsController(ResultService resultService, ExamManagementService examManagementService,
+                             GradingService gradingService) {
         this.resultService = resultService;
         this.examManagementService = examManagementService;
+        this.gradingService = gradingService;
     }
 
     @FXML
@@ -43,8 +65,13 @@ public class ResultsController {
         resultsTableView.setItems(studentResults);
         studentIdColumn.setCellValueFactory(new PropertyValueFactory<>("studentId"));
         studentNameColumn.setCellValueFactory(new PropertyValueFactory<>("studentName"));
+        rankColumn.setCellValueFactory(new PropertyValueFactory<>("rank"));
         totalScoreColumn.setCellValueFactory(new PropertyValueFactory<>("totalScore"));
+        gradedColumn.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(
+                cellData.getValue().getGradedCount() + " / " + cellData.getValue().getAnswerCount()));
         setupDetailsColumn();
+        exportBox.managedProperty().bind(exportBox.visibleProperty());
+        exportBox.setVisible(false);
 
         // Load exams into ComboBox
         try {
@@ -66,15 +93,42 @@ public class ResultsController {
     }
 
     private void loadResults(ExamPaper exam) {
+        if (loadTask != null) {
+            loadTask.cancel();
+            loadTask = null;
+        }
+        studentResults.clear();
         if (exam == null) {
-            studentResults.clear();
             return;
         }
-        try {
-            studentResults.setAll(resultService.getResultsForExam(exam.getExamId()));
-        } catch (SQLException | RuntimeException e) {
-            e.printStackTrace(); // Show alert
-        }
+
+        // 成绩在后台线程查询，完成后回到 FX 线程更新表格，切换考试时不会卡住界面
+        Task<List<StudentResult>> task = new Task<>() {
+            @Override
+            protected List<StudentResult> call() throws Exception {
+                return resultService.getResultsForExam(exam.getExamId());
+            }
+        };
+        task.setOnSucceeded(event -> {
+            if (loadTask == task) {
+                studentResults.setAll(task.getValue());
+                resultsTableView.setPlaceholder(new Label("没有成绩"));
+                loadTask = null;
+            }
+        });
+        task.setOnFailed(event -> {
+            if (loadTask == task) {
+                resultsTableView.setPlaceholder(new Label("加载成绩失败"));
+                loadTask = null;
+            }
+            task.getException().printStackTrace(); // Show alert
+        });
+        loadTask = task;
+        resultsTableView.setPlaceholder(new Label("正在加载成绩..."));
+
+        Thread loader = new Thread(task, "results-loader");
+        loader.setDaemon(true);
+        loader.start();
     }
 
     private void setupDetailsColumn() {
@@ -95,24 +149,194 @@ public class ResultsController {
         });
     }
 
+    /**
+     * 导出成绩汇总 (按名次)
+     */
     @FXML
     private void handleExportCsv() {
-        if (studentResults.isEmpty()) return;
+        ExamPaper selectedExam = examComboBox.getSelectionModel().getSelectedItem();
+        if (selectedExam == null) return;
+        File file = chooseCsvFile("Save Results as CSV", "results.csv");
+        if (file == null) return;
+        startExport("成绩", progress -> resultService.exportSummaryCsv(selectedExam.getExamId(), file.toPath(), progress));
+    }
+
+    /**
+     * 导出每名学生每道题的答题明细
+     */
+    @FXML
+    private void handleExportAnswerSheet() {
+        ExamPaper selectedExam = examComboBox.getSelectionModel().getSelectedItem();
+        if (selectedExam == null) return;
+        File file = chooseCsvFile("Save Answer Sheet as CSV", "answers.csv");
+        if (file == null) return;
+        startExport("答题明细", progress -> resultService.exportAnswerSheetCsv(selectedExam.getExamId(), file.toPath(), progress));
+    }
+
+    @FXML
+    private void handleCancelExport() {
+        if (exportTask != null) {
+            exportTask.cancel();
+        }
+    }
+
+    private File chooseCsvFile(String title, String initialFileName) {
         FileChooser fileChooser = new FileChooser();
-        fileChooser.setTitle("Save Results as CSV");
-        fileChooser.setInitialFileName("results.csv");
+        fileChooser.setTitle(title);
+        fileChooser.setInitialFileName(initialFileName);
         fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
-        File file = fileChooser.showSaveDialog(resultsTableView.getScene().getWindow());
-        if (file != null) {
-            try {
-                resultService.exportToCsv(studentResults, file);
-                // Show success alert
-            } catch (IOException e) {
-                e.printStackTrace(); // Show error alert
+        return fileChooser.showSaveDialog(resultsTableView.getScene().getWindow());
+    }
+
+    @FunctionalInterface
+    private interface ExportJob {
+        long run(ResultService.ExportProgress progress) throws Exception;
+    }
+
+    /**
+     * 在后台线程导出，进度条显示已写出的行数；取消后导出在下一次报告进度时停止，并删除不完整的文件
+     */
+    private void startExport(String what, ExportJob job) {
+        if (exportTask != null) return; // 同一时间只导出一个文件
+
+        Task<Long> task = new Task<>() {
+            @Override
+            protected Long call() throws Exception {
+                return job.run((rows, total) -> {
+                    updateProgress(rows, Math.max(total, rows));
+                    updateMessage(String.format("正在导出%s: %d / %d 行", what, rows, total));
+                    return !isCancelled();
+                });
+            }
+        };
+        task.setOnSucceeded(event -> finishExport(String.format("%s导出完成，共 %d 行。", what, task.getValue())));
+        task.setOnCancelled(event -> finishExport(what + "导出已取消。"));
+        task.setOnFailed(event -> {
+            Throwable e = task.getException();
+            if (e instanceof CancellationException) {
+                finishExport(what + "导出已取消。");
+                return;
             }
+            finishExport(what + "导出失败: " + e.getMessage());
+            e.printStackTrace();
+        });
+        exportTask = task;
+
+        exportProgressBar.progressProperty().bind(task.progressProperty());
+        exportStatusLabel.textProperty().bind(task.messageProperty());
+        cancelExportButton.setDisable(false);
+        exportBox.setVisible(true);
+
+        Thread exporter = new Thread(task, "results-exporter");
+        exporter.setDaemon(true);
+        exporter.start();
+    }
+
+    private void finishExport(String message) {
+        exportTask = null;
+        exportProgressBar.progressProperty().unbind();
+        exportStatusLabel.textProperty().unbind();
+        exportProgressBar.setProgress(0);
+        exportStatusLabel.setText(message);
+        cancelExportButton.setDisable(true);
+    }
+
+    /**
+     * 修正一道题的标准答案后只重新批改这道题，并按变化量调整表格中的总分
+     */
+    @FXML
+    private void handleRegradeQuestion() {
+        ExamPaper selectedExam = examComboBox.getSelectionModel().getSelectedItem();
+        if (selectedExam == null || maintenanceTask != null) return; // 上一次重新批改或校验还没有完成
+        try {
+            ExamPaper fullExam = examManagementService.getExamWithQuestions(selectedExam.getExamId());
+            if (fullExam == null || fullExam.getQuestions() == null || fullExam.getQuestions().isEmpty()) return;
+
+            // 1. Pick the question
+            List<String> choices = new ArrayList<>();
+            for (int i = 0; i < fullExam.getQuestions().size(); i++) {
+                Question q = fullExam.getQuestions().get(i);
+                choices.add((i + 1) + ". " + q.getTitle() + "  [答案: " + q.getCorrectAnswer() + "]");
+            }
+            ChoiceDialog<String> questionDialog = new ChoiceDialog<>(choices.get(0), choices);
+            questionDialog.setTitle("重新批改");
+            questionDialog.setHeaderText("选择需要修正答案的题目");
+            Optional<String> choice = questionDialog.showAndWait();
+            if (choice.isEmpty()) return;
+            Question question = fullExam.getQuestions().get(choices.indexOf(choice.get()));
+
+            // 2. Enter the corrected key
+            TextInputDialog keyDialog = new TextInputDialog(question.getCorrectAnswer());
+            keyDialog.setTitle("重新批改");
+            keyDialog.setHeaderText(question.getTitle());
+            keyDialog.setContentText("正确答案:");
+            Optional<String> newKey = keyDialog.showAndWait();
+            if (newKey.isEmpty() || newKey.get().trim().isEmpty()) return;
+            question.setCorrectAnswer(newKey.get().trim());
+
+            // 3. Regrade only that question in the background; totals are adjusted in the results table, reload it
+            runMaintenance("results-regrade", () -> gradingService.regradeQuestion(fullExam.getExamId(), question), result -> {
+                loadResults(selectedExam);
+                Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                alert.setTitle("重新批改完成");
+                alert.setHeaderText(null);
+                alert.setContentText(String.format("重新批改了 %d 份答案，其中 %d 份得分改变，%d 名学生的总分发生变化。",
+                        result.getAnswersRegraded(), result.getAnswersChanged(), result.getStudentsChanged()));
+                alert.showAndWait();
+            });
+        } catch (SQLException e) {
+            e.printStackTrace(); // Show alert
         }
     }
 
+    /**
+     * 校验成绩表与答案是否一致，不一致时重建
+     */
+    @FXML
+    private void handleVerifyResults() {
+        ExamPaper selectedExam = examComboBox.getSelectionModel().getSelectedItem();
+        if (selectedExam == null) return;
+        runMaintenance("results-verifier", () -> resultService.verifyAndRepairResults(selectedExam.getExamId()), inconsistent -> {
+            if (inconsistent > 0) {
+                loadResults(selectedExam);
+            }
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle("校验成绩");
+            alert.setHeaderText(null);
+            alert.setContentText(inconsistent == 0 ? "成绩表与答案一致。"
+                    : String.format("发现 %d 行成绩不一致，已重建成绩表。", inconsistent));
+            alert.showAndWait();
+        });
+    }
+
+    /**
+     * 重新批改、校验成绩等写事务在后台线程执行 (与加载成绩相同)，完成后在 FX 线程上调用 onSucceeded；
+     * 同一时间只执行一个
+     */
+    private <T> void runMaintenance(String threadName, Callable<T> job, Consumer<T> onSucceeded) {
+        if (maintenanceTask != null) return;
+
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                return job.call();
+            }
+        };
+        task.setOnSucceeded(event -> {
+            maintenanceTask = null;
+            onSucceeded.accept(task.getValue());
+        });
+        task.setOnFailed(event -> {
+            maintenanceTask = null;
+            task.getException().printStackTrace(); // Show alert
+        });
+        maintenanceTask = task;
+
+        Thread worker = new Thread(task, threadName);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
     private void showDetailsDialog(ExamPaper exam, StudentResult result) {
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/result-details-view.fxml"));
@@ -0,0 +1,301 @@
+package com.bit.examsystem.teacher.db;
+
+import org.sqlite.SQLiteConfig;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQLite 连接池：一个写连接 + N 个只读连接，连接在池的生命周期内一直打开
+ *
+ * SQLite 同一时刻只允许一个写事务，所以写连接只有一个，借出期间其他写入方排队等待 (而不是在 busy_timeout 中自旋)；
+ * WAL 模式下读连接不受写事务影响，可以并发使用。
+ *
+ * 借出的是代理对象，close() 时归还连接而不是关闭它。同一线程嵌套借用时复用已借出的连接：
+ * 已持有写连接时再借读连接或写连接，都得到同一个写连接 (能读到本事务尚未提交的数据)；
+ * 已持有读连接时再借读连接，得到同一个读连接。这样 DAO 在持有连接时调用其他 DAO 不会耗尽连接池。
+ *
+ * 每个物理连接带一个 {@link StatementCache}，借出的连接上 prepareStatement(sql) 会复用已编译的语句。
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private final String url;
+    private final StorageProfile profile;
+    private final long timeoutMillis;
+    private final int statementCacheSize;
+
+    private final PooledConnection writer;
+    private final Semaphore writerPermit = new Semaphore(1, true);
+    private final List<PooledConnection> readers = new ArrayList<>();
+    private final BlockingQueue<PooledConnection> idleReaders;
+
+    // 当前线程借出的连接及嵌套层数
+    private final ThreadLocal<Lease> writerLease = new ThreadLocal<>();
+    private final ThreadLocal<Lease> readerLease = new ThreadLocal<>();
+
+    private volatile boolean closed;
+
+    // 物理连接及其语句缓存
+    private static final class PooledConnection {
+        final Connection connection;
+        final StatementCache statements;
+
+        PooledConnection(Connection connection, int statementCacheSize) {
+            this.connection = connection;
+            this.statements = new StatementCache(connection, statementCacheSize);
+        }
+    }
+
+    private static final class Lease {
+        final PooledConnection pooled;
+        final Connection connection;
+        int depth;
+
+        Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+            this.connection = pooled.connection;
+        }
+    }
+
+    /**
+     * @param url JDBC URL，如 jdbc:sqlite:exam.db
+     * @param readerCount 只读连接数，至少 1
+     * @param timeoutMillis 借连接的最长等待时间
+     * @param statementCacheSize 每个连接缓存的 PreparedStatement 数，0 表示不缓存
+     */
+    public ConnectionPool(String url, StorageProfile profile, int readerCount, long timeoutMillis,
+                          int statementCacheSize) throws SQLException {
+        this.url = url;
+        this.profile = profile;
+        this.timeoutMillis = timeoutMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.idleReaders = new ArrayBlockingQueue<>(Math.max(1, readerCount));
+        // 先打开写连接：切换到 WAL 需要写权限，之后打开的读连接直接使用 WAL
+        this.writer = open(false);
+        try {
+            for (int i = 0; i < Math.max(1, readerCount); i++) {
+                PooledConnection reader = open(true);
+                readers.add(reader);
+                idleReaders.add(reader);
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private PooledConnection open(boolean readOnly) throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.enforceForeignKeys(true);
+        config.setBusyTimeout(5000);
+        profile.apply(config);
+        Connection conn = DriverManager.getConnection(url, config.toProperties());
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA mmap_size = " + profile.getMmapSize());
+            if (readOnly) {
+                // 防止误用读连接写入
+                stmt.execute("PRAGMA query_only = ON");
+            }
+        }
+        return new PooledConnection(conn, statementCacheSize);
+    }
+
+    /**
+     * 借出写连接，同一时刻只有一个线程持有
+     */
+    public Connection getWriteConnection() throws SQLException {
+        Lease lease = writerLease.get();
+        if (lease != null) {
+            lease.depth++;
+            return wrap(lease, true);
+        }
+        checkOpen();
+        try {
+            if (!writerPermit.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + timeoutMillis + " ms waiting for the database write connection.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the database write connection.", e);
+        }
+        lease = new Lease(writer);
+        lease.depth = 1;
+        writerLease.set(lease);
+        return wrap(lease, true);
+    }
+
+    /**
+     * 借出只读连接；当前线程已持有写连接时返回写连接
+     */
+    public Connection getReadConnection() throws SQLException {
+        Lease lease = writerLease.get();
+        if (lease != null) {
+            lease.depth++;
+            return wrap(lease, true);
+        }
+        lease = readerLease.get();
+        if (lease != null) {
+            lease.depth++;
+            return wrap(lease, false);
+        }
+        checkOpen();
+        PooledConnection reader;
+        try {
+            reader = idleReaders.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database read connection.", e);
+        }
+        if (reader == null) {
+            throw new SQLException("Timed out after " + timeoutMillis + " ms waiting for a database read connection.");
+        }
+        lease = new Lease(reader);
+        lease.depth = 1;
+        readerLease.set(lease);
+        return wrap(lease, false);
+    }
+
+    private void release(Lease lease, boolean isWriter) throws SQLException {
+        if (--lease.depth > 0) {
+            return;
+        }
+        try {
+            // 调用方忘记提交或回滚时，不能把未结束的事务留给下一个借用者
+            if (!lease.connection.getAutoCommit()) {
+                lease.connection.rollback();
+                lease.connection.setAutoCommit(true);
+            }
+        } finally {
+            if (isWriter) {
+                writerLease.remove();
+                writerPermit.release();
+            } else {
+                readerLease.remove();
+                idleReaders.add(lease.pooled);
+            }
+        }
+    }
+
+    private Connection wrap(Lease lease, boolean isWriter) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                new PooledConnectionHandler(lease, isWriter));
+    }
+
+    private void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed.");
+        }
+    }
+
+    public StorageProfile getProfile() {
+        return profile;
+    }
+
+    public int getReaderCount() {
+        return readers.size();
+    }
+
+    /**
+     * 汇总所有连接的语句缓存计数
+     */
+    public StatementCacheStats getStatementCacheStats() {
+        StatementCacheStats stats = new StatementCacheStats();
+        List<PooledConnection> all = new ArrayList<>(readers);
+        all.add(writer);
+        for (PooledConnection pooled : all) {
+            stats.setHits(stats.getHits() + pooled.statements.getHits());
+            stats.setMisses(stats.getMisses() + pooled.statements.getMisses());
+            stats.setEvictions(stats.getEvictions() + pooled.statements.getEvictions());
+            stats.setCachedStatements(stats.getCachedStatements() + pooled.statements.size());
+        }
+        return stats;
+    }
+
+    /**
+     * 关闭所有物理连接 (最后一个连接关闭时 SQLite 会做 checkpoint 并删除 WAL 文件)
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (PooledConnection reader : readers) {
+            closeQuietly(reader.connection);
+        }
+        if (writer != null) {
+            closeQuietly(writer.connection);
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            System.err.println("Failed to close database connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 借出连接的代理：close() 归还连接，prepareStatement(sql) 走语句缓存，其余调用转发给物理连接
+     */
+    private class PooledConnectionHandler implements InvocationHandler {
+        private final Lease lease;
+        private final boolean isWriter;
+        private boolean released;
+
+        PooledConnectionHandler(Lease lease, boolean isWriter) {
+            this.lease = lease;
+            this.isWriter = isWriter;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release(lease, isWriter);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || lease.connection.isClosed();
+                case "prepareStatement":
+                    if (released) {
+                        throw new SQLException("Connection has been returned to the pool.");
+                    }
+                    if (args.length == 1) {
+                        return lease.pooled.statements.prepare((String) args[0]);
+                    }
+                    break;
+                case "unwrap":
+                case "isWrapperFor":
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + (isWriter ? "Writer" : "Reader") + "[" + lease.connection + "]";
+                default:
+                    if (released) {
+                        throw new SQLException("Connection has been returned to the pool.");
+                    }
+            }
+            try {
+                return method.invoke(lease.connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -1,35 +1,113 @@
 package com.bit.examsystem.teacher.db;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 
-import org.sqlite.SQLiteConfig;
-
 public class DatabaseManager {
 
     // 数据库文件路径。这会在项目根目录下创建一个名为 exam.db 的文件。
     private static final String DB_URL = "jdbc:sqlite:exam.db";
 
+    // 只读连接数，以及借连接的最长等待时间
+    public static final int READER_CONNECTIONS = Integer.getInteger("exam.db.readers", 4);
+    public static final long POOL_TIMEOUT_MILLIS = Integer.getInteger("exam.db.poolTimeoutMillis", 30000);
+    // 每个连接缓存的 PreparedStatement 数，0 表示不缓存 (在连接池打开时读取)
+    private static final String STATEMENT_CACHE_SIZE_PROPERTY = "exam.db.statementCacheSize";
+    private static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+    // 连接池在第一次使用时创建，之后一直复用到应用退出
+    private static volatile ConnectionPool pool;
+
+    // 当前的表结构版本，保存在 PRAGMA user_version 中
+    // 1: 各表以文本 ID (UUID、学号) 为主键，student_answers 每行重复三个文本键
+    // 2: 考试、题目、学生增加整数行号，student_answers 及其索引只引用整数行号
+    static final int SCHEMA_VERSION = 2;
+
     /**
-     * 初始化数据库，如果表不存在，则创建它们。
+     * 初始化数据库，如果表不存在，则创建它们；旧版本的数据库先迁移到当前版本。
      * 这个方法应该在教师端应用启动时调用一次。
      */
     public static void initializeDatabase() {
+        // 使用 try-with-resources 确保连接和声明被自动关闭
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement()) {
+
+            System.out.println("Initializing database...");
+            if (getSchemaVersion(conn) < SCHEMA_VERSION && hasTextKeyedAnswers(conn)) {
+                migrateToIntegerKeys(conn);
+            }
+            createTables(stmt);
+            addColumnIfMissing(conn, "item_stats", "counters", "TEXT");
+            stmt.execute("PRAGMA user_version = " + SCHEMA_VERSION);
+            System.out.println("Database and tables initialized successfully.");
+
+        } catch (SQLException e) {
+            System.err.println("Database initialization failed: " + e.getMessage());
+            // 在实际应用中，这里应该使用日志框架记录错误
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 创建当前版本的全部表和索引 (已存在的跳过)
+     */
+    static void createTables(Statement stmt) throws SQLException {
         // SQL for creating tables (using IF NOT EXISTS is a good practice)
-        // 1. 考试信息表
-        String createExamsTableSql = "CREATE TABLE IF NOT EXISTS exams (" +
-                "id TEXT PRIMARY KEY, " +          // 考试ID (UUID)
+        stmt.execute(examsTableSql("exams"));
+        stmt.execute(questionsTableSql("questions"));
+        stmt.execute(studentsTableSql("students"));
+        stmt.execute(studentAnswersTableSql("student_answers"));
+        createAnswerIndexes(stmt);
+
+        // 6. 成绩汇总表 (每场考试每名学生一行，由阅卷维护，查看成绩时直接读取)
+        //    每名学生只有一行，仍用文本 ID，读取时不需要再换算
+        stmt.execute("CREATE TABLE IF NOT EXISTS exam_results (" +
+                "exam_id TEXT NOT NULL, " +
+                "student_id TEXT NOT NULL, " +
+                "total_score INTEGER NOT NULL, " +    // 总分
+                "answer_count INTEGER NOT NULL, " +   // 提交的答案数
+                "graded_count INTEGER NOT NULL, " +   // 已批改的答案数
+                "score_rank INTEGER, " +              // 不再写入：名次在读取时计算，保留该列以兼容已有的数据库
+                "graded_at INTEGER NOT NULL, " +      // 最近一次批改时间 (毫秒时间戳)
+                "PRIMARY KEY (exam_id, student_id), " +
+                "FOREIGN KEY (exam_id) REFERENCES exams(id) ON DELETE CASCADE, " +
+                "FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE" +
+                ");");
+        // 按名次排序、分页时使用
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_exam_results_rank " +
+                "ON exam_results (exam_id, total_score DESC, student_id);");
+
+        // 7. 试题分析表 (每场考试一行，summary 为整场考试的试题分析 JSON)
+        stmt.execute("CREATE TABLE IF NOT EXISTS item_stats (" +
+                "exam_id TEXT PRIMARY KEY, " +
+                "student_count INTEGER NOT NULL, " +
+                "summary TEXT NOT NULL, " +
+                "counters TEXT, " +                    // 原始计数器 JSON，写入答案时增量更新；为空时重新统计
+                "updated_at INTEGER NOT NULL, " +      // 统计时间 (毫秒时间戳)
+                "FOREIGN KEY (exam_id) REFERENCES exams(id) ON DELETE CASCADE" +
+                ");");
+    }
+
+    // 1. 考试信息表；exam_no 是整数行号，id 仍是对外使用的考试ID
+    private static String examsTableSql(String table) {
+        return "CREATE TABLE IF NOT EXISTS " + table + " (" +
+                "exam_no INTEGER PRIMARY KEY, " +  // 整数行号，student_answers 引用它
+                "id TEXT NOT NULL UNIQUE, " +      // 考试ID (UUID)
                 "title TEXT NOT NULL, " +          // 考试标题
                 "duration_minutes INTEGER NOT NULL, " + // 考试时长（分钟）
                 "start_time INTEGER NOT NULL, " +  // 考试开始时间戳 (Unix Timestamp)
                 "created_at INTEGER DEFAULT (strftime('%s', 'now'))" + // 创建时间
                 ");";
+    }
 
-        // 2. 题目信息表
-        String createQuestionsTableSql = "CREATE TABLE IF NOT EXISTS questions (" +
-                "id TEXT PRIMARY KEY, " +          // 题目ID (UUID)
+    // 2. 题目信息表
+    private static String questionsTableSql(String table) {
+        return "CREATE TABLE IF NOT EXISTS " + table + " (" +
+                "question_no INTEGER PRIMARY KEY, " + // 整数行号，按插入顺序即题号顺序
+                "id TEXT NOT NULL UNIQUE, " +      // 题目ID (UUID)
                 "exam_id TEXT NOT NULL, " +        // 所属考试ID (外键)
                 "title TEXT NOT NULL, " +          // 题干
                 "type TEXT NOT NULL, " +           // 题目类型 (SINGLE_CHOICE, etc.)
@@ -38,53 +116,198 @@ public class DatabaseManager {
                 "score INTEGER NOT NULL, " +       // 分值
                 "FOREIGN KEY (exam_id) REFERENCES exams(id) ON DELETE CASCADE" + // 级联删除
                 ");";
+    }
 
-        // 3. 学生信息表 (用于存储学生基本信息，避免冗余)
-        String createStudentsTableSql = "CREATE TABLE IF NOT EXISTS students (" +
-                "id TEXT PRIMARY KEY, " +          // 学号
+    // 3. 学生信息表 (用于存储学生基本信息，避免冗余)
+    private static String studentsTableSql(String table) {
+        return "CREATE TABLE IF NOT EXISTS " + table + " (" +
+                "student_no INTEGER PRIMARY KEY, " + // 整数行号
+                "id TEXT NOT NULL UNIQUE, " +      // 学号
                 "name TEXT NOT NULL" +             // 姓名
                 ");";
+    }
 
-        // 4. 学生答案表 (核心表，记录每个学生对每道题的作答)
-        String createStudentAnswersTableSql = "CREATE TABLE IF NOT EXISTS student_answers (" +
-                "exam_id TEXT NOT NULL, " +
-                "student_id TEXT NOT NULL, " +
-                "question_id TEXT NOT NULL, " +
+    // 4. 学生答案表 (核心表，记录每个学生对每道题的作答)
+    //    每行只存三个整数键，没有 rowid，主键即表本身
+    private static String studentAnswersTableSql(String table) {
+        return "CREATE TABLE IF NOT EXISTS " + table + " (" +
+                "exam_no INTEGER NOT NULL, " +
+                "student_no INTEGER NOT NULL, " +
+                "question_no INTEGER NOT NULL, " +
                 "answer TEXT, " +                  // 学生提交的答案
                 "score_awarded INTEGER, " +        // 批改后得分 (可为空，表示未批改)
-                "PRIMARY KEY (exam_id, student_id, question_id), " + // 联合主键
-                "FOREIGN KEY (exam_id) REFERENCES exams(id) ON DELETE CASCADE, " +
-                "FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE, " +
-                "FOREIGN KEY (question_id) REFERENCES questions(id) ON DELETE CASCADE" +
-                ");";
+                "PRIMARY KEY (exam_no, student_no, question_no), " + // 联合主键
+                "FOREIGN KEY (exam_no) REFERENCES exams(exam_no) ON DELETE CASCADE, " +
+                "FOREIGN KEY (student_no) REFERENCES students(student_no) ON DELETE CASCADE, " +
+                "FOREIGN KEY (question_no) REFERENCES questions(question_no) ON DELETE CASCADE" +
+                ") WITHOUT ROWID;";
+    }
 
-        // 使用 try-with-resources 确保连接和声明被自动关闭
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement()) {
+    // 5. 成绩汇总用的覆盖索引：按考试、学生分组求和时只读索引，不读答案原文
+    private static void createAnswerIndexes(Statement stmt) throws SQLException {
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_student_answers_results " +
+                "ON student_answers (exam_no, student_no, score_awarded);");
+    }
 
-            System.out.println("Initializing database...");
-            stmt.execute(createExamsTableSql);
-            stmt.execute(createQuestionsTableSql);
-            stmt.execute(createStudentsTableSql);
-            stmt.execute(createStudentAnswersTableSql);
-            System.out.println("Database and tables initialized successfully.");
+    static int getSchemaVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * 给已有的表补上后来增加的可空列 (CREATE TABLE IF NOT EXISTS 不会修改已存在的表)
+     */
+    private static void addColumnIfMissing(Connection conn, String table, String column, String type) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT COUNT(*) FROM pragma_table_info(?) WHERE name = ?")) {
+            pstmt.setString(1, table);
+            pstmt.setString(2, column);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next() && rs.getInt(1) > 0) {
+                return;
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + type);
+        }
+    }
 
+    /**
+     * 版本 1 的数据库：student_answers 以文本 exam_id 为键
+     */
+    private static boolean hasTextKeyedAnswers(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                     "SELECT COUNT(*) FROM pragma_table_info('student_answers') WHERE name = 'exam_id'")) {
+            return rs.next() && rs.getInt(1) > 0;
+        }
+    }
+
+    /**
+     * 把版本 1 的数据库迁移到整数行号 (版本 2)
+     *
+     * 按 SQLite 推荐的步骤重建表：关闭外键检查，在一个事务中建新表、按原 rowid 顺序复制数据
+     * (题目的行号顺序即原来的题号顺序)、删除旧表、改名，提交前用 foreign_key_check 确认没有悬空引用。
+     * exam_results、item_stats 仍引用 exams(id)、students(id)，改名后自动指向新表。
+     * 迁移后 VACUUM 一次，释放旧表占用的页。
+     */
+    static void migrateToIntegerKeys(Connection conn) throws SQLException {
+        System.out.println("Migrating database to schema version " + SCHEMA_VERSION + " (integer row ids)...");
+        long start = System.currentTimeMillis();
+        try (Statement stmt = conn.createStatement()) {
+            // 只能在事务外切换
+            stmt.execute("PRAGMA foreign_keys = OFF");
+            try {
+                conn.setAutoCommit(false);
+                stmt.execute(examsTableSql("exams_v2"));
+                stmt.execute("INSERT INTO exams_v2 (id, title, duration_minutes, start_time, created_at) " +
+                        "SELECT id, title, duration_minutes, start_time, created_at FROM exams ORDER BY rowid");
+                stmt.execute(questionsTableSql("questions_v2"));
+                stmt.execute("INSERT INTO questions_v2 (id, exam_id, title, type, options, correct_answer, score) " +
+                        "SELECT id, exam_id, title, type, options, correct_answer, score FROM questions ORDER BY rowid");
+                stmt.execute(studentsTableSql("students_v2"));
+                stmt.execute("INSERT INTO students_v2 (id, name) SELECT id, name FROM students ORDER BY rowid");
+                stmt.execute(studentAnswersTableSql("student_answers_v2"));
+                stmt.execute("INSERT INTO student_answers_v2 (exam_no, student_no, question_no, answer, score_awarded) " +
+                        "SELECT e.exam_no, s.student_no, q.question_no, sa.answer, sa.score_awarded " +
+                        "FROM student_answers sa " +
+                        "JOIN exams_v2 e ON e.id = sa.exam_id " +
+                        "JOIN students_v2 s ON s.id = sa.student_id " +
+                        "JOIN questions_v2 q ON q.id = sa.question_id");
+
+                stmt.execute("DROP TABLE student_answers"); // 连同 idx_student_answers_results
+                stmt.execute("DROP TABLE questions");
+                stmt.execute("DROP TABLE students");
+                stmt.execute("DROP TABLE exams");
+                stmt.execute("ALTER TABLE exams_v2 RENAME TO exams");
+                stmt.execute("ALTER TABLE questions_v2 RENAME TO questions");
+                stmt.execute("ALTER TABLE students_v2 RENAME TO students");
+                stmt.execute("ALTER TABLE student_answers_v2 RENAME TO student_answers");
+                createAnswerIndexes(stmt);
+
+                try (ResultSet rs = stmt.executeQuery("PRAGMA foreign_key_check")) {
+                    if (rs.next()) {
+                        throw new SQLException("Foreign key violation in table " + rs.getString("table") + " after migration.");
+                    }
+                }
+                stmt.execute("PRAGMA user_version = " + SCHEMA_VERSION);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw new SQLException("Failed to migrate the database to schema version " + SCHEMA_VERSION + ".", e);
+            } finally {
+                conn.setAutoCommit(true);
+                stmt.execute("PRAGMA foreign_keys = ON");
+            }
+        }
+        // VACUUM 只是释放空间，连接上还有未结束的语句时会失败，不影响迁移结果
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("VACUUM");
         } catch (SQLException e) {
-            System.err.println("Database initialization failed: " + e.getMessage());
-            // 在实际应用中，这里应该使用日志框架记录错误
-            e.printStackTrace();
+            System.err.println("VACUUM after migration skipped: " + e.getMessage());
         }
+        System.out.println("Database migrated in " + (System.currentTimeMillis() - start) + " ms.");
     }
 
     /**
-     * 获取一个新的数据库连接
+     * 从连接池借出写连接，用完后 close() 归还
+     * SQLite 同一时刻只有一个写事务，其他写入方在这里排队。
      * @return 数据库连接对象
-     * @throws SQLException 如果连接失败
+     * @throws SQLException 如果连接失败或等待超时
      */
     public static Connection getConnection() throws SQLException {
-        SQLiteConfig config = new SQLiteConfig();
-        config.enforceForeignKeys(true);
-        return DriverManager.getConnection(DB_URL, config.toProperties());
+        return getPool().getWriteConnection();
+    }
+
+    /**
+     * 从连接池借出只读连接，用于查询；WAL 模式下不会被正在进行的写事务阻塞
+     * 当前线程已持有写连接时返回同一个写连接。
+     * @throws SQLException 如果连接失败或等待超时
+     */
+    public static Connection getReadConnection() throws SQLException {
+        return getPool().getReadConnection();
+    }
+
+    private static ConnectionPool getPool() throws SQLException {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseManager.class) {
+                current = pool;
+                if (current == null) {
+                    StorageProfile profile = StorageProfile.fromConfig();
+                    int statementCacheSize = Integer.getInteger(STATEMENT_CACHE_SIZE_PROPERTY, DEFAULT_STATEMENT_CACHE_SIZE);
+                    current = new ConnectionPool(DB_URL, profile, READER_CONNECTIONS, POOL_TIMEOUT_MILLIS, statementCacheSize);
+                    System.out.println("Database connection pool opened (profile " + profile
+                            + ", 1 writer + " + current.getReaderCount() + " readers, "
+                            + statementCacheSize + " cached statements per connection).");
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * @return 语句缓存的命中统计，连接池尚未打开时返回 null
+     */
+    public static StatementCacheStats getStatementCacheStats() {
+        ConnectionPool current = pool;
+        return current == null ? null : current.getStatementCacheStats();
+    }
+
+    /**
+     * 关闭连接池，应用退出时调用；之后再借连接会重新打开连接池
+     */
+    public static void shutdown() {
+        synchronized (DatabaseManager.class) {
+            if (pool != null) {
+                System.out.println("[Database] " + pool.getStatementCacheStats());
+                pool.close();
+                pool = null;
+                System.out.println("Database connection pool closed.");
+            }
+        }
     }
 
     // 测试
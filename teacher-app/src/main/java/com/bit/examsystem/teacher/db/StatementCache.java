@@ -0,0 +1,189 @@
+package com.bit.examsystem.teacher.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个物理连接上的 PreparedStatement LRU 缓存
+ *
+ * DAO 仍按原来的写法 prepareStatement(sql) + close()：命中时返回已编译的语句，close() 只清空参数并放回缓存，
+ * 同一条 SQL 不再反复解析。连接池保证同一时刻只有一个线程使用一个物理连接，所以缓存本身不加锁，只有计数器是原子的。
+ */
+class StatementCache {
+
+    private final Connection connection;
+    private final int capacity;
+    private final Map<String, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private static final class Entry {
+        final String sql;
+        final PreparedStatement statement;
+        boolean inUse;
+        boolean evicted;
+
+        Entry(String sql, PreparedStatement statement) {
+            this.sql = sql;
+            this.statement = statement;
+        }
+    }
+
+    /**
+     * @param capacity 最多缓存的语句数，0 表示不缓存
+     */
+    StatementCache(Connection connection, int capacity) {
+        this.connection = connection;
+        this.capacity = Math.max(0, capacity);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true); // 按访问顺序，最久未用的在最前
+    }
+
+    /**
+     * 取出或编译 sql 对应的语句；同一条 SQL 已被借出 (嵌套使用) 时编译一个不缓存的新语句
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        if (capacity == 0) {
+            misses.incrementAndGet();
+            return connection.prepareStatement(sql);
+        }
+        Entry entry = entries.get(sql);
+        if (entry != null && !entry.inUse) {
+            hits.incrementAndGet();
+            entry.inUse = true;
+            return wrap(entry);
+        }
+        misses.incrementAndGet();
+        PreparedStatement statement = connection.prepareStatement(sql);
+        if (entry != null) {
+            return statement;
+        }
+        entry = new Entry(sql, statement);
+        entry.inUse = true;
+        entries.put(sql, entry);
+        evictIfNeeded();
+        return wrap(entry);
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > capacity && it.hasNext()) {
+            Entry eldest = it.next();
+            it.remove();
+            evictions.incrementAndGet();
+            if (eldest.inUse) {
+                eldest.evicted = true; // 归还时再关闭
+            } else {
+                closeQuietly(eldest.statement);
+            }
+        }
+    }
+
+    private void release(Entry entry, ResultSet openResult) throws SQLException {
+        entry.inUse = false;
+        if (entry.evicted) {
+            closeQuietly(entry.statement);
+            return;
+        }
+        try {
+            // 未读完的结果集会一直占着读事务 (WAL 中表现为无法 checkpoint)，必须在归还时关闭
+            if (openResult != null) {
+                openResult.close();
+            }
+            entry.statement.clearParameters();
+            entry.statement.clearBatch();
+        } catch (SQLException e) {
+            entries.remove(entry.sql, entry);
+            closeQuietly(entry.statement);
+            throw e;
+        }
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    long getEvictions() {
+        return evictions.get();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private PreparedStatement wrap(Entry entry) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new CachedStatementHandler(entry));
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            System.err.println("Failed to close cached statement: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 借出语句的代理：close() 放回缓存，其余调用转发给真实语句
+     */
+    private class CachedStatementHandler implements InvocationHandler {
+        private final Entry entry;
+        private boolean released;
+        private ResultSet openResult;
+
+        CachedStatementHandler(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release(entry, openResult);
+                        openResult = null;
+                    }
+                    return null;
+                case "isClosed":
+                    return released || entry.statement.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached[" + entry.sql + "]";
+                default:
+                    if (released) {
+                        throw new SQLException("Statement has been closed.");
+                    }
+            }
+            Object result;
+            try {
+                result = method.invoke(entry.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof ResultSet) {
+                openResult = (ResultSet) result;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.bit.examsystem.teacher.db;
+
+import lombok.Data;
+
+/**
+ * 连接池中所有连接的 PreparedStatement 缓存统计，供教师端仪表盘显示
+ */
+@Data
+public class StatementCacheStats {
+    private long hits;          // 启动以来命中缓存的 prepareStatement 次数
+    private long misses;        // 启动以来需要重新编译的次数
+    private long evictions;     // 因超出容量被淘汰的语句数
+    private int cachedStatements; // 当前缓存的语句数 (所有连接合计)
+
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("statement cache %d hits, %d misses (%.1f%%), %d evictions, %d cached",
+                hits, misses, getHitRate() * 100, evictions, cachedStatements);
+    }
+}
@@ -0,0 +1,81 @@
+package com.bit.examsystem.teacher.db;
+
+import org.sqlite.SQLiteConfig;
+
+/**
+ * SQLite 存储配置，在每个连接打开时应用
+ * 通过 -Dexam.db.profile=safe|fast-exam 选择，默认 safe。
+ *
+ * 两者都使用 WAL：读连接不会被写事务阻塞，写入只追加到 WAL 文件，提交时不需要改写数据库文件本身。
+ */
+public enum StorageProfile {
+    /**
+     * 每次提交都 fsync WAL，断电也不会丢失已确认的答卷
+     */
+    SAFE("safe", SQLiteConfig.SynchronousMode.FULL, 0, -2 * 1024),
+    /**
+     * 考试期间使用：只在 checkpoint 时 fsync，提交更快；断电可能丢失最后几次提交，但数据库不会损坏。
+     * 同时开启 256MB 内存映射读和 64MB 页缓存。
+     */
+    FAST_EXAM("fast-exam", SQLiteConfig.SynchronousMode.NORMAL, 256L * 1024 * 1024, -64 * 1024);
+
+    private final String configName;
+    private final SQLiteConfig.SynchronousMode synchronous;
+    private final long mmapSize;
+    private final int cacheSize; // 负数表示 KB，正数表示页数 (与 PRAGMA cache_size 相同)
+
+    StorageProfile(String configName, SQLiteConfig.SynchronousMode synchronous, long mmapSize, int cacheSize) {
+        this.configName = configName;
+        this.synchronous = synchronous;
+        this.mmapSize = mmapSize;
+        this.cacheSize = cacheSize;
+    }
+
+    public static StorageProfile fromConfig() {
+        String value = System.getProperty("exam.db.profile", SAFE.configName);
+        StorageProfile profile = forName(value);
+        if (profile == null) {
+            System.err.println("Unknown storage profile '" + value + "', using " + SAFE.configName + ".");
+            return SAFE;
+        }
+        return profile;
+    }
+
+    /**
+     * @return 名称对应的配置 (如 "fast-exam" 或 "FAST_EXAM")，未知名称返回 null
+     */
+    public static StorageProfile forName(String name) {
+        if (name == null) {
+            return null;
+        }
+        for (StorageProfile profile : values()) {
+            if (profile.configName.equalsIgnoreCase(name.trim()) || profile.name().equalsIgnoreCase(name.trim())) {
+                return profile;
+            }
+        }
+        return null;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    public long getMmapSize() {
+        return mmapSize;
+    }
+
+    /**
+     * 把本配置的 PRAGMA 写入连接参数 (mmap_size 不在 SQLiteConfig 中，由连接池打开后设置)
+     */
+    void apply(SQLiteConfig config) {
+        config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        config.setSynchronous(synchronous);
+        config.setCacheSize(cacheSize);
+        config.setTempStore(SQLiteConfig.TempStore.MEMORY);
+    }
+
+    @Override
+    public String toString() {
+        return configName;
+    }
+}
@@ -55,7 +55,7 @@ public class ExamDAOImpl implements ExamDAO {
     @Override
     public Optional<ExamPaper> findById(String examId) throws SQLException {
         String sql = "SELECT * FROM exams WHERE id = ?";
-        try (Connection conn = DatabaseManager.getConnection();
+        try (Connection conn = DatabaseManager.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, examId);
             ResultSet rs = pstmt.executeQuery();
@@ -90,7 +90,7 @@ public class ExamDAOImpl implements ExamDAO {
     public List<ExamPaper> findAll() throws SQLException {
         List<ExamPaper> exams = new ArrayList<>();
         String sql = "SELECT * FROM exams";
-        try (Connection conn = DatabaseManager.getConnection();
+        try (Connection conn = DatabaseManager.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
@@ -0,0 +1,86 @@
+package com.bit.examsystem.teacher.db.dao;
+
+import com.bit.examsystem.teacher.dto.StudentResult;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * exam_results 表：每场考试每名学生一行的成绩汇总 (总分、批改时间)；名次在读取时按总分计算
+ * 由写入答卷、阅卷和单题重新批改在同一事务中维护，查看成绩时不再扫描 student_answers。
+ */
+public interface ExamResultDAO {
+
+    enum SortOrder {
+        RANK,        // 名次 (总分从高到低)，同名次按学号
+        STUDENT_ID   // 学号
+    }
+
+    /**
+     * 按 student_answers 重新计算一场考试的全部成绩行 (在一个已有的数据库事务中)
+     * @param examId 考试ID
+     * @param gradedAt 批改时间 (毫秒时间戳)
+     * @param connection 数据库连接，由调用者管理
+     * @return 写入的成绩行数
+     */
+    int rebuild(String examId, long gradedAt, Connection connection) throws SQLException;
+
+    /**
+     * 在单独的事务中重建一场考试的成绩行
+     * @return 写入的成绩行数
+     */
+    int rebuild(String examId) throws SQLException;
+
+    /**
+     * 按 student_answers 重新计算部分学生的成绩行，插入或更新 (在一个已有的数据库事务中)；
+     * 写入答卷后调用。该考试还没有任何成绩行时 (例如答案是在维护成绩表之前写入的) 改为重建整场考试
+     * @param examId 考试ID
+     * @param studentIds 答案有变化的学生
+     * @param gradedAt 批改时间 (毫秒时间戳)
+     * @param connection 数据库连接，由调用者管理
+     * @return 写入的成绩行数
+     */
+    int refreshStudents(String examId, Collection<String> studentIds, long gradedAt, Connection connection) throws SQLException;
+
+    /**
+     * 按变化量调整部分学生的总分和已批改答案数 (在一个已有的数据库事务中)
+     * @param examId 考试ID
+     * @param totalDeltas Key 为 studentId，Value 为总分变化量
+     * @param newlyGraded 已批改答案数加一的学生 (原来未批改的答案被批改)
+     * @param gradedAt 批改时间 (毫秒时间戳)
+     * @param connection 数据库连接，由调用者管理
+     * @return 更新的成绩行数；小于涉及的学生数说明成绩表缺行，应改为重建
+     */
+    int applyDeltas(String examId, Map<String, Integer> totalDeltas, Set<String> newlyGraded, long gradedAt,
+                    Connection connection) throws SQLException;
+
+    /**
+     * 分页查询成绩
+     * @param offset 跳过的行数
+     * @param limit 最多返回的行数，小于等于 0 时返回全部
+     */
+    List<StudentResult> findPage(String examId, SortOrder order, int offset, int limit) throws SQLException;
+
+    /**
+     * 用只进游标逐行读取全部成绩，不在内存中建立列表
+     * @param consumer 每行调用一次 (StudentResult 对象会被复用，不要保存引用)；返回 false 时停止读取
+     * @return 读取的行数
+     */
+    long streamResults(String examId, SortOrder order, Predicate<StudentResult> consumer) throws SQLException;
+
+    Optional<StudentResult> findByStudent(String examId, String studentId) throws SQLException;
+
+    int count(String examId) throws SQLException;
+
+    /**
+     * 完整性检查：与 student_answers 的汇总逐行比较
+     * @return 缺失、多余或数值不一致的成绩行数，0 表示一致
+     */
+    int countInconsistent(String examId) throws SQLException;
+}
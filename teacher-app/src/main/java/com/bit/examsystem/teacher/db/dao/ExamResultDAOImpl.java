@@ -0,0 +1,244 @@
+package com.bit.examsystem.teacher.db.dao;
+
+import com.bit.examsystem.teacher.db.DatabaseManager;
+import com.bit.examsystem.teacher.dto.StudentResult;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+public class ExamResultDAOImpl implements ExamResultDAO {
+
+    // 按学生汇总一场考试的答案，走覆盖索引 idx_student_answers_results，再按学生行号换回学号
+    private static final String AGGREGATE_SQL = "SELECT s.id AS student_id, t.total_score, t.answer_count, t.graded_count " +
+            "FROM (SELECT student_no, COALESCE(SUM(score_awarded), 0) AS total_score, " +
+            "COUNT(*) AS answer_count, COUNT(score_awarded) AS graded_count " +
+            "FROM student_answers WHERE exam_no = " + RowIds.EXAM_NO + " GROUP BY student_no) t " +
+            "JOIN students s ON s.student_no = t.student_no";
+
+    // 名次在读取时计算，不保存在表中：交卷期间每批写入只更新这几名学生的行，不必给全场重新排名。
+    // 总分从高到低，同分同名次 (1, 1, 3 ...)；分页和导出时对整场考试开窗，查单名学生时数出总分更高的人数，
+    // 两者都走索引 idx_exam_results_rank
+    private static final String RANK_OVER_EXAM = "RANK() OVER (ORDER BY r.total_score DESC)";
+    private static final String RANK_OF_STUDENT = "(SELECT COUNT(*) + 1 FROM exam_results h " +
+            "WHERE h.exam_id = r.exam_id AND h.total_score > r.total_score)";
+
+    private static String select(String rank) {
+        return "SELECT r.student_id, s.name, r.total_score, r.answer_count, r.graded_count, " +
+                rank + " AS score_rank, r.graded_at FROM exam_results r JOIN students s ON s.id = r.student_id ";
+    }
+
+    @Override
+    public int rebuild(String examId, long gradedAt, Connection connection) throws SQLException {
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM exam_results WHERE exam_id = ?")) {
+            delete.setString(1, examId);
+            delete.executeUpdate();
+        }
+        String sql = "INSERT INTO exam_results (exam_id, student_id, total_score, answer_count, graded_count, graded_at) " +
+                "SELECT ?, a.student_id, a.total_score, a.answer_count, a.graded_count, ? FROM (" + AGGREGATE_SQL + ") a";
+        int rows;
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, examId);
+            pstmt.setLong(2, gradedAt);
+            pstmt.setString(3, examId);
+            rows = pstmt.executeUpdate();
+        }
+        return rows;
+    }
+
+    @Override
+    public int rebuild(String examId) throws SQLException {
+        Connection conn = null;
+        try {
+            conn = DatabaseManager.getConnection();
+            conn.setAutoCommit(false);
+            int rows = rebuild(examId, System.currentTimeMillis(), conn);
+            conn.commit();
+            return rows;
+        } catch (SQLException e) {
+            if (conn != null) {
+                conn.rollback();
+            }
+            throw new SQLException("Failed to rebuild results of exam " + examId + ".", e);
+        } finally {
+            if (conn != null) {
+                conn.setAutoCommit(true);
+                conn.close();
+            }
+        }
+    }
+
+    @Override
+    public int refreshStudents(String examId, Collection<String> studentIds, long gradedAt, Connection connection) throws SQLException {
+        if (studentIds.isEmpty()) {
+            return 0;
+        }
+        if (count(examId, connection) == 0) {
+            return rebuild(examId, gradedAt, connection);
+        }
+        // 每名学生一次聚合，走覆盖索引 idx_student_answers_results 的 (exam_no, student_no) 前缀
+        String sql = "INSERT INTO exam_results (exam_id, student_id, total_score, answer_count, graded_count, graded_at) " +
+                "SELECT ?, ?, COALESCE(SUM(score_awarded), 0), COUNT(*), COUNT(score_awarded), ? FROM student_answers " +
+                "WHERE exam_no = " + RowIds.EXAM_NO + " AND student_no = " + RowIds.STUDENT_NO + " HAVING COUNT(*) > 0 " +
+                "ON CONFLICT (exam_id, student_id) DO UPDATE SET total_score = excluded.total_score, " +
+                "answer_count = excluded.answer_count, graded_count = excluded.graded_count, graded_at = excluded.graded_at";
+        int rows = 0;
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            for (String studentId : studentIds) {
+                pstmt.setString(1, examId);
+                pstmt.setString(2, studentId);
+                pstmt.setLong(3, gradedAt);
+                pstmt.setString(4, examId);
+                pstmt.setString(5, studentId);
+                pstmt.addBatch();
+            }
+            for (int count : pstmt.executeBatch()) {
+                rows += Math.max(count, 0);
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public int applyDeltas(String examId, Map<String, Integer> totalDeltas, Set<String> newlyGraded, long gradedAt,
+                           Connection connection) throws SQLException {
+        Set<String> students = new HashSet<>(totalDeltas.keySet());
+        students.addAll(newlyGraded);
+        if (students.isEmpty()) {
+            return 0;
+        }
+        String sql = "UPDATE exam_results SET total_score = total_score + ?, graded_count = graded_count + ?, graded_at = ? " +
+                "WHERE exam_id = ? AND student_id = ?";
+        int updated = 0;
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            for (String studentId : students) {
+                pstmt.setInt(1, totalDeltas.getOrDefault(studentId, 0));
+                pstmt.setInt(2, newlyGraded.contains(studentId) ? 1 : 0);
+                pstmt.setLong(3, gradedAt);
+                pstmt.setString(4, examId);
+                pstmt.setString(5, studentId);
+                pstmt.addBatch();
+            }
+            for (int count : pstmt.executeBatch()) {
+                updated += Math.max(count, 0);
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    public List<StudentResult> findPage(String examId, SortOrder order, int offset, int limit) throws SQLException {
+        String sql = select(RANK_OVER_EXAM) + "WHERE r.exam_id = ? " + orderBy(order) + "LIMIT ? OFFSET ?";
+        List<StudentResult> results = new ArrayList<>();
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, examId);
+            pstmt.setInt(2, limit > 0 ? limit : -1); // SQLite: LIMIT -1 表示不限
+            pstmt.setInt(3, Math.max(offset, 0));
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                results.add(mapResultSetToStudentResult(rs));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public long streamResults(String examId, SortOrder order, Predicate<StudentResult> consumer) throws SQLException {
+        String sql = select(RANK_OVER_EXAM) + "WHERE r.exam_id = ? " + orderBy(order);
+        long rows = 0;
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            pstmt.setString(1, examId);
+            ResultSet rs = pstmt.executeQuery();
+            StudentResult result = new StudentResult();
+            while (rs.next()) {
+                mapResultSetToStudentResult(rs, result);
+                rows++;
+                if (!consumer.test(result)) {
+                    break;
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * ORDER BY 只能来自枚举，不拼接外部输入；两种顺序都有索引，不需要临时排序
+     */
+    private static String orderBy(SortOrder order) {
+        return switch (order) {
+            case RANK -> "ORDER BY r.total_score DESC, r.student_id ";
+            case STUDENT_ID -> "ORDER BY r.student_id ";
+        };
+    }
+
+    @Override
+    public Optional<StudentResult> findByStudent(String examId, String studentId) throws SQLException {
+        String sql = select(RANK_OF_STUDENT) + "WHERE r.exam_id = ? AND r.student_id = ?";
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, examId);
+            pstmt.setString(2, studentId);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return Optional.of(mapResultSetToStudentResult(rs));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public int count(String examId) throws SQLException {
+        try (Connection conn = DatabaseManager.getReadConnection()) {
+            return count(examId, conn);
+        }
+    }
+
+    private int count(String examId, Connection connection) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement("SELECT COUNT(*) FROM exam_results WHERE exam_id = ?")) {
+            pstmt.setString(1, examId);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    @Override
+    public int countInconsistent(String examId) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM (" + AGGREGATE_SQL + ") a " +
+                "FULL OUTER JOIN (SELECT * FROM exam_results WHERE exam_id = ?) r ON r.student_id = a.student_id " +
+                "WHERE a.student_id IS NULL OR r.student_id IS NULL " +
+                "OR a.total_score <> r.total_score OR a.answer_count <> r.answer_count OR a.graded_count <> r.graded_count";
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, examId);
+            pstmt.setString(2, examId);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private StudentResult mapResultSetToStudentResult(ResultSet rs) throws SQLException {
+        return mapResultSetToStudentResult(rs, new StudentResult());
+    }
+
+    private StudentResult mapResultSetToStudentResult(ResultSet rs, StudentResult result) throws SQLException {
+        result.setStudentId(rs.getString("student_id"));
+        result.setStudentName(rs.getString("name"));
+        result.setTotalScore(rs.getInt("total_score"));
+        result.setAnswerCount(rs.getInt("answer_count"));
+        result.setGradedCount(rs.getInt("graded_count"));
+        result.setRank(rs.getInt("score_rank"));
+        result.setGradedAt(rs.getLong("graded_at"));
+        return result;
+    }
+}
@@ -0,0 +1,43 @@
+package com.bit.examsystem.teacher.db.dao;
+
+import com.bit.examsystem.teacher.dto.ExamItemStats;
+import com.bit.examsystem.teacher.dto.ItemCounters;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Optional;
+
+/**
+ * item_stats 表：每场考试一行，保存序列化后的试题分析汇总
+ */
+public interface ItemStatsDAO {
+    /**
+     * 保存 (或覆盖) 一场考试的试题分析 (在一个已有的数据库事务中)
+     * @param stats 试题分析汇总
+     * @param connection 数据库连接，由调用者管理
+     */
+    void save(ExamItemStats stats, Connection connection) throws SQLException;
+
+    /**
+     * 保存 (或覆盖) 试题分析及其原始计数器 (在一个已有的数据库事务中)，之后可以增量更新
+     * @param counters 生成该汇总的计数器，为 null 时只保存汇总 (计数器列置空，之后需要重新统计)
+     */
+    void save(ExamItemStats stats, ItemCounters counters, Connection connection) throws SQLException;
+
+    /**
+     * 读出保存的原始计数器 (在一个已有的数据库事务中，读到本事务之前写入的值)
+     * @return 没有保存过或只保存了汇总时返回 empty
+     */
+    Optional<ItemCounters> findCounters(String examId, Connection connection) throws SQLException;
+
+    /**
+     * 读出最近一次保存的时间 (在一个已有的数据库事务中)，用来判断内存中的计数器是否还与这一行一致
+     * @return 还没有保存过时返回 empty
+     */
+    Optional<Long> findUpdatedAt(String examId, Connection connection) throws SQLException;
+
+    /**
+     * @return 该考试最近一次保存的试题分析，还没有答卷的考试返回 empty
+     */
+    Optional<ExamItemStats> findByExamId(String examId) throws SQLException;
+}
@@ -0,0 +1,71 @@
+package com.bit.examsystem.teacher.db.dao;
+
+import com.bit.examsystem.common.util.JsonUtil;
+import com.bit.examsystem.teacher.db.DatabaseManager;
+import com.bit.examsystem.teacher.dto.ExamItemStats;
+import com.bit.examsystem.teacher.dto.ItemCounters;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+
+public class ItemStatsDAOImpl implements ItemStatsDAO {
+
+    @Override
+    public void save(ExamItemStats stats, Connection connection) throws SQLException {
+        save(stats, null, connection);
+    }
+
+    @Override
+    public void save(ExamItemStats stats, ItemCounters counters, Connection connection) throws SQLException {
+        String sql = "REPLACE INTO item_stats (exam_id, student_count, summary, counters, updated_at) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, stats.getExamId());
+            pstmt.setInt(2, stats.getStudentCount());
+            pstmt.setString(3, JsonUtil.toJson(stats));
+            pstmt.setString(4, counters == null ? null : JsonUtil.toJson(counters));
+            pstmt.setLong(5, stats.getUpdatedAt());
+            pstmt.executeUpdate();
+        }
+    }
+
+    @Override
+    public Optional<ItemCounters> findCounters(String examId, Connection connection) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement("SELECT counters FROM item_stats WHERE exam_id = ?")) {
+            pstmt.setString(1, examId);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next() && rs.getString("counters") != null) {
+                return Optional.ofNullable(JsonUtil.fromJson(rs.getString("counters"), ItemCounters.class));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<Long> findUpdatedAt(String examId, Connection connection) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement("SELECT updated_at FROM item_stats WHERE exam_id = ?")) {
+            pstmt.setString(1, examId);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return Optional.of(rs.getLong("updated_at"));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<ExamItemStats> findByExamId(String examId) throws SQLException {
+        String sql = "SELECT summary FROM item_stats WHERE exam_id = ?";
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, examId);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return Optional.ofNullable(JsonUtil.fromJson(rs.getString("summary"), ExamItemStats.class));
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -21,5 +21,16 @@ public interface QuestionDAO {
      */
     List<Question> findByExamId(String examId) throws SQLException;
 
-    // Optional: Add update, delete, findById if needed later
+    /**
+     * 修正题目的标准答案和分值 (在一个已有的数据库事务中)，不影响已保存的学生答案
+     * @param examId 题目所属的考试ID，其他考试的同ID题目不会被修改
+     * @param questionId 题目ID
+     * @param correctAnswer 新的标准答案
+     * @param score 新的分值
+     * @param connection 数据库连接，由调用者管理
+     * @return 是否在该考试中找到该题目
+     */
+    boolean updateAnswerKey(String examId, String questionId, String correctAnswer, int score, Connection connection) throws SQLException;
+
+    // Optional: Add delete, findById if needed later
 }
\ No newline at end of file
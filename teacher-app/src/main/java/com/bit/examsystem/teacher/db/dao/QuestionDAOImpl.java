@@ -28,11 +28,23 @@ public class QuestionDAOImpl implements QuestionDAO {
         }
     }
 
+    @Override
+    public boolean updateAnswerKey(String examId, String questionId, String correctAnswer, int score, Connection connection) throws SQLException {
+        String sql = "UPDATE questions SET correct_answer = ?, score = ? WHERE id = ? AND exam_id = ?";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, correctAnswer);
+            pstmt.setInt(2, score);
+            pstmt.setString(3, questionId);
+            pstmt.setString(4, examId);
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+
     @Override
     public List<Question> findByExamId(String examId) throws SQLException {
         List<Question> questions = new ArrayList<>();
         String sql = "SELECT * FROM questions WHERE exam_id = ?";
-        try (Connection conn = DatabaseManager.getConnection();
+        try (Connection conn = DatabaseManager.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, examId);
             ResultSet rs = pstmt.executeQuery();
@@ -0,0 +1,86 @@
+package com.bit.examsystem.teacher.db.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 文本 ID 与整数行号之间的换算，供各 DAO 在写 student_answers 前使用
+ *
+ * 接口上仍然只用文本 ID (考试 UUID、学号、题目 UUID)，表中只存整数行号。
+ * 查询时用 "(SELECT exam_no FROM exams WHERE id = ?)" 这样的标量子查询在 SQL 中换算 (只执行一次)；
+ * 批量写入时先在这里查出行号，每行不再重复查找。
+ * 行号会随试卷重新保存而改变，所以不做跨调用的缓存。
+ */
+final class RowIds {
+
+    // 在 SQL 中按文本 ID 取行号
+    static final String EXAM_NO = "(SELECT exam_no FROM exams WHERE id = ?)";
+    static final String STUDENT_NO = "(SELECT student_no FROM students WHERE id = ?)";
+    static final String QUESTION_NO = "(SELECT question_no FROM questions WHERE id = ?)";
+
+    private RowIds() {
+    }
+
+    /**
+     * @throws SQLException 考试不存在时
+     */
+    static long examNo(Connection connection, String examId) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement("SELECT exam_no FROM exams WHERE id = ?")) {
+            pstmt.setString(1, examId);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        }
+        throw new SQLException("Unknown exam " + examId + ".");
+    }
+
+    /**
+     * 一场考试全部题目的行号，按题目ID
+     */
+    static Map<String, Long> questionNos(Connection connection, String examId) throws SQLException {
+        Map<String, Long> questionNos = new HashMap<>();
+        try (PreparedStatement pstmt = connection.prepareStatement("SELECT id, question_no FROM questions WHERE exam_id = ?")) {
+            pstmt.setString(1, examId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                questionNos.put(rs.getString(1), rs.getLong(2));
+            }
+        }
+        return questionNos;
+    }
+
+    /**
+     * 一组学生的行号，按学号；没有登记的学生不在结果中
+     */
+    static Map<String, Long> studentNos(Connection connection, Collection<String> studentIds) throws SQLException {
+        Map<String, Long> studentNos = new HashMap<>();
+        try (PreparedStatement pstmt = connection.prepareStatement("SELECT student_no FROM students WHERE id = ?")) {
+            for (String studentId : studentIds) {
+                pstmt.setString(1, studentId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        studentNos.put(studentId, rs.getLong(1));
+                    }
+                }
+            }
+        }
+        return studentNos;
+    }
+
+    /**
+     * 写入答案时必须能换算出行号，否则与原来的外键约束一样拒绝整批写入
+     */
+    static long require(Map<String, Long> rowIds, String id, String what) throws SQLException {
+        Long rowId = rowIds.get(id);
+        if (rowId == null) {
+            throw new SQLException("Unknown " + what + " " + id + ".");
+        }
+        return rowId;
+    }
+}
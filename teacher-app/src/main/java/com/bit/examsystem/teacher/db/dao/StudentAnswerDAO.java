@@ -1,11 +1,15 @@
 package com.bit.examsystem.teacher.db.dao;
 
 import com.bit.examsystem.common.model.StudentAnswer;
+import com.bit.examsystem.teacher.dto.GradedAnswer;
+import com.bit.examsystem.teacher.dto.StudentResult;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 
 public interface StudentAnswerDAO {
     /**
@@ -17,6 +21,31 @@ public interface StudentAnswerDAO {
      */
     void saveBatch(String examId, String studentId, List<StudentAnswer> answers) throws SQLException;
 
+    /**
+     * Saves the answers of many students in a single transaction (group commit).
+     * Either all submissions are saved or none are.
+     * @param examId The ID of the exam.
+     * @param submissions Key is studentId, Value is that student's answers.
+     */
+    void saveSubmissions(String examId, Map<String, List<StudentAnswer>> submissions) throws SQLException;
+
+    /**
+     * Saves the answers of many students together with their awarded scores in a single transaction.
+     * @param examId The ID of the exam.
+     * @param submissions Key is studentId, Value is that student's answers.
+     * @param scores Key is studentId, Value maps questionId to the awarded score; answers without a score are saved un-graded.
+     */
+    void saveSubmissions(String examId, Map<String, List<StudentAnswer>> submissions,
+                         Map<String, Map<String, Integer>> scores) throws SQLException;
+
+    /**
+     * Saves the answers of many students together with their awarded scores in an existing transaction,
+     * and refreshes those students' rows in exam_results in the same transaction.
+     * @param connection A shared database connection, managed by the caller.
+     */
+    void saveSubmissions(String examId, Map<String, List<StudentAnswer>> submissions,
+                         Map<String, Map<String, Integer>> scores, Connection connection) throws SQLException;
+
     /**
      * Fetches all un-graded answers for a specific exam.
      * @param examId The ID of the exam.
@@ -24,6 +53,44 @@ public interface StudentAnswerDAO {
      */
     Map<String, List<StudentAnswer>> findUnGradedAnswersByExamId(String examId) throws SQLException;
 
+    /**
+     * Fetches every answer to one question of an exam, graded or not, together with its current score.
+     * @param examId The ID of the exam.
+     * @param questionId The ID of the question.
+     * @return One entry per student who answered the question.
+     */
+    List<GradedAnswer> findAnswersByQuestion(String examId, String questionId) throws SQLException;
+
+    /**
+     * Fetches every answer of an exam, graded or not, grouped by student.
+     * @param examId The ID of the exam.
+     * @return A map where Key is studentId and Value is that student's answers with their current scores.
+     */
+    Map<String, List<GradedAnswer>> findGradedAnswersByExamId(String examId) throws SQLException;
+
+    /**
+     * Fetches the answers of some students of an exam, graded or not, grouped by student.
+     * @param examId The ID of the exam.
+     * @param studentIds The students to read.
+     * @return Key is studentId; every requested student is present, with an empty list if they have no answers.
+     */
+    Map<String, List<GradedAnswer>> findGradedAnswersByStudents(String examId, Collection<String> studentIds) throws SQLException;
+
+    /**
+     * Reads every answer of an exam through a forward-only cursor in primary-key order
+     * (grouped by student), without building a list in memory.
+     * @param examId The ID of the exam.
+     * @param consumer Called once per row; the GradedAnswer instance is reused, so do not keep it.
+     *                 Returning false stops the read.
+     * @return The number of rows read.
+     */
+    long streamAnswersByExamId(String examId, Predicate<GradedAnswer> consumer) throws SQLException;
+
+    /**
+     * Counts the answers saved for an exam.
+     */
+    int countAnswers(String examId) throws SQLException;
+
     /**
      * Updates the awarded score for a specific answer.
      * @param score The score to award.
@@ -34,6 +101,34 @@ public interface StudentAnswerDAO {
      */
     void updateScore(int score, String examId, String studentId, String questionId, Connection connection) throws SQLException;
 
+    /**
+     * Updates many awarded scores with JDBC batches of at most batchSize rows.
+     * @param examId The exam ID.
+     * @param scores Key is studentId, Value maps questionId to the score to award.
+     * @param batchSize Rows per executeBatch call.
+     * @param connection A shared database connection for transactional updates.
+     * @return The number of rows updated.
+     */
+    int updateScores(String examId, Map<String, Map<String, Integer>> scores, int batchSize, Connection connection) throws SQLException;
+
+    /**
+     * Grades all un-graded single-choice and judge answers of an exam with one UPDATE joined against the questions table.
+     * Only canonical answers are graded here: the correct answer and the student's answer (if any) consist of ASCII
+     * letters only, so the case-insensitive comparison matches the Java grading rules exactly. Other answers and
+     * question types are left un-graded for the Java pass.
+     * @param examId The exam ID.
+     * @param connection A shared database connection for transactional updates.
+     * @return The answers graded, keyed by studentId then questionId, with the score awarded.
+     */
+    Map<String, Map<String, Integer>> gradeExactMatchAnswers(String examId, Connection connection) throws SQLException;
+
+    /**
+     * Fetches every student's total score, answer count and graded answer count for an exam with one grouped query.
+     * @param examId The ID of the exam.
+     * @return One result per student who submitted at least one answer, ordered by student ID.
+     */
+    List<StudentResult> findResultsByExamId(String examId) throws SQLException;
+
     List<Map<String, Object>> findDetailedResults(String examId, String studentId) throws SQLException;
     int calculateTotalScore(String examId, String studentId) throws SQLException;
 }
\ No newline at end of file
@@ -2,22 +2,45 @@ package com.bit.examsystem.teacher.db.dao;
 
 import com.bit.examsystem.common.model.StudentAnswer;
 import com.bit.examsystem.teacher.db.DatabaseManager;
+import com.bit.examsystem.teacher.dto.GradedAnswer;
+import com.bit.examsystem.teacher.dto.StudentResult;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 
+/**
+ * student_answers 只存整数行号 (exam_no, student_no, question_no)，接口上仍是文本 ID：
+ * 查询在 SQL 中按文本 ID 换算行号，并连接 students、questions 取回文本 ID；写入前用 {@link RowIds} 换算。
+ */
 public class StudentAnswerDAOImpl implements StudentAnswerDAO {
+
+    private final ExamResultDAO examResultDAO = new ExamResultDAOImpl();
+
+    // 读出答案及其文本 ID，用整数主键连接 students、questions
+    // findGradedAnswersByStudents 每条 IN 查询最多带的学生数
+    private static final int IN_LIST_SIZE = 500;
+
+    private static final String SELECT_ANSWERS_SQL = "SELECT s.id AS student_id, q.id AS question_id, sa.answer, sa.score_awarded " +
+            "FROM student_answers sa " +
+            "JOIN students s ON s.student_no = sa.student_no " +
+            "JOIN questions q ON q.question_no = sa.question_no ";
+
     @Override
     public void saveBatch(String examId, String studentId, List<StudentAnswer> answers) throws SQLException {
         // SQL to insert or replace an answer. Using REPLACE INTO (an SQLite feature)
         // handles cases where a student might resubmit their answers.
-        String sql = "REPLACE INTO student_answers (exam_id, student_id, question_id, answer) VALUES (?, ?, ?, ?)";
+        String sql = "REPLACE INTO student_answers (exam_no, student_no, question_no, answer) VALUES (?, ?, ?, ?)";
 
         Connection conn = null;
         try {
@@ -25,16 +48,20 @@ public class StudentAnswerDAOImpl implements StudentAnswerDAO {
             // Begin transaction
             conn.setAutoCommit(false);
 
+            long examNo = RowIds.examNo(conn, examId);
+            long studentNo = RowIds.require(RowIds.studentNos(conn, List.of(studentId)), studentId, "student");
+            Map<String, Long> questionNos = RowIds.questionNos(conn, examId);
             try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
                 for (StudentAnswer answer : answers) {
-                    pstmt.setString(1, examId);
-                    pstmt.setString(2, studentId);
-                    pstmt.setString(3, answer.getQuestionId());
+                    pstmt.setLong(1, examNo);
+                    pstmt.setLong(2, studentNo);
+                    pstmt.setLong(3, RowIds.require(questionNos, answer.getQuestionId(), "question"));
                     pstmt.setString(4, answer.getAnswer());
                     pstmt.addBatch(); // Add the statement to the batch
                 }
                 pstmt.executeBatch(); // Execute all statements in the batch
             }
+            examResultDAO.refreshStudents(examId, List.of(studentId), System.currentTimeMillis(), conn);
 
             // Commit transaction
             conn.commit();
@@ -52,13 +79,76 @@ public class StudentAnswerDAOImpl implements StudentAnswerDAO {
         }
     }
 
+    @Override
+    public void saveSubmissions(String examId, Map<String, List<StudentAnswer>> submissions) throws SQLException {
+        saveSubmissions(examId, submissions, Map.of());
+    }
+
+    @Override
+    public void saveSubmissions(String examId, Map<String, List<StudentAnswer>> submissions,
+                                Map<String, Map<String, Integer>> scores) throws SQLException {
+        Connection conn = null;
+        try {
+            conn = DatabaseManager.getConnection();
+            // 所有学生的答案在同一个事务中写入，只提交 (fsync) 一次
+            conn.setAutoCommit(false);
+            saveSubmissions(examId, submissions, scores, conn);
+            conn.commit();
+        } catch (SQLException e) {
+            if (conn != null) {
+                conn.rollback();
+            }
+            throw new SQLException("Failed to save " + submissions.size() + " submissions.", e);
+        } finally {
+            if (conn != null) {
+                conn.setAutoCommit(true);
+                conn.close();
+            }
+        }
+    }
+
+    @Override
+    public void saveSubmissions(String examId, Map<String, List<StudentAnswer>> submissions,
+                                Map<String, Map<String, Integer>> scores, Connection conn) throws SQLException {
+        // 重新提交时整行替换，旧的得分也随之被新的得分 (或 NULL) 覆盖
+        String sql = "REPLACE INTO student_answers (exam_no, student_no, question_no, answer, score_awarded) VALUES (?, ?, ?, ?, ?)";
+
+        // 每批只换算一次行号，不在每行的 SQL 里查找
+        long examNo = RowIds.examNo(conn, examId);
+        Map<String, Long> studentNos = RowIds.studentNos(conn, submissions.keySet());
+        Map<String, Long> questionNos = RowIds.questionNos(conn, examId);
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (Map.Entry<String, List<StudentAnswer>> submission : submissions.entrySet()) {
+                Map<String, Integer> studentScores = scores.getOrDefault(submission.getKey(), Map.of());
+                long studentNo = RowIds.require(studentNos, submission.getKey(), "student");
+                for (StudentAnswer answer : submission.getValue()) {
+                    pstmt.setLong(1, examNo);
+                    pstmt.setLong(2, studentNo);
+                    pstmt.setLong(3, RowIds.require(questionNos, answer.getQuestionId(), "question"));
+                    pstmt.setString(4, answer.getAnswer());
+                    Integer score = studentScores.get(answer.getQuestionId());
+                    if (score == null) {
+                        pstmt.setNull(5, Types.INTEGER);
+                    } else {
+                        pstmt.setInt(5, score);
+                    }
+                    pstmt.addBatch();
+                }
+            }
+            pstmt.executeBatch();
+        }
+
+        // 成绩表与答案在同一事务中更新，交卷期间查看成绩也不会读到过期的汇总
+        examResultDAO.refreshStudents(examId, submissions.keySet(), System.currentTimeMillis(), conn);
+    }
+
     @Override
     public Map<String, List<StudentAnswer>> findUnGradedAnswersByExamId(String examId) throws SQLException {
         Map<String, List<StudentAnswer>> studentSubmissions = new HashMap<>();
         // Fetch all answers for the exam where score is not yet set
-        String sql = "SELECT * FROM student_answers WHERE exam_id = ? AND score_awarded IS NULL";
+        String sql = SELECT_ANSWERS_SQL + "WHERE sa.exam_no = " + RowIds.EXAM_NO + " AND sa.score_awarded IS NULL";
 
-        try (Connection conn = DatabaseManager.getConnection();
+        try (Connection conn = DatabaseManager.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setString(1, examId);
@@ -77,9 +167,127 @@ public class StudentAnswerDAOImpl implements StudentAnswerDAO {
         return studentSubmissions;
     }
 
+    @Override
+    public List<GradedAnswer> findAnswersByQuestion(String examId, String questionId) throws SQLException {
+        List<GradedAnswer> answers = new ArrayList<>();
+        String sql = SELECT_ANSWERS_SQL + "WHERE sa.exam_no = " + RowIds.EXAM_NO + " AND sa.question_no = " + RowIds.QUESTION_NO;
+
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, examId);
+            pstmt.setString(2, questionId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                GradedAnswer answer = new GradedAnswer();
+                answer.setStudentId(rs.getString("student_id"));
+                answer.setQuestionId(questionId);
+                answer.setAnswer(rs.getString("answer"));
+                int score = rs.getInt("score_awarded");
+                answer.setScoreAwarded(rs.wasNull() ? null : score);
+                answers.add(answer);
+            }
+        }
+        return answers;
+    }
+
+    @Override
+    public Map<String, List<GradedAnswer>> findGradedAnswersByExamId(String examId) throws SQLException {
+        Map<String, List<GradedAnswer>> studentAnswers = new LinkedHashMap<>();
+        String sql = SELECT_ANSWERS_SQL + "WHERE sa.exam_no = " + RowIds.EXAM_NO;
+
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, examId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                GradedAnswer answer = new GradedAnswer();
+                answer.setStudentId(rs.getString("student_id"));
+                answer.setQuestionId(rs.getString("question_id"));
+                answer.setAnswer(rs.getString("answer"));
+                int score = rs.getInt("score_awarded");
+                answer.setScoreAwarded(rs.wasNull() ? null : score);
+                studentAnswers.computeIfAbsent(answer.getStudentId(), k -> new ArrayList<>()).add(answer);
+            }
+        }
+        return studentAnswers;
+    }
+
+    @Override
+    public Map<String, List<GradedAnswer>> findGradedAnswersByStudents(String examId, Collection<String> studentIds) throws SQLException {
+        Map<String, List<GradedAnswer>> studentAnswers = new LinkedHashMap<>();
+        List<String> ids = new ArrayList<>();
+        for (String studentId : studentIds) {
+            if (studentAnswers.putIfAbsent(studentId, new ArrayList<>()) == null) {
+                ids.add(studentId);
+            }
+        }
+
+        // 一条 IN 查询读出一组学生的答案，学生很多时分段，不超过 SQLite 的参数个数上限
+        try (Connection conn = DatabaseManager.getReadConnection()) {
+            for (int from = 0; from < ids.size(); from += IN_LIST_SIZE) {
+                List<String> chunk = ids.subList(from, Math.min(from + IN_LIST_SIZE, ids.size()));
+                String sql = SELECT_ANSWERS_SQL + "WHERE sa.exam_no = " + RowIds.EXAM_NO +
+                        " AND s.id IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, examId);
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setString(i + 2, chunk.get(i));
+                    }
+                    ResultSet rs = pstmt.executeQuery();
+                    while (rs.next()) {
+                        GradedAnswer answer = new GradedAnswer();
+                        answer.setStudentId(rs.getString("student_id"));
+                        answer.setQuestionId(rs.getString("question_id"));
+                        answer.setAnswer(rs.getString("answer"));
+                        int score = rs.getInt("score_awarded");
+                        answer.setScoreAwarded(rs.wasNull() ? null : score);
+                        studentAnswers.get(answer.getStudentId()).add(answer);
+                    }
+                }
+            }
+        }
+        return studentAnswers;
+    }
+
+    @Override
+    public long streamAnswersByExamId(String examId, Predicate<GradedAnswer> consumer) throws SQLException {
+        // 按主键顺序 (同一学生的答案连续，按题号) 读取，SQLite 逐行 step，不需要临时排序
+        String sql = SELECT_ANSWERS_SQL + "WHERE sa.exam_no = " + RowIds.EXAM_NO + " ORDER BY sa.student_no, sa.question_no";
+        long rows = 0;
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            pstmt.setString(1, examId);
+            ResultSet rs = pstmt.executeQuery();
+            GradedAnswer answer = new GradedAnswer();
+            while (rs.next()) {
+                answer.setStudentId(rs.getString("student_id"));
+                answer.setQuestionId(rs.getString("question_id"));
+                answer.setAnswer(rs.getString("answer"));
+                int score = rs.getInt("score_awarded");
+                answer.setScoreAwarded(rs.wasNull() ? null : score);
+                rows++;
+                if (!consumer.test(answer)) {
+                    break;
+                }
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public int countAnswers(String examId) throws SQLException {
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT COUNT(*) FROM student_answers WHERE exam_no = " + RowIds.EXAM_NO)) {
+            pstmt.setString(1, examId);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
     @Override
     public void updateScore(int score, String examId, String studentId, String questionId, Connection connection) throws SQLException {
-        String sql = "UPDATE student_answers SET score_awarded = ? WHERE exam_id = ? AND student_id = ? AND question_id = ?";
+        String sql = "UPDATE student_answers SET score_awarded = ? WHERE exam_no = " + RowIds.EXAM_NO +
+                " AND student_no = " + RowIds.STUDENT_NO + " AND question_no = " + RowIds.QUESTION_NO;
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setInt(1, score);
             pstmt.setString(2, examId);
@@ -89,11 +297,88 @@ public class StudentAnswerDAOImpl implements StudentAnswerDAO {
         }
     }
 
+    @Override
+    public int updateScores(String examId, Map<String, Map<String, Integer>> scores, int batchSize, Connection connection) throws SQLException {
+        String sql = "UPDATE student_answers SET score_awarded = ? WHERE exam_no = ? AND student_no = ? AND question_no = ?";
+        int updated = 0;
+        if (scores.isEmpty()) {
+            return 0;
+        }
+        long examNo = RowIds.examNo(connection, examId);
+        Map<String, Long> studentNos = RowIds.studentNos(connection, scores.keySet());
+        Map<String, Long> questionNos = RowIds.questionNos(connection, examId);
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            int pending = 0;
+            for (Map.Entry<String, Map<String, Integer>> student : scores.entrySet()) {
+                Long studentNo = studentNos.get(student.getKey());
+                if (studentNo == null) {
+                    continue; // 没有这名学生，也就没有可更新的答案
+                }
+                for (Map.Entry<String, Integer> score : student.getValue().entrySet()) {
+                    Long questionNo = questionNos.get(score.getKey());
+                    if (questionNo == null) {
+                        continue;
+                    }
+                    pstmt.setInt(1, score.getValue());
+                    pstmt.setLong(2, examNo);
+                    pstmt.setLong(3, studentNo);
+                    pstmt.setLong(4, questionNo);
+                    pstmt.addBatch();
+                    if (++pending == batchSize) {
+                        updated += sum(pstmt.executeBatch());
+                        pending = 0;
+                    }
+                }
+            }
+            if (pending > 0) {
+                updated += sum(pstmt.executeBatch());
+            }
+        }
+        return updated;
+    }
+
+    private static int sum(int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            total += Math.max(count, 0);
+        }
+        return total;
+    }
+
+    @Override
+    public Map<String, Map<String, Integer>> gradeExactMatchAnswers(String examId, Connection connection) throws SQLException {
+        // 只处理已是规范形式的答案：标准答案和学生答案都只由 ASCII 字母组成 (或学生答案为空)。
+        // 这时 UPPER 的比较与 AnswerKey 的 trim + equalsIgnoreCase 完全一致；带空白、控制字符或
+        // 非 ASCII 字符的答案留给 Java 逐题评分，避免两种规则给出不同的分数
+        String sql = "UPDATE student_answers SET score_awarded = CASE " +
+                "WHEN student_answers.answer <> '' AND UPPER(student_answers.answer) = UPPER(q.correct_answer) " +
+                "THEN COALESCE(q.score, 0) ELSE 0 END " +
+                "FROM questions q " +
+                "WHERE q.question_no = student_answers.question_no AND student_answers.exam_no = " + RowIds.EXAM_NO + " " +
+                "AND student_answers.score_awarded IS NULL AND q.type IN ('SINGLE_CHOICE', 'JUDGE') " +
+                "AND q.correct_answer <> '' AND q.correct_answer NOT GLOB '*[^A-Za-z]*' " +
+                "AND (student_answers.answer IS NULL OR student_answers.answer NOT GLOB '*[^A-Za-z]*') " +
+                // 同时返回批改了哪些行，调用方只需更新这些学生的成绩和试题分析
+                "RETURNING (SELECT id FROM students WHERE student_no = student_answers.student_no) AS student_id, " +
+                "(SELECT id FROM questions WHERE question_no = student_answers.question_no) AS question_id, score_awarded";
+        Map<String, Map<String, Integer>> graded = new LinkedHashMap<>();
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, examId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                graded.computeIfAbsent(rs.getString("student_id"), k -> new HashMap<>())
+                        .put(rs.getString("question_id"), rs.getInt("score_awarded"));
+            }
+        }
+        return graded;
+    }
+
     @Override
     public int calculateTotalScore(String examId, String studentId) throws SQLException {
         // SUM() will return NULL if no rows match, so COALESCE turns NULL into 0.
-        String sql = "SELECT COALESCE(SUM(score_awarded), 0) AS total_score FROM student_answers WHERE exam_id = ? AND student_id = ?";
-        try (Connection conn = DatabaseManager.getConnection();
+        String sql = "SELECT COALESCE(SUM(score_awarded), 0) AS total_score FROM student_answers " +
+                "WHERE exam_no = " + RowIds.EXAM_NO + " AND student_no = " + RowIds.STUDENT_NO;
+        try (Connection conn = DatabaseManager.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, examId);
             pstmt.setString(2, studentId);
@@ -105,16 +390,47 @@ public class StudentAnswerDAOImpl implements StudentAnswerDAO {
         return 0;
     }
 
+    @Override
+    public List<StudentResult> findResultsByExamId(String examId) throws SQLException {
+        List<StudentResult> results = new ArrayList<>();
+        // 先在覆盖索引 idx_student_answers_results 上按学生分组 (不回表)，再为每名学生查一次姓名；
+        // COUNT(score_awarded) 只计非 NULL，即已批改的答案数
+        String sql = "SELECT s.id AS student_id, s.name, t.total_score, t.answer_count, t.graded_count " +
+                "FROM (SELECT student_no, COALESCE(SUM(score_awarded), 0) AS total_score, " +
+                "COUNT(*) AS answer_count, COUNT(score_awarded) AS graded_count " +
+                "FROM student_answers WHERE exam_no = " + RowIds.EXAM_NO + " GROUP BY student_no) t " +
+                "JOIN students s ON s.student_no = t.student_no " +
+                "ORDER BY s.id";
+
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, examId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                StudentResult result = new StudentResult();
+                result.setStudentId(rs.getString("student_id"));
+                result.setStudentName(rs.getString("name"));
+                result.setTotalScore(rs.getInt("total_score"));
+                result.setAnswerCount(rs.getInt("answer_count"));
+                result.setGradedCount(rs.getInt("graded_count"));
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
     @Override
     public List<Map<String, Object>> findDetailedResults(String examId, String studentId) throws SQLException {
         List<Map<String, Object>> results = new ArrayList<>();
-        // Join questions and student_answers to get all the data we need in one query
+        // Join questions and student_answers to get all the data we need in one query;
+        // 按整数主键连接，结果按题号顺序
         String sql = "SELECT q.title, q.correct_answer, sa.answer, sa.score_awarded, q.score " +
                 "FROM student_answers sa " +
-                "JOIN questions q ON sa.question_id = q.id " +
-                "WHERE sa.exam_id = ? AND sa.student_id = ?";
+                "JOIN questions q ON q.question_no = sa.question_no " +
+                "WHERE sa.exam_no = " + RowIds.EXAM_NO + " AND sa.student_no = " + RowIds.STUDENT_NO + " " +
+                "ORDER BY sa.question_no";
 
-        try (Connection conn = DatabaseManager.getConnection();
+        try (Connection conn = DatabaseManager.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, examId);
             pstmt.setString(2, studentId);
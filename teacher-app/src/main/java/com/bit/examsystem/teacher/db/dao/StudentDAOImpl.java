@@ -13,9 +13,9 @@ import java.util.List;
 public class StudentDAOImpl implements StudentDAO {
     @Override
     public void saveOrUpdate(Student student) throws SQLException {
-        // Use "REPLACE INTO" to either INSERT a new student or UPDATE the name
-        // of an existing student if their ID is already in the table.
-        String sql = "REPLACE INTO students (id, name) VALUES (?, ?)";
+        // INSERT a new student or UPDATE the name of an existing student if their ID is already in the table.
+        // 不能用 REPLACE：它会删除旧行，学生换了新的行号，已保存的答案随之被级联删除
+        String sql = "INSERT INTO students (id, name) VALUES (?, ?) ON CONFLICT (id) DO UPDATE SET name = excluded.name";
 
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -30,10 +30,9 @@ public class StudentDAOImpl implements StudentDAO {
     public List<Student> findStudentsByExamId(String examId) throws SQLException {
         List<Student> students = new ArrayList<>();
         // Select students who have at least one answer submitted for the given exam
-        String sql = "SELECT DISTINCT s.id, s.name FROM students s " +
-                "JOIN student_answers sa ON s.id = sa.student_id " +
-                "WHERE sa.exam_id = ?";
-        try (Connection conn = DatabaseManager.getConnection();
+        String sql = "SELECT s.id, s.name FROM students s " +
+                "WHERE s.student_no IN (SELECT student_no FROM student_answers WHERE exam_no = " + RowIds.EXAM_NO + ")";
+        try (Connection conn = DatabaseManager.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, examId);
             ResultSet rs = pstmt.executeQuery();
@@ -0,0 +1,17 @@
+package com.bit.examsystem.teacher.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一场考试的试题分析汇总，整体序列化后保存在 item_stats 表的一行中
+ */
+@Data
+public class ExamItemStats {
+    private String examId;
+    private int studentCount;
+    private long updatedAt;         // 统计时间 (毫秒时间戳)
+    private List<ItemStats> items = new ArrayList<>();
+}
@@ -0,0 +1,14 @@
+package com.bit.examsystem.teacher.dto;
+
+import lombok.Data;
+
+/**
+ * student_answers 中的一行，连同当前得分 (未批改时为 null)
+ */
+@Data
+public class GradedAnswer {
+    private String studentId;
+    private String questionId;
+    private String answer;
+    private Integer scoreAwarded;
+}
@@ -0,0 +1,23 @@
+package com.bit.examsystem.teacher.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 试题分析的原始计数器，与汇总一起保存在 item_stats 表中，写入答案时据此增量更新而不必重新统计
+ * (各字段含义见 ItemAnalysis)
+ */
+@Data
+public class ItemCounters {
+    private List<String> questionIds = new ArrayList<>(); // 与各数组的下标一一对应
+    private int maxTotal;
+    private int studentCount;
+    private int[] responses;
+    private int[] blanks;
+    private int[] correct;
+    private int[][] optionCounts;
+    private int[][] correctByTotal;
+    private int[] studentsByTotal;
+}
@@ -0,0 +1,24 @@
+package com.bit.examsystem.teacher.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 一道题的试题分析结果
+ */
+@Data
+public class ItemStats {
+    private String questionId;
+    private String title;
+    private String type;
+    private int score;              // 分值
+    private int responses;          // 作答人数 (含空白)
+    private int blanks;             // 空白答案数
+    private int correct;            // 得分的人数
+    private double difficulty;      // 难度 (通过率) = correct / responses
+    private double discrimination;  // 区分度 = 高分组通过率 - 低分组通过率 (各取总分前后 27%)
+    private double blankRate;       // 空白率 = blanks / responses
+    private List<String> optionLabels; // 选项标签，如 A、B、C、D；填空题为空
+    private int[] optionCounts;        // 每个选项被选的次数，最后一个元素是无法识别的回答
+}
@@ -0,0 +1,26 @@
+package com.bit.examsystem.teacher.dto;
+
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 单题重新批改的结果
+ */
+@Data
+public class RegradeResult {
+    private String questionId;
+    private int answersRegraded;   // 重新判分的答案数
+    private int answersChanged;    // 得分发生变化 (含原来未批改) 并被写回的答案数
+    // Key 为 studentId，Value 为该学生总分的变化量；总分不变的学生不出现
+    private Map<String, Integer> totalDeltas = new HashMap<>();
+    // 该题原来未批改、本次被批改的学生
+    private Set<String> newlyGraded = new HashSet<>();
+
+    public int getStudentsChanged() {
+        return totalDeltas.size();
+    }
+}
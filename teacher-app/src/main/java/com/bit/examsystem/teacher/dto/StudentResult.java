@@ -7,5 +7,9 @@ public class StudentResult {
     private String studentId;
     private String studentName;
     private int totalScore;
+    private int answerCount;   // 提交的答案数
+    private int gradedCount;   // 其中已批改的答案数
+    private int rank;          // 名次，同分同名次
+    private long gradedAt;     // 最近一次批改时间 (毫秒时间戳)
     // We will add the Hyperlink for the UI later
 }
@@ -0,0 +1,113 @@
+package com.bit.examsystem.teacher.network;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 接入统计：安装在每个 server channel 的 Pipeline 上 (ServerBootstrap.handler)，
+ * 每接入一个子 Channel 计数一次，多个 acceptor 共享同一个实例。
+ *
+ * 被拒绝的连接有两个来源：
+ * 1. 内核：accept 队列 (SO_BACKLOG) 满时丢弃的 SYN/ACK，取自 /proc/net/netstat 的 TcpExt ListenDrops，
+ *    这是整机的计数器，这里只统计服务器启动以来的增量；非 Linux 系统无法获取。
+ * 2. 应用：accept 失败 (如文件描述符耗尽) 时传到 server channel 的异常。
+ */
+@ChannelHandler.Sharable
+public class AcceptMonitor extends ChannelInboundHandlerAdapter {
+
+    private static final Path NETSTAT = Path.of("/proc/net/netstat");
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder acceptErrors = new LongAdder();
+    private volatile long listenDropsBaseline;
+
+    // 采样状态，只在 sample() 中修改
+    private long lastSampleNanos;
+    private long lastSampleAccepted;
+    private double lastRate;
+    private double peakRate;
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        accepted.increment();
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        acceptErrors.increment();
+        System.err.println("Accept failed on " + ctx.channel().localAddress() + ": " + cause.getMessage());
+        ctx.fireExceptionCaught(cause);
+    }
+
+    /**
+     * 服务器启动时调用，清零计数并记录内核计数器的基线
+     */
+    public synchronized void reset() {
+        accepted.reset();
+        acceptErrors.reset();
+        listenDropsBaseline = readListenDrops();
+        lastSampleNanos = System.nanoTime();
+        lastSampleAccepted = 0;
+        lastRate = 0;
+        peakRate = 0;
+    }
+
+    /**
+     * 采样一次：接入速率按距上次采样的时间间隔计算，调用方应大致按固定周期 (如每秒) 调用
+     */
+    public synchronized AcceptStats sample(String transport, int acceptors, int backlog) {
+        long now = System.nanoTime();
+        long total = accepted.sum();
+        long elapsed = now - lastSampleNanos;
+        if (elapsed > 0) {
+            lastRate = (total - lastSampleAccepted) * 1e9 / elapsed;
+            peakRate = Math.max(peakRate, lastRate);
+        }
+        lastSampleNanos = now;
+        lastSampleAccepted = total;
+
+        AcceptStats stats = new AcceptStats();
+        stats.setTransport(transport);
+        stats.setAcceptors(acceptors);
+        stats.setBacklog(backlog);
+        stats.setAcceptedTotal(total);
+        stats.setAcceptRate(lastRate);
+        stats.setPeakAcceptRate(peakRate);
+        long drops = readListenDrops();
+        stats.setRefusedTotal(drops < 0 || listenDropsBaseline < 0
+                ? -1 : drops - listenDropsBaseline + acceptErrors.sum());
+        return stats;
+    }
+
+    /**
+     * @return 内核 TcpExt ListenDrops 计数 (已包含 ListenOverflows)，无法读取时返回 -1
+     */
+    static long readListenDrops() {
+        try {
+            List<String> lines = Files.readAllLines(NETSTAT);
+            for (int i = 0; i + 1 < lines.size(); i++) {
+                if (!lines.get(i).startsWith("TcpExt:") || !lines.get(i + 1).startsWith("TcpExt:")) {
+                    continue;
+                }
+                String[] names = lines.get(i).trim().split("\\s+");
+                String[] values = lines.get(i + 1).trim().split("\\s+");
+                for (int j = 1; j < names.length && j < values.length; j++) {
+                    if ("ListenDrops".equals(names[j])) {
+                        return Long.parseLong(values[j]);
+                    }
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // 非 Linux 或无权限读取
+        }
+        return -1;
+    }
+}
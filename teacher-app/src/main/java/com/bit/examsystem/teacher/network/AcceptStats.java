@@ -0,0 +1,24 @@
+package com.bit.examsystem.teacher.network;
+
+import lombok.Data;
+
+/**
+ * 监听端口的接入统计，供教师端仪表盘显示
+ */
+@Data
+public class AcceptStats {
+    private String transport;       // epoll / nio
+    private int acceptors;          // 绑定同一端口的 server channel 数
+    private int backlog;            // 每个 server channel 的 SO_BACKLOG
+    private long acceptedTotal;     // 启动以来接入的连接数
+    private double acceptRate;      // 最近一次采样的接入速率 (个/秒)
+    private double peakAcceptRate;  // 启动以来的峰值接入速率 (个/秒)
+    private long refusedTotal;      // 启动以来被拒绝/丢弃的连接数，-1 表示无法获取
+
+    @Override
+    public String toString() {
+        return String.format("%s x%d (backlog %d): %d accepted, %.0f/s (peak %.0f/s), %s refused",
+                transport, acceptors, backlog, acceptedTotal, acceptRate, peakAcceptRate,
+                refusedTotal < 0 ? "n/a" : String.valueOf(refusedTotal));
+    }
+}
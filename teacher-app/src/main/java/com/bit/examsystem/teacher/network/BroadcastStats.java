@@ -0,0 +1,25 @@
+package com.bit.examsystem.teacher.network;
+
+import lombok.Data;
+
+/**
+ * 一次广播的耗时统计
+ * 每种编码只编码 (和压缩) 一次，扇出阶段为每个 Channel 写入同一个帧的 retainedDuplicate()
+ */
+@Data
+public class BroadcastStats {
+    private String codec;         // 帧使用的编码
+    private int rawBytes;         // 压缩前的帧大小
+    private int frameBytes;       // 实际发送的帧大小 (大帧已压缩)
+    private int channelCount;     // 目标 Channel 数
+    private int failedCount;      // 写入失败的 Channel 数
+    private int laggingCount;     // 按慢速策略处理 (暂存或断开) 的 Channel 数，不计入 channelCount
+    private long encodeNanos;     // 编码 (含压缩) 耗时
+    private long fanOutNanos;     // 从开始写入到所有 Channel 写完的耗时
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d bytes (raw %d) -> %d channels (%d failed, %d lagging), encode %.3f ms, fan-out %.3f ms",
+                codec, frameBytes, rawBytes, channelCount, failedCount, laggingCount, encodeNanos / 1e6, fanOutNanos / 1e6);
+    }
+}
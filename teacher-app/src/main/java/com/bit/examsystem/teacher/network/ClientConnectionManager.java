@@ -4,6 +4,7 @@ import com.bit.examsystem.common.model.Student;
 import com.bit.examsystem.teacher.network.listener.OnlineStudentListener;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelId;
+import io.netty.util.AttributeKey;
 
 import java.util.Collection;
 import java.util.List;
@@ -21,6 +22,12 @@ public class ClientConnectionManager {
     // Key: Netty Channel 的唯一 ID
     // Value: 学生信息对象
     private final Map<ChannelId, Student> onlineStudents = new ConcurrentHashMap<>();
+    // 学号索引 Key: 学号，Value: 占用该学号的 Channel
+    // 登录时通过 putIfAbsent 原子地占用学号，重复登录检查和按学号定向发送都是 O(1)
+    private final Map<String, Channel> channelsByStudentId = new ConcurrentHashMap<>();
+
+    // Channel 占用的学号，连接断开时据此释放索引 (即使登录中途失败、尚未加入 onlineStudents)
+    private static final AttributeKey<String> CLAIMED_STUDENT_ID = AttributeKey.valueOf("claimedStudentId");
 
     // --- Singleton Pattern ---
     private static class SingletonHolder {
@@ -38,12 +45,43 @@ public class ClientConnectionManager {
     // It's efficient when reads/iterations are far more frequent than writes (add/remove).
     private final List<OnlineStudentListener> listeners = new CopyOnWriteArrayList<>();
 
+    /**
+     * 原子地为 Channel 占用学号，登录流程的第一步
+     * @param studentId 学号
+     * @param channel 登录的 Channel
+     * @return 占用成功 (或该 Channel 已占用此学号) 返回 true；学号已被其他连接占用返回 false
+     */
+    public boolean claimStudentId(String studentId, Channel channel) {
+        if (studentId == null || studentId.isEmpty()) {
+            return false;
+        }
+        Channel owner = channelsByStudentId.putIfAbsent(studentId, channel);
+        if (owner != null && owner != channel) {
+            return false;
+        }
+        channel.attr(CLAIMED_STUDENT_ID).set(studentId);
+        return true;
+    }
+
+    /**
+     * 释放 Channel 占用的学号 (登录失败时调用)；只有占用者本身才能释放
+     */
+    public void releaseStudentId(String studentId, Channel channel) {
+        if (studentId != null && channelsByStudentId.remove(studentId, channel)) {
+            channel.attr(CLAIMED_STUDENT_ID).set(null);
+        }
+    }
+
     /**
      * 当学生成功登录后，将其添加到管理器中
+     * 调用前须先通过 {@link #claimStudentId} 占用学号
      * @param channel 学生的 Netty Channel
      * @param student 包含学生信息的对象
      */
     public void addStudent(Channel channel, Student student) {
+        if (channelsByStudentId.get(student.getId()) != channel) {
+            throw new IllegalStateException("Student ID " + student.getId() + " is not claimed by " + channel);
+        }
         // 使用 Channel 的 remoteAddress 作为学生的 IP，这是最可靠的来源
         student.setIp(channel.remoteAddress().toString());
         student.setOnline(true);
@@ -59,6 +97,10 @@ public class ClientConnectionManager {
      * @return 被移除的学生信息，如果不存在则返回 null
      */
     public Student removeStudent(Channel channel) {
+        String claimedId = channel.attr(CLAIMED_STUDENT_ID).getAndSet(null);
+        if (claimedId != null) {
+            channelsByStudentId.remove(claimedId, channel);
+        }
         Student removedStudent = onlineStudents.remove(channel.id());
         if (removedStudent != null) {
             System.out.printf("[ConnectionManager] Student disconnected: %s (%s). Total online: %d%n",
@@ -91,14 +133,16 @@ public class ClientConnectionManager {
         if (studentId == null || studentId.isEmpty()) {
             return false;
         }
-        // ConcurrentHashMap 的 values() 返回的是弱一致性的视图，
-        // 在迭代时是线程安全的，不需要额外加锁。
-        for (Student student : onlineStudents.values()) {
-            if (studentId.equals(student.getId())) {
-                return true;
-            }
-        }
-        return false;
+        return channelsByStudentId.containsKey(studentId);
+    }
+
+    /**
+     * 根据学号获取学生的 Channel，用于定向发送
+     * @param studentId 学号
+     * @return Channel，学生不在线时返回 null
+     */
+    public Channel getChannel(String studentId) {
+        return studentId != null ? channelsByStudentId.get(studentId) : null;
     }
 
     /**
@@ -117,4 +161,22 @@ public class ClientConnectionManager {
     public Student getStudent(ChannelId id) {
         return onlineStudents.get(id);
     }
-}
\ No newline at end of file
+
+    /**
+     * 获取学生连接尚未发出的字节数 (出站缓冲 + 慢速待发队列)
+     * @param studentId 学号
+     * @return 字节数，学生不在线时返回 -1
+     */
+    public long getPendingOutboundBytes(String studentId) {
+        Channel channel = getChannel(studentId);
+        return channel != null ? SlowConsumerHandler.pendingBytes(channel) : -1;
+    }
+
+    /**
+     * 判断学生连接是否落后 (出站缓冲超过高水位或仍有待发帧)
+     */
+    public boolean isLagging(String studentId) {
+        Channel channel = getChannel(studentId);
+        return channel != null && SlowConsumerHandler.isLagging(channel);
+    }
+}
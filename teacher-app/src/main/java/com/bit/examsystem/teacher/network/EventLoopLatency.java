@@ -0,0 +1,20 @@
+package com.bit.examsystem.teacher.network;
+
+import lombok.Data;
+
+/**
+ * worker EventLoop 的调度延迟，供教师端仪表盘显示
+ */
+@Data
+public class EventLoopLatency {
+    private long samples;       // 本次采样窗口内的探测次数 (所有 EventLoop 合计)
+    private double avgMillis;   // 窗口内的平均延迟
+    private double maxMillis;   // 窗口内的最大延迟
+    private double peakMillis;  // 启动以来的最大延迟
+
+    @Override
+    public String toString() {
+        return String.format("event loop lag avg %.2f ms, max %.2f ms (peak %.2f ms, %d samples)",
+                avgMillis, maxMillis, peakMillis, samples);
+    }
+}
@@ -0,0 +1,88 @@
+package com.bit.examsystem.teacher.network;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 事件循环延迟探针
+ *
+ * 在每个 worker EventLoop 上按固定周期调度一个空任务，任务实际执行时间比预定时间晚了多少，
+ * 就是该 EventLoop 上其他任务 (读写、业务处理) 占用的时间。阻塞的数据库操作若在 EventLoop 上执行，
+ * 这里会直接反映出来，同一 EventLoop 上所有学生的心跳和消息都会被推迟同样长的时间。
+ *
+ * 周期可通过 -Dexam.net.latencyProbeMillis 调整，0 或负数表示不探测。
+ */
+public class EventLoopLatencyProbe {
+
+    public static final int PROBE_INTERVAL_MILLIS = Integer.getInteger("exam.net.latencyProbeMillis", 100);
+
+    private final List<ScheduledFuture<?>> probes = new ArrayList<>();
+
+    // 当前采样窗口内的统计，sample() 时清零
+    private final LongAdder windowCount = new LongAdder();
+    private final LongAdder windowTotalNanos = new LongAdder();
+    private final LongAccumulator windowMaxNanos = new LongAccumulator(Math::max, 0);
+    // 启动以来的最大延迟
+    private final LongAccumulator peakNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * 在 group 的每个 EventLoop 上开始探测
+     */
+    public synchronized void start(EventLoopGroup group) {
+        stop();
+        windowCount.reset();
+        windowTotalNanos.reset();
+        windowMaxNanos.reset();
+        peakNanos.reset();
+        if (PROBE_INTERVAL_MILLIS <= 0) {
+            return;
+        }
+        long interval = TimeUnit.MILLISECONDS.toNanos(PROBE_INTERVAL_MILLIS);
+        for (EventExecutor loop : group) {
+            // 固定延迟调度：每次记录从上次结束到本次开始比预定间隔多出的时间
+            long[] expectedAt = {System.nanoTime() + interval};
+            probes.add(loop.scheduleWithFixedDelay(() -> {
+                long now = System.nanoTime();
+                record(Math.max(0, now - expectedAt[0]));
+                expectedAt[0] = now + interval;
+            }, interval, interval, TimeUnit.NANOSECONDS));
+        }
+    }
+
+    public synchronized void stop() {
+        for (ScheduledFuture<?> probe : probes) {
+            probe.cancel(false);
+        }
+        probes.clear();
+    }
+
+    void record(long lagNanos) {
+        windowCount.increment();
+        windowTotalNanos.add(lagNanos);
+        windowMaxNanos.accumulate(lagNanos);
+        peakNanos.accumulate(lagNanos);
+    }
+
+    /**
+     * 采样一次并开始新的窗口，调用方应大致按固定周期 (如每秒) 调用
+     */
+    public synchronized EventLoopLatency sample() {
+        long count = windowCount.sumThenReset();
+        long total = windowTotalNanos.sumThenReset();
+        long max = windowMaxNanos.getThenReset();
+
+        EventLoopLatency latency = new EventLoopLatency();
+        latency.setSamples(count);
+        latency.setAvgMillis(count > 0 ? total / 1e6 / count : 0);
+        latency.setMaxMillis(max / 1e6);
+        latency.setPeakMillis(peakNanos.get() / 1e6);
+        return latency;
+    }
+}
@@ -0,0 +1,129 @@
+package com.bit.examsystem.teacher.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundBuffer;
+
+import java.util.ArrayDeque;
+
+/**
+ * 慢速学生端的待发队列 (每个 Channel 一个实例)
+ *
+ * 在 {@link SlowConsumerPolicy#PACE} 策略下，广播时不可写的 Channel 不直接写入，
+ * 而是把帧 (共享内容的 retainedDuplicate，不复制试卷) 暂存在这里，
+ * 等 channelWritabilityChanged 通知重新可写时再按顺序写出。
+ * 队列只在该 Channel 的 EventLoop 中读写。
+ */
+public class SlowConsumerHandler extends ChannelInboundHandlerAdapter {
+
+    /**
+     * 单个 Channel 暂存的最大字节数，超过后断开连接，可通过 -Dexam.net.maxPacedBytes 调整
+     */
+    public static final long MAX_PACED_BYTES = Long.getLong("exam.net.maxPacedBytes", 4L * 1024 * 1024);
+
+    private final ArrayDeque<ByteBuf> paced = new ArrayDeque<>();
+    // 由 EventLoop 写入，广播线程和 UI 读取
+    private volatile long pacedBytes;
+
+    /**
+     * 判断 Channel 是否落后：出站缓冲超过高水位，或者还有未发完的暂存帧 (新帧必须排在它们后面)
+     */
+    public static boolean isLagging(Channel channel) {
+        if (!channel.isWritable()) {
+            return true;
+        }
+        SlowConsumerHandler handler = channel.pipeline().get(SlowConsumerHandler.class);
+        return handler != null && handler.pacedBytes > 0;
+    }
+
+    /**
+     * 把一帧交给该 Channel 的待发队列，可在任意线程调用
+     * @param frame 该 Channel 独占的引用 (如 retainedDuplicate)，所有权转移给本方法
+     */
+    public static void pace(Channel channel, ByteBuf frame) {
+        SlowConsumerHandler handler = channel.pipeline().get(SlowConsumerHandler.class);
+        if (handler == null) {
+            channel.writeAndFlush(frame);
+            return;
+        }
+        channel.eventLoop().execute(() -> handler.offer(channel, frame));
+    }
+
+    /**
+     * @return 该 Channel 尚未发出的字节数：Netty 出站缓冲 + 待发队列
+     */
+    public static long pendingBytes(Channel channel) {
+        long pending = 0;
+        ChannelOutboundBuffer outboundBuffer = channel.unsafe().outboundBuffer();
+        if (outboundBuffer != null) {
+            pending += outboundBuffer.totalPendingWriteBytes();
+        }
+        SlowConsumerHandler handler = channel.pipeline().get(SlowConsumerHandler.class);
+        if (handler != null) {
+            pending += handler.pacedBytes;
+        }
+        return pending;
+    }
+
+    private void offer(Channel channel, ByteBuf frame) {
+        if (!channel.isActive()) {
+            frame.release();
+            return;
+        }
+        paced.add(frame);
+        pacedBytes += frame.readableBytes();
+        if (pacedBytes > MAX_PACED_BYTES) {
+            System.err.println("[SlowConsumer] " + channel.remoteAddress() + " has " + pacedBytes
+                    + " bytes waiting (limit " + MAX_PACED_BYTES + "). Disconnecting.");
+            releasePaced();
+            channel.close();
+            return;
+        }
+        drain(channel);
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isWritable()) {
+            drain(ctx.channel());
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        releasePaced();
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        releasePaced();
+    }
+
+    /**
+     * 在 Channel 可写期间按顺序写出暂存的帧；写入会增加出站缓冲，超过高水位后自然停止
+     */
+    private void drain(Channel channel) {
+        boolean written = false;
+        while (channel.isWritable() && !paced.isEmpty()) {
+            ByteBuf frame = paced.poll();
+            pacedBytes -= frame.readableBytes();
+            channel.write(frame, channel.voidPromise());
+            written = true;
+        }
+        if (written) {
+            channel.flush();
+        }
+    }
+
+    private void releasePaced() {
+        ByteBuf frame;
+        while ((frame = paced.poll()) != null) {
+            frame.release();
+        }
+        pacedBytes = 0;
+    }
+}
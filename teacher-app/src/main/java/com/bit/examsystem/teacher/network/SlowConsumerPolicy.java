@@ -0,0 +1,31 @@
+package com.bit.examsystem.teacher.network;
+
+/**
+ * 广播时对慢速学生端 (Channel 不可写，即出站缓冲超过高水位) 的处理策略
+ * 通过 -Dexam.net.slowConsumerPolicy=queue|pace|disconnect 选择，默认 pace。
+ */
+public enum SlowConsumerPolicy {
+    /**
+     * 照常写入，帧堆积在该 Channel 的出站缓冲中，没有上限 (旧行为)
+     */
+    QUEUE,
+    /**
+     * 暂存到该 Channel 的待发队列，等它重新可写时再按顺序发送；
+     * 待发字节超过 {@link SlowConsumerHandler#MAX_PACED_BYTES} 时断开连接
+     */
+    PACE,
+    /**
+     * 直接断开连接，由学生端自动重连
+     */
+    DISCONNECT;
+
+    public static SlowConsumerPolicy fromConfig() {
+        String value = System.getProperty("exam.net.slowConsumerPolicy", PACE.name());
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown slow consumer policy '" + value + "', using " + PACE + ".");
+            return PACE;
+        }
+    }
+}
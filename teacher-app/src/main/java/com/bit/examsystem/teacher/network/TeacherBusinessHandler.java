@@ -3,10 +3,11 @@ package com.bit.examsystem.teacher.network;
 import com.bit.examsystem.common.message.LoginResponse;
 import com.bit.examsystem.common.message.Message;
 import com.bit.examsystem.common.message.MessageType;
+import com.bit.examsystem.common.message.SubmitResponse;
 import com.bit.examsystem.common.model.Student;
 import com.bit.examsystem.common.model.StudentAnswer;
+import com.bit.examsystem.common.network.Codec;
 import com.bit.examsystem.common.network.ProtocolInitializer;
-import com.bit.examsystem.common.util.JsonUtil;
 import com.bit.examsystem.teacher.service.SubmissionService;
 import com.bit.examsystem.teacher.service.SubmissionServiceImpl;
 import com.bit.examsystem.teacher.db.dao.StudentDAO;
@@ -20,7 +21,6 @@ import io.netty.channel.ChannelFutureListener;
 import io.netty.handler.timeout.IdleState; // <-- 1. Import
 import io.netty.handler.timeout.IdleStateEvent; // <-- 2. Import
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import java.util.List;
 
 @ChannelHandler.Sharable
@@ -70,6 +70,16 @@ public class TeacherBusinessHandler extends SimpleChannelInboundHandler<Message<
         }
     }
 
+    /**
+     * 读事件中的回复只 write 不 flush，在本轮读完成后统一 flush 一次；
+     * 同一轮读到的多条消息 (如登录 + 提交) 的回复合并为一次写系统调用。
+     */
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        ctx.flush();
+        super.channelReadComplete(ctx);
+    }
+
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
         int readerIdle = ProtocolInitializer.READER_IDLE_SECONDS;
@@ -90,22 +100,23 @@ public class TeacherBusinessHandler extends SimpleChannelInboundHandler<Message<
 
     private void handleLoginRequest(ChannelHandlerContext ctx, Message<Object> msg) {
         try {
-            Student studentInfo = JsonUtil.convert(msg.getBody(), Student.class);
+            // 解码器已按 LOGIN_REQ 注册的类型反序列化
+            Student studentInfo = (Student) msg.getBody();
 
             // 1. 基本数据校验
             if (studentInfo == null || studentInfo.getId() == null || studentInfo.getName() == null) {
                 LoginResponse payload = new LoginResponse(false, "Invalid student data provided.");
                 Message<LoginResponse> response = new Message<>(MessageType.LOGIN_RESP, payload);
-                ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+                ctx.write(response).addListener(ChannelFutureListener.CLOSE);
                 return;
             }
 
-            // 2. 重复登录校验
-            if (connectionManager.isStudentIdOnline(studentInfo.getId())) {
+            // 2. 重复登录校验：原子地占用学号，并发的同学号登录只有一个能成功
+            if (!connectionManager.claimStudentId(studentInfo.getId(), ctx.channel())) {
                 System.out.printf("[Login Rejected] Duplicate login attempt for student ID: %s%n", studentInfo.getId());
                 LoginResponse payload = new LoginResponse(false, "This student ID is already logged in.");
                 Message<LoginResponse> response = new Message<>(MessageType.LOGIN_RESP, payload);
-                ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+                ctx.write(response).addListener(ChannelFutureListener.CLOSE);
                 return;
             }
 
@@ -116,23 +127,31 @@ public class TeacherBusinessHandler extends SimpleChannelInboundHandler<Message<
                 System.err.println("DATABASE ERROR: Failed to save student info for ID: " + studentInfo.getId());
                 e.printStackTrace();
                 // If we can't save the student, we must reject the login.
+                connectionManager.releaseStudentId(studentInfo.getId(), ctx.channel());
                 LoginResponse payload = new LoginResponse(false, "Server database error during login.");
                 Message<LoginResponse> response = new Message<>(MessageType.LOGIN_RESP, payload);
-                ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+                ctx.write(response).addListener(ChannelFutureListener.CLOSE);
                 return;
             }
 
             // 3. 登录成功
             connectionManager.addStudent(ctx.channel(), studentInfo);
-            LoginResponse payload = new LoginResponse(true, "Login successful. Welcome!");
+
+            // 协商编码：响应本身仍用 JSON 发送，之后该 Channel 的出站消息改用选定的编码。
+            // 旧版本客户端不会声明 codecs，因此始终保持 JSON。
+            Codec codec = Codec.negotiate(studentInfo.getCodecs());
+            LoginResponse payload = new LoginResponse(true, "Login successful. Welcome!", codec.name());
             Message<LoginResponse> response = new Message<>(MessageType.LOGIN_RESP, payload);
-            ctx.writeAndFlush(response);
+            ctx.write(response);
+            // 本 Handler 在业务线程池中执行，上面的 write 会作为任务提交到 EventLoop 再编码；
+            // 切换编码也提交到 EventLoop，排在它后面，保证登录响应仍以 JSON 编码
+            ctx.channel().eventLoop().execute(() -> ctx.channel().attr(Codec.CHANNEL_CODEC).set(codec));
 
         } catch (Exception e) {
             System.err.println("Error processing login request: " + e.getMessage());
             LoginResponse payload = new LoginResponse(false, "Server internal error during login.");
             Message<LoginResponse> response = new Message<>(MessageType.LOGIN_RESP, payload);
-            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+            ctx.write(response).addListener(ChannelFutureListener.CLOSE);
         }
     }
 
@@ -144,12 +163,23 @@ public class TeacherBusinessHandler extends SimpleChannelInboundHandler<Message<
             return;
         }
 
-        // 2. Deserialize the list of answers.
+        // 2. The decoder has already deserialized the body into List<StudentAnswer>.
         try {
-            List<StudentAnswer> answers = JsonUtil.convert(msg.getBody(), new TypeReference<>() {});
+            @SuppressWarnings("unchecked")
+            List<StudentAnswer> answers = (List<StudentAnswer>) msg.getBody();
 
             // 3. Pass to the submission service for processing.
-            submissionService.processSubmission(student.getId(), answers);
+            // 答卷排队等待组提交，事务提交后 (在写线程中) 才回复 ANSWER_ACK
+            String studentId = student.getId();
+            submissionService.processSubmission(studentId, answers).whenComplete((ignored, error) -> {
+                SubmitResponse payload = error == null
+                        ? new SubmitResponse(true, "Answers saved.", answers.size())
+                        : new SubmitResponse(false, "Server could not save your answers, please submit again.", 0);
+                if (error != null) {
+                    System.err.println("Submission from student " + studentId + " failed: " + error.getMessage());
+                }
+                ctx.writeAndFlush(new Message<>(MessageType.ANSWER_ACK, payload));
+            });
 
         } catch (Exception e) {
             System.err.println("Failed to parse submission from student " + student.getId());
@@ -1,22 +1,58 @@
 package com.bit.examsystem.teacher.network;
 
+import com.bit.examsystem.common.dto.ExamChunkDTO;
+import com.bit.examsystem.common.dto.ExamPaperDTO;
+import com.bit.examsystem.common.network.ExamPaperChunker;
+import com.bit.examsystem.common.network.FrameCompressionCodec;
+import com.bit.examsystem.common.network.FrameFormat;
+import com.bit.examsystem.common.network.MessageEncoder;
 import com.bit.examsystem.common.network.ProtocolInitializer;
+import com.bit.examsystem.common.network.TransportFactory;
 import com.bit.examsystem.common.message.Message;
+import com.bit.examsystem.common.message.MessageType;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.*;
 import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.ChannelGroupFutureListener;
+import io.netty.channel.group.ChannelMatcher;
 import io.netty.channel.group.DefaultChannelGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
 import io.netty.util.concurrent.GlobalEventExecutor;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 public class TeacherServer {
 
+    // 绑定同一端口的 server channel 数 (各自一个 accept 线程)，大于 1 时需要 epoll 的 SO_REUSEPORT
+    public static final int ACCEPTORS = Integer.getInteger("exam.net.acceptors", 1);
+    // 每个 server channel 的 accept 队列长度，实际上限还受内核 net.core.somaxconn 限制
+    public static final int BACKLOG = Integer.getInteger("exam.net.backlog", 1024);
+    // 出站缓冲的高低水位：超过高水位时 Channel 变为不可写，降到低水位以下恢复可写
+    public static final int WRITE_LOW_WATER_MARK = Integer.getInteger("exam.net.writeLowWaterMark", 64 * 1024);
+    public static final int WRITE_HIGH_WATER_MARK = Integer.getInteger("exam.net.writeHighWaterMark", 256 * 1024);
+    // 广播时对不可写 Channel 的处理策略
+    public static final SlowConsumerPolicy SLOW_CONSUMER_POLICY = SlowConsumerPolicy.fromConfig();
+    // 业务线程数：登录和交卷会同步访问 SQLite，放在独立的线程池中执行，不阻塞 worker EventLoop
+    // 0 表示仍在 EventLoop 上执行 (旧行为)
+    public static final int BUSINESS_THREADS = Integer.getInteger("exam.net.businessThreads", 4);
+
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
-    private Channel serverChannel;
+    private EventExecutorGroup businessGroup;
+    private final EventLoopLatencyProbe latencyProbe = new EventLoopLatencyProbe();
+    private final List<Channel> serverChannels = new CopyOnWriteArrayList<>();
+    private final AcceptMonitor acceptMonitor = new AcceptMonitor();
+    private TransportFactory transport;
+    private int acceptors;
     private volatile boolean isRunning = false;
+    private volatile BroadcastStats lastBroadcastStats;
 
     // 用于管理所有已连接的学生客户端 Channel
     private final ChannelGroup studentChannels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
@@ -44,44 +80,68 @@ public class TeacherServer {
             return;
         }
 
-        // 1. 创建两个 EventLoopGroup
-        // bossGroup 负责接受客户端的连接请求
-        bossGroup = new NioEventLoopGroup(1);
+        // 1. 创建两个 EventLoopGroup (Linux 上为 epoll，否则为 NIO)
+        transport = TransportFactory.getInstance();
+        // 多 acceptor 依赖 SO_REUSEPORT，只有 epoll 支持
+        acceptors = ACCEPTORS;
+        if (acceptors > 1 && !transport.supportsReusePort()) {
+            System.err.println("SO_REUSEPORT requires the epoll transport; using a single acceptor on " + transport + ".");
+            acceptors = 1;
+        }
+        // bossGroup 负责接受客户端的连接请求，每个 acceptor 一个线程
+        bossGroup = transport.newEventLoopGroup(acceptors);
         // workerGroup 负责处理每个连接的读写操作
-        workerGroup = new NioEventLoopGroup();
+        workerGroup = transport.newEventLoopGroup(0);
+        // 业务线程池：每个 Channel 固定分配给其中一个线程，同一学生的消息仍按顺序处理
+        businessGroup = BUSINESS_THREADS > 0 ? new DefaultEventExecutorGroup(BUSINESS_THREADS) : null;
+        acceptMonitor.reset();
+        latencyProbe.start(workerGroup);
 
         try {
             // 2. 创建服务器启动引导类
             ServerBootstrap bootstrap = new ServerBootstrap();
-            bootstrap.group(bossGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class) // 使用 NioServerSocketChannel 作为服务器的通道实现
-                    .option(ChannelOption.SO_BACKLOG, 128) // 设置 TCP 连接请求的队列最大长度
+            transport.configure(bootstrap, acceptors > 1) // 按传输类型设置服务器的通道实现及 epoll 专有选项
+                    .group(bossGroup, workerGroup)
+                    .option(ChannelOption.SO_BACKLOG, BACKLOG) // 设置 TCP 连接请求的队列最大长度
+                    .handler(acceptMonitor) // 统计接入速率和失败次数
                     .childOption(ChannelOption.SO_KEEPALIVE, true) // 为子 Channel (学生连接) 开启 TCP KeepAlive
+                    .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK,
+                            new WriteBufferWaterMark(WRITE_LOW_WATER_MARK, WRITE_HIGH_WATER_MARK))
                     .childHandler(new ProtocolInitializer() { // 重点：配置子 Channel 的 Pipeline
                         @Override
                         protected void addBusinessHandler(SocketChannel ch) {
+                            // 慢速学生端的待发队列 (PACE 策略)，每个 Channel 独立一个
+                            ch.pipeline().addLast(new SlowConsumerHandler());
                             // 添加我们自定义的教师端业务处理器
                             // 因为它是 @Sharable, 所以可以安全地共享同一个实例
-                            ch.pipeline().addLast(teacherBusinessHandler);
+                            // 在业务线程池中执行，其中的数据库操作不会阻塞该 EventLoop 上的其他学生；
+                            // 回复的写入由 Netty 异步提交回 EventLoop
+                            ch.pipeline().addLast(businessGroup, "teacherBusinessHandler", teacherBusinessHandler);
                         }
                     });
 
-            // 4. 异步绑定端口并启动服务器
-            ChannelFuture future = bootstrap.bind(port).sync();
-            serverChannel = future.channel();
+            // 4. 绑定端口并启动服务器
+            // 每次 bind 都会把新的 server channel 注册到 bossGroup 中的下一个 EventLoop，
+            // 开启 SO_REUSEPORT 后内核在这些 channel 之间分配新连接，各自独立 accept
+            for (int i = 0; i < acceptors; i++) {
+                Channel channel = bootstrap.bind(port).sync().channel();
+                serverChannels.add(channel);
+                // 异步地等待服务器关闭
+                channel.closeFuture().addListener(f -> {
+                    System.out.println("Server channel closed.");
+                    stop(); // 确保服务器关闭时资源被释放
+                });
+            }
             isRunning = true;
-            System.out.println("Teacher Server started successfully on port: " + port);
-
-            // 异步地等待服务器关闭
-            serverChannel.closeFuture().addListener(f -> {
-                System.out.println("Server channel closed.");
-                stop(); // 确保服务器关闭时资源被释放
-            });
+            System.out.println("Teacher Server started successfully on port: " + port + " (transport: " + transport
+                    + ", acceptors: " + acceptors + ", backlog: " + BACKLOG
+                    + ", slow consumer policy: " + SLOW_CONSUMER_POLICY
+                    + ", business threads: " + (businessGroup != null ? BUSINESS_THREADS : "event loop") + ")");
 
         } catch (InterruptedException e) {
             System.err.println("Server start interrupted.");
             Thread.currentThread().interrupt();
-            stop(); // 出错时也需要清理资源
+            releaseResources(); // 出错时也需要清理资源
         }
     }
 
@@ -94,19 +154,52 @@ public class TeacherServer {
         }
         System.out.println("Shutting down teacher server...");
         isRunning = false;
+        releaseResources();
+        System.out.println("Server shut down complete.");
+    }
+
+    private void releaseResources() {
+        latencyProbe.stop();
         try {
-            if (serverChannel != null) {
-                serverChannel.close().syncUninterruptibly();
+            for (Channel channel : serverChannels) {
+                channel.close().syncUninterruptibly();
             }
+            serverChannels.clear();
+            // 先关闭学生连接再关闭线程池：业务 Handler 在业务线程池中，连接的清理需要在两者之间往返
+            studentChannels.close().awaitUninterruptibly();
         } finally {
             if (workerGroup != null) {
                 workerGroup.shutdownGracefully().syncUninterruptibly();
             }
+            if (businessGroup != null) {
+                businessGroup.shutdownGracefully().syncUninterruptibly();
+            }
             if (bossGroup != null) {
                 bossGroup.shutdownGracefully().syncUninterruptibly();
             }
         }
-        System.out.println("Server shut down complete.");
+    }
+
+    /**
+     * 采样一次接入统计，仪表盘每秒调用一次
+     * @return 服务器未运行时返回 null
+     */
+    public AcceptStats sampleAcceptStats() {
+        if (!isRunning) {
+            return null;
+        }
+        return acceptMonitor.sample(transport.name(), acceptors, BACKLOG);
+    }
+
+    /**
+     * 采样一次 worker EventLoop 的调度延迟，仪表盘每秒调用一次
+     * @return 服务器未运行时返回 null
+     */
+    public EventLoopLatency sampleEventLoopLatency() {
+        if (!isRunning) {
+            return null;
+        }
+        return latencyProbe.sample();
     }
 
     public boolean isRunning() {
@@ -135,6 +228,8 @@ public class TeacherServer {
 
     /**
      * Sends a message to all currently connected and active student channels.
+     * The message is encoded once per frame format (negotiated codec, legacy or tagged) into a single frame;
+     * every channel using that format receives a retainedDuplicate() of it, so the encoder is not run once per student.
      * @param message The message to broadcast.
      */
     public void broadcastMessage(Message<?> message) {
@@ -143,8 +238,115 @@ public class TeacherServer {
             return;
         }
 
-        // ChannelGroup's writeAndFlush will send the message to every channel in the group.
-        studentChannels.writeAndFlush(message);
+        for (FrameFormat format : formatsInUse()) {
+            broadcastFrame(message, format);
+        }
         System.out.println("Message broadcasted to " + studentChannels.size() + " students.");
     }
+
+    /**
+     * Sends an exam paper to all connected students.
+     * Current clients receive an EXAM_START header followed by size-bounded EXAM_CHUNK frames, so no frame
+     * exceeds {@link ProtocolInitializer#MAX_FRAME_LENGTH} and students can render the first questions early.
+     * Legacy clients cannot assemble chunks and still receive the whole paper in a single EXAM_START frame.
+     * @param paper The full exam paper (without answers).
+     */
+    public void broadcastExamPaper(ExamPaperDTO paper) {
+        if (studentChannels.isEmpty()) {
+            System.out.println("No students online to broadcast exam paper to.");
+            return;
+        }
+
+        Message<ExamPaperDTO> header = new Message<>(MessageType.EXAM_START, ExamPaperChunker.header(paper));
+        List<ExamChunkDTO> chunks = ExamPaperChunker.split(paper, ExamPaperChunker.DEFAULT_CHUNK_BYTES);
+
+        for (FrameFormat format : formatsInUse()) {
+            if (format.legacy()) {
+                broadcastFrame(new Message<>(MessageType.EXAM_START, paper), format);
+                continue;
+            }
+            // Frames on one channel are written in order, so the header always arrives before its chunks.
+            broadcastFrame(header, format);
+            for (ExamChunkDTO chunk : chunks) {
+                broadcastFrame(new Message<>(MessageType.EXAM_CHUNK, chunk), format);
+            }
+        }
+        System.out.println("Exam paper broadcasted to " + studentChannels.size() + " students in "
+                + chunks.size() + " chunks.");
+    }
+
+    /**
+     * Only encode for formats that are actually in use (usually one or two).
+     */
+    private Set<FrameFormat> formatsInUse() {
+        Set<FrameFormat> formats = new HashSet<>();
+        for (Channel channel : studentChannels) {
+            formats.add(FrameFormat.of(channel));
+        }
+        return formats;
+    }
+
+    private void broadcastFrame(Message<?> message, FrameFormat format) {
+        ChannelMatcher sameFormat = channel -> FrameFormat.of(channel).equals(format);
+        BroadcastStats stats = new BroadcastStats();
+        stats.setCodec(format.legacy() ? format.codec().name() + " (legacy)" : format.codec().name());
+
+        // 1. Encode once.
+        long encodeStart = System.nanoTime();
+        ByteBuf frame = MessageEncoder.encodeFrame(ByteBufAllocator.DEFAULT, message, format);
+        stats.setRawBytes(frame.readableBytes());
+        // Compress once as well; FrameCompressionCodec passes already-compressed frames through.
+        frame = FrameCompressionCodec.compressFrame(ByteBufAllocator.DEFAULT, frame);
+        stats.setEncodeNanos(System.nanoTime() - encodeStart);
+        stats.setFrameBytes(frame.readableBytes());
+
+        // 2. Handle lagging channels (outbound buffer above the high water mark, or still draining paced frames)
+        // according to the slow consumer policy, so one bad link cannot pile up the teacher's heap.
+        Set<Channel> lagging = new HashSet<>();
+        if (SLOW_CONSUMER_POLICY != SlowConsumerPolicy.QUEUE) {
+            for (Channel channel : studentChannels) {
+                if (sameFormat.matches(channel) && SlowConsumerHandler.isLagging(channel)) {
+                    lagging.add(channel);
+                }
+            }
+        }
+        for (Channel channel : lagging) {
+            if (SLOW_CONSUMER_POLICY == SlowConsumerPolicy.PACE) {
+                SlowConsumerHandler.pace(channel, frame.retainedDuplicate());
+            } else {
+                System.err.println("[SlowConsumer] " + channel.remoteAddress() + " has "
+                        + SlowConsumerHandler.pendingBytes(channel) + " bytes pending. Disconnecting.");
+                channel.close();
+            }
+        }
+        stats.setLaggingCount(lagging.size());
+        ChannelMatcher target = lagging.isEmpty() ? sameFormat
+                : channel -> sameFormat.matches(channel) && !lagging.contains(channel);
+
+        // 3. Fan out. For a ByteBuf, ChannelGroup writes a retainedDuplicate() to each matching channel
+        // and releases our reference afterwards; MessageEncoder passes the frame through untouched.
+        long fanOutStart = System.nanoTime();
+        studentChannels.writeAndFlush(frame, target).addListener((ChannelGroupFutureListener) future -> {
+            stats.setFanOutNanos(System.nanoTime() - fanOutStart);
+            int channels = 0;
+            int failed = 0;
+            for (ChannelFuture channelFuture : future) {
+                channels++;
+                if (!channelFuture.isSuccess()) {
+                    failed++;
+                }
+            }
+            stats.setChannelCount(channels);
+            stats.setFailedCount(failed);
+            lastBroadcastStats = stats;
+            System.out.println("[Broadcast] " + stats);
+        });
+    }
+
+    /**
+     * @return The timings of the most recently completed broadcast, or null if none has completed yet.
+     */
+    public BroadcastStats getLastBroadcastStats() {
+        return lastBroadcastStats;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,214 @@
+package com.bit.examsystem.teacher.service;
+
+import com.bit.examsystem.common.model.ExamPaper;
+import com.bit.examsystem.common.model.Question;
+import com.bit.examsystem.common.model.QuestionType;
+import com.bit.examsystem.common.model.StudentAnswer;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 一场考试的标准答案，编译一次后可被多个线程同时用于判分
+ *
+ * 编译时把每道题的标准答案转换成匹配器，判分时只扫描学生的回答，常见情况下不分配对象：
+ * <ul>
+ *     <li>单选、判断：去掉首尾空白后忽略大小写比较</li>
+ *     <li>多选：选项位图，不计选项顺序 (区分大小写，重复选项判错，与逐字符排序比较的结果相同)</li>
+ *     <li>填空：去掉首尾空白、连续空白视为一个空格、全角字符按半角处理、忽略大小写；
+ *         标准答案中用 '|' 分隔多个可接受的答案，如 "JVM|Java 虚拟机"</li>
+ *     <li>未作答或只有空白：0 分</li>
+ * </ul>
+ */
+public final class AnswerKey {
+
+    private final String examId;
+    private final Map<String, CompiledQuestion> questions;
+
+    /**
+     * @param matcher 标准答案为空时为 null (任何回答都得 0 分)
+     */
+    private record CompiledQuestion(Matcher matcher, int score) {}
+
+    /**
+     * 判断学生回答的 [start, end) 部分 (已去掉首尾空白，非空) 是否正确
+     */
+    private interface Matcher {
+        boolean matches(String submitted, int start, int end);
+    }
+
+    private AnswerKey(String examId, Map<String, CompiledQuestion> questions) {
+        this.examId = examId;
+        this.questions = questions;
+    }
+
+    public static AnswerKey compile(ExamPaper exam) {
+        Map<String, CompiledQuestion> questions = new HashMap<>();
+        if (exam.getQuestions() != null) {
+            for (Question q : exam.getQuestions()) {
+                int score = q.getScore() == null ? 0 : q.getScore();
+                questions.put(q.getId(), new CompiledQuestion(compileMatcher(q), score));
+            }
+        }
+        return new AnswerKey(exam.getExamId(), questions);
+    }
+
+    private static Matcher compileMatcher(Question q) {
+        if (q.getCorrectAnswer() == null || q.getType() == null) {
+            return null;
+        }
+        String expected = q.getCorrectAnswer().trim();
+        switch (q.getType()) {
+            case SINGLE_CHOICE:
+            case JUDGE:
+                return (submitted, start, end) -> end - start == expected.length()
+                        && expected.regionMatches(true, 0, submitted, start, expected.length());
+            case MULTI_CHOICE: {
+                long mask = optionMask(expected, 0, expected.length());
+                if (mask != INVALID_MASK) {
+                    return (submitted, start, end) -> optionMask(submitted, start, end) == mask;
+                }
+                // 标准答案含 A-Z/a-z 以外的字符或重复选项：退回到排序后逐字符比较
+                String sorted = sortChars(expected);
+                return (submitted, start, end) -> sorted.equals(sortChars(submitted.substring(start, end)));
+            }
+            case FILL_IN:
+                return compileFillIn(expected);
+            default:
+                return null;
+        }
+    }
+
+    private static Matcher compileFillIn(String expected) {
+        Set<String> accepted = new LinkedHashSet<>();
+        for (String alternative : expected.split("\\|")) {
+            String normalized = normalizeFillIn(alternative);
+            if (!normalized.isEmpty()) {
+                accepted.add(normalized);
+            }
+        }
+        String[] alternatives = accepted.toArray(new String[0]);
+        return (submitted, start, end) -> {
+            // 快速路径：学生回答本身已是规范形式 (只差大小写) 时无需分配
+            int length = end - start;
+            for (String alternative : alternatives) {
+                if (alternative.length() == length && alternative.regionMatches(true, 0, submitted, start, length)) {
+                    return true;
+                }
+            }
+            return accepted.contains(normalizeFillIn(submitted.substring(start, end)));
+        };
+    }
+
+    /**
+     * 填空题答案的规范形式：全角转半角 (NFKC)，去掉首尾空白，连续空白合并为一个空格，逐字符忽略大小写
+     */
+    static String normalizeFillIn(String answer) {
+        String nfkc = Normalizer.normalize(answer, Normalizer.Form.NFKC);
+        StringBuilder sb = new StringBuilder(nfkc.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < nfkc.length(); i++) {
+            char c = nfkc.charAt(i);
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                sb.append(' ');
+                pendingSpace = false;
+            }
+            // 与 equalsIgnoreCase 相同的逐字符折叠
+            sb.append(Character.toLowerCase(Character.toUpperCase(c)));
+        }
+        return sb.toString();
+    }
+
+    public String getExamId() {
+        return examId;
+    }
+
+    /**
+     * @return 题目是否在本试卷中
+     */
+    public boolean hasQuestion(String questionId) {
+        return questions.containsKey(questionId);
+    }
+
+    /**
+     * @return 该答案的得分；题目不在本试卷中时返回 null (保持未批改)
+     */
+    public Integer score(StudentAnswer answer) {
+        CompiledQuestion question = questions.get(answer.getQuestionId());
+        if (question == null) {
+            return null;
+        }
+        String submitted = answer.getAnswer();
+        if (question.matcher() == null || submitted == null) {
+            return 0;
+        }
+        // 与 String.trim() 相同的首尾空白，只计算边界，不创建新字符串
+        int start = 0;
+        int end = submitted.length();
+        while (start < end && submitted.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && submitted.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return 0;
+        }
+        return question.matcher().matches(submitted, start, end) ? question.score() : 0;
+    }
+
+    /**
+     * 为一名学生的全部答案判分
+     * @return Key 为 questionId，不在本试卷中的题目不出现在结果里
+     */
+    public Map<String, Integer> scoreAll(List<StudentAnswer> answers) {
+        Map<String, Integer> scores = new HashMap<>();
+        for (StudentAnswer answer : answers) {
+            Integer score = score(answer);
+            if (score != null) {
+                scores.put(answer.getQuestionId(), score);
+            }
+        }
+        return scores;
+    }
+
+    private static final long INVALID_MASK = -1L;
+
+    /**
+     * 多选题答案的选项位图：A-Z 占第 0-25 位，a-z 占第 26-51 位；含其他字符或重复选项时返回 INVALID_MASK
+     */
+    private static long optionMask(String answer, int start, int end) {
+        long mask = 0;
+        for (int i = start; i < end; i++) {
+            char c = answer.charAt(i);
+            int bit;
+            if (c >= 'A' && c <= 'Z') {
+                bit = c - 'A';
+            } else if (c >= 'a' && c <= 'z') {
+                bit = 26 + c - 'a';
+            } else {
+                return INVALID_MASK;
+            }
+            if ((mask & (1L << bit)) != 0) {
+                return INVALID_MASK;
+            }
+            mask |= 1L << bit;
+        }
+        return mask;
+    }
+
+    private static String sortChars(String s) {
+        char[] chars = s.toCharArray();
+        Arrays.sort(chars);
+        return new String(chars);
+    }
+}
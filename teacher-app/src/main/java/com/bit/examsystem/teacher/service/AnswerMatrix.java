@@ -0,0 +1,290 @@
+package com.bit.examsystem.teacher.service;
+
+import com.bit.examsystem.common.model.ExamPaper;
+import com.bit.examsystem.common.model.Question;
+import com.bit.examsystem.common.model.QuestionType;
+import com.bit.examsystem.common.model.StudentAnswer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 客观题答案矩阵：学生 × 题目的 byte 矩阵，整场考试一次判分
+ *
+ * 每个格子是一个编码后的答案，与标准答案向量逐字节比较，相等即得分：
+ * <ul>
+ *     <li>单选、多选：选项位图，A = 0x01 ... H = 0x80，多选不计顺序自然成立</li>
+ *     <li>判断：按题目建立的字典编码 (忽略大小写)，标准答案为 1</li>
+ *     <li>0 表示未作答，0xFF 表示无法编码的回答 (一定判错)</li>
+ * </ul>
+ * 编码规则与 {@link AnswerKey} 的判分结果完全一致；无法编码的题目 (填空题、标准答案不是 A-H 选项的题目)
+ * 不进入矩阵，由调用方用 AnswerKey 逐个判分。
+ *
+ * 矩阵按行存储，每行补齐到 8 字节的倍数。判分时一次读取 8 个格子 (一个 long)，用 SWAR 位运算同时比较 8 道题，
+ * 一遍扫描得到每名学生的总分、每道题的答对人数和每个格子的对错位图。-Dexam.grading.scalarMatrix=true 时逐字节比较。
+ *
+ * 不是线程安全的：由一个线程填充并判分。
+ */
+public final class AnswerMatrix {
+
+    public static final boolean SWAR_ENABLED = !Boolean.getBoolean("exam.grading.scalarMatrix");
+
+    static final byte BLANK = 0;
+    static final byte INVALID = (byte) 0xFF;
+    // 补齐列的标准答案。它与多选 "BCDEFGH" 的编码相同，但补齐列中学生的格子总是 BLANK，
+    // 不会与它相等，所以补齐列永远不得分，也从不与真实的学生答案比较
+    private static final byte PADDING = (byte) 0xFE;
+    private static final int MAX_DICTIONARY_CODE = 0xFD;
+
+    private static final long LOW_7_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final List<String> questionIds;
+    private final Map<String, Integer> columns;
+    private final QuestionType[] types;
+    private final int[] scores;
+    private final List<Map<String, Integer>> dictionaries; // 判断题的答案字典，其他题型为 null
+    private final int stride;
+    private final byte[] key;
+
+    private final List<String> studentIds = new ArrayList<>();
+    private byte[] cells;
+
+    /**
+     * 一遍扫描的结果
+     * @param totals 每行 (学生) 的总分
+     * @param correctCounts 每列 (题目) 的答对人数
+     * @param correctBits 每个格子是否答对，每行占 wordsPerRow 个 long，第 col 列在第 col / 64 个 long 的第 col % 64 位
+     */
+    public record Result(List<String> studentIds, List<String> questionIds, int[] totals, int[] correctCounts,
+                         long[] correctBits, int wordsPerRow) {
+
+        public boolean isCorrect(int row, int column) {
+            return (correctBits[row * wordsPerRow + (column >>> 6)] & (1L << column)) != 0;
+        }
+    }
+
+    private AnswerMatrix(List<Question> questions) {
+        int count = questions.size();
+        this.questionIds = new ArrayList<>(count);
+        this.columns = new HashMap<>();
+        this.types = new QuestionType[count];
+        this.scores = new int[count];
+        this.dictionaries = new ArrayList<>(count);
+        this.stride = (count + 7) & ~7;
+        this.key = new byte[stride];
+        Arrays.fill(key, PADDING);
+        for (int col = 0; col < count; col++) {
+            Question q = questions.get(col);
+            questionIds.add(q.getId());
+            columns.put(q.getId(), col);
+            types[col] = q.getType();
+            scores[col] = q.getScore() == null ? 0 : q.getScore();
+            Map<String, Integer> dictionary = q.getType() == QuestionType.JUDGE
+                    ? new TreeMap<>(String.CASE_INSENSITIVE_ORDER) : null;
+            dictionaries.add(dictionary);
+            key[col] = encode(col, q.getCorrectAnswer());
+        }
+        this.cells = new byte[stride * 16];
+    }
+
+    /**
+     * 为试卷中可编码的客观题建立空矩阵
+     */
+    public static AnswerMatrix forExam(ExamPaper exam) {
+        List<Question> encodable = new ArrayList<>();
+        if (exam.getQuestions() != null) {
+            for (Question q : exam.getQuestions()) {
+                if (isEncodable(q)) {
+                    encodable.add(q);
+                }
+            }
+        }
+        return new AnswerMatrix(encodable);
+    }
+
+    static boolean isEncodable(Question q) {
+        if (q.getCorrectAnswer() == null || q.getType() == null) {
+            return false;
+        }
+        String expected = q.getCorrectAnswer().trim();
+        switch (q.getType()) {
+            case SINGLE_CHOICE:
+                return expected.length() == 1 && optionBit(Character.toUpperCase(expected.charAt(0))) != 0;
+            case MULTI_CHOICE:
+                return !expected.isEmpty() && optionMask(expected) != INVALID;
+            case JUDGE:
+                return !expected.isEmpty();
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return 该题是否在矩阵中 (不在矩阵中的题目需用 AnswerKey 判分)
+     */
+    public boolean covers(String questionId) {
+        return columns.containsKey(questionId);
+    }
+
+    public int columnOf(String questionId) {
+        Integer col = columns.get(questionId);
+        return col == null ? -1 : col;
+    }
+
+    public int getScore(int column) {
+        return scores[column];
+    }
+
+    public int getRowCount() {
+        return studentIds.size();
+    }
+
+    public List<String> getQuestionIds() {
+        return Collections.unmodifiableList(questionIds);
+    }
+
+    /**
+     * 追加一名学生的答案，不在矩阵中的题目被忽略
+     * @return 该学生所在的行号
+     */
+    public int addStudent(String studentId, List<StudentAnswer> answers) {
+        int row = studentIds.size();
+        if ((row + 1) * stride > cells.length) {
+            cells = Arrays.copyOf(cells, Math.max(cells.length * 2, (row + 1) * stride));
+        }
+        studentIds.add(studentId);
+        int base = row * stride;
+        for (StudentAnswer answer : answers) {
+            Integer col = columns.get(answer.getQuestionId());
+            if (col != null) {
+                cells[base + col] = encode(col, answer.getAnswer());
+            }
+        }
+        return row;
+    }
+
+    public Result grade() {
+        return grade(SWAR_ENABLED);
+    }
+
+    /**
+     * 一遍扫描整个矩阵
+     * @param swar true 时每次比较 8 个格子，false 时逐个格子比较
+     */
+    public Result grade(boolean swar) {
+        int rows = studentIds.size();
+        int wordsPerRow = Math.max(1, (questionIds.size() + 63) >>> 6);
+        int[] totals = new int[rows];
+        int[] correctCounts = new int[questionIds.size()];
+        long[] correctBits = new long[rows * wordsPerRow];
+        if (swar) {
+            gradeSwar(rows, wordsPerRow, totals, correctCounts, correctBits);
+        } else {
+            gradeScalar(rows, wordsPerRow, totals, correctCounts, correctBits);
+        }
+        return new Result(List.copyOf(studentIds), List.copyOf(questionIds), totals, correctCounts, correctBits, wordsPerRow);
+    }
+
+    private void gradeSwar(int rows, int wordsPerRow, int[] totals, int[] correctCounts, long[] correctBits) {
+        long[] keyWords = new long[stride >>> 3];
+        for (int w = 0; w < keyWords.length; w++) {
+            keyWords[w] = (long) LONGS.get(key, w << 3);
+        }
+        for (int row = 0; row < rows; row++) {
+            int base = row * stride;
+            int bitsBase = row * wordsPerRow;
+            int total = 0;
+            for (int w = 0; w < keyWords.length; w++) {
+                long diff = (long) LONGS.get(cells, base + (w << 3)) ^ keyWords[w];
+                // 相等的字节 (diff 为 0) 在对应字节的最高位得到 1，其余字节为 0，没有误报
+                long matched = ~(((diff & LOW_7_BITS) + LOW_7_BITS) | diff | LOW_7_BITS);
+                while (matched != 0) {
+                    int col = (w << 3) + (Long.numberOfTrailingZeros(matched) >>> 3);
+                    total += scores[col];
+                    correctCounts[col]++;
+                    correctBits[bitsBase + (col >>> 6)] |= 1L << col;
+                    matched &= matched - 1;
+                }
+            }
+            totals[row] = total;
+        }
+    }
+
+    private void gradeScalar(int rows, int wordsPerRow, int[] totals, int[] correctCounts, long[] correctBits) {
+        int columnCount = questionIds.size();
+        for (int row = 0; row < rows; row++) {
+            int base = row * stride;
+            int bitsBase = row * wordsPerRow;
+            int total = 0;
+            for (int col = 0; col < columnCount; col++) {
+                if (cells[base + col] == key[col]) {
+                    total += scores[col];
+                    correctCounts[col]++;
+                    correctBits[bitsBase + (col >>> 6)] |= 1L << col;
+                }
+            }
+            totals[row] = total;
+        }
+    }
+
+    private byte encode(int col, String answer) {
+        if (answer == null) {
+            return BLANK;
+        }
+        String trimmed = answer.trim();
+        if (trimmed.isEmpty()) {
+            return BLANK;
+        }
+        switch (types[col]) {
+            case SINGLE_CHOICE: {
+                // 与 equalsIgnoreCase 一致：只有单个字母 (不分大小写) 才可能答对
+                int bit = trimmed.length() == 1 ? optionBit(Character.toUpperCase(trimmed.charAt(0))) : 0;
+                return bit == 0 ? INVALID : (byte) bit;
+            }
+            case MULTI_CHOICE:
+                return optionMask(trimmed);
+            case JUDGE: {
+                Map<String, Integer> dictionary = dictionaries.get(col);
+                Integer code = dictionary.get(trimmed);
+                if (code == null) {
+                    if (dictionary.size() >= MAX_DICTIONARY_CODE) {
+                        return INVALID;
+                    }
+                    code = dictionary.size() + 1;
+                    dictionary.put(trimmed, code);
+                }
+                return (byte) (int) code;
+            }
+            default:
+                return INVALID;
+        }
+    }
+
+    private static int optionBit(char c) {
+        return c >= 'A' && c <= 'H' ? 1 << (c - 'A') : 0;
+    }
+
+    /**
+     * 多选题答案的选项位图；与排序后逐字符比较一致：区分大小写，重复选项或非 A-H 字符视为无法编码
+     */
+    private static byte optionMask(String answer) {
+        int mask = 0;
+        for (int i = 0; i < answer.length(); i++) {
+            int bit = optionBit(answer.charAt(i));
+            if (bit == 0 || (mask & bit) != 0) {
+                return INVALID;
+            }
+            mask |= bit;
+        }
+        return (byte) mask;
+    }
+}
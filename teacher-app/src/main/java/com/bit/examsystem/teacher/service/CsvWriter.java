@@ -0,0 +1,217 @@
+package com.bit.examsystem.teacher.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 按行写 CSV (RFC 4180) 到 NIO 通道，UTF-8 编码，文件开头写 BOM 以便 Excel 识别编码
+ *
+ * 字段先写入固定大小的字符缓冲区，满了再编码到固定大小的字节缓冲区，字节缓冲区满了才写入通道；
+ * 不论导出多少行，占用的内存都只有这两个缓冲区。
+ * 含逗号、引号或换行的字段加引号，字段中的引号写成两个。
+ *
+ * 不是线程安全的。
+ */
+final class CsvWriter implements Closeable {
+
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    // 字节缓冲区至少要放得下一个字符编码后的全部字节 (UTF-8 最多 4 字节)，否则编码永远溢出
+    private static final int MIN_BYTE_BUFFER_SIZE = 16;
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CharBuffer chars;
+    private final ByteBuffer bytes;
+    private boolean rowStarted;
+    private long bytesWritten;
+
+    CsvWriter(WritableByteChannel channel) throws IOException {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    CsvWriter(WritableByteChannel channel, int bufferSize) throws IOException {
+        this.channel = channel;
+        this.chars = CharBuffer.allocate(bufferSize);
+        this.bytes = ByteBuffer.allocate(Math.max(bufferSize, MIN_BYTE_BUFFER_SIZE));
+        append('\uFEFF');
+    }
+
+    /**
+     * 写一行表头或数据
+     */
+    CsvWriter row(String... fields) throws IOException {
+        for (String field : fields) {
+            field(field);
+        }
+        return endRow();
+    }
+
+    /**
+     * 文本字段，null 写成空字段
+     */
+    CsvWriter field(String value) throws IOException {
+        separator();
+        if (value == null || value.isEmpty()) {
+            return this;
+        }
+        if (!needsQuotes(value)) {
+            append(value);
+            return this;
+        }
+        append('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '"') {
+                append(value, start, i + 1);
+                append('"');
+                start = i + 1;
+            }
+        }
+        append(value, start, value.length());
+        append('"');
+        return this;
+    }
+
+    /**
+     * 整数字段，不经过 String.format
+     */
+    CsvWriter field(long value) throws IOException {
+        separator();
+        if (value < 0) {
+            append('-');
+            if (value == Long.MIN_VALUE) {
+                append("9223372036854775808");
+                return this;
+            }
+            value = -value;
+        }
+        long divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            append((char) ('0' + (value / divisor) % 10));
+        }
+        return this;
+    }
+
+    /**
+     * 可为空的整数字段，null (例如未批改的得分) 写成空字段
+     */
+    CsvWriter field(Integer value) throws IOException {
+        if (value == null) {
+            separator();
+            return this;
+        }
+        return field(value.longValue());
+    }
+
+    CsvWriter endRow() throws IOException {
+        append('\r');
+        append('\n');
+        rowStarted = false;
+        return this;
+    }
+
+    /**
+     * @return 已经写入通道的字节数 (不含仍在缓冲区中的部分)
+     */
+    long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * 把缓冲区中的内容全部写入通道；不关闭通道
+     */
+    void flush() throws IOException {
+        encode(false);
+        drain();
+    }
+
+    /**
+     * 结束编码并写出剩余内容；通道由调用方关闭
+     */
+    @Override
+    public void close() throws IOException {
+        encode(true);
+        while (encoder.flush(bytes).isOverflow()) {
+            drain();
+        }
+        drain();
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void separator() throws IOException {
+        if (rowStarted) {
+            append(',');
+        }
+        rowStarted = true;
+    }
+
+    private void append(char c) throws IOException {
+        if (!chars.hasRemaining()) {
+            encode(false);
+        }
+        chars.put(c);
+    }
+
+    private void append(String s) throws IOException {
+        append(s, 0, s.length());
+    }
+
+    private void append(String s, int start, int end) throws IOException {
+        while (start < end) {
+            if (!chars.hasRemaining()) {
+                encode(false);
+            }
+            int n = Math.min(end - start, chars.remaining());
+            chars.put(s, start, start + n);
+            start += n;
+        }
+    }
+
+    /**
+     * 把字符缓冲区编码到字节缓冲区，字节缓冲区满时写入通道；
+     * 缓冲区末尾不完整的代理对留到下一次编码
+     */
+    private void encode(boolean endOfInput) throws IOException {
+        chars.flip();
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            if (result.isOverflow()) {
+                drain();
+            } else if (result.isError()) {
+                result.throwException();
+            } else {
+                break;
+            }
+        }
+        chars.compact();
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            bytesWritten += channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
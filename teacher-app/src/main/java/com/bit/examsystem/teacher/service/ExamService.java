@@ -1,6 +1,9 @@
 package com.bit.examsystem.teacher.service;
 
 import com.bit.examsystem.common.model.ExamPaper;
+import com.bit.examsystem.teacher.db.StatementCacheStats;
+import com.bit.examsystem.teacher.network.AcceptStats;
+import com.bit.examsystem.teacher.network.EventLoopLatency;
 
 public interface ExamService {
     /**
@@ -19,4 +22,24 @@ public interface ExamService {
      * @param examPaper The full exam paper object to be sent.
      */
     void startExam(ExamPaper examPaper);
-}
\ No newline at end of file
+
+    /**
+     * Samples the listening port's accept statistics (accept rate, refused connections).
+     * Intended to be called about once per second by the dashboard.
+     * @return The current statistics, or null if the server is not running.
+     */
+    AcceptStats sampleAcceptStats();
+
+    /**
+     * Samples how late tasks run on the server's worker event loops since the previous call.
+     * Intended to be called about once per second by the dashboard.
+     * @return The current latency, or null if the server is not running.
+     */
+    EventLoopLatency sampleEventLoopLatency();
+
+    /**
+     * Returns the prepared statement cache counters of the database connection pool since startup.
+     * @return The current counters, or null if the pool has not been opened yet.
+     */
+    StatementCacheStats getStatementCacheStats();
+}
@@ -2,10 +2,12 @@ package com.bit.examsystem.teacher.service;
 
 import com.bit.examsystem.common.dto.ExamPaperDTO;
 import com.bit.examsystem.common.dto.QuestionDTO;
-import com.bit.examsystem.common.message.Message;
-import com.bit.examsystem.common.message.MessageType;
 import com.bit.examsystem.common.model.ExamPaper;
 import com.bit.examsystem.common.model.Question;
+import com.bit.examsystem.teacher.db.DatabaseManager;
+import com.bit.examsystem.teacher.db.StatementCacheStats;
+import com.bit.examsystem.teacher.network.AcceptStats;
+import com.bit.examsystem.teacher.network.EventLoopLatency;
 import com.bit.examsystem.teacher.network.TeacherServer;
 
 import java.util.ArrayList;
@@ -37,6 +39,21 @@ public class ExamServiceImpl implements ExamService {
         }
     }
 
+    @Override
+    public AcceptStats sampleAcceptStats() {
+        return teacherServer.sampleAcceptStats();
+    }
+
+    @Override
+    public EventLoopLatency sampleEventLoopLatency() {
+        return teacherServer.sampleEventLoopLatency();
+    }
+
+    @Override
+    public StatementCacheStats getStatementCacheStats() {
+        return DatabaseManager.getStatementCacheStats();
+    }
+
     @Override
     public void startExam(ExamPaper examPaper) {
         if (!teacherServer.isRunning()) {
@@ -48,12 +65,9 @@ public class ExamServiceImpl implements ExamService {
         // 1. Convert the sensitive ExamPaper model to a safe ExamPaperDTO.
         ExamPaperDTO examPaperDTO = convertToDTO(examPaper);
 
-        // 2. Create the network message.
-        Message<ExamPaperDTO> examStartMessage = new Message<>(MessageType.EXAM_START, examPaperDTO);
-
-        // 3. Use the TeacherServer to broadcast the message.
+        // 2. Use the TeacherServer to broadcast the paper (header first, then questions in chunks).
         System.out.println("Broadcasting exam '" + examPaper.getTitle() + "' to all online students.");
-        teacherServer.broadcastMessage(examStartMessage);
+        teacherServer.broadcastExamPaper(examPaperDTO);
     }
 
     /**
@@ -1,13 +1,35 @@
 package com.bit.examsystem.teacher.service;
 
 import com.bit.examsystem.common.model.ExamPaper;
+import com.bit.examsystem.common.model.Question;
+import com.bit.examsystem.teacher.dto.RegradeResult;
 import java.sql.SQLException;
 
 public interface GradingService {
     /**
-     * Automatically grades all submitted and un-graded answers for a given exam.
+     * Automatically grades all submitted and un-graded answers for a given exam, and re-verifies the scores
+     * stored on arrival against the exam's answer key; stored scores that do not match are corrected and reported.
      * @param exam The full exam paper containing questions with correct answers.
      * @return A summary string of the grading process.
      */
     String gradeExam(ExamPaper exam) throws SQLException;
+
+    /**
+     * Grades all un-graded answers for a given exam and re-verifies the stored scores against the answer key.
+     * @param exam The full exam paper containing questions with correct answers.
+     * @param setBased If true, single-choice and judge answers are graded by one SQL statement inside the database;
+     *                 the remaining question types are still graded in memory.
+     * @return A summary string of the grading process.
+     */
+    String gradeExam(ExamPaper exam, boolean setBased) throws SQLException;
+
+    /**
+     * Stores a corrected answer key (and score) for one question and re-scores only that question's answers.
+     * The key change, the new scores and the adjusted totals in the results table are committed in one transaction;
+     * other questions are not touched.
+     * @param examId The exam the question belongs to.
+     * @param question The question with its corrected answer and score.
+     * @return How many answers were re-scored and how each affected student's total changed.
+     */
+    RegradeResult regradeQuestion(String examId, Question question) throws SQLException;
 }
\ No newline at end of file
@@ -2,67 +2,170 @@ package com.bit.examsystem.teacher.service;
 
 import com.bit.examsystem.common.model.ExamPaper;
 import com.bit.examsystem.common.model.Question;
-import com.bit.examsystem.common.model.QuestionType;
 import com.bit.examsystem.common.model.StudentAnswer;
 import com.bit.examsystem.teacher.db.DatabaseManager;
+import com.bit.examsystem.teacher.db.dao.ExamDAO;
+import com.bit.examsystem.teacher.db.dao.ExamDAOImpl;
+import com.bit.examsystem.teacher.db.dao.ExamResultDAO;
+import com.bit.examsystem.teacher.db.dao.ExamResultDAOImpl;
+import com.bit.examsystem.teacher.db.dao.QuestionDAO;
+import com.bit.examsystem.teacher.db.dao.QuestionDAOImpl;
 import com.bit.examsystem.teacher.db.dao.StudentAnswerDAO;
 import com.bit.examsystem.teacher.db.dao.StudentAnswerDAOImpl;
+import com.bit.examsystem.teacher.dto.GradedAnswer;
+import com.bit.examsystem.teacher.dto.RegradeResult;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.Arrays;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 public class GradingServiceImpl implements GradingService {
 
+    // 每次 executeBatch 写回的分数行数
+    public static final int GRADING_BATCH_SIZE = Integer.getInteger("exam.db.gradingBatchSize", 500);
+    // 默认是否让数据库用一条 SQL 批改单选题和判断题
+    public static final boolean SET_BASED_GRADING = Boolean.getBoolean("exam.grading.setBased");
+
     private final StudentAnswerDAO answerDAO = new StudentAnswerDAOImpl();
+    private final QuestionDAO questionDAO = new QuestionDAOImpl();
+    private final ExamResultDAO examResultDAO = new ExamResultDAOImpl();
+    private final ItemStatsUpdater itemStats = new ItemStatsUpdater();
+    private final ExamDAO examDAO = new ExamDAOImpl();
 
     @Override
     public String gradeExam(ExamPaper exam) throws SQLException {
-        // 1. Create a quick-lookup map of questionId -> Question object
-        Map<String, Question> questionMap = exam.getQuestions().stream()
-                .collect(Collectors.toMap(Question::getId, Function.identity()));
-
-        // 2. Fetch all un-graded submissions for this exam
-        Map<String, List<StudentAnswer>> submissions = answerDAO.findUnGradedAnswersByExamId(exam.getExamId());
+        return gradeExam(exam, SET_BASED_GRADING);
+    }
 
-        if (submissions.isEmpty()) {
-            return "No new submissions to grade.";
-        }
+    @Override
+    public String gradeExam(ExamPaper exam, boolean setBased) throws SQLException {
+        // 1. Compile the answer key (the same one SubmissionServiceImpl uses to grade on arrival)
+        AnswerKey answerKey = AnswerKey.compile(exam);
 
         int studentsGraded = 0;
         int totalAnswersGraded = 0;
+        int answersGradedInSql = 0;
+        int answersVerified = 0;
+        int mismatches = 0;
 
-        // 3. Process submissions transactionally
+        // 2. Process submissions transactionally
         Connection conn = null;
         try {
             conn = DatabaseManager.getConnection();
             conn.setAutoCommit(false);
 
-            for (Map.Entry<String, List<StudentAnswer>> entry : submissions.entrySet()) {
-                String studentId = entry.getKey();
-                List<StudentAnswer> studentAnswers = entry.getValue();
+            // 3. Optionally let the database grade the canonical single-choice and judge answers in one statement.
+            //    Its rules match the answer key exactly, so these scores are final and skip the pass below.
+            Map<String, Map<String, Integer>> gradedInSql = Map.of();
+            if (setBased) {
+                gradedInSql = answerDAO.gradeExactMatchAnswers(exam.getExamId(), conn);
+                for (Map<String, Integer> studentScores : gradedInSql.values()) {
+                    answersGradedInSql += studentScores.size();
+                }
+            }
 
-                for (StudentAnswer submittedAnswer : studentAnswers) {
-                    Question question = questionMap.get(submittedAnswer.getQuestionId());
-                    if (question == null) continue; // Skip if question not found
+            // 4. Fetch every stored answer with its current score, graded or not (this thread holds the write
+            //    connection, so the read sees the rows graded above). Submissions received during the exam were
+            //    graded on arrival; their stored scores are re-verified against the key below.
+            Map<String, List<GradedAnswer>> stored = answerDAO.findGradedAnswersByExamId(exam.getExamId());
 
-                    // 4. Calculate score using the core grading algorithm
-                    int score = calculateScore(question, submittedAnswer);
+            // 5. Calculate scores in memory: choice and judge answers through the answer matrix in one pass,
+            //    the remaining question types one by one with the answer key
+            AnswerMatrix matrix = AnswerMatrix.forExam(exam);
+            for (Map.Entry<String, List<GradedAnswer>> entry : stored.entrySet()) {
+                Map<String, Integer> sqlScores = gradedInSql.getOrDefault(entry.getKey(), Map.of());
+                List<StudentAnswer> answers = new ArrayList<>(entry.getValue().size());
+                for (GradedAnswer answer : entry.getValue()) {
+                    if (!sqlScores.containsKey(answer.getQuestionId())) {
+                        answers.add(toStudentAnswer(answer));
+                    }
+                }
+                matrix.addStudent(entry.getKey(), answers);
+            }
+            AnswerMatrix.Result result = matrix.grade();
 
-                    // 5. Update the score in the database using the shared connection
-                    answerDAO.updateScore(score, exam.getExamId(), studentId, question.getId(), conn);
-                    totalAnswersGraded++;
+            // 6. Keep only the scores that differ from the stored ones: un-graded answers, and graded answers
+            //    whose stored score does not match the current key (reported as mismatches and corrected)
+            Map<String, Map<String, Integer>> changed = new HashMap<>();
+            int row = 0;
+            for (Map.Entry<String, List<GradedAnswer>> entry : stored.entrySet()) {
+                Map<String, Integer> sqlScores = gradedInSql.getOrDefault(entry.getKey(), Map.of());
+                Map<String, Integer> studentScores = new HashMap<>();
+                int newlyGraded = 0;
+                for (GradedAnswer answer : entry.getValue()) {
+                    if (sqlScores.containsKey(answer.getQuestionId())) {
+                        continue;
+                    }
+                    Integer score;
+                    int column = matrix.columnOf(answer.getQuestionId());
+                    if (column >= 0) {
+                        score = result.isCorrect(row, column) ? matrix.getScore(column) : 0;
+                    } else {
+                        // Answers to questions not in the exam are skipped and stay as they are
+                        score = answerKey.score(toStudentAnswer(answer));
+                        if (score == null) {
+                            continue;
+                        }
+                    }
+                    answersVerified++;
+                    Integer oldScore = answer.getScoreAwarded();
+                    if (oldScore == null) {
+                        newlyGraded++;
+                    } else if (oldScore.intValue() != score) {
+                        mismatches++;
+                        System.err.printf("Stored score %d of student %s for question %s does not match the answer key (%d), correcting.%n",
+                                oldScore, entry.getKey(), answer.getQuestionId(), score);
+                    } else {
+                        continue;
+                    }
+                    studentScores.put(answer.getQuestionId(), score);
                 }
-                studentsGraded++;
+                if (!studentScores.isEmpty()) {
+                    changed.put(entry.getKey(), studentScores);
+                }
+                if (newlyGraded > 0) {
+                    totalAnswersGraded += newlyGraded;
+                    studentsGraded++;
+                }
+                row++;
             }
+
+            // 7. Write the changed scores back in JDBC batches using the shared connection
+            answerDAO.updateScores(exam.getExamId(), changed, GRADING_BATCH_SIZE, conn);
+
+            // 8. Update the results table and the item statistics in the same transaction, only for the students
+            //    whose scores were graded in SQL or changed above (their rows before this run had NULL scores
+            //    where SQL graded them)
+            Map<String, Map<String, Integer>> scored = new HashMap<>(changed);
+            gradedInSql.forEach((studentId, sqlScores) ->
+                    scored.computeIfAbsent(studentId, k -> new HashMap<>()).putAll(sqlScores));
+            Map<String, List<GradedAnswer>> before = new HashMap<>();
+            for (String studentId : scored.keySet()) {
+                Map<String, Integer> sqlScores = gradedInSql.getOrDefault(studentId, Map.of());
+                List<GradedAnswer> answers = new ArrayList<>();
+                for (GradedAnswer answer : stored.getOrDefault(studentId, List.of())) {
+                    if (sqlScores.containsKey(answer.getQuestionId())) {
+                        GradedAnswer ungraded = new GradedAnswer();
+                        ungraded.setStudentId(studentId);
+                        ungraded.setQuestionId(answer.getQuestionId());
+                        ungraded.setAnswer(answer.getAnswer());
+                        answer = ungraded;
+                    }
+                    answers.add(answer);
+                }
+                before.put(studentId, answers);
+            }
+            examResultDAO.refreshStudents(exam.getExamId(), scored.keySet(), System.currentTimeMillis(), conn);
+            itemStats.apply(exam, before, ItemStatsUpdater.afterScores(before, scored), conn);
             conn.commit();
         } catch (SQLException e) {
             if (conn != null) conn.rollback();
+            itemStats.discard(exam.getExamId());
             throw new SQLException("Failed during grading transaction.", e);
         } finally {
             if (conn != null) {
@@ -71,40 +174,112 @@ public class GradingServiceImpl implements GradingService {
             }
         }
 
-        return String.format("Grading complete. Graded %d answers for %d students.", totalAnswersGraded, studentsGraded);
+        String summary;
+        if (answersGradedInSql == 0 && totalAnswersGraded == 0) {
+            summary = String.format("No new submissions to grade. Re-verified %d answers graded on arrival against the answer key.",
+                    answersVerified);
+        } else if (setBased) {
+            summary = String.format("Grading complete. Graded %d answers in SQL and %d answers for %d students in batches.",
+                    answersGradedInSql, totalAnswersGraded, studentsGraded);
+        } else {
+            summary = String.format("Grading complete. Graded %d answers for %d students.", totalAnswersGraded, studentsGraded);
+        }
+        if (mismatches > 0) {
+            summary += String.format(" Corrected %d stored scores that did not match the answer key.", mismatches);
+        }
+        return summary;
     }
 
-    /**
-     * The core grading algorithm.
-     */
-    private int calculateScore(Question question, StudentAnswer studentAnswer) {
-        String correctAnswer = question.getCorrectAnswer();
-        String submitted = studentAnswer.getAnswer();
+    private static StudentAnswer toStudentAnswer(GradedAnswer row) {
+        StudentAnswer answer = new StudentAnswer();
+        answer.setQuestionId(row.getQuestionId());
+        answer.setAnswer(row.getAnswer());
+        return answer;
+    }
 
-        if (correctAnswer == null || submitted == null || submitted.trim().isEmpty()) {
-            return 0; // No answer submitted or question has no answer key
-        }
+    @Override
+    public RegradeResult regradeQuestion(String examId, Question question) throws SQLException {
+        // 只含这一道题的答案键，判分规则与整卷批改相同
+        ExamPaper singleQuestion = new ExamPaper();
+        singleQuestion.setExamId(examId);
+        singleQuestion.setQuestions(List.of(question));
+        AnswerKey answerKey = AnswerKey.compile(singleQuestion);
+
+        RegradeResult result = new RegradeResult();
+        result.setQuestionId(question.getId());
+
+        Connection conn = null;
+        try {
+            conn = DatabaseManager.getConnection();
+            conn.setAutoCommit(false);
 
-        // Trim and ignore case for robustness
-        correctAnswer = correctAnswer.trim();
-        submitted = submitted.trim();
+            // 1. Store the corrected key first, so the key and the scores never disagree after commit
+            int score = question.getScore() == null ? 0 : question.getScore();
+            if (!questionDAO.updateAnswerKey(examId, question.getId(), question.getCorrectAnswer(), score, conn)) {
+                throw new SQLException("Question " + question.getId() + " does not exist in exam " + examId + ".");
+            }
+
+            // 2. Re-score only this question's rows (graded or not) and keep the ones whose score changes
+            Map<String, Map<String, Integer>> changed = new HashMap<>();
+            for (GradedAnswer row : answerDAO.findAnswersByQuestion(examId, question.getId())) {
+                StudentAnswer answer = new StudentAnswer();
+                answer.setQuestionId(row.getQuestionId());
+                answer.setAnswer(row.getAnswer());
+                int newScore = answerKey.score(answer);
+                result.setAnswersRegraded(result.getAnswersRegraded() + 1);
 
-        QuestionType type = question.getType();
+                Integer oldScore = row.getScoreAwarded();
+                if (oldScore != null && oldScore == newScore) {
+                    continue;
+                }
+                changed.put(row.getStudentId(), Map.of(question.getId(), newScore));
+                if (oldScore == null) {
+                    result.getNewlyGraded().add(row.getStudentId());
+                }
+                // 未批改的答案原来不计入总分，按 0 分计算变化量
+                int delta = newScore - (oldScore == null ? 0 : oldScore);
+                if (delta != 0) {
+                    result.getTotalDeltas().put(row.getStudentId(), delta);
+                }
+            }
 
-        if (type == QuestionType.SINGLE_CHOICE || type == QuestionType.FILL_IN || type == QuestionType.JUDGE) {
-            // Simple string equality check
-            return correctAnswer.equalsIgnoreCase(submitted) ? question.getScore() : 0;
-        } else if (type == QuestionType.MULTI_CHOICE) {
-            // For multi-choice, answers must match exactly after sorting characters
-            // E.g., Correct "BCA" and Submitted "ACB" are considered identical
-            char[] correctChars = correctAnswer.toCharArray();
-            char[] submittedChars = submitted.toCharArray();
-            Arrays.sort(correctChars);
-            Arrays.sort(submittedChars);
+            // 3. Write back only the changed scores, in batches (keeping the affected students' answers
+            //    before the change, to move them in the item statistics)
+            Map<String, List<GradedAnswer>> before = itemStats.before(examId, changed.keySet());
+            result.setAnswersChanged(answerDAO.updateScores(examId, changed, GRADING_BATCH_SIZE, conn));
 
-            return Arrays.equals(correctChars, submittedChars) ? question.getScore() : 0;
-        }
+            // 4. Adjust the affected students' totals in the results table by the deltas (ranks are computed on read);
+            //    if some of them have no results row yet (exam never graded), rebuild the table instead
+            Set<String> affected = new HashSet<>(result.getTotalDeltas().keySet());
+            affected.addAll(result.getNewlyGraded());
+            long now = System.currentTimeMillis();
+            if (examResultDAO.applyDeltas(examId, result.getTotalDeltas(), result.getNewlyGraded(), now, conn) < affected.size()) {
+                examResultDAO.rebuild(examId, now, conn);
+            }
 
-        return 0; // Default case
+            // 5. Move the affected students in the item statistics: remove their old answers, add the new ones
+            //    (the exam is read through this connection, so it already carries the corrected key and score)
+            ExamPaper exam = examDAO.findById(examId).orElse(null);
+            if (exam != null) {
+                itemStats.apply(exam, before, ItemStatsUpdater.afterScores(before, changed), conn);
+            }
+            conn.commit();
+
+            // 6. Swap the key used to grade submissions on arrival before the write connection is released,
+            //    so the submission writer never saves a score computed with the old key after this commit
+            if (exam != null) {
+                SubmissionServiceImpl.getInstance().refreshAnswerKey(exam);
+            }
+        } catch (SQLException e) {
+            if (conn != null) conn.rollback();
+            itemStats.discard(examId);
+            throw new SQLException("Failed to regrade question " + question.getId() + ".", e);
+        } finally {
+            if (conn != null) {
+                conn.setAutoCommit(true);
+                conn.close();
+            }
+        }
+        return result;
     }
 }
@@ -0,0 +1,294 @@
+package com.bit.examsystem.teacher.service;
+
+import com.bit.examsystem.common.model.ExamPaper;
+import com.bit.examsystem.common.model.Question;
+import com.bit.examsystem.common.model.QuestionType;
+import com.bit.examsystem.teacher.dto.ExamItemStats;
+import com.bit.examsystem.teacher.dto.GradedAnswer;
+import com.bit.examsystem.teacher.dto.ItemCounters;
+import com.bit.examsystem.teacher.dto.ItemStats;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 试题分析：按题目维护计数器，每加入 (或移除) 一名学生的已批改答案就更新一次，随时可以生成汇总
+ *
+ * 每道题只保存几个计数数组：
+ * <ul>
+ *     <li>作答数、空白数、得分人数</li>
+ *     <li>每个选项被选的次数 (最后一格是无法识别的回答)</li>
+ *     <li>按学生总分分桶的得分人数 correctByTotal[总分]，与全体学生的总分分布 studentsByTotal[总分] 一起
+ *         算出高分组、低分组 (各 27%) 的通过率，不需要保存和排序每名学生的成绩</li>
+ * </ul>
+ * 判分是全对或 0 分，得分 (score > 0) 即视为答对；未批改的答案视为未答对。
+ *
+ * 计数器可以连同汇总一起保存 ({@link #counters()})，之后恢复 ({@link #restore}) 继续增量更新：
+ * 重新提交或重新批改时先移除学生原来的答案再加入新的答案。
+ *
+ * 不是线程安全的：由一个线程填充并生成汇总。
+ */
+public final class ItemAnalysis {
+
+    // 高分组、低分组各占全体学生的比例 (Kelley 27%)
+    static final double GROUP_FRACTION = 0.27;
+
+    private final String examId;
+    private final List<Question> questions;
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private final List<Map<String, Integer>> optionIndexes = new ArrayList<>();
+    private final List<List<String>> optionLabels = new ArrayList<>();
+    private final int maxTotal;
+
+    private final int[] responses;
+    private final int[] blanks;
+    private final int[] correct;
+    private final int[][] optionCounts;
+    private final int[][] correctByTotal;
+    private final int[] studentsByTotal;
+    private int studentCount;
+
+    private ItemAnalysis(ExamPaper exam) {
+        this.examId = exam.getExamId();
+        this.questions = exam.getQuestions() == null ? List.of() : List.copyOf(exam.getQuestions());
+        int total = 0;
+        for (int i = 0; i < questions.size(); i++) {
+            Question q = questions.get(i);
+            indexes.put(q.getId(), i);
+            total += q.getScore() == null ? 0 : Math.max(q.getScore(), 0);
+            List<String> labels = parseOptionLabels(q);
+            Map<String, Integer> byLabel = new HashMap<>();
+            for (int j = 0; j < labels.size(); j++) {
+                byLabel.putIfAbsent(labels.get(j).toUpperCase(), j);
+            }
+            optionLabels.add(labels);
+            optionIndexes.add(byLabel);
+        }
+        this.maxTotal = total;
+        int count = questions.size();
+        this.responses = new int[count];
+        this.blanks = new int[count];
+        this.correct = new int[count];
+        this.optionCounts = new int[count][];
+        this.correctByTotal = new int[count][maxTotal + 1];
+        for (int i = 0; i < count; i++) {
+            optionCounts[i] = new int[optionLabels.get(i).size() + 1];
+        }
+        this.studentsByTotal = new int[maxTotal + 1];
+    }
+
+    public static ItemAnalysis forExam(ExamPaper exam) {
+        return new ItemAnalysis(exam);
+    }
+
+    /**
+     * 从保存的计数器恢复，之后可以继续加入、移除学生
+     * @return 计数器与试卷不符 (题目或顺序、满分、选项数改变) 时返回 empty，需要重新统计
+     */
+    public static Optional<ItemAnalysis> restore(ExamPaper exam, ItemCounters counters) {
+        ItemAnalysis analysis = new ItemAnalysis(exam);
+        int count = analysis.questions.size();
+        if (counters == null || counters.getMaxTotal() != analysis.maxTotal
+                || !analysis.questions.stream().map(Question::getId).toList().equals(counters.getQuestionIds())
+                || !sameLength(counters.getResponses(), count) || !sameLength(counters.getBlanks(), count)
+                || !sameLength(counters.getCorrect(), count) || !sameLength(counters.getStudentsByTotal(), analysis.maxTotal + 1)
+                || counters.getOptionCounts() == null || counters.getOptionCounts().length != count
+                || counters.getCorrectByTotal() == null || counters.getCorrectByTotal().length != count) {
+            return Optional.empty();
+        }
+        for (int q = 0; q < count; q++) {
+            if (!sameLength(counters.getOptionCounts()[q], analysis.optionCounts[q].length)
+                    || !sameLength(counters.getCorrectByTotal()[q], analysis.maxTotal + 1)) {
+                return Optional.empty();
+            }
+            System.arraycopy(counters.getOptionCounts()[q], 0, analysis.optionCounts[q], 0, analysis.optionCounts[q].length);
+            System.arraycopy(counters.getCorrectByTotal()[q], 0, analysis.correctByTotal[q], 0, analysis.maxTotal + 1);
+        }
+        System.arraycopy(counters.getResponses(), 0, analysis.responses, 0, count);
+        System.arraycopy(counters.getBlanks(), 0, analysis.blanks, 0, count);
+        System.arraycopy(counters.getCorrect(), 0, analysis.correct, 0, count);
+        System.arraycopy(counters.getStudentsByTotal(), 0, analysis.studentsByTotal, 0, analysis.maxTotal + 1);
+        analysis.studentCount = counters.getStudentCount();
+        return Optional.of(analysis);
+    }
+
+    private static boolean sameLength(int[] array, int length) {
+        return array != null && array.length == length;
+    }
+
+    /**
+     * 当前计数器的副本，与 {@link #snapshot()} 一起保存，之后用 {@link #restore} 继续增量更新
+     */
+    public ItemCounters counters() {
+        ItemCounters counters = new ItemCounters();
+        counters.setQuestionIds(questions.stream().map(Question::getId).toList());
+        counters.setMaxTotal(maxTotal);
+        counters.setStudentCount(studentCount);
+        counters.setResponses(responses.clone());
+        counters.setBlanks(blanks.clone());
+        counters.setCorrect(correct.clone());
+        int[][] options = new int[optionCounts.length][];
+        int[][] byTotal = new int[correctByTotal.length][];
+        for (int q = 0; q < optionCounts.length; q++) {
+            options[q] = optionCounts[q].clone();
+            byTotal[q] = correctByTotal[q].clone();
+        }
+        counters.setOptionCounts(options);
+        counters.setCorrectByTotal(byTotal);
+        counters.setStudentsByTotal(studentsByTotal.clone());
+        return counters;
+    }
+
+    /**
+     * 加入一名学生的全部已批改答案 (总分由这些答案的得分相加)
+     */
+    public void addStudent(List<GradedAnswer> answers) {
+        update(answers, 1);
+    }
+
+    /**
+     * 移除之前加入的一名学生 (例如重新提交或重新批改前)，传入与加入时相同的答案
+     */
+    public void removeStudent(List<GradedAnswer> answers) {
+        update(answers, -1);
+    }
+
+    private void update(List<GradedAnswer> answers, int sign) {
+        int total = 0;
+        for (GradedAnswer answer : answers) {
+            if (answer.getScoreAwarded() != null && indexes.containsKey(answer.getQuestionId())) {
+                total += answer.getScoreAwarded();
+            }
+        }
+        int bucket = Math.max(0, Math.min(total, maxTotal));
+        studentsByTotal[bucket] += sign;
+        studentCount += sign;
+
+        for (GradedAnswer answer : answers) {
+            Integer index = indexes.get(answer.getQuestionId());
+            if (index == null) {
+                continue; // 不在本试卷中的题目
+            }
+            int q = index;
+            responses[q] += sign;
+            String submitted = answer.getAnswer() == null ? "" : answer.getAnswer().trim();
+            if (submitted.isEmpty()) {
+                blanks[q] += sign;
+                continue;
+            }
+            if (answer.getScoreAwarded() != null && answer.getScoreAwarded() > 0) {
+                correct[q] += sign;
+                correctByTotal[q][bucket] += sign;
+            }
+            countOptions(q, submitted, sign);
+        }
+    }
+
+    private void countOptions(int q, String submitted, int sign) {
+        QuestionType type = questions.get(q).getType();
+        int[] counts = optionCounts[q];
+        int other = counts.length - 1;
+        Map<String, Integer> byLabel = optionIndexes.get(q);
+        if (type == QuestionType.MULTI_CHOICE) {
+            // 多选题每个被选的选项各计一次，含无法识别的字符时另计一次"其他"
+            boolean unknown = false;
+            for (int i = 0; i < submitted.length(); i++) {
+                char c = submitted.charAt(i);
+                if (Character.isWhitespace(c) || c == ',') {
+                    continue;
+                }
+                Integer option = byLabel.get(String.valueOf(c).toUpperCase());
+                if (option == null) {
+                    unknown = true;
+                } else {
+                    counts[option] += sign;
+                }
+            }
+            if (unknown) {
+                counts[other] += sign;
+            }
+        } else {
+            Integer option = byLabel.get(submitted.toUpperCase());
+            counts[option == null ? other : option] += sign;
+        }
+    }
+
+    public int getStudentCount() {
+        return studentCount;
+    }
+
+    /**
+     * 根据当前计数生成汇总
+     */
+    public ExamItemStats snapshot() {
+        ExamItemStats stats = new ExamItemStats();
+        stats.setExamId(examId);
+        stats.setStudentCount(studentCount);
+        stats.setUpdatedAt(System.currentTimeMillis());
+        int groupSize = studentCount < 2 ? 0 : Math.max(1, (int) Math.round(studentCount * GROUP_FRACTION));
+        for (int q = 0; q < questions.size(); q++) {
+            Question question = questions.get(q);
+            ItemStats item = new ItemStats();
+            item.setQuestionId(question.getId());
+            item.setTitle(question.getTitle());
+            item.setType(question.getType() == null ? null : question.getType().name());
+            item.setScore(question.getScore() == null ? 0 : question.getScore());
+            item.setResponses(responses[q]);
+            item.setBlanks(blanks[q]);
+            item.setCorrect(correct[q]);
+            item.setDifficulty(responses[q] == 0 ? 0 : (double) correct[q] / responses[q]);
+            item.setBlankRate(responses[q] == 0 ? 0 : (double) blanks[q] / responses[q]);
+            item.setDiscrimination(groupSize == 0 ? 0
+                    : groupPassRate(q, groupSize, true) - groupPassRate(q, groupSize, false));
+            item.setOptionLabels(List.copyOf(optionLabels.get(q)));
+            item.setOptionCounts(optionCounts[q].clone());
+            stats.getItems().add(item);
+        }
+        return stats;
+    }
+
+    /**
+     * 高分组 (upper) 或低分组的通过率；分组边界落在某个总分桶中间时，按该桶的比例计入
+     */
+    private double groupPassRate(int q, int groupSize, boolean upper) {
+        int remaining = groupSize;
+        double passed = 0;
+        for (int i = 0; i <= maxTotal && remaining > 0; i++) {
+            int t = upper ? maxTotal - i : i;
+            int students = studentsByTotal[t];
+            if (students <= 0) {
+                continue;
+            }
+            int taken = Math.min(students, remaining);
+            passed += (double) correctByTotal[q][t] * taken / students;
+            remaining -= taken;
+        }
+        return passed / groupSize;
+    }
+
+    /**
+     * 选项标签：与学生端相同，取选项文本中第一个 '.' 之前的部分 (如 "A. 选项一" 为 A)；
+     * 判断题没有选项时为 T、F，填空题没有选项
+     */
+    private static List<String> parseOptionLabels(Question q) {
+        if (q.getType() == QuestionType.FILL_IN) {
+            return List.of();
+        }
+        List<String> options = q.getOptions();
+        if (options == null || options.isEmpty()) {
+            return q.getType() == QuestionType.JUDGE ? List.of("T", "F") : List.of();
+        }
+        List<String> labels = new ArrayList<>(options.size());
+        for (String option : options) {
+            if (option == null) {
+                continue;
+            }
+            int dot = option.indexOf('.');
+            labels.add((dot >= 0 ? option.substring(0, dot) : option).trim());
+        }
+        return labels;
+    }
+}
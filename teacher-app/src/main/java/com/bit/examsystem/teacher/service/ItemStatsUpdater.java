@@ -0,0 +1,193 @@
+package com.bit.examsystem.teacher.service;
+
+import com.bit.examsystem.common.model.ExamPaper;
+import com.bit.examsystem.common.model.StudentAnswer;
+import com.bit.examsystem.teacher.db.dao.ItemStatsDAO;
+import com.bit.examsystem.teacher.db.dao.ItemStatsDAOImpl;
+import com.bit.examsystem.teacher.db.dao.StudentAnswerDAO;
+import com.bit.examsystem.teacher.db.dao.StudentAnswerDAOImpl;
+import com.bit.examsystem.teacher.dto.ExamItemStats;
+import com.bit.examsystem.teacher.dto.GradedAnswer;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 在写入答案的事务中增量维护 item_stats (试题分析)
+ *
+ * 写入前用 {@link #before} 一次读出受影响学生原来的答案，写入后把它们和写入后的答案 (由调用方在内存中算出，
+ * 见 {@link #afterSubmissions}、{@link #afterScores}) 交给 {@link #apply}：移除原来的答案、加入新的答案，再写回汇总。
+ *
+ * 计数器留在内存中按考试缓存，不必每批都从 item_stats 解析、再序列化写回；每 {@link #COUNTERS_SAVE_INTERVAL}
+ * 次更新才连同汇总保存一次，其间只保存汇总并把计数器列置空。缓存缺失 (重启后) 时从保存的计数器恢复，
+ * 计数器为空或与试卷不符 (例如题目分值改变，所有学生的总分分桶都变了) 时才用 {@link #rebuild} 重新统计。
+ * 写入失败回滚后调用方要用 {@link #discard} 丢掉缓存，缓存中的计数器已经计入了没有提交的答案。
+ *
+ * 调用方在整个过程中持有写连接，所以各次更新是串行的，读到的都是本事务中的数据。
+ */
+final class ItemStatsUpdater {
+
+    // 每隔多少次增量更新把计数器连同汇总保存一次
+    static final int COUNTERS_SAVE_INTERVAL = Integer.getInteger("exam.db.itemStatsCountersInterval", 50);
+
+    // Key: examId。GradingServiceImpl 和 SubmissionServiceImpl 各有一个 ItemStatsUpdater，共用这份缓存
+    private static final Map<String, CachedAnalysis> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * @param updatedAt 最近一次写入 item_stats 的时间，与表中不一致 (行被删除或回滚) 时缓存作废
+     * @param unsaved 上次保存计数器之后的更新次数
+     */
+    private record CachedAnalysis(ExamPaper exam, ItemAnalysis analysis, long updatedAt, int unsaved) {
+    }
+
+    private final StudentAnswerDAO answerDAO = new StudentAnswerDAOImpl();
+    private final ItemStatsDAO itemStatsDAO = new ItemStatsDAOImpl();
+
+    /**
+     * 写入前调用，读出这些学生当前的答案
+     * @return Key 为 studentId，没有答案的学生对应空列表
+     */
+    Map<String, List<GradedAnswer>> before(String examId, Collection<String> studentIds) throws SQLException {
+        return answerDAO.findGradedAnswersByStudents(examId, studentIds);
+    }
+
+    /**
+     * 保存答卷之后的答案：原来的答案被同一道题的新答案和得分整行替换，其余题目不变
+     * @param answers Key 为 studentId，本次写入的答案
+     * @param scores Key 为 studentId -> questionId，本次写入的得分 (没有的题目写入 NULL)
+     */
+    static Map<String, List<GradedAnswer>> afterSubmissions(Map<String, List<GradedAnswer>> before,
+                                                            Map<String, List<StudentAnswer>> answers,
+                                                            Map<String, Map<String, Integer>> scores) {
+        Map<String, List<GradedAnswer>> after = new LinkedHashMap<>();
+        for (Map.Entry<String, List<GradedAnswer>> student : before.entrySet()) {
+            Map<String, GradedAnswer> byQuestion = new LinkedHashMap<>();
+            for (GradedAnswer answer : student.getValue()) {
+                byQuestion.put(answer.getQuestionId(), answer);
+            }
+            Map<String, Integer> studentScores = scores.getOrDefault(student.getKey(), Map.of());
+            for (StudentAnswer submitted : answers.getOrDefault(student.getKey(), List.of())) {
+                GradedAnswer answer = new GradedAnswer();
+                answer.setStudentId(student.getKey());
+                answer.setQuestionId(submitted.getQuestionId());
+                answer.setAnswer(submitted.getAnswer());
+                answer.setScoreAwarded(studentScores.get(submitted.getQuestionId()));
+                byQuestion.put(answer.getQuestionId(), answer);
+            }
+            after.put(student.getKey(), new ArrayList<>(byQuestion.values()));
+        }
+        return after;
+    }
+
+    /**
+     * 改写得分之后的答案：答案不变，changed 中的题目换成新的得分
+     * @param changed Key 为 studentId -> questionId，写回的得分
+     */
+    static Map<String, List<GradedAnswer>> afterScores(Map<String, List<GradedAnswer>> before,
+                                                       Map<String, Map<String, Integer>> changed) {
+        Map<String, List<GradedAnswer>> after = new LinkedHashMap<>();
+        for (Map.Entry<String, List<GradedAnswer>> student : before.entrySet()) {
+            Map<String, Integer> studentScores = changed.getOrDefault(student.getKey(), Map.of());
+            List<GradedAnswer> answers = new ArrayList<>(student.getValue().size());
+            for (GradedAnswer row : student.getValue()) {
+                Integer score = studentScores.get(row.getQuestionId());
+                if (score == null) {
+                    answers.add(row);
+                    continue;
+                }
+                GradedAnswer answer = new GradedAnswer();
+                answer.setStudentId(row.getStudentId());
+                answer.setQuestionId(row.getQuestionId());
+                answer.setAnswer(row.getAnswer());
+                answer.setScoreAwarded(score);
+                answers.add(answer);
+            }
+            after.put(student.getKey(), answers);
+        }
+        return after;
+    }
+
+    /**
+     * 写入后调用，把这些学生答案的变化计入计数器并保存汇总
+     * @param before {@link #before} 的结果
+     * @param after 这些学生写入后的答案，Key 与 before 相同
+     */
+    void apply(ExamPaper exam, Map<String, List<GradedAnswer>> before, Map<String, List<GradedAnswer>> after,
+               Connection connection) throws SQLException {
+        CachedAnalysis cached = load(exam, connection);
+        if (cached == null) {
+            rebuild(exam, connection);
+            return;
+        }
+        if (before.isEmpty()) {
+            return;
+        }
+        ItemAnalysis analysis = cached.analysis();
+        for (Map.Entry<String, List<GradedAnswer>> student : before.entrySet()) {
+            // 重新提交或重新批改：先移除原来的答案，再加入现在的答案
+            if (!student.getValue().isEmpty()) {
+                analysis.removeStudent(student.getValue());
+            }
+            List<GradedAnswer> answers = after.get(student.getKey());
+            if (!answers.isEmpty()) {
+                analysis.addStudent(answers);
+            }
+        }
+        save(exam, analysis, cached.unsaved() + 1, connection);
+    }
+
+    /**
+     * 修复用：把该考试所有答案逐名学生重新计入试题分析，在同一事务中保存汇总和计数器
+     */
+    void rebuild(ExamPaper exam, Connection connection) throws SQLException {
+        ItemAnalysis analysis = ItemAnalysis.forExam(exam);
+        for (List<GradedAnswer> answers : answerDAO.findGradedAnswersByExamId(exam.getExamId()).values()) {
+            analysis.addStudent(answers);
+        }
+        save(exam, analysis, COUNTERS_SAVE_INTERVAL, connection);
+        System.out.println("Item statistics of exam " + exam.getExamId() + " recounted from all answers.");
+    }
+
+    /**
+     * 写入事务回滚后调用：缓存中的计数器可能已经计入了没有提交的答案
+     */
+    void discard(String examId) {
+        CACHE.remove(examId);
+    }
+
+    private CachedAnalysis load(ExamPaper exam, Connection connection) throws SQLException {
+        String examId = exam.getExamId();
+        CachedAnalysis cached = CACHE.get(examId);
+        Optional<Long> updatedAt = itemStatsDAO.findUpdatedAt(examId, connection);
+        if (cached != null && updatedAt.isPresent() && updatedAt.get() == cached.updatedAt()) {
+            if (cached.exam() == exam) {
+                return cached;
+            }
+            // 试卷被重新读取或修改过 (例如重新批改了一道题)：按新的试卷复制一份计数器，题目或分值变了则重新统计
+            return ItemAnalysis.restore(exam, cached.analysis().counters())
+                    .map(analysis -> new CachedAnalysis(exam, analysis, cached.updatedAt(), cached.unsaved()))
+                    .orElse(null);
+        }
+        if (updatedAt.isEmpty()) {
+            return null;
+        }
+        return itemStatsDAO.findCounters(examId, connection)
+                .flatMap(counters -> ItemAnalysis.restore(exam, counters))
+                .map(analysis -> new CachedAnalysis(exam, analysis, updatedAt.get(), 0))
+                .orElse(null);
+    }
+
+    private void save(ExamPaper exam, ItemAnalysis analysis, int unsaved, Connection connection) throws SQLException {
+        ExamItemStats stats = analysis.snapshot();
+        boolean saveCounters = unsaved >= COUNTERS_SAVE_INTERVAL;
+        itemStatsDAO.save(stats, saveCounters ? analysis.counters() : null, connection);
+        CACHE.put(exam.getExamId(), new CachedAnalysis(exam, analysis, stats.getUpdatedAt(), saveCounters ? 0 : unsaved));
+    }
+}
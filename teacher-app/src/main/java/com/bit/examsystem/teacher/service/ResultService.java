@@ -1,65 +1,300 @@
 package com.bit.examsystem.teacher.service;
 
+import com.bit.examsystem.common.model.ExamPaper;
+import com.bit.examsystem.common.model.Question;
+import com.bit.examsystem.common.model.Student;
+import com.bit.examsystem.teacher.db.dao.ExamDAO;
+import com.bit.examsystem.teacher.db.dao.ExamDAOImpl;
+import com.bit.examsystem.teacher.db.dao.ExamResultDAO;
+import com.bit.examsystem.teacher.db.dao.ExamResultDAOImpl;
+import com.bit.examsystem.teacher.db.dao.ItemStatsDAO;
+import com.bit.examsystem.teacher.db.dao.ItemStatsDAOImpl;
 import com.bit.examsystem.teacher.db.dao.StudentAnswerDAO;
 import com.bit.examsystem.teacher.db.dao.StudentAnswerDAOImpl;
 import com.bit.examsystem.teacher.db.dao.StudentDAO;
 import com.bit.examsystem.teacher.db.dao.StudentDAOImpl;
+import com.bit.examsystem.teacher.dto.ExamItemStats;
 import com.bit.examsystem.teacher.dto.StudentResult;
 
-import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
 
 public class ResultService {
-    private final StudentDAO studentDAO = new StudentDAOImpl();
+    // 导出时每写这么多行报告一次进度、检查一次是否取消
+    static final int EXPORT_PROGRESS_INTERVAL = 1000;
+
     private final StudentAnswerDAO answerDAO = new StudentAnswerDAOImpl();
+    private final ExamResultDAO examResultDAO = new ExamResultDAOImpl();
+    private final ItemStatsDAO itemStatsDAO = new ItemStatsDAOImpl();
+    private final ExamDAO examDAO = new ExamDAOImpl();
+    private final StudentDAO studentDAO = new StudentDAOImpl();
 
+    /**
+     * 导出进度回调，在导出线程上调用
+     */
+    @FunctionalInterface
+    public interface ExportProgress {
+        /**
+         * @param rowsWritten 已写出的数据行数
+         * @param totalRows 预计的总行数
+         * @return false 表示取消导出
+         */
+        boolean update(long rowsWritten, long totalRows);
+    }
+
+    /**
+     * 全部成绩，按名次排序；从 exam_results 读取，不扫描 student_answers
+     */
     public List<StudentResult> getResultsForExam(String examId) throws SQLException {
-        List<StudentResult> results = new ArrayList<>();
-        // Get all students who took the exam
-        studentDAO.findStudentsByExamId(examId).forEach(student -> {
-            try {
-                // For each student, calculate their total score
-                int totalScore = answerDAO.calculateTotalScore(examId, student.getId());
-                StudentResult result = new StudentResult();
-                result.setStudentId(student.getId());
-                result.setStudentName(student.getName());
-                result.setTotalScore(totalScore);
-                results.add(result);
-            } catch (SQLException e) {
-                // Wrap in a runtime exception to handle it in the lambda
-                throw new RuntimeException(e);
-            }
-        });
-        return results;
+        return getResultsPage(examId, ExamResultDAO.SortOrder.RANK, 0, 0);
+    }
+
+    /**
+     * 分页读取成绩
+     * @param limit 每页行数，小于等于 0 时返回全部
+     */
+    public List<StudentResult> getResultsPage(String examId, ExamResultDAO.SortOrder order, int offset, int limit) throws SQLException {
+        ensureMaterialized(examId);
+        return examResultDAO.findPage(examId, order, offset, limit);
+    }
+
+    public int getResultCount(String examId) throws SQLException {
+        ensureMaterialized(examId);
+        return examResultDAO.count(examId);
+    }
+
+    /**
+     * 查询一名学生的总分和名次
+     */
+    public Optional<StudentResult> getStudentResult(String examId, String studentId) throws SQLException {
+        ensureMaterialized(examId);
+        return examResultDAO.findByStudent(examId, studentId);
+    }
+
+    /**
+     * 完整性检查：成绩表与 student_answers 的汇总不一致时重建该考试的成绩表
+     * @return 检查出的不一致行数，0 表示无需重建
+     */
+    public int verifyAndRepairResults(String examId) throws SQLException {
+        int inconsistent = examResultDAO.countInconsistent(examId);
+        if (inconsistent > 0) {
+            System.out.printf("Results of exam %s have %d inconsistent rows, rebuilding.%n", examId, inconsistent);
+            examResultDAO.rebuild(examId);
+        }
+        return inconsistent;
+    }
+
+    /**
+     * 还没有成绩行的考试 (答案是在引入成绩表之前写入的) 第一次查看时从答案汇总生成。
+     * 写入答卷、阅卷和重新批改都在同一事务中更新成绩表，所以有成绩行的考试不会与答案不一致；
+     * 第一次写入答卷时成绩表为空也会整场重建 (见 ExamResultDAO.refreshStudents)，不会只留下部分学生
+     */
+    private void ensureMaterialized(String examId) throws SQLException {
+        if (examResultDAO.count(examId) == 0) {
+            examResultDAO.rebuild(examId);
+        }
+    }
+
+    /**
+     * 交卷、阅卷时在同一事务中增量维护的试题分析，只读一行，不扫描 student_answers
+     * @return 还没有答卷的考试返回 empty
+     */
+    public Optional<ExamItemStats> getItemStats(String examId) throws SQLException {
+        return itemStatsDAO.findByExamId(examId);
     }
 
     public List<Map<String, Object>> getDetailedResults(String examId, String studentId) throws SQLException {
         return answerDAO.findDetailedResults(examId, studentId);
     }
 
-    public void exportToCsv(List<StudentResult> results, File file) throws IOException {
-        try (
-                OutputStreamWriter writer = new OutputStreamWriter(
-                        new FileOutputStream(file),
-                        StandardCharsets.UTF_8
-                )
-        ) {
-            // 写入 UTF-8 BOM（关键）
-            writer.write('\uFEFF');
-
-            // Write header
-            writer.append("Student ID,Student Name,Total Score\n");
-
-            // Write data
-            for (StudentResult result : results) {
-                writer.append(String.format("%s,%s,%d\n",
-                        result.getStudentId(),
-                        result.getStudentName(),
-                        result.getTotalScore()));
+    /**
+     * 按名次导出成绩汇总，从 exam_results 逐行读取并直接写入文件
+     * @return 导出的学生数
+     * @throws CancellationException progress 返回 false 时，不留下不完整的文件
+     */
+    public long exportSummaryCsv(String examId, Path file, ExportProgress progress) throws SQLException, IOException {
+        int total = getResultCount(examId);
+        return export(file, progress, total, (csv, counter) -> {
+            csv.row("Rank", "Student ID", "Student Name", "Total Score", "Graded Answers", "Answers");
+            examResultDAO.streamResults(examId, ExamResultDAO.SortOrder.RANK, result -> {
+                try {
+                    csv.field(result.getRank())
+                            .field(result.getStudentId())
+                            .field(result.getStudentName())
+                            .field(result.getTotalScore())
+                            .field(result.getGradedCount())
+                            .field(result.getAnswerCount())
+                            .endRow();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return counter.next();
+            });
+        });
+    }
+
+    /**
+     * 导出完整答题明细，每名学生每道题一行，按学生 (登记顺序)、题号排序
+     *
+     * 答案按主键顺序从只进游标读取，同一学生的答案是连续的：只缓存当前学生的一组答案 (每题一格)，
+     * 换到下一名学生时按题号写出。内存只与题目数和学生数 (姓名) 有关，与答案总数无关。
+     * @return 导出的答案行数
+     * @throws CancellationException progress 返回 false 时，不留下不完整的文件
+     */
+    public long exportAnswerSheetCsv(String examId, Path file, ExportProgress progress) throws SQLException, IOException {
+        ExamPaper exam = examDAO.findById(examId)
+                .orElseThrow(() -> new SQLException("Exam not found: " + examId));
+        List<Question> questions = exam.getQuestions() == null ? List.of() : exam.getQuestions();
+        Map<String, Integer> questionIndexes = new HashMap<>();
+        for (int i = 0; i < questions.size(); i++) {
+            questionIndexes.put(questions.get(i).getId(), i);
+        }
+        Map<String, String> names = new HashMap<>();
+        for (Student student : studentDAO.findStudentsByExamId(examId)) {
+            names.put(student.getId(), student.getName());
+        }
+        int total = answerDAO.countAnswers(examId);
+
+        return export(file, progress, total, (csv, counter) -> {
+            csv.row("Student ID", "Student Name", "No.", "Question", "Type", "Correct Answer", "Answer", "Score", "Max Score");
+            AnswerSheetBuffer sheet = new AnswerSheetBuffer(questions);
+            answerDAO.streamAnswersByExamId(examId, answer -> {
+                Integer index = questionIndexes.get(answer.getQuestionId());
+                if (index == null) {
+                    return true; // 不在本试卷中的题目
+                }
+                try {
+                    if (!answer.getStudentId().equals(sheet.studentId)) {
+                        sheet.writeTo(csv, names);
+                        sheet.studentId = answer.getStudentId();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                sheet.put(index, answer.getAnswer(), answer.getScoreAwarded());
+                return counter.next();
+            });
+            if (!counter.cancelled) {
+                sheet.writeTo(csv, names);
+            }
+        });
+    }
+
+    /**
+     * 写到同目录下的 .part 文件，完成后再改名，失败或取消时删除
+     */
+    private long export(Path file, ExportProgress progress, long total, ExportBody body) throws SQLException, IOException {
+        Path part = file.resolveSibling(file.getFileName() + ".part");
+        ExportCounter counter = new ExportCounter(progress, total);
+        boolean completed = false;
+        try {
+            // CsvWriter 先于通道关闭，缓冲区中剩余的内容写完才关闭文件
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 CsvWriter csv = new CsvWriter(channel)) {
+                body.write(csv, counter);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (counter.cancelled) {
+                throw new CancellationException("Export cancelled after " + counter.rows + " rows");
+            }
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING);
+            completed = true;
+            progress.update(counter.rows, counter.rows);
+            return counter.rows;
+        } finally {
+            if (!completed) {
+                Files.deleteIfExists(part);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ExportBody {
+        void write(CsvWriter csv, ExportCounter counter) throws SQLException, IOException;
+    }
+
+    /**
+     * 统计已写出的行数，按间隔报告进度；取消后游标回调返回 false 停止读取
+     */
+    private static final class ExportCounter {
+        private final ExportProgress progress;
+        private final long total;
+        private long rows;
+        private boolean cancelled;
+
+        ExportCounter(ExportProgress progress, long total) {
+            this.progress = progress;
+            this.total = total;
+        }
+
+        boolean next() {
+            rows++;
+            if (rows % EXPORT_PROGRESS_INTERVAL == 0 && !progress.update(rows, total)) {
+                cancelled = true;
+            }
+            return !cancelled;
+        }
+    }
+
+    /**
+     * 当前学生的答案，按题号存放
+     */
+    private static final class AnswerSheetBuffer {
+        private final List<Question> questions;
+        private final String[] answers;
+        private final Integer[] scores;
+        private final boolean[] present;
+        private String studentId;
+
+        AnswerSheetBuffer(List<Question> questions) {
+            this.questions = questions;
+            this.answers = new String[questions.size()];
+            this.scores = new Integer[questions.size()];
+            this.present = new boolean[questions.size()];
+        }
+
+        void put(int index, String answer, Integer score) {
+            answers[index] = answer;
+            scores[index] = score;
+            present[index] = true;
+        }
+
+        void writeTo(CsvWriter csv, Map<String, String> names) throws IOException {
+            if (studentId == null) {
+                return;
+            }
+            String name = names.get(studentId);
+            for (int i = 0; i < present.length; i++) {
+                if (!present[i]) {
+                    continue;
+                }
+                Question q = questions.get(i);
+                csv.field(studentId)
+                        .field(name)
+                        .field(i + 1)
+                        .field(q.getTitle())
+                        .field(q.getType() == null ? null : q.getType().name())
+                        .field(q.getCorrectAnswer())
+                        .field(answers[i])
+                        .field(scores[i])
+                        .field(q.getScore())
+                        .endRow();
+                answers[i] = null;
+                scores[i] = null;
+                present[i] = false;
             }
         }
     }
@@ -6,14 +6,18 @@ import com.bit.examsystem.teacher.service.listener.SubmissionListener;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface SubmissionService {
     /**
-     * Stores the submitted answers for a given student.
+     * Grades the submitted answers for a given student against the active exam's answer key and queues them.
+     * A single writer saves queued submissions and their scores from many students in one transaction (group commit).
      * @param studentId The ID of the student who submitted.
      * @param answers The list of answers.
+     * @return Completes once the answers are committed to the database; completes
+     *         exceptionally if there is no active exam, the queue is full or the write fails.
      */
-    void processSubmission(String studentId, List<StudentAnswer> answers);
+    CompletableFuture<Void> processSubmission(String studentId, List<StudentAnswer> answers);
 
     /**
      * Gets the number of students who have submitted their answers.
@@ -31,4 +35,12 @@ public interface SubmissionService {
     void removeListener(SubmissionListener listener);
 
     public void setActiveExam(ExamPaper exam);
+
+    /**
+     * Recompiles the answer key used to grade submissions on arrival after the exam's key was corrected
+     * (e.g. a question was regraded). Does nothing if the exam is not the active one.
+     * Submissions already queued with the old key are re-scored by the writer before they are saved.
+     * @param exam The exam with its current questions and answer key.
+     */
+    void refreshAnswerKey(ExamPaper exam);
 }
\ No newline at end of file
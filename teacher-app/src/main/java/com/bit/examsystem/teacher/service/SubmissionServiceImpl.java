@@ -2,20 +2,55 @@ package com.bit.examsystem.teacher.service;
 
 import com.bit.examsystem.common.model.ExamPaper;
 import com.bit.examsystem.common.model.StudentAnswer;
+import com.bit.examsystem.teacher.db.DatabaseManager;
+import com.bit.examsystem.teacher.db.dao.ExamDAO;
+import com.bit.examsystem.teacher.db.dao.ExamDAOImpl;
 import com.bit.examsystem.teacher.db.dao.StudentAnswerDAO;
 import com.bit.examsystem.teacher.db.dao.StudentAnswerDAOImpl;
+import com.bit.examsystem.teacher.dto.GradedAnswer;
 import com.bit.examsystem.teacher.service.listener.SubmissionListener;
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 public class SubmissionServiceImpl implements SubmissionService {
+
+    // 组提交：单个写线程把队列中多名学生的答卷合并为一个事务，交卷高峰时只需少量 fsync
+    // 每个事务最多包含的答卷数
+    public static final int GROUP_COMMIT_MAX_BATCH = Integer.getInteger("exam.db.groupCommitMaxBatch", 256);
+    // 取到第一份答卷后最多再等待多久凑批，0 表示只合并已在队列中的答卷
+    public static final int GROUP_COMMIT_LINGER_MILLIS = Integer.getInteger("exam.db.groupCommitLingerMillis", 5);
+    // 待写入队列的容量，队列满时直接拒绝 (学生端收到失败回执后可重新提交)
+    public static final int SUBMIT_QUEUE_CAPACITY = Integer.getInteger("exam.db.submitQueueCapacity", 4096);
+
     // Key: studentId, Value: List of their answers
     private final Map<String, List<StudentAnswer>> submissions = new ConcurrentHashMap<>();
     private final StudentAnswerDAO answerDAO = new StudentAnswerDAOImpl(); // <-- Instantiate DAO
-    private ExamPaper activeExam; // <-- Store the active exam
+    private final ExamDAO examDAO = new ExamDAOImpl();
+    private final ItemStatsUpdater itemStats = new ItemStatsUpdater();
+    private volatile ExamPaper activeExam; // <-- Store the active exam (read by the network business threads)
+    // 当前考试编译好的标准答案，答卷到达时即判分，与答案在同一事务中写入
+    private volatile AnswerKey activeAnswerKey;
+
+    private final BlockingQueue<PendingSubmission> queue = new ArrayBlockingQueue<>(SUBMIT_QUEUE_CAPACITY);
+
+    /**
+     * 等待写入的一份答卷及其得分 (Key 为 questionId)，写入提交后完成 future
+     * @param answerKey 判分所用的标准答案，没有判分时为 null
+     */
+    private record PendingSubmission(String examId, String studentId, List<StudentAnswer> answers,
+                                     Map<String, Integer> scores, AnswerKey answerKey, CompletableFuture<Void> future) {}
 
     // --- Singleton Pattern for easy access from the network handler ---
     private static class SingletonHolder {
@@ -24,42 +59,260 @@ public class SubmissionServiceImpl implements SubmissionService {
     public static SubmissionService getInstance() {
         return SingletonHolder.INSTANCE;
     }
-    private SubmissionServiceImpl() {}
+    private SubmissionServiceImpl() {
+        Thread writer = new Thread(this::writeLoop, "submission-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
     // ----------------------------------------------------------------
 
     private final List<SubmissionListener> listeners = new CopyOnWriteArrayList<>();
 
     @Override
-    public void processSubmission(String studentId, List<StudentAnswer> answers) {
-        if (activeExam == null) {
+    public CompletableFuture<Void> processSubmission(String studentId, List<StudentAnswer> answers) {
+        ExamPaper exam = activeExam;
+        AnswerKey answerKey = activeAnswerKey;
+        if (exam == null) {
             System.err.println("Cannot process submission: No active exam set.");
-            return;
+            return CompletableFuture.failedFuture(new IllegalStateException("No active exam."));
+        }
+        if (studentId == null || answers == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Missing student ID or answers."));
+        }
+
+        // 在业务线程上判分，写线程只负责写入
+        Map<String, Integer> scores = Map.of();
+        if (answerKey != null && !answerKey.getExamId().equals(exam.getExamId())) {
+            answerKey = null;
+        }
+        if (answerKey != null) {
+            // 不属于本场考试的题目 (如旧版本客户端) 在入队前就拒绝，不进入组提交的事务
+            for (StudentAnswer answer : answers) {
+                if (!answerKey.hasQuestion(answer.getQuestionId())) {
+                    System.err.println("Rejected submission from " + studentId + ": unknown question " + answer.getQuestionId());
+                    return CompletableFuture.failedFuture(new IllegalArgumentException("Unknown question " + answer.getQuestionId() + "."));
+                }
+            }
+            scores = answerKey.scoreAll(answers);
+        }
+        PendingSubmission pending = new PendingSubmission(exam.getExamId(), studentId, answers, scores, answerKey, new CompletableFuture<>());
+        if (!queue.offer(pending)) {
+            System.err.println("Submission queue is full (" + SUBMIT_QUEUE_CAPACITY + "). Rejected submission from " + studentId);
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Submission queue is full."));
+        }
+        return pending.future();
+    }
+
+    /**
+     * 写线程：取出一批答卷，按考试分组各用一个事务写入，提交后再逐一完成 future
+     */
+    private void writeLoop() {
+        List<PendingSubmission> batch = new ArrayList<>(GROUP_COMMIT_MAX_BATCH);
+        while (true) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, GROUP_COMMIT_MAX_BATCH - batch.size());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(GROUP_COMMIT_LINGER_MILLIS);
+                while (batch.size() < GROUP_COMMIT_MAX_BATCH) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingSubmission next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, GROUP_COMMIT_MAX_BATCH - batch.size());
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // 不能让写线程退出，否则之后的答卷都不会被写入
+                System.err.println("Submission writer error: " + e.getMessage());
+                e.printStackTrace();
+                for (PendingSubmission pending : batch) {
+                    pending.future().completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 一名学生在一批中的答卷。同一学生在一批中多次提交时按题目合并，后提交的答案 (及得分) 覆盖先提交的，
+     * 与逐份 REPLACE 写入的结果相同：只在先提交的答卷中出现的题目仍会保存
+     */
+    private static final class MergedSubmission {
+        private final Map<String, StudentAnswer> answers = new LinkedHashMap<>();
+        private final Map<String, Integer> scores = new HashMap<>();
+        private AnswerKey answerKey;
+        private boolean mixedKeys; // 各次提交用不同的标准答案判分
+
+        void add(PendingSubmission pending) {
+            if (answers.isEmpty()) {
+                answerKey = pending.answerKey();
+            } else if (answerKey != pending.answerKey()) {
+                mixedKeys = true;
+            }
+            for (StudentAnswer answer : pending.answers()) {
+                answers.put(answer.getQuestionId(), answer);
+                Integer score = pending.scores().get(answer.getQuestionId());
+                if (score == null) {
+                    scores.remove(answer.getQuestionId());
+                } else {
+                    scores.put(answer.getQuestionId(), score);
+                }
+            }
+        }
+
+        List<StudentAnswer> answers() {
+            return new ArrayList<>(answers.values());
+        }
+
+        /**
+         * 入队后标准答案被修正过 (单题重新批改) 时，用当前的标准答案重新判分
+         */
+        Map<String, Integer> scores(String examId, AnswerKey current) {
+            if (current != null && current.getExamId().equals(examId) && (mixedKeys || answerKey != current)) {
+                return current.scoreAll(answers());
+            }
+            return scores;
+        }
+    }
+
+    private void commit(List<PendingSubmission> batch) {
+        // 同一批里通常只有一场考试
+        Map<String, Map<String, MergedSubmission>> byExam = new LinkedHashMap<>();
+        for (PendingSubmission pending : batch) {
+            byExam.computeIfAbsent(pending.examId(), k -> new LinkedHashMap<>())
+                    .computeIfAbsent(pending.studentId(), k -> new MergedSubmission())
+                    .add(pending);
         }
-        if (studentId == null || answers == null) return;
 
-        // --- Database Persistence ---
+        // Key: examId -> studentId，写入失败的答卷
+        Map<String, Map<String, SQLException>> failures = new HashMap<>();
+        for (Map.Entry<String, Map<String, MergedSubmission>> exam : byExam.entrySet()) {
+            Map<String, SQLException> examFailures = save(exam.getKey(), exam.getValue());
+            if (!examFailures.isEmpty()) {
+                failures.put(exam.getKey(), examFailures);
+            }
+        }
+
+        boolean saved = false;
+        for (PendingSubmission pending : batch) {
+            SQLException failure = failures.getOrDefault(pending.examId(), Map.of()).get(pending.studentId());
+            if (failure != null) {
+                pending.future().completeExceptionally(failure);
+                continue;
+            }
+            pending.future().complete(null);
+            saved = true;
+        }
+        if (saved) {
+            // Overwrite previous submissions if the student submits again.
+            for (Map.Entry<String, Map<String, MergedSubmission>> exam : byExam.entrySet()) {
+                Map<String, SQLException> examFailures = failures.getOrDefault(exam.getKey(), Map.of());
+                exam.getValue().forEach((studentId, merged) -> {
+                    if (!examFailures.containsKey(studentId)) {
+                        submissions.put(studentId, merged.answers());
+                    }
+                });
+            }
+            // Notify all registered listeners once per batch instead of once per student.
+            notifyListeners();
+        }
+    }
+
+    /**
+     * 一场考试的一批答卷先在一个事务中写入；失败时每名学生各用一个事务重试，
+     * 只有本身写不进去的答卷 (如未登记的学生、不属于本场考试的题目) 失败，不连累同批的其他学生
+     * @return Key 为 studentId，写入失败的学生及原因
+     */
+    private Map<String, SQLException> save(String examId, Map<String, MergedSubmission> students) {
         try {
-            answerDAO.saveBatch(activeExam.getExamId(), studentId, answers);
-            System.out.println("Successfully saved answers for student " + studentId + " to the database.");
+            saveTogether(examId, students);
+            System.out.printf("Saved %d submissions for exam %s in one transaction.%n", students.size(), examId);
+            return Map.of();
         } catch (SQLException e) {
-            System.err.println("DATABASE ERROR: Could not save answers for student " + studentId);
-            e.printStackTrace();
-            // Optionally, you could add retry logic or notify the teacher of the failure.
-            return; // Exit if DB operation fails
+            if (students.size() == 1) {
+                System.err.println("DATABASE ERROR: Could not save the submission of " + students.keySet().iterator().next()
+                        + " for exam " + examId + ": " + e.getMessage());
+                return Map.of(students.keySet().iterator().next(), e);
+            }
+            System.err.println("DATABASE ERROR: Could not save " + students.size() + " submissions for exam " + examId
+                    + " together, retrying one by one: " + e.getMessage());
+        }
+
+        Map<String, SQLException> failures = new HashMap<>();
+        for (Map.Entry<String, MergedSubmission> student : students.entrySet()) {
+            try {
+                saveTogether(examId, Map.of(student.getKey(), student.getValue()));
+            } catch (SQLException e) {
+                System.err.println("DATABASE ERROR: Could not save the submission of " + student.getKey()
+                        + " for exam " + examId + ": " + e.getMessage());
+                failures.put(student.getKey(), e);
+            }
         }
-        // ------------------------
+        return failures;
+    }
 
-        // Overwrite previous submissions if the student submits again.
-        submissions.put(studentId, answers);
-        System.out.printf("Received submission from student %s with %d answers.%n", studentId, answers.size());
+    private void saveTogether(String examId, Map<String, MergedSubmission> students) throws SQLException {
+        Connection conn = null;
+        try {
+            conn = DatabaseManager.getConnection();
+            conn.setAutoCommit(false);
 
-        // Notify all registered listeners that a submission has been received.
-        notifyListeners();
+            // 持有写连接之后再读标准答案：单题重新批改在归还写连接之前就换上了新的标准答案，
+            // 所以这里读到的一定与数据库中的标准答案一致
+            AnswerKey answerKey = activeAnswerKey;
+            ExamPaper exam = activeExam;
+            if (exam == null || !exam.getExamId().equals(examId)) {
+                exam = examDAO.findById(examId).orElse(null);
+            }
+            Map<String, List<StudentAnswer>> answers = new LinkedHashMap<>();
+            Map<String, Map<String, Integer>> scores = new HashMap<>();
+            for (Map.Entry<String, MergedSubmission> student : students.entrySet()) {
+                answers.put(student.getKey(), student.getValue().answers());
+                scores.put(student.getKey(), student.getValue().scores(examId, answerKey));
+            }
+            // 重新提交的学生先从试题分析的计数器中移除原来的答案，再加入新的答案
+            Map<String, List<GradedAnswer>> before = itemStats.before(examId, answers.keySet());
+            answerDAO.saveSubmissions(examId, answers, scores, conn);
+            if (exam != null) {
+                itemStats.apply(exam, before, ItemStatsUpdater.afterSubmissions(before, answers, scores), conn);
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            if (conn != null) {
+                conn.rollback();
+            }
+            itemStats.discard(examId);
+            throw new SQLException("Failed to save " + students.size() + " submissions.", e);
+        } finally {
+            if (conn != null) {
+                conn.setAutoCommit(true);
+                conn.close();
+            }
+        }
     }
 
     @Override
-    public void setActiveExam(ExamPaper exam) {
+    public synchronized void setActiveExam(ExamPaper exam) {
+        // 先发布标准答案再发布考试，processSubmission 读到新考试时一定能读到对应的标准答案
+        this.activeAnswerKey = exam == null ? null : AnswerKey.compile(exam);
+        this.activeExam = exam;
+    }
+
+    @Override
+    public synchronized void refreshAnswerKey(ExamPaper exam) {
+        ExamPaper current = activeExam;
+        if (current == null || exam == null || !current.getExamId().equals(exam.getExamId())) {
+            return;
+        }
+        this.activeAnswerKey = AnswerKey.compile(exam);
         this.activeExam = exam;
+        System.out.println("Answer key of the active exam " + exam.getExamId() + " recompiled.");
     }
 
     @Override
@@ -0,0 +1,136 @@
+package com.bit.examsystem.teacher;
+
+import com.bit.examsystem.common.model.ExamPaper;
+import com.bit.examsystem.common.model.Question;
+import com.bit.examsystem.common.model.QuestionType;
+import com.bit.examsystem.common.model.Student;
+import com.bit.examsystem.common.model.StudentAnswer;
+import com.bit.examsystem.teacher.db.DatabaseManager;
+import com.bit.examsystem.teacher.db.dao.ExamDAOImpl;
+import com.bit.examsystem.teacher.db.dao.StudentDAO;
+import com.bit.examsystem.teacher.db.dao.StudentDAOImpl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 各 *Benchmark 共用的合成数据：试卷、学生、答卷，以及结束后的清理和结果输出
+ *
+ * 数据写入当前目录下的 exam.db (与 DAO 测试相同)；学生按学号前缀登记，清理时按前缀删除。
+ */
+public final class BenchmarkFixtures {
+
+    // 各题型轮流使用的答案，按 (seed + 题号) 取一个：既有答对的，也有答错、大小写不同、顺序不同和空答案
+    private static final String[] SINGLE_CHOICE_ANSWERS = {"A", "B", "C", "D"};
+    private static final String[] MULTI_CHOICE_ANSWERS = {"CA", "AC", "A", "ABC"};
+    private static final String[] JUDGE_ANSWERS = {"true", "false", "TRUE", ""};
+    private static final String[] FILL_IN_ANSWERS = {"Java", "java", "C++", "Jav"};
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * 合成一张试卷 (不保存)，第 i 题的题型为 mix[i % mix.length]
+     * @param score 每道题的分值
+     * @param mix 题型的轮换顺序，例如 单选、单选、多选、判断、填空 即单选占 40%
+     */
+    public static ExamPaper createExam(String title, int questionCount, int score, QuestionType... mix) {
+        List<Question> questions = new ArrayList<>();
+        for (int i = 0; i < questionCount; i++) {
+            Question q = new Question();
+            q.setId(UUID.randomUUID().toString());
+            q.setTitle("Question " + i);
+            q.setType(mix[i % mix.length]);
+            switch (q.getType()) {
+                case SINGLE_CHOICE -> {
+                    q.setOptions(List.of("A. 1", "B. 2", "C. 3", "D. 4"));
+                    q.setCorrectAnswer("A");
+                }
+                case MULTI_CHOICE -> {
+                    q.setOptions(List.of("A. 1", "B. 2", "C. 3", "D. 4"));
+                    q.setCorrectAnswer("AC");
+                }
+                case JUDGE -> q.setCorrectAnswer("true");
+                case FILL_IN -> q.setCorrectAnswer("Java");
+            }
+            q.setScore(score);
+            questions.add(q);
+        }
+        ExamPaper exam = new ExamPaper();
+        exam.setExamId(UUID.randomUUID().toString());
+        exam.setTitle(title);
+        exam.setDurationMinutes(90);
+        exam.setStartTime(System.currentTimeMillis());
+        exam.setQuestions(questions);
+        return exam;
+    }
+
+    /**
+     * 一名学生的答卷，每道题都作答；seed 相同时答案相同
+     */
+    public static List<StudentAnswer> answers(ExamPaper exam, int seed) {
+        List<StudentAnswer> answers = new ArrayList<>();
+        for (Question q : exam.getQuestions()) {
+            String[] options = switch (q.getType()) {
+                case SINGLE_CHOICE -> SINGLE_CHOICE_ANSWERS;
+                case MULTI_CHOICE -> MULTI_CHOICE_ANSWERS;
+                case JUDGE -> JUDGE_ANSWERS;
+                case FILL_IN -> FILL_IN_ANSWERS;
+            };
+            StudentAnswer answer = new StudentAnswer();
+            answer.setQuestionId(q.getId());
+            answer.setAnswer(options[(seed + answers.size()) % options.length]);
+            answers.add(answer);
+        }
+        return answers;
+    }
+
+    /**
+     * 登记 count 名学生，学号为 prefix + i，姓名为 namePrefix + i
+     */
+    public static void createStudents(String prefix, String namePrefix, int count) throws SQLException {
+        StudentDAO studentDAO = new StudentDAOImpl();
+        for (int i = 0; i < count; i++) {
+            Student student = new Student();
+            student.setId(prefix + i);
+            student.setName(namePrefix + i);
+            studentDAO.saveOrUpdate(student);
+        }
+    }
+
+    /**
+     * 清空一场考试全部答案的得分，下一轮阅卷从未批改开始
+     */
+    public static void resetScores(String examId) throws SQLException {
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement("UPDATE student_answers SET score_awarded = NULL WHERE exam_no = (SELECT exam_no FROM exams WHERE id = ?)")) {
+            ps.setString(1, examId);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * 删除试卷 (级联删除题目和答案) 和按前缀登记的学生
+     */
+    public static void cleanUp(ExamPaper exam, String prefix) throws SQLException {
+        new ExamDAOImpl().delete(exam.getExamId());
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement("DELETE FROM students WHERE id LIKE ?")) {
+            ps.setString(1, prefix + "%");
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * 输出一行结果：总耗时、每次耗时、每秒次数，checksum 用来核对各种写法的结果一致
+     * @param unit count 的单位，例如 submissions、answers
+     */
+    public static void report(String mode, String label, int count, String unit, long elapsed, long checksum) {
+        System.out.printf("%-32s %-8s %7d %s in %9.2f ms   %8.2f us each   %9.0f per second   (checksum %d)%n",
+                mode, label, count, unit, elapsed / 1e6, elapsed / 1e3 / count, count * 1e9 / elapsed, checksum);
+    }
+}
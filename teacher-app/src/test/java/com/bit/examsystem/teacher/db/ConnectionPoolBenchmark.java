@@ -0,0 +1,137 @@
+package com.bit.examsystem.teacher.db;
+
+import com.bit.examsystem.common.model.ExamPaper;
+import com.bit.examsystem.common.model.QuestionType;
+import com.bit.examsystem.teacher.db.dao.ExamDAO;
+import com.bit.examsystem.teacher.db.dao.ExamDAOImpl;
+import com.bit.examsystem.teacher.db.dao.QuestionDAO;
+import com.bit.examsystem.teacher.db.dao.QuestionDAOImpl;
+import com.bit.examsystem.teacher.db.dao.StudentAnswerDAO;
+import com.bit.examsystem.teacher.db.dao.StudentAnswerDAOImpl;
+import org.sqlite.SQLiteConfig;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static com.bit.examsystem.teacher.BenchmarkFixtures.createExam;
+import static com.bit.examsystem.teacher.BenchmarkFixtures.answers;
+import static com.bit.examsystem.teacher.BenchmarkFixtures.createStudents;
+import static com.bit.examsystem.teacher.BenchmarkFixtures.cleanUp;
+import static com.bit.examsystem.teacher.BenchmarkFixtures.report;
+
+/**
+ * DAO 每次调用的连接开销 (手动运行 main，不参与单元测试)
+ *
+ * 对比成绩统计时最频繁的两个查询：逐个学生的 calculateTotalScore 和 findByExamId。
+ * <ul>
+ *     <li>per-call：与旧 DatabaseManager.getConnection() 相同，每次调用用 DriverManager 新开一个连接</li>
+ *     <li>pool：经 DatabaseManager 的连接池，分别使用 safe 和 fast-exam 配置</li>
+ * </ul>
+ * 另外测量每份答卷一个事务的 saveBatch，体现两种配置的 synchronous 差异。
+ * 使用当前目录下的 exam.db (与 DAO 测试相同)，结束后删除写入的数据。
+ *
+ * 用法：ConnectionPoolBenchmark [学生数，默认 500] [每份答卷题数，默认 20] [轮数，默认 3]
+ */
+public class ConnectionPoolBenchmark {
+
+    private static final String DB_URL = "jdbc:sqlite:exam.db";
+    private static final String STUDENT_PREFIX = "POOL-BENCH-";
+
+    public static void main(String[] args) throws Exception {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int questions = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        DatabaseManager.initializeDatabase();
+        ExamPaper exam = createExam("Connection pool benchmark", questions, 5, QuestionType.SINGLE_CHOICE);
+        ExamDAO examDAO = new ExamDAOImpl();
+        examDAO.save(exam);
+        createStudents(STUDENT_PREFIX, "Student ", students);
+
+        StudentAnswerDAO answerDAO = new StudentAnswerDAOImpl();
+        QuestionDAO questionDAO = new QuestionDAOImpl();
+        try {
+            for (int round = 0; round <= rounds; round++) {
+                String label = round == 0 ? "warmup" : "round " + round;
+
+                // 1. 旧写法：每次调用新开连接
+                long start = System.nanoTime();
+                long checksum = 0;
+                for (int i = 0; i < students; i++) {
+                    checksum += perCallTotalScore(exam.getExamId(), STUDENT_PREFIX + i);
+                }
+                report("per-call calculateTotalScore", label, students, "calls", System.nanoTime() - start, checksum);
+                start = System.nanoTime();
+                checksum = 0;
+                for (int i = 0; i < students; i++) {
+                    checksum += perCallQuestionCount(exam.getExamId());
+                }
+                report("per-call findByExamId", label, students, "calls", System.nanoTime() - start, checksum);
+
+                // 2. 连接池，两种配置
+                for (StorageProfile profile : StorageProfile.values()) {
+                    DatabaseManager.shutdown();
+                    System.setProperty("exam.db.profile", profile.getConfigName());
+                    String mode = "pool/" + profile;
+
+                    start = System.nanoTime();
+                    for (int i = 0; i < students; i++) {
+                        answerDAO.saveBatch(exam.getExamId(), STUDENT_PREFIX + i, answers(exam, i));
+                    }
+                    report(mode + " saveBatch", label, students, "calls", System.nanoTime() - start, students);
+
+                    start = System.nanoTime();
+                    checksum = 0;
+                    for (int i = 0; i < students; i++) {
+                        checksum += answerDAO.calculateTotalScore(exam.getExamId(), STUDENT_PREFIX + i);
+                    }
+                    report(mode + " calculateTotalScore", label, students, "calls", System.nanoTime() - start, checksum);
+
+                    start = System.nanoTime();
+                    checksum = 0;
+                    for (int i = 0; i < students; i++) {
+                        checksum += questionDAO.findByExamId(exam.getExamId()).size();
+                    }
+                    report(mode + " findByExamId", label, students, "calls", System.nanoTime() - start, checksum);
+                }
+            }
+        } finally {
+            cleanUp(exam, STUDENT_PREFIX);
+            DatabaseManager.shutdown();
+        }
+    }
+
+    private static Connection openPerCall() throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.enforceForeignKeys(true);
+        return DriverManager.getConnection(DB_URL, config.toProperties());
+    }
+
+    private static int perCallTotalScore(String examId, String studentId) throws SQLException {
+        String sql = "SELECT COALESCE(SUM(score_awarded), 0) AS total_score FROM student_answers " +
+                "WHERE exam_no = (SELECT exam_no FROM exams WHERE id = ?) AND student_no = (SELECT student_no FROM students WHERE id = ?)";
+        try (Connection conn = openPerCall(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, examId);
+            pstmt.setString(2, studentId);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getInt("total_score") : 0;
+        }
+    }
+
+    private static int perCallQuestionCount(String examId) throws SQLException {
+        int count = 0;
+        try (Connection conn = openPerCall();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM questions WHERE exam_id = ?")) {
+            pstmt.setString(1, examId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                rs.getString("options");
+                count++;
+            }
+        }
+        return count;
+    }
+}
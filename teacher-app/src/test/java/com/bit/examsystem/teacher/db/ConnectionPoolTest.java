@@ -0,0 +1,92 @@
+package com.bit.examsystem.teacher.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolTest {
+
+    private File dbFile;
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dbFile = File.createTempFile("connection-pool-test", ".db");
+        pool = new ConnectionPool("jdbc:sqlite:" + dbFile.getAbsolutePath(), StorageProfile.SAFE, 1, 1000, 8);
+        try (Connection conn = pool.getWriteConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE items (id INTEGER PRIMARY KEY, name TEXT)");
+            stmt.execute("INSERT INTO items VALUES (1, 'a'), (2, 'b'), (3, 'c')");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+        dbFile.delete();
+    }
+
+    @Test
+    void testStatementIsReusedAcrossBorrows() throws SQLException {
+        for (int i = 1; i <= 3; i++) {
+            try (Connection conn = pool.getReadConnection();
+                 PreparedStatement ps = conn.prepareStatement("SELECT name FROM items WHERE id = ?")) {
+                ps.setInt(1, i);
+                ResultSet rs = ps.executeQuery(); // 与 DAO 一样不显式关闭结果集
+                assertTrue(rs.next());
+                assertEquals(String.valueOf((char) ('a' + i - 1)), rs.getString(1));
+            }
+        }
+        StatementCacheStats stats = pool.getStatementCacheStats();
+        assertEquals(1, stats.getMisses());
+        assertEquals(2, stats.getHits());
+        assertEquals(1, stats.getCachedStatements());
+    }
+
+    @Test
+    void testNestedUseOfSameSqlGetsSeparateStatement() throws SQLException {
+        String sql = "SELECT COUNT(*) FROM items WHERE id >= ?";
+        try (Connection conn = pool.getReadConnection();
+             PreparedStatement outer = conn.prepareStatement(sql)) {
+            outer.setInt(1, 2);
+            ResultSet outerRs = outer.executeQuery();
+            try (Connection nested = pool.getReadConnection();
+                 PreparedStatement inner = nested.prepareStatement(sql)) {
+                inner.setInt(1, 1);
+                ResultSet innerRs = inner.executeQuery();
+                assertTrue(innerRs.next());
+                assertEquals(3, innerRs.getInt(1));
+            }
+            assertTrue(outerRs.next());
+            assertEquals(2, outerRs.getInt(1));
+        }
+        assertEquals(2, pool.getStatementCacheStats().getMisses());
+    }
+
+    @Test
+    void testWriterRollsBackUnfinishedTransactionOnRelease() throws SQLException {
+        try (Connection conn = pool.getWriteConnection();
+             PreparedStatement ps = conn.prepareStatement("DELETE FROM items WHERE id = ?")) {
+            conn.setAutoCommit(false);
+            ps.setInt(1, 1);
+            ps.executeUpdate();
+            // 没有 commit
+        }
+        try (Connection conn = pool.getReadConnection(); Statement stmt = conn.createStatement()) {
+            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM items");
+            assertTrue(rs.next());
+            assertEquals(3, rs.getInt(1));
+        }
+        try (Connection conn = pool.getWriteConnection()) {
+            assertTrue(conn.getAutoCommit());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.bit.examsystem.teacher.db;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 版本 1 的表结构 (各表以文本 ID 为主键)，用于迁移测试和表结构对比
+ */
+final class LegacySchema {
+
+    private LegacySchema() {
+    }
+
+    static void create(Statement stmt) throws SQLException {
+        stmt.execute("CREATE TABLE exams (id TEXT PRIMARY KEY, title TEXT NOT NULL, duration_minutes INTEGER NOT NULL, " +
+                "start_time INTEGER NOT NULL, created_at INTEGER DEFAULT (strftime('%s', 'now')))");
+        stmt.execute("CREATE TABLE questions (id TEXT PRIMARY KEY, exam_id TEXT NOT NULL, title TEXT NOT NULL, " +
+                "type TEXT NOT NULL, options TEXT, correct_answer TEXT NOT NULL, score INTEGER NOT NULL, " +
+                "FOREIGN KEY (exam_id) REFERENCES exams(id) ON DELETE CASCADE)");
+        stmt.execute("CREATE TABLE students (id TEXT PRIMARY KEY, name TEXT NOT NULL)");
+        stmt.execute("CREATE TABLE student_answers (exam_id TEXT NOT NULL, student_id TEXT NOT NULL, " +
+                "question_id TEXT NOT NULL, answer TEXT, score_awarded INTEGER, " +
+                "PRIMARY KEY (exam_id, student_id, question_id), " +
+                "FOREIGN KEY (exam_id) REFERENCES exams(id) ON DELETE CASCADE, " +
+                "FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE, " +
+                "FOREIGN KEY (question_id) REFERENCES questions(id) ON DELETE CASCADE)");
+        stmt.execute("CREATE INDEX idx_student_answers_results ON student_answers (exam_id, student_id, score_awarded)");
+        stmt.execute("CREATE TABLE exam_results (exam_id TEXT NOT NULL, student_id TEXT NOT NULL, " +
+                "total_score INTEGER NOT NULL, answer_count INTEGER NOT NULL, graded_count INTEGER NOT NULL, " +
+                "score_rank INTEGER, graded_at INTEGER NOT NULL, PRIMARY KEY (exam_id, student_id), " +
+                "FOREIGN KEY (exam_id) REFERENCES exams(id) ON DELETE CASCADE, " +
+                "FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE)");
+        stmt.execute("CREATE INDEX idx_exam_results_rank ON exam_results (exam_id, total_score DESC, student_id)");
+        stmt.execute("CREATE TABLE item_stats (exam_id TEXT PRIMARY KEY, student_count INTEGER NOT NULL, " +
+                "summary TEXT NOT NULL, updated_at INTEGER NOT NULL, " +
+                "FOREIGN KEY (exam_id) REFERENCES exams(id) ON DELETE CASCADE)");
+    }
+}
@@ -0,0 +1,205 @@
+package com.bit.examsystem.teacher.db;
+
+import org.sqlite.SQLiteConfig;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 文本主键 (版本 1) 与整数行号 (版本 2) 的表结构对比 (手动运行 main，不参与单元测试)
+ *
+ * 在临时目录中按版本 1 建库并写入 学生数 x 题数 条已批改的答案，VACUUM 后复制一份并用
+ * DatabaseManager.migrateToIntegerKeys 迁移到版本 2，然后对比：
+ * <ul>
+ *     <li>数据库文件大小，以及 student_answers 和覆盖索引占用的空间 (需要 dbstat 虚拟表)</li>
+ *     <li>detailed：每名学生一次 findDetailedResults 的连接查询 (答案连接题目)</li>
+ *     <li>grouped：按学生汇总总分并连接学生表 (成绩列表)</li>
+ *     <li>sheet：整场考试的答案连接学生和题目 (答题明细导出)</li>
+ * </ul>
+ * 两个版本使用各自 DAO 中的 SQL 写法，参数都是文本 ID。
+ *
+ * 用法：SchemaBenchmark [学生数，默认 2000] [题数，默认 50] [轮数，默认 5]
+ */
+public class SchemaBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int questions = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        Path dir = Files.createTempDirectory("schema-bench");
+        Path v1 = dir.resolve("v1.db");
+        Path v2 = dir.resolve("v2.db");
+        try {
+            String examId = UUID.randomUUID().toString();
+            List<String> studentIds = new ArrayList<>();
+            for (int i = 0; i < students; i++) {
+                studentIds.add(String.format("2024%06d", i)); // 学号
+            }
+            try (Connection conn = open(v1)) {
+                try (Statement stmt = conn.createStatement()) {
+                    LegacySchema.create(stmt);
+                }
+                populate(conn, examId, studentIds, questions);
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("VACUUM");
+                }
+            }
+            Files.copy(v1, v2, StandardCopyOption.REPLACE_EXISTING);
+            long start = System.nanoTime();
+            try (Connection conn = open(v2)) {
+                DatabaseManager.migrateToIntegerKeys(conn);
+            }
+            System.out.printf("migration of %d answers: %.0f ms%n", students * questions, (System.nanoTime() - start) / 1e6);
+
+            try (Connection c1 = open(v1); Connection c2 = open(v2)) {
+                reportSize("v1 text keys", v1, c1);
+                reportSize("v2 integer", v2, c2);
+
+                for (int round = 0; round <= rounds; round++) {
+                    String label = round == 0 ? "warmup" : "round " + round;
+                    // findDetailedResults，每名学生一次
+                    time("detailed", "v1", label, () -> perStudent(c1, examId, studentIds,
+                            "SELECT q.title, q.correct_answer, sa.answer, sa.score_awarded, q.score FROM student_answers sa " +
+                                    "JOIN questions q ON sa.question_id = q.id WHERE sa.exam_id = ? AND sa.student_id = ?"));
+                    time("detailed", "v2", label, () -> perStudent(c2, examId, studentIds,
+                            "SELECT q.title, q.correct_answer, sa.answer, sa.score_awarded, q.score FROM student_answers sa " +
+                                    "JOIN questions q ON q.question_no = sa.question_no " +
+                                    "WHERE sa.exam_no = (SELECT exam_no FROM exams WHERE id = ?) " +
+                                    "AND sa.student_no = (SELECT student_no FROM students WHERE id = ?) ORDER BY sa.question_no"));
+                    // 成绩列表 (findResultsByExamId)
+                    time("grouped", "v1", label, () -> scan(c1, examId,
+                            "SELECT t.student_id, s.name, t.total_score FROM (SELECT student_id, COALESCE(SUM(score_awarded), 0) AS total_score " +
+                                    "FROM student_answers WHERE exam_id = ? GROUP BY student_id) t JOIN students s ON s.id = t.student_id"));
+                    time("grouped", "v2", label, () -> scan(c2, examId,
+                            "SELECT s.id, s.name, t.total_score FROM (SELECT student_no, COALESCE(SUM(score_awarded), 0) AS total_score " +
+                                    "FROM student_answers WHERE exam_no = (SELECT exam_no FROM exams WHERE id = ?) GROUP BY student_no) t " +
+                                    "JOIN students s ON s.student_no = t.student_no"));
+                    // 整场考试的答案连接学生和题目
+                    time("sheet", "v1", label, () -> scan(c1, examId,
+                            "SELECT s.id, s.name, q.title, sa.answer, sa.score_awarded FROM student_answers sa " +
+                                    "JOIN students s ON s.id = sa.student_id JOIN questions q ON q.id = sa.question_id " +
+                                    "WHERE sa.exam_id = ?"));
+                    time("sheet", "v2", label, () -> scan(c2, examId,
+                            "SELECT s.id, s.name, q.title, sa.answer, sa.score_awarded FROM student_answers sa " +
+                                    "JOIN students s ON s.student_no = sa.student_no JOIN questions q ON q.question_no = sa.question_no " +
+                                    "WHERE sa.exam_no = (SELECT exam_no FROM exams WHERE id = ?)"));
+                }
+            }
+        } finally {
+            Files.deleteIfExists(v1);
+            Files.deleteIfExists(v2);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private interface Query {
+        long run() throws SQLException;
+    }
+
+    private static void time(String query, String schema, String label, Query q) throws SQLException {
+        long start = System.nanoTime();
+        long rows = q.run();
+        System.out.printf("%-9s %-3s %-8s %7d rows in %8.2f ms%n", query, schema, label, rows, (System.nanoTime() - start) / 1e6);
+    }
+
+    private static long perStudent(Connection conn, String examId, List<String> studentIds, String sql) throws SQLException {
+        long rows = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (String studentId : studentIds) {
+                pstmt.setString(1, examId);
+                pstmt.setString(2, studentId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rows++;
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static long scan(Connection conn, String examId, String sql) throws SQLException {
+        long rows = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, examId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static void reportSize(String schema, Path file, Connection conn) throws Exception {
+        StringBuilder detail = new StringBuilder();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT name, SUM(pgsize) FROM dbstat " +
+                     "WHERE name IN ('student_answers', 'idx_student_answers_results') " +
+                     "OR name LIKE 'sqlite_autoindex_student_answers%' GROUP BY name ORDER BY name")) {
+            while (rs.next()) {
+                detail.append(String.format(", %s %.1f MB", rs.getString(1), rs.getLong(2) / 1e6));
+            }
+        } catch (SQLException e) {
+            detail.append(" (dbstat not available)");
+        }
+        System.out.printf("%-13s file %.1f MB%s%n", schema, Files.size(file) / 1e6, detail);
+    }
+
+    private static void populate(Connection conn, String examId, List<String> studentIds, int questionCount) throws SQLException {
+        String[] options = {"A", "B", "C", "D"};
+        conn.setAutoCommit(false);
+        try (PreparedStatement exam = conn.prepareStatement(
+                "INSERT INTO exams (id, title, duration_minutes, start_time) VALUES (?, 'Schema benchmark', 90, 0)");
+             PreparedStatement question = conn.prepareStatement(
+                     "INSERT INTO questions (id, exam_id, title, type, correct_answer, score) VALUES (?, ?, ?, 'SINGLE_CHOICE', 'A', 2)");
+             PreparedStatement student = conn.prepareStatement("INSERT INTO students (id, name) VALUES (?, ?)");
+             PreparedStatement answer = conn.prepareStatement("INSERT INTO student_answers VALUES (?, ?, ?, ?, ?)")) {
+            exam.setString(1, examId);
+            exam.executeUpdate();
+            List<String> questionIds = new ArrayList<>();
+            for (int i = 0; i < questionCount; i++) {
+                String questionId = UUID.randomUUID().toString();
+                questionIds.add(questionId);
+                question.setString(1, questionId);
+                question.setString(2, examId);
+                question.setString(3, "Question " + i);
+                question.executeUpdate();
+            }
+            for (int s = 0; s < studentIds.size(); s++) {
+                student.setString(1, studentIds.get(s));
+                student.setString(2, "Student " + s);
+                student.executeUpdate();
+                for (int q = 0; q < questionIds.size(); q++) {
+                    String submitted = options[(s + q) % options.length];
+                    answer.setString(1, examId);
+                    answer.setString(2, studentIds.get(s));
+                    answer.setString(3, questionIds.get(q));
+                    answer.setString(4, submitted);
+                    answer.setInt(5, submitted.equals("A") ? 2 : 0);
+                    answer.addBatch();
+                }
+                answer.executeBatch();
+            }
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+    }
+
+    private static Connection open(Path file) throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.enforceForeignKeys(true);
+        return DriverManager.getConnection("jdbc:sqlite:" + file, config.toProperties());
+    }
+}
@@ -0,0 +1,76 @@
+package com.bit.examsystem.teacher.db;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sqlite.SQLiteConfig;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMigrationTest {
+
+    @Test
+    void testMigrateTextKeysToIntegerRowIds(@TempDir Path dir) throws SQLException {
+        try (Connection conn = open(dir.resolve("v1.db"))) {
+            try (Statement stmt = conn.createStatement()) {
+                LegacySchema.create(stmt);
+                stmt.execute("INSERT INTO exams (id, title, duration_minutes, start_time) VALUES ('E1', 'one', 60, 0), ('E2', 'two', 60, 0)");
+                // 题目按插入顺序编号，与 UUID 的字典序相反
+                stmt.execute("INSERT INTO questions (id, exam_id, title, type, correct_answer, score) VALUES " +
+                        "('Q-z', 'E1', 'first', 'JUDGE', 'T', 1), ('Q-a', 'E1', 'second', 'JUDGE', 'F', 2), ('Q-m', 'E2', 'other', 'JUDGE', 'T', 4)");
+                stmt.execute("INSERT INTO students (id, name) VALUES ('S2', 'Bob'), ('S1', 'Alice')");
+                stmt.execute("INSERT INTO student_answers VALUES ('E1', 'S1', 'Q-z', 'T', 1), ('E1', 'S1', 'Q-a', 'T', 0), " +
+                        "('E1', 'S2', 'Q-z', 'F', NULL), ('E2', 'S2', 'Q-m', 'T', 4)");
+                stmt.execute("INSERT INTO exam_results VALUES ('E1', 'S1', 1, 2, 2, 1, 0)");
+            }
+
+            DatabaseManager.migrateToIntegerKeys(conn);
+
+            Statement stmt = conn.createStatement();
+
+            // S2 先登记，行号为 1
+            assertEquals(DatabaseManager.SCHEMA_VERSION, DatabaseManager.getSchemaVersion(conn));
+            assertEquals("1,1,1,F,null|1,2,1,T,1|1,2,2,T,0|2,1,3,T,4",
+                    rows(stmt, "SELECT exam_no, student_no, question_no, answer, score_awarded FROM student_answers " +
+                            "ORDER BY exam_no, student_no, question_no"));
+            assertEquals("1,S2,Bob|2,S1,Alice", rows(stmt, "SELECT student_no, id, name FROM students ORDER BY student_no"));
+            assertEquals("Q-z,Q-a", rows(stmt, "SELECT id FROM questions WHERE exam_id = 'E1' ORDER BY question_no").replace('|', ','));
+            assertEquals("0", rows(stmt, "SELECT COUNT(*) FROM pragma_table_info('student_answers') WHERE name = 'exam_id'"));
+            assertEquals("1", rows(stmt, "SELECT COUNT(*) FROM sqlite_master WHERE name = 'idx_student_answers_results'"));
+
+            // 外键仍然生效：删除考试级联删除答案、成绩；旧表引用的 exams(id) 指向新表
+            stmt.execute("DELETE FROM exams WHERE id = 'E1'");
+            assertEquals("1", rows(stmt, "SELECT COUNT(*) FROM student_answers"));
+            assertEquals("0", rows(stmt, "SELECT COUNT(*) FROM exam_results"));
+            assertThrows(SQLException.class, () -> stmt.execute("INSERT INTO student_answers VALUES (2, 99, 3, 'T', NULL)"));
+        }
+    }
+
+    private static Connection open(Path file) throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.enforceForeignKeys(true);
+        return DriverManager.getConnection("jdbc:sqlite:" + file, config.toProperties());
+    }
+
+    private static String rows(Statement stmt, String sql) throws SQLException {
+        StringBuilder sb = new StringBuilder();
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                if (sb.length() > 0) {
+                    sb.append('|');
+                }
+                for (int i = 1; i <= columns; i++) {
+                    sb.append(i > 1 ? "," : "").append(rs.getString(i));
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
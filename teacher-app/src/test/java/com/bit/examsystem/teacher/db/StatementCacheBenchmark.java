@@ -0,0 +1,77 @@
+package com.bit.examsystem.teacher.db;
+
+import com.bit.examsystem.common.model.ExamPaper;
+import com.bit.examsystem.common.model.QuestionType;
+import com.bit.examsystem.common.model.StudentAnswer;
+import com.bit.examsystem.teacher.db.dao.ExamDAO;
+import com.bit.examsystem.teacher.db.dao.ExamDAOImpl;
+import com.bit.examsystem.teacher.db.dao.StudentAnswerDAO;
+import com.bit.examsystem.teacher.db.dao.StudentAnswerDAOImpl;
+import com.bit.examsystem.teacher.service.GradingService;
+import com.bit.examsystem.teacher.service.GradingServiceImpl;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.bit.examsystem.teacher.BenchmarkFixtures.createExam;
+import static com.bit.examsystem.teacher.BenchmarkFixtures.answers;
+import static com.bit.examsystem.teacher.BenchmarkFixtures.createStudents;
+import static com.bit.examsystem.teacher.BenchmarkFixtures.resetScores;
+import static com.bit.examsystem.teacher.BenchmarkFixtures.cleanUp;
+
+/**
+ * 语句缓存对阅卷的影响 (手动运行 main，不参与单元测试)
+ *
+ * GradingServiceImpl.gradeExam 对每个答案调用一次 updateScore，对比关闭语句缓存 (exam.db.statementCacheSize=0)
+ * 与默认缓存时整场阅卷的耗时。使用当前目录下的 exam.db (与 DAO 测试相同)，结束后删除写入的数据。
+ *
+ * 用法：StatementCacheBenchmark [学生数，默认 500] [题数，默认 100] [轮数，默认 3]
+ */
+public class StatementCacheBenchmark {
+
+    private static final String STUDENT_PREFIX = "CACHE-BENCH-";
+
+    public static void main(String[] args) throws Exception {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int questions = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        DatabaseManager.initializeDatabase();
+        ExamPaper exam = createExam("Statement cache benchmark", questions, 1, QuestionType.SINGLE_CHOICE);
+        ExamDAO examDAO = new ExamDAOImpl();
+        examDAO.save(exam);
+        createStudents(STUDENT_PREFIX, "Student ", students);
+        Map<String, List<StudentAnswer>> submissions = new LinkedHashMap<>();
+        for (int i = 0; i < students; i++) {
+            submissions.put(STUDENT_PREFIX + i, answers(exam, i));
+        }
+        StudentAnswerDAO answerDAO = new StudentAnswerDAOImpl();
+        answerDAO.saveSubmissions(exam.getExamId(), submissions);
+
+        GradingService gradingService = new GradingServiceImpl();
+        try {
+            for (int round = 0; round <= rounds; round++) {
+                String label = round == 0 ? "warmup" : "round " + round;
+                for (int cacheSize : new int[]{0, 64}) {
+                    DatabaseManager.shutdown();
+                    System.setProperty("exam.db.statementCacheSize", String.valueOf(cacheSize));
+                    resetScores(exam.getExamId());
+
+                    StatementCacheStats before = DatabaseManager.getStatementCacheStats();
+                    long start = System.nanoTime();
+                    gradingService.gradeExam(exam);
+                    long elapsed = System.nanoTime() - start;
+                    StatementCacheStats after = DatabaseManager.getStatementCacheStats();
+
+                    System.out.printf("cache %-3d %-8s %d answers graded in %8.2f ms   %6.2f us/answer   %d hits, %d misses%n",
+                            cacheSize, label, students * questions, elapsed / 1e6, elapsed / 1e3 / (students * questions),
+                            after.getHits() - before.getHits(), after.getMisses() - before.getMisses());
+                }
+            }
+        } finally {
+            cleanUp(exam, STUDENT_PREFIX);
+            DatabaseManager.shutdown();
+        }
+    }
+}
@@ -27,6 +27,12 @@ class ExamDAOImplTest {
         DatabaseManager.initializeDatabase();
     }
 
+    @AfterAll
+    static void closeDatabase() {
+        // Close the pooled connections so SQLite checkpoints and removes the WAL files
+        DatabaseManager.shutdown();
+    }
+
     @BeforeEach
     void setUp() throws SQLException {
         // Instantiate DAOs for each test
@@ -0,0 +1,146 @@
+package com.bit.examsystem.teacher.network;
+
+import com.bit.examsystem.common.model.Student;
+import io.netty.channel.Channel;
+import io.netty.channel.DefaultChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientConnectionManagerTest {
+
+    private static final int THREADS = 16;
+
+    private final ClientConnectionManager manager = ClientConnectionManager.getInstance();
+    private final List<EmbeddedChannel> channels = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        // 单例在测试间共享，清理本测试登录的学生
+        for (EmbeddedChannel channel : channels) {
+            manager.removeStudent(channel);
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    private EmbeddedChannel newChannel() {
+        // EmbeddedChannel 默认共用同一个 ChannelId，这里为每个连接生成独立的 ID
+        EmbeddedChannel channel = new EmbeddedChannel(DefaultChannelId.newInstance());
+        channels.add(channel);
+        return channel;
+    }
+
+    private static Student student(String id) {
+        Student student = new Student();
+        student.setId(id);
+        student.setName("Student " + id);
+        return student;
+    }
+
+    /**
+     * 模拟 TeacherBusinessHandler 的登录流程：先占用学号，成功后再加入在线列表
+     */
+    private boolean login(Channel channel, Student student) {
+        if (!manager.claimStudentId(student.getId(), channel)) {
+            return false;
+        }
+        manager.addStudent(channel, student);
+        return true;
+    }
+
+    @Test
+    void testParallelLoginsWithSameIdCreateOneSession() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < 50; round++) {
+                String id = "DUP" + round;
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (int i = 0; i < THREADS; i++) {
+                    EmbeddedChannel channel = newChannel();
+                    results.add(pool.submit(() -> {
+                        start.await();
+                        return login(channel, student(id));
+                    }));
+                }
+                start.countDown();
+
+                int accepted = 0;
+                for (Future<Boolean> result : results) {
+                    if (result.get(10, TimeUnit.SECONDS)) {
+                        accepted++;
+                    }
+                }
+                assertEquals(1, accepted, "同一学号并发登录只能有一个会话");
+                long sessions = manager.getOnlineStudents().stream().filter(s -> id.equals(s.getId())).count();
+                assertEquals(1, sessions);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testParallelLoginsWithDistinctIdsAreIndexed() throws Exception {
+        int students = 1000;
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<EmbeddedChannel> loginChannels = new ArrayList<>();
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < students; i++) {
+                EmbeddedChannel channel = newChannel();
+                loginChannels.add(channel);
+                String id = String.format("S%05d", i);
+                results.add(pool.submit(() -> login(channel, student(id))));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(10, TimeUnit.SECONDS));
+            }
+
+            // 按学号 O(1) 找到对应的 Channel
+            for (int i = 0; i < students; i++) {
+                String id = String.format("S%05d", i);
+                assertTrue(manager.isStudentIdOnline(id));
+                assertSame(loginChannels.get(i), manager.getChannel(id));
+                assertEquals(id, manager.getStudent(loginChannels.get(i).id()).getId());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testDisconnectReleasesIdForRelogin() {
+        EmbeddedChannel first = newChannel();
+        EmbeddedChannel second = newChannel();
+
+        assertTrue(login(first, student("RELOGIN")));
+        assertFalse(login(second, student("RELOGIN")));
+
+        // 登录失败的一方不能释放别人的学号
+        manager.releaseStudentId("RELOGIN", second);
+        assertSame(first, manager.getChannel("RELOGIN"));
+
+        // 断开后学号释放，可以重新登录
+        manager.removeStudent(first);
+        assertFalse(manager.isStudentIdOnline("RELOGIN"));
+        assertTrue(login(second, student("RELOGIN")));
+        assertSame(second, manager.getChannel("RELOGIN"));
+
+        // 只占用了学号、尚未加入在线列表的连接断开时也会释放
+        EmbeddedChannel claimedOnly = newChannel();
+        assertTrue(manager.claimStudentId("CLAIMED", claimedOnly));
+        assertNull(manager.removeStudent(claimedOnly));
+        assertFalse(manager.isStudentIdOnline("CLAIMED"));
+    }
+}
@@ -0,0 +1,209 @@
+package com.bit.examsystem.teacher.network;
+
+import com.bit.examsystem.common.message.Message;
+import com.bit.examsystem.common.message.MessageType;
+import com.bit.examsystem.common.model.StudentAnswer;
+import com.bit.examsystem.common.network.ProtocolInitializer;
+import com.bit.examsystem.common.network.TransportFactory;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.GlobalEventExecutor;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 交卷高峰时 worker EventLoop 的调度延迟 (手动运行 main，不参与单元测试)
+ *
+ * N 个客户端同时提交答卷，服务端像 SubmissionServiceImpl 一样每份答卷用一个新连接、一个事务写入临时 SQLite 文件，
+ * 然后回复 RESULT_PUB (代替回执)。对比两种部署：
+ * <ul>
+ *     <li>event-loop：业务 Handler 直接在 worker EventLoop 上执行 (旧行为)</li>
+ *     <li>executor：业务 Handler 在 DefaultEventExecutorGroup 上执行 (TeacherServer 的新默认值)</li>
+ * </ul>
+ * 两种情况下都用 {@link EventLoopLatencyProbe} 每 10ms 探测一次 worker EventLoop。
+ *
+ * 用法：EventLoopLatencyBenchmark [客户端数，默认 300] [每份答卷题数，默认 20] [worker 线程数，默认 2]
+ */
+public class EventLoopLatencyBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int answers = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        System.setProperty("exam.net.latencyProbeMillis", "10");
+
+        File db = File.createTempFile("event-loop-latency", ".db");
+        db.deleteOnExit();
+        String url = "jdbc:sqlite:" + db.getAbsolutePath();
+        try (Connection conn = DriverManager.getConnection(url); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE student_answers (exam_id TEXT, student_id TEXT, question_id TEXT, answer TEXT, "
+                    + "PRIMARY KEY (exam_id, student_id, question_id))");
+        }
+
+        TransportFactory transport = TransportFactory.getInstance();
+        for (int round = 0; round <= 3; round++) {
+            run(transport, url, clients, answers, workers, 0, round);
+            run(transport, url, clients, answers, workers, TeacherServer.BUSINESS_THREADS, round);
+        }
+    }
+
+    private static void run(TransportFactory transport, String url, int clients, int answers, int workers,
+                            int businessThreads, int round) throws Exception {
+        EventLoopGroup bossGroup = transport.newEventLoopGroup(1);
+        EventLoopGroup workerGroup = transport.newEventLoopGroup(workers);
+        EventLoopGroup clientGroup = transport.newEventLoopGroup(0);
+        EventExecutorGroup businessGroup = businessThreads > 0 ? new DefaultEventExecutorGroup(businessThreads) : null;
+        EventLoopLatencyProbe probe = new EventLoopLatencyProbe();
+        SubmitHandler handler = new SubmitHandler(url, round);
+        ChannelGroup accepted = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+        try {
+            ServerBootstrap server = new ServerBootstrap();
+            transport.configure(server)
+                    .group(bossGroup, workerGroup)
+                    .option(ChannelOption.SO_BACKLOG, clients)
+                    .childHandler(new ProtocolInitializer() {
+                        @Override
+                        protected void addBusinessHandler(SocketChannel ch) {
+                            accepted.add(ch);
+                            ch.pipeline().addLast(businessGroup, "submitHandler", handler);
+                        }
+                    });
+            Channel serverChannel = server.bind("127.0.0.1", 0).sync().channel();
+            InetSocketAddress address = (InetSocketAddress) serverChannel.localAddress();
+            probe.start(workerGroup);
+
+            CountDownLatch acked = new CountDownLatch(clients);
+            List<Channel> channels = new ArrayList<>(clients);
+            long start = System.nanoTime();
+            for (int i = 0; i < clients; i++) {
+                final String studentId = String.format("S%05d", i);
+                Bootstrap client = new Bootstrap();
+                transport.configure(client)
+                        .group(clientGroup)
+                        .option(ChannelOption.TCP_NODELAY, true)
+                        .handler(new ProtocolInitializer() {
+                            @Override
+                            protected void addBusinessHandler(SocketChannel ch) {
+                                ch.pipeline().addLast(new SubmitClientHandler(studentId, answers, acked));
+                            }
+                        });
+                channels.add(client.connect(address).channel());
+            }
+            boolean completed = acked.await(120, TimeUnit.SECONDS);
+            long elapsed = System.nanoTime() - start;
+            EventLoopLatency latency = probe.sample();
+            probe.stop();
+
+            System.out.printf("%-10s %-8s %d submissions in %8.2f ms%s   lag avg %7.2f ms   max %7.2f ms%n",
+                    businessGroup == null ? "event-loop" : "executor", round == 0 ? "warmup" : "round " + round,
+                    clients - acked.getCount(), elapsed / 1e6, completed ? "" : " (timed out)",
+                    latency.getAvgMillis(), latency.getMaxMillis());
+
+            for (Channel channel : channels) {
+                channel.close();
+            }
+            serverChannel.close().sync();
+            accepted.close().sync();
+        } finally {
+            clientGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            workerGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            bossGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            if (businessGroup != null) {
+                businessGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+            }
+        }
+    }
+
+    @ChannelHandler.Sharable
+    private static class SubmitHandler extends SimpleChannelInboundHandler<Message<Object>> {
+        private final String url;
+        private final String examId;
+
+        SubmitHandler(String url, int round) {
+            this.url = url;
+            this.examId = "EXAM-" + round + "-" + System.nanoTime();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void channelRead0(ChannelHandlerContext ctx, Message<Object> msg) throws SQLException {
+            if (msg.getType() != MessageType.ANSWER_SUBMIT) {
+                return;
+            }
+            List<StudentAnswer> answers = (List<StudentAnswer>) msg.getBody();
+            String studentId = answers.get(0).getQuestionId().split("/")[0];
+            // 与 StudentAnswerDAOImpl.saveBatch 相同：新连接、一个事务、逐条 INSERT OR REPLACE
+            try (Connection conn = DriverManager.getConnection(url)) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "INSERT OR REPLACE INTO student_answers VALUES (?, ?, ?, ?)")) {
+                    for (StudentAnswer answer : answers) {
+                        ps.setString(1, examId);
+                        ps.setString(2, studentId);
+                        ps.setString(3, answer.getQuestionId());
+                        ps.setString(4, answer.getAnswer());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                // SQLite 同一时刻只允许一个写事务，并发写入时可能报 SQLITE_BUSY，这里不重试
+                System.err.println("Benchmark insert failed: " + e.getMessage());
+            }
+            ctx.writeAndFlush(new Message<>(MessageType.RESULT_PUB, 0));
+        }
+    }
+
+    private static class SubmitClientHandler extends SimpleChannelInboundHandler<Message<Object>> {
+        private final String studentId;
+        private final int answers;
+        private final CountDownLatch acked;
+
+        SubmitClientHandler(String studentId, int answers, CountDownLatch acked) {
+            this.studentId = studentId;
+            this.answers = answers;
+            this.acked = acked;
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            List<StudentAnswer> list = new ArrayList<>(answers);
+            for (int i = 0; i < answers; i++) {
+                StudentAnswer answer = new StudentAnswer();
+                answer.setQuestionId(studentId + "/Q" + i);
+                answer.setAnswer("A");
+                list.add(answer);
+            }
+            ctx.writeAndFlush(new Message<>(MessageType.ANSWER_SUBMIT, list));
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, Message<Object> msg) {
+            if (msg.getType() == MessageType.RESULT_PUB) {
+                acked.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.bit.examsystem.teacher.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowConsumerHandlerTest {
+
+    private static ByteBuf frame(int size) {
+        return Unpooled.buffer(size).writeZero(size);
+    }
+
+    @Test
+    void testPacedFramesAreSentInOrderOnceWritable() {
+        EmbeddedChannel channel = new EmbeddedChannel(new SlowConsumerHandler());
+        channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(8, 16));
+
+        // 写入但未 flush，出站缓冲超过高水位，Channel 不可写
+        channel.write(frame(32));
+        assertFalse(channel.isWritable());
+        assertTrue(SlowConsumerHandler.isLagging(channel));
+
+        // 广播帧进入待发队列，而不是继续堆在出站缓冲里
+        long outboundBytes = SlowConsumerHandler.pendingBytes(channel);
+        SlowConsumerHandler.pace(channel, frame(10));
+        SlowConsumerHandler.pace(channel, frame(11));
+        channel.runPendingTasks();
+        assertEquals(outboundBytes + 10 + 11, SlowConsumerHandler.pendingBytes(channel));
+
+        // 缓冲发出后恢复可写，待发帧按顺序写出
+        channel.flush();
+        channel.runPendingTasks();
+        assertEquals(32, ((ByteBuf) channel.readOutbound()).readableBytes());
+        ByteBuf first = channel.readOutbound();
+        assertEquals(10, first.readableBytes());
+        first.release();
+
+        // 第一帧写出后又超过高水位时，第二帧继续等待
+        channel.flush();
+        channel.runPendingTasks();
+        ByteBuf second = channel.readOutbound();
+        assertEquals(11, second.readableBytes());
+        second.release();
+        assertEquals(0, SlowConsumerHandler.pendingBytes(channel));
+        assertFalse(SlowConsumerHandler.isLagging(channel));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void testPacedBytesAreReleasedWhenChannelCloses() {
+        EmbeddedChannel channel = new EmbeddedChannel(new SlowConsumerHandler());
+        channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(8, 16));
+        channel.write(frame(32));
+
+        ByteBuf paced = frame(10);
+        SlowConsumerHandler.pace(channel, paced);
+        channel.runPendingTasks();
+        assertEquals(1, paced.refCnt());
+
+        channel.close();
+        assertEquals(0, paced.refCnt());
+        channel.finishAndReleaseAll();
+    }
+}
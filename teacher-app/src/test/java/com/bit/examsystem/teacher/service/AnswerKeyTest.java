@@ -0,0 +1,127 @@
+package com.bit.examsystem.teacher.service;
+
+import com.bit.examsystem.common.model.ExamPaper;
+import com.bit.examsystem.common.model.Question;
+import com.bit.examsystem.common.model.QuestionType;
+import com.bit.examsystem.common.model.StudentAnswer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnswerKeyTest {
+
+    private static final String[] KEYS = {
+            "A", "a", " B ", "AB", "BA", "ab", "ACD", "AAB", "A,B", "", "true", "False", "对", "Java", " hello world ", "Ｊａｖａ"
+    };
+    private static final String[] ANSWERS = {
+            null, "", "   ", "\t", "A", "a", " A ", "B", "b", "AB", "BA", "ba", "Ab", "A B", "AAB", "ABA", "DCA", "CAD", "A,B", "B,A",
+            "true", "TRUE", " true\n", "false", "对", "错", "Java", "java", " JAVA ", "hello world", "HELLO WORLD", "Ｊａｖａ", "x"
+    };
+
+    /**
+     * 单选、多选、判断：对所有标准答案和回答的组合，结果与原来的逐题算法完全相同
+     */
+    @Test
+    void testChoiceAndJudgeMatchLegacyAlgorithm() {
+        for (QuestionType type : new QuestionType[]{QuestionType.SINGLE_CHOICE, QuestionType.MULTI_CHOICE, QuestionType.JUDGE}) {
+            for (String key : KEYS) {
+                Question q = question(type, key);
+                AnswerKey answerKey = AnswerKey.compile(exam(q));
+                for (String submitted : ANSWERS) {
+                    assertEquals(legacyScore(q, submitted), answerKey.score(answer(q, submitted)),
+                            type + " key '" + key + "' answer '" + submitted + "'");
+                }
+            }
+        }
+    }
+
+    /**
+     * 填空：原算法判对的回答仍然判对；只在全角、内部空白和 '|' 备选答案上更宽松
+     */
+    @Test
+    void testFillInAcceptsEverythingLegacyAccepts() {
+        for (String key : KEYS) {
+            Question q = question(QuestionType.FILL_IN, key);
+            AnswerKey answerKey = AnswerKey.compile(exam(q));
+            for (String submitted : ANSWERS) {
+                int legacy = legacyScore(q, submitted);
+                if (legacy > 0) {
+                    assertEquals(legacy, answerKey.score(answer(q, submitted)), "key '" + key + "' answer '" + submitted + "'");
+                }
+            }
+        }
+
+        Question q = question(QuestionType.FILL_IN, "Java|Java 虚拟机 | JVM");
+        AnswerKey answerKey = AnswerKey.compile(exam(q));
+        assertEquals(5, answerKey.score(answer(q, "java")));
+        assertEquals(5, answerKey.score(answer(q, "Ｊａｖａ")));          // 全角
+        assertEquals(5, answerKey.score(answer(q, "java　 虚拟机")));     // 全角空格和连续空白
+        assertEquals(5, answerKey.score(answer(q, " jvm ")));
+        assertEquals(0, answerKey.score(answer(q, "Java|JVM")));        // 学生回答中的 '|' 不是分隔符
+        assertEquals(0, answerKey.score(answer(q, "javascript")));
+        assertEquals(0, answerKey.score(answer(q, "")));
+    }
+
+    @Test
+    void testUnknownQuestionAndMissingKey() {
+        Question q = question(QuestionType.SINGLE_CHOICE, "A");
+        AnswerKey answerKey = AnswerKey.compile(exam(q));
+        StudentAnswer other = new StudentAnswer();
+        other.setQuestionId("not-in-exam");
+        other.setAnswer("A");
+        assertNull(answerKey.score(other));
+
+        Question noKey = question(QuestionType.SINGLE_CHOICE, null);
+        assertEquals(0, AnswerKey.compile(exam(noKey)).score(answer(noKey, "A")));
+    }
+
+    /**
+     * 原 GradingServiceImpl.calculateScore
+     */
+    private static int legacyScore(Question question, String submitted) {
+        String correctAnswer = question.getCorrectAnswer();
+        if (correctAnswer == null || submitted == null || submitted.trim().isEmpty()) {
+            return 0;
+        }
+        correctAnswer = correctAnswer.trim();
+        submitted = submitted.trim();
+        QuestionType type = question.getType();
+        if (type == QuestionType.SINGLE_CHOICE || type == QuestionType.FILL_IN || type == QuestionType.JUDGE) {
+            return correctAnswer.equalsIgnoreCase(submitted) ? question.getScore() : 0;
+        } else if (type == QuestionType.MULTI_CHOICE) {
+            char[] correctChars = correctAnswer.toCharArray();
+            char[] submittedChars = submitted.toCharArray();
+            Arrays.sort(correctChars);
+            Arrays.sort(submittedChars);
+            return Arrays.equals(correctChars, submittedChars) ? question.getScore() : 0;
+        }
+        return 0;
+    }
+
+    private static Question question(QuestionType type, String correct) {
+        Question q = new Question();
+        q.setId(type + "-" + correct);
+        q.setType(type);
+        q.setCorrectAnswer(correct);
+        q.setScore(5);
+        return q;
+    }
+
+    private static ExamPaper exam(Question q) {
+        ExamPaper exam = new ExamPaper();
+        exam.setExamId("EXAM");
+        exam.setQuestions(new ArrayList<>(List.of(q)));
+        return exam;
+    }
+
+    private static StudentAnswer answer(Question q, String submitted) {
+        StudentAnswer answer = new StudentAnswer();
+        answer.setQuestionId(q.getId());
+        answer.setAnswer(submitted);
+        return answer;
+    }
+}
@@ -0,0 +1,113 @@
+package com.bit.examsystem.teacher.service;
+
+import com.bit.examsystem.common.model.ExamPaper;
+import com.bit.examsystem.common.model.Question;
+import com.bit.examsystem.common.model.QuestionType;
+import com.bit.examsystem.common.model.StudentAnswer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnswerMatrixTest {
+
+    // 覆盖大小写、空白、重复选项、非法字符等与 AnswerKey 规则相关的情况
+    private static final String[] SINGLE_ANSWERS = {"A", "a", " B ", "C", "D", "AB", "", "  ", null, "E", "x", "AA"};
+    private static final String[] MULTI_ANSWERS = {"AB", "BA", "ab", "A", "ABC", "AAB", "A B", "", null, "H", "ABCDEFGH", "CB"};
+    private static final String[] JUDGE_ANSWERS = {"true", "TRUE", " True ", "false", "对", "", null, "t", "yes"};
+
+    @Test
+    void testMatrixMatchesAnswerKey() {
+        ExamPaper exam = createExam(70); // 超过 64 题，对错位图跨两个 long，且列数不是 8 的倍数
+        AnswerKey answerKey = AnswerKey.compile(exam);
+        AnswerMatrix matrix = AnswerMatrix.forExam(exam);
+        Random random = new Random(42);
+
+        List<List<StudentAnswer>> rows = new ArrayList<>();
+        for (int s = 0; s < 200; s++) {
+            List<StudentAnswer> answers = new ArrayList<>();
+            for (Question q : exam.getQuestions()) {
+                String[] pool = switch (q.getType()) {
+                    case SINGLE_CHOICE -> SINGLE_ANSWERS;
+                    case MULTI_CHOICE -> MULTI_ANSWERS;
+                    case JUDGE -> JUDGE_ANSWERS;
+                    case FILL_IN -> new String[]{"Java", "java", "C"};
+                };
+                StudentAnswer answer = new StudentAnswer();
+                answer.setQuestionId(q.getId());
+                answer.setAnswer(pool[random.nextInt(pool.length)]);
+                answers.add(answer);
+            }
+            rows.add(answers);
+            matrix.addStudent("S" + s, answers);
+        }
+
+        AnswerMatrix.Result swar = matrix.grade(true);
+        AnswerMatrix.Result scalar = matrix.grade(false);
+        assertArrayEquals(scalar.totals(), swar.totals());
+        assertArrayEquals(scalar.correctCounts(), swar.correctCounts());
+        assertArrayEquals(scalar.correctBits(), swar.correctBits());
+
+        int[] expectedCounts = new int[matrix.getQuestionIds().size()];
+        for (int row = 0; row < rows.size(); row++) {
+            int expectedTotal = 0;
+            for (StudentAnswer answer : rows.get(row)) {
+                int column = matrix.columnOf(answer.getQuestionId());
+                if (column < 0) {
+                    continue; // 填空题不在矩阵中
+                }
+                int expected = answerKey.score(answer);
+                boolean correct = expected > 0;
+                assertEquals(correct, swar.isCorrect(row, column),
+                        "row " + row + " column " + column + " answer '" + answer.getAnswer() + "'");
+                expectedTotal += expected;
+                if (correct) {
+                    expectedCounts[column]++;
+                }
+            }
+            assertEquals(expectedTotal, swar.totals()[row]);
+        }
+        assertArrayEquals(expectedCounts, swar.correctCounts());
+    }
+
+    @Test
+    void testUnencodableQuestionsStayOutOfMatrix() {
+        ExamPaper exam = createExam(0);
+        exam.getQuestions().add(question(QuestionType.FILL_IN, "Java"));
+        exam.getQuestions().add(question(QuestionType.SINGLE_CHOICE, "Z"));
+        exam.getQuestions().add(question(QuestionType.MULTI_CHOICE, "ab"));  // 多选按字符比较，区分大小写
+        exam.getQuestions().add(question(QuestionType.JUDGE, null));
+        Question choice = question(QuestionType.MULTI_CHOICE, "CA");
+        exam.getQuestions().add(choice);
+
+        AnswerMatrix matrix = AnswerMatrix.forExam(exam);
+        assertEquals(List.of(choice.getId()), matrix.getQuestionIds());
+    }
+
+    private static ExamPaper createExam(int count) {
+        ExamPaper exam = new ExamPaper();
+        exam.setExamId("EXAM");
+        exam.setQuestions(new ArrayList<>());
+        for (int i = 0; i < count; i++) {
+            switch (i % 4) {
+                case 0 -> exam.getQuestions().add(question(QuestionType.SINGLE_CHOICE, i % 8 == 0 ? "a" : "B"));
+                case 1 -> exam.getQuestions().add(question(QuestionType.MULTI_CHOICE, i % 8 == 1 ? "BA" : "H"));
+                case 2 -> exam.getQuestions().add(question(QuestionType.JUDGE, i % 8 == 2 ? "True" : "对"));
+                default -> exam.getQuestions().add(question(QuestionType.FILL_IN, "Java"));
+            }
+        }
+        return exam;
+    }
+
+    private static Question question(QuestionType type, String correct) {
+        Question q = new Question();
+        q.setId(type + "-" + System.nanoTime() + "-" + Math.random());
+        q.setType(type);
+        q.setCorrectAnswer(correct);
+        q.setScore(type == QuestionType.MULTI_CHOICE ? 3 : 2);
+        return q;
+    }
+}
@@ -0,0 +1,55 @@
+package com.bit.examsystem.teacher.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvWriterTest {
+
+    @Test
+    void testQuotingAndNumbers() throws IOException {
+        String csv = write(CsvWriter.DEFAULT_BUFFER_SIZE, w -> {
+            w.row("id", "name");
+            w.field("a,b").field("say \"hi\"").field("two\nlines").field((String) null).endRow();
+            w.field(0).field(-42).field(Long.MIN_VALUE).field((Integer) null).field(Integer.valueOf(7)).endRow();
+        });
+        assertEquals("\uFEFFid,name\r\n"
+                + "\"a,b\",\"say \"\"hi\"\"\",\"two\nlines\",\r\n"
+                + "0,-42,-9223372036854775808,,7\r\n", csv);
+    }
+
+    @Test
+    void testSmallBuffersKeepMultiByteCharactersIntact() throws IOException {
+        // 缓冲区只有 3 个字符：汉字 (3 字节) 和代理对 (4 字节) 都会跨越缓冲区边界
+        StringBuilder expected = new StringBuilder("\uFEFF");
+        String text = "张三😀李四,\"测试\"";
+        String row = "\"张三😀李四,\"\"测试\"\"\"," + 123456 + "\r\n";
+        String csv = write(3, w -> {
+            for (int i = 0; i < 100; i++) {
+                w.field(text).field(123456).endRow();
+            }
+        });
+        for (int i = 0; i < 100; i++) {
+            expected.append(row);
+        }
+        assertEquals(expected.toString(), csv);
+    }
+
+    private interface Rows {
+        void write(CsvWriter writer) throws IOException;
+    }
+
+    private static String write(int bufferSize, Rows rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvWriter writer = new CsvWriter(Channels.newChannel(out), bufferSize);
+        rows.write(writer);
+        writer.close();
+        assertEquals(out.size(), writer.getBytesWritten());
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
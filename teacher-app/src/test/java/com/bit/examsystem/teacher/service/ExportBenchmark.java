@@ -0,0 +1,148 @@
+package com.bit.examsystem.teacher.service;
+
+import com.bit.examsystem.common.model.ExamPaper;
+import com.bit.examsystem.common.model.Question;
+import com.bit.examsystem.common.model.QuestionType;
+import com.bit.examsystem.common.model.StudentAnswer;
+import com.bit.examsystem.teacher.db.DatabaseManager;
+import com.bit.examsystem.teacher.db.dao.ExamDAO;
+import com.bit.examsystem.teacher.db.dao.ExamDAOImpl;
+import com.bit.examsystem.teacher.db.dao.StudentAnswerDAO;
+import com.bit.examsystem.teacher.db.dao.StudentAnswerDAOImpl;
+import com.bit.examsystem.teacher.dto.GradedAnswer;
+import com.bit.examsystem.teacher.dto.StudentResult;
+
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+import static com.bit.examsystem.teacher.BenchmarkFixtures.createExam;
+import static com.bit.examsystem.teacher.BenchmarkFixtures.answers;
+import static com.bit.examsystem.teacher.BenchmarkFixtures.createStudents;
+import static com.bit.examsystem.teacher.BenchmarkFixtures.cleanUp;
+
+/**
+ * CSV 导出的耗时和内存分配 (手动运行 main，不参与单元测试)
+ *
+ * 合成一场已批改的考试，对比：
+ * <ul>
+ *     <li>summary-list：先读出全部 StudentResult，再逐行 String.format 写入 OutputStreamWriter (旧的 exportToCsv)</li>
+ *     <li>summary-stream：ResultService.exportSummaryCsv</li>
+ *     <li>sheet-list：先读出全部已批改答案 (findGradedAnswersByExamId)，再逐行 String.format 写入</li>
+ *     <li>sheet-stream：ResultService.exportAnswerSheetCsv</li>
+ * </ul>
+ * 最后取消一次明细导出，检查不留下文件。
+ * 使用当前目录下的 exam.db 和临时目录，结束后删除写入的数据。
+ *
+ * 用法：ExportBenchmark [学生数，默认 2000] [题数，默认 50] [轮数，默认 5]
+ */
+public class ExportBenchmark {
+
+    private static final String STUDENT_PREFIX = "EXPORT-BENCH-";
+
+    public static void main(String[] args) throws Exception {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int questions = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        DatabaseManager.initializeDatabase();
+        ExamPaper exam = createExam("Export benchmark", questions, 2, QuestionType.SINGLE_CHOICE);
+        ExamDAO examDAO = new ExamDAOImpl();
+        examDAO.save(exam);
+        createStudents(STUDENT_PREFIX, "Student, ", students); // 姓名含逗号，需要加引号
+        Map<String, List<StudentAnswer>> submissions = new LinkedHashMap<>();
+        for (int i = 0; i < students; i++) {
+            submissions.put(STUDENT_PREFIX + i, answers(exam, i));
+        }
+        StudentAnswerDAO answerDAO = new StudentAnswerDAOImpl();
+        answerDAO.saveSubmissions(exam.getExamId(), submissions);
+        new GradingServiceImpl().gradeExam(exam, false);
+
+        ResultService resultService = new ResultService();
+        Path dir = Files.createTempDirectory("export-bench");
+        Path file = dir.resolve("export.csv");
+        String examId = exam.getExamId();
+        try {
+            for (int round = 0; round <= rounds; round++) {
+                String label = round == 0 ? "warmup" : "round " + round;
+
+                measure("summary-list", label, file, () -> {
+                    List<StudentResult> results = resultService.getResultsForExam(examId);
+                    try (Writer writer = new OutputStreamWriter(new FileOutputStream(file.toFile()), StandardCharsets.UTF_8)) {
+                        writer.write('\uFEFF');
+                        writer.append("Student ID,Student Name,Total Score\n");
+                        for (StudentResult result : results) {
+                            writer.append(String.format("%s,%s,%d\n",
+                                    result.getStudentId(), result.getStudentName(), result.getTotalScore()));
+                        }
+                    }
+                    return results.size();
+                });
+                measure("summary-stream", label, file,
+                        () -> resultService.exportSummaryCsv(examId, file, (rows, total) -> true));
+
+                measure("sheet-list", label, file, () -> {
+                    Map<String, List<GradedAnswer>> all = answerDAO.findGradedAnswersByExamId(examId);
+                    Map<String, Question> byId = new HashMap<>();
+                    for (Question q : exam.getQuestions()) {
+                        byId.put(q.getId(), q);
+                    }
+                    long rows = 0;
+                    try (Writer writer = new OutputStreamWriter(new FileOutputStream(file.toFile()), StandardCharsets.UTF_8)) {
+                        writer.write('\uFEFF');
+                        writer.append("Student ID,Question,Answer,Score,Max Score\n");
+                        for (Map.Entry<String, List<GradedAnswer>> entry : all.entrySet()) {
+                            for (GradedAnswer answer : entry.getValue()) {
+                                Question q = byId.get(answer.getQuestionId());
+                                writer.append(String.format("%s,%s,%s,%d,%d\n", entry.getKey(), q.getTitle(),
+                                        answer.getAnswer(), answer.getScoreAwarded(), q.getScore()));
+                                rows++;
+                            }
+                        }
+                    }
+                    return rows;
+                });
+                measure("sheet-stream", label, file,
+                        () -> resultService.exportAnswerSheetCsv(examId, file, (rows, total) -> true));
+            }
+
+            Path cancelled = dir.resolve("cancelled.csv");
+            try {
+                resultService.exportAnswerSheetCsv(examId, cancelled, (rows, total) -> rows < total / 2);
+                System.out.println("cancel: export was not cancelled!");
+            } catch (CancellationException e) {
+                System.out.printf("cancel: %s, file left behind: %b%n", e.getMessage(),
+                        Files.exists(cancelled) || Files.exists(dir.resolve("cancelled.csv.part")));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+            cleanUp(exam, STUDENT_PREFIX);
+            DatabaseManager.shutdown();
+        }
+    }
+
+    private interface Export {
+        long run() throws Exception;
+    }
+
+    private static void measure(String mode, String label, Path file, Export export) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long rows = export.run();
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        System.out.printf("%-14s %-8s %7d rows in %8.2f ms, %8.1f MB allocated, %7.1f KB file%n",
+                mode, label, rows, elapsed / 1e6, allocated / 1e6, Files.size(file) / 1e3);
+    }
+}
@@ -0,0 +1,131 @@
+package com.bit.examsystem.teacher.service;
+
+import com.bit.examsystem.common.model.ExamPaper;
+import com.bit.examsystem.common.model.Question;
+import com.bit.examsystem.common.model.QuestionType;
+import com.bit.examsystem.common.model.StudentAnswer;
+import com.bit.examsystem.teacher.db.DatabaseManager;
+import com.bit.examsystem.teacher.db.dao.ExamDAO;
+import com.bit.examsystem.teacher.db.dao.ExamDAOImpl;
+import com.bit.examsystem.teacher.db.dao.StudentAnswerDAO;
+import com.bit.examsystem.teacher.db.dao.StudentAnswerDAOImpl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.bit.examsystem.teacher.BenchmarkFixtures.createExam;
+import static com.bit.examsystem.teacher.BenchmarkFixtures.answers;
+import static com.bit.examsystem.teacher.BenchmarkFixtures.createStudents;
+import static com.bit.examsystem.teacher.BenchmarkFixtures.resetScores;
+import static com.bit.examsystem.teacher.BenchmarkFixtures.cleanUp;
+import static com.bit.examsystem.teacher.BenchmarkFixtures.report;
+
+/**
+ * 阅卷耗时 (手动运行 main，不参与单元测试)
+ *
+ * 合成一场 1000 人的考试，题型按 单选 40% / 多选 20% / 判断 20% / 填空 20% 分布，对比：
+ * <ul>
+ *     <li>per-answer：每个答案一条 updateScore (旧写法，同一事务)</li>
+ *     <li>batched：gradeExam(exam, false)，内存中计算分数，按 exam.db.gradingBatchSize 行一批写回</li>
+ *     <li>set-based：gradeExam(exam, true)，单选和判断由一条 UPDATE ... FROM questions 完成，其余题型同 batched</li>
+ * </ul>
+ * 每次运行前把分数清空，结束后打印总分校验三种方式结果一致。使用当前目录下的 exam.db，结束后删除写入的数据。
+ *
+ * 用法：GradingBenchmark [学生数，默认 1000] [题数，默认 50] [轮数，默认 3]
+ */
+public class GradingBenchmark {
+
+    private static final String STUDENT_PREFIX = "GRADING-BENCH-";
+
+    public static void main(String[] args) throws Exception {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int questions = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        DatabaseManager.initializeDatabase();
+        ExamPaper exam = createExam("Grading benchmark", questions, 2, QuestionType.SINGLE_CHOICE, QuestionType.SINGLE_CHOICE,
+                QuestionType.MULTI_CHOICE, QuestionType.JUDGE, QuestionType.FILL_IN);
+        ExamDAO examDAO = new ExamDAOImpl();
+        examDAO.save(exam);
+        createStudents(STUDENT_PREFIX, "Student ", students);
+        Map<String, List<StudentAnswer>> submissions = new LinkedHashMap<>();
+        for (int i = 0; i < students; i++) {
+            submissions.put(STUDENT_PREFIX + i, answers(exam, i));
+        }
+        StudentAnswerDAO answerDAO = new StudentAnswerDAOImpl();
+        answerDAO.saveSubmissions(exam.getExamId(), submissions);
+
+        GradingService gradingService = new GradingServiceImpl();
+        int answers = students * questions;
+        try {
+            for (int round = 0; round <= rounds; round++) {
+                String label = round == 0 ? "warmup" : "round " + round;
+
+                resetScores(exam.getExamId());
+                long start = System.nanoTime();
+                gradePerAnswer(exam, answerDAO);
+                report("per-answer", label, answers, "answers", System.nanoTime() - start, totalScore(exam.getExamId()));
+
+                resetScores(exam.getExamId());
+                start = System.nanoTime();
+                gradingService.gradeExam(exam, false);
+                report("batched", label, answers, "answers", System.nanoTime() - start, totalScore(exam.getExamId()));
+
+                resetScores(exam.getExamId());
+                start = System.nanoTime();
+                gradingService.gradeExam(exam, true);
+                report("set-based", label, answers, "answers", System.nanoTime() - start, totalScore(exam.getExamId()));
+            }
+        } finally {
+            cleanUp(exam, STUDENT_PREFIX);
+            DatabaseManager.shutdown();
+        }
+    }
+
+    /**
+     * 旧的 gradeExam：逐个答案调用 updateScore
+     */
+    private static void gradePerAnswer(ExamPaper exam, StudentAnswerDAO answerDAO) throws Exception {
+        Map<String, Question> questionMap = new LinkedHashMap<>();
+        for (Question q : exam.getQuestions()) {
+            questionMap.put(q.getId(), q);
+        }
+        Map<String, List<StudentAnswer>> submissions = answerDAO.findUnGradedAnswersByExamId(exam.getExamId());
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            for (Map.Entry<String, List<StudentAnswer>> entry : submissions.entrySet()) {
+                for (StudentAnswer answer : entry.getValue()) {
+                    Question q = questionMap.get(answer.getQuestionId());
+                    // 与 GradingServiceImpl 相同的判分规则 (多选不计顺序)
+                    String correct = q.getCorrectAnswer().trim();
+                    String submitted = answer.getAnswer() == null ? "" : answer.getAnswer().trim();
+                    boolean right = q.getType() == QuestionType.MULTI_CHOICE
+                            ? sorted(correct).equals(sorted(submitted))
+                            : !submitted.isEmpty() && correct.equalsIgnoreCase(submitted);
+                    answerDAO.updateScore(right ? q.getScore() : 0, exam.getExamId(), entry.getKey(), q.getId(), conn);
+                }
+            }
+            conn.commit();
+        }
+    }
+
+    private static String sorted(String s) {
+        char[] chars = s.toCharArray();
+        Arrays.sort(chars);
+        return new String(chars);
+    }
+
+    private static long totalScore(String examId) throws Exception {
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT SUM(score_awarded) FROM student_answers WHERE exam_no = (SELECT exam_no FROM exams WHERE id = ?)")) {
+            ps.setString(1, examId);
+            ResultSet rs = ps.executeQuery();
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package com.bit.examsystem.teacher.service;
+
+import com.bit.examsystem.common.model.ExamPaper;
+import com.bit.examsystem.common.model.Question;
+import com.bit.examsystem.common.model.QuestionType;
+import com.bit.examsystem.common.model.Student;
+import com.bit.examsystem.common.model.StudentAnswer;
+import com.bit.examsystem.teacher.db.DatabaseManager;
+import com.bit.examsystem.teacher.db.dao.ExamDAO;
+import com.bit.examsystem.teacher.db.dao.ExamDAOImpl;
+import com.bit.examsystem.teacher.db.dao.StudentAnswerDAO;
+import com.bit.examsystem.teacher.db.dao.StudentAnswerDAOImpl;
+import com.bit.examsystem.teacher.db.dao.StudentDAO;
+import com.bit.examsystem.teacher.db.dao.StudentDAOImpl;
+import com.bit.examsystem.teacher.dto.ExamItemStats;
+import com.bit.examsystem.teacher.dto.RegradeResult;
+import com.bit.examsystem.teacher.dto.StudentResult;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradingServiceImplTest {
+
+    private static final String STUDENT_ID = "GRADING-TEST-1";
+
+    private final ExamDAO examDAO = new ExamDAOImpl();
+    private final StudentAnswerDAO answerDAO = new StudentAnswerDAOImpl();
+    private final GradingService gradingService = new GradingServiceImpl();
+    private ExamPaper exam;
+    private List<StudentAnswer> answers;
+
+    @BeforeAll
+    static void setupDatabase() throws SQLException {
+        DatabaseManager.initializeDatabase();
+        StudentDAO studentDAO = new StudentDAOImpl();
+        Student student = new Student();
+        student.setId(STUDENT_ID);
+        student.setName("Grading Test");
+        studentDAO.saveOrUpdate(student);
+    }
+
+    @AfterAll
+    static void closeDatabase() throws SQLException {
+        try (Connection conn = DatabaseManager.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM students WHERE id = '" + STUDENT_ID + "'");
+        }
+        DatabaseManager.shutdown();
+    }
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        exam = new ExamPaper();
+        exam.setExamId(UUID.randomUUID().toString());
+        exam.setTitle("Grading test");
+        exam.setDurationMinutes(60);
+        exam.setStartTime(System.currentTimeMillis());
+        exam.setQuestions(new ArrayList<>());
+        answers = new ArrayList<>();
+        // 每道题的分值不同，总分可以看出哪些题得分
+        addQuestion(answers, QuestionType.SINGLE_CHOICE, "A", " a ", 1);      // 忽略大小写和首尾空白
+        addQuestion(answers, QuestionType.SINGLE_CHOICE, "B", "C", 2);
+        addQuestion(answers, QuestionType.JUDGE, "true", "TRUE\n", 4);
+        addQuestion(answers, QuestionType.JUDGE, "true", "  ", 8);          // 空答案
+        addQuestion(answers, QuestionType.MULTI_CHOICE, "ABD", "DBA", 16);  // 多选不计顺序
+        addQuestion(answers, QuestionType.MULTI_CHOICE, "AB", "A", 32);
+        addQuestion(answers, QuestionType.FILL_IN, "Java", "java", 64);
+        addQuestion(answers, QuestionType.SINGLE_CHOICE, "A", null, 128);   // 未作答
+        examDAO.save(exam);
+        answerDAO.saveBatch(exam.getExamId(), STUDENT_ID, answers);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        examDAO.delete(exam.getExamId());
+    }
+
+    @Test
+    @DisplayName("Batched grading awards the expected scores")
+    void testBatchedGrading() throws SQLException {
+        String summary = gradingService.gradeExam(exam, false);
+
+        assertEquals("Grading complete. Graded 8 answers for 1 students.", summary);
+        assertEquals(1 + 4 + 16 + 64, answerDAO.calculateTotalScore(exam.getExamId(), STUDENT_ID));
+        assertTrue(answerDAO.findUnGradedAnswersByExamId(exam.getExamId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Set-based grading awards the same scores as batched grading")
+    void testSetBasedGradingMatchesBatched() throws SQLException {
+        String summary = gradingService.gradeExam(exam, true);
+
+        assertEquals("Grading complete. Graded 2 answers in SQL and 6 answers for 1 students in batches.", summary);
+        assertEquals(1 + 4 + 16 + 64, answerDAO.calculateTotalScore(exam.getExamId(), STUDENT_ID));
+        assertTrue(answerDAO.findUnGradedAnswersByExamId(exam.getExamId()).isEmpty());
+        // SQL 批改的行只刷新对应学生的成绩和试题分析，结果与重新统计一致
+        ResultService resultService = new ResultService();
+        assertEquals(1 + 4 + 16 + 64, resultService.getStudentResult(exam.getExamId(), STUDENT_ID).orElseThrow().getTotalScore());
+        assertEquals(0, resultService.verifyAndRepairResults(exam.getExamId()));
+        assertEquals(1, resultService.getItemStats(exam.getExamId()).orElseThrow().getStudentCount());
+        assertEquals("No new submissions to grade. Re-verified 8 answers graded on arrival against the answer key.",
+                gradingService.gradeExam(exam, true));
+    }
+
+    @Test
+    @DisplayName("Set-based grading follows the Java rules for answers with control characters")
+    void testSetBasedGradingOfNonCanonicalAnswers() throws SQLException {
+        // String.trim() 去掉所有 <= U+0020 的字符，换页符和垂直制表符也算空白
+        answers.get(0).setAnswer("A\f");
+        answers.get(2).setAnswer("\u000BTRUE");
+        answerDAO.saveBatch(exam.getExamId(), STUDENT_ID, answers);
+
+        String setBased = gradingService.gradeExam(exam, true);
+        assertFalse(setBased.contains("Corrected"), setBased);
+        assertEquals(1 + 4 + 16 + 64, answerDAO.calculateTotalScore(exam.getExamId(), STUDENT_ID));
+        String verified = gradingService.gradeExam(exam, true);
+        assertFalse(verified.contains("Corrected"), verified);
+
+        try (Connection conn = DatabaseManager.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("UPDATE student_answers SET score_awarded = NULL WHERE exam_no = " +
+                    "(SELECT exam_no FROM exams WHERE id = '" + exam.getExamId() + "')");
+        }
+        assertEquals("Grading complete. Graded 8 answers for 1 students.", gradingService.gradeExam(exam, false));
+        assertEquals(1 + 4 + 16 + 64, answerDAO.calculateTotalScore(exam.getExamId(), STUDENT_ID));
+    }
+
+    @Test
+    @DisplayName("Submissions are graded on arrival and manual grading re-verifies the stored scores")
+    void testGradeOnIngest() throws Exception {
+        SubmissionService submissionService = SubmissionServiceImpl.getInstance();
+        submissionService.setActiveExam(exam);
+        try {
+            submissionService.processSubmission(STUDENT_ID, answers).get(10, TimeUnit.SECONDS);
+        } finally {
+            submissionService.setActiveExam(null);
+        }
+
+        assertEquals(1 + 4 + 16 + 64, answerDAO.calculateTotalScore(exam.getExamId(), STUDENT_ID));
+        assertTrue(answerDAO.findUnGradedAnswersByExamId(exam.getExamId()).isEmpty());
+        assertEquals("No new submissions to grade. Re-verified 8 answers graded on arrival against the answer key.",
+                gradingService.gradeExam(exam));
+
+        // 绕过判分直接改坏一个已保存的得分，阅卷时按标准答案复核并改正
+        try (Connection conn = DatabaseManager.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("UPDATE student_answers SET score_awarded = 2 WHERE question_no = " +
+                    "(SELECT question_no FROM questions WHERE id = '" + answers.get(0).getQuestionId() + "')");
+        }
+        assertEquals("No new submissions to grade. Re-verified 8 answers graded on arrival against the answer key. " +
+                "Corrected 1 stored scores that did not match the answer key.", gradingService.gradeExam(exam));
+        assertEquals(1 + 4 + 16 + 64, answerDAO.calculateTotalScore(exam.getExamId(), STUDENT_ID));
+        assertEquals(1 + 4 + 16 + 64, new ResultService().getStudentResult(exam.getExamId(), STUDENT_ID).orElseThrow().getTotalScore());
+    }
+
+    @Test
+    @DisplayName("Two submissions from one student in the same batch keep every answer, the later one winning")
+    void testResubmissionInOneBatch() throws Exception {
+        try (Connection conn = DatabaseManager.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM student_answers WHERE exam_no = (SELECT exam_no FROM exams WHERE id = '" + exam.getExamId() + "')");
+        }
+        SubmissionService submissionService = SubmissionServiceImpl.getInstance();
+        submissionService.setActiveExam(exam);
+        try {
+            // 第一份答卷第 2 题答 "B" (正确)，第二份改答 "C"；两份都不等写入就提交，通常落在同一批
+            List<StudentAnswer> first = new ArrayList<>(answers.subList(0, 4));
+            StudentAnswer right = new StudentAnswer();
+            right.setQuestionId(answers.get(1).getQuestionId());
+            right.setAnswer("B");
+            first.set(1, right);
+            List<StudentAnswer> second = new ArrayList<>(answers.subList(1, 8));
+            CompletableFuture<Void> a = submissionService.processSubmission(STUDENT_ID, first);
+            CompletableFuture<Void> b = submissionService.processSubmission(STUDENT_ID, second);
+            CompletableFuture.allOf(a, b).get(10, TimeUnit.SECONDS);
+        } finally {
+            submissionService.setActiveExam(null);
+        }
+
+        assertEquals(8, answerDAO.countAnswers(exam.getExamId()));
+        assertEquals(1 + 4 + 16 + 64, answerDAO.calculateTotalScore(exam.getExamId(), STUDENT_ID));
+    }
+
+    @Test
+    @DisplayName("A submission that cannot be saved fails alone instead of failing its whole batch")
+    void testFailedSubmissionIsIsolated() throws Exception {
+        SubmissionService submissionService = SubmissionServiceImpl.getInstance();
+        submissionService.setActiveExam(exam);
+        try {
+            StudentAnswer stale = new StudentAnswer();
+            stale.setQuestionId(UUID.randomUUID().toString());
+            stale.setAnswer("A");
+            assertThrows(ExecutionException.class,
+                    () -> submissionService.processSubmission(STUDENT_ID, List.of(stale)).get(10, TimeUnit.SECONDS));
+
+            // 未登记的学生与正常学生同批提交，只有前者失败
+            CompletableFuture<Void> unknown = submissionService.processSubmission("GRADING-TEST-UNKNOWN", answers);
+            CompletableFuture<Void> known = submissionService.processSubmission(STUDENT_ID, answers);
+            known.get(10, TimeUnit.SECONDS);
+            assertThrows(ExecutionException.class, () -> unknown.get(10, TimeUnit.SECONDS));
+        } finally {
+            submissionService.setActiveExam(null);
+        }
+
+        assertEquals(1 + 4 + 16 + 64, answerDAO.calculateTotalScore(exam.getExamId(), STUDENT_ID));
+    }
+
+    @Test
+    @DisplayName("Results summary reports totals and graded counts from one grouped query")
+    void testResultsSummary() throws SQLException {
+        ResultService resultService = new ResultService();
+        List<StudentResult> before = resultService.getResultsForExam(exam.getExamId());
+        assertEquals(1, before.size());
+        assertEquals(0, before.get(0).getTotalScore());
+        assertEquals(8, before.get(0).getAnswerCount());
+        assertEquals(0, before.get(0).getGradedCount());
+
+        gradingService.gradeExam(exam, false);
+        StudentResult after = resultService.getResultsForExam(exam.getExamId()).get(0);
+        assertEquals(STUDENT_ID, after.getStudentId());
+        assertEquals("Grading Test", after.getStudentName());
+        assertEquals(1 + 4 + 16 + 64, after.getTotalScore());
+        assertEquals(8, after.getGradedCount());
+
+        // 阅卷的同时保存了试题分析
+        ExamItemStats stats = resultService.getItemStats(exam.getExamId()).orElseThrow();
+        assertEquals(1, stats.getStudentCount());
+        assertEquals(8, stats.getItems().size());
+        assertEquals(1.0, stats.getItems().get(0).getDifficulty());
+        assertEquals(1.0, stats.getItems().get(3).getBlankRate());
+    }
+
+    @Test
+    @DisplayName("Regrading one question rescores only its answers and reports the total delta")
+    void testRegradeQuestion() throws SQLException {
+        gradingService.gradeExam(exam, false);
+
+        // 第 2 题的标准答案 "B" 有误，改为学生作答的 "C"
+        Question fixed = exam.getQuestions().get(1);
+        fixed.setCorrectAnswer("C");
+        RegradeResult result = gradingService.regradeQuestion(exam.getExamId(), fixed);
+
+        assertEquals(1, result.getAnswersRegraded());
+        assertEquals(1, result.getAnswersChanged());
+        assertEquals(1, result.getStudentsChanged());
+        assertEquals(2, result.getTotalDeltas().get(STUDENT_ID));
+        assertEquals(1 + 2 + 4 + 16 + 64, answerDAO.calculateTotalScore(exam.getExamId(), STUDENT_ID));
+        assertEquals("C", examDAO.findById(exam.getExamId()).orElseThrow().getQuestions().stream()
+                .filter(q -> q.getId().equals(fixed.getId())).findFirst().orElseThrow().getCorrectAnswer());
+
+        // 答案没有再变，重新批改不写任何行
+        RegradeResult again = gradingService.regradeQuestion(exam.getExamId(), fixed);
+        assertEquals(1, again.getAnswersRegraded());
+        assertEquals(0, again.getAnswersChanged());
+        assertEquals(0, again.getStudentsChanged());
+
+        // 题目不属于指定的考试时不修改标准答案
+        Question other = exam.getQuestions().get(0);
+        other.setCorrectAnswer("D");
+        assertThrows(SQLException.class, () -> gradingService.regradeQuestion(UUID.randomUUID().toString(), other));
+        assertEquals("A", examDAO.findById(exam.getExamId()).orElseThrow().getQuestions().stream()
+                .filter(q -> q.getId().equals(other.getId())).findFirst().orElseThrow().getCorrectAnswer());
+    }
+
+    @Test
+    @DisplayName("The results table follows submissions and resubmissions during the exam")
+    void testResultsFollowSubmissions() throws Exception {
+        ResultService resultService = new ResultService();
+        SubmissionService submissionService = SubmissionServiceImpl.getInstance();
+        submissionService.setActiveExam(exam);
+        try {
+            submissionService.processSubmission(STUDENT_ID, answers).get(10, TimeUnit.SECONDS);
+            StudentResult first = resultService.getStudentResult(exam.getExamId(), STUDENT_ID).orElseThrow();
+            assertEquals(1 + 4 + 16 + 64, first.getTotalScore());
+            assertEquals(8, first.getGradedCount());
+            assertEquals(1, first.getRank());
+
+            // 模拟重启：内存中的计数器丢失，下一次更新从 item_stats 恢复 (计数器未保存时重新统计)
+            new ItemStatsUpdater().discard(exam.getExamId());
+
+            // 重新提交，第 7 题 (64 分) 改错
+            StudentAnswer wrong = new StudentAnswer();
+            wrong.setQuestionId(answers.get(6).getQuestionId());
+            wrong.setAnswer("C++");
+            submissionService.processSubmission(STUDENT_ID, List.of(wrong)).get(10, TimeUnit.SECONDS);
+        } finally {
+            submissionService.setActiveExam(null);
+        }
+
+        assertEquals(1 + 4 + 16, resultService.getStudentResult(exam.getExamId(), STUDENT_ID).orElseThrow().getTotalScore());
+        assertEquals(0, resultService.verifyAndRepairResults(exam.getExamId()));
+
+        // 试题分析随交卷增量更新：重新提交的学生只计一次，结果与从全部答案重新统计相同
+        ExamItemStats stats = resultService.getItemStats(exam.getExamId()).orElseThrow();
+        assertEquals(1, stats.getStudentCount());
+        assertEquals(0, stats.getItems().get(6).getCorrect());
+        ItemAnalysis recount = ItemAnalysis.forExam(exam);
+        answerDAO.findGradedAnswersByExamId(exam.getExamId()).values().forEach(recount::addStudent);
+        ExamItemStats expected = recount.snapshot();
+        expected.setUpdatedAt(stats.getUpdatedAt());
+        assertEquals(expected, stats);
+    }
+
+    @Test
+    @DisplayName("Submissions arriving after a regrade are scored with the corrected key")
+    void testSubmissionAfterRegrade() throws Exception {
+        SubmissionService submissionService = SubmissionServiceImpl.getInstance();
+        submissionService.setActiveExam(exam);
+        try {
+            Question fixed = exam.getQuestions().get(1);
+            fixed.setCorrectAnswer("C");
+            gradingService.regradeQuestion(exam.getExamId(), fixed);
+            submissionService.processSubmission(STUDENT_ID, answers).get(10, TimeUnit.SECONDS);
+        } finally {
+            submissionService.setActiveExam(null);
+        }
+
+        assertEquals(1 + 2 + 4 + 16 + 64, answerDAO.calculateTotalScore(exam.getExamId(), STUDENT_ID));
+    }
+
+    @Test
+    @DisplayName("The results table follows grading and regrading and is rebuilt when inconsistent")
+    void testResultsTableMaintainedAndRepaired() throws SQLException {
+        ResultService resultService = new ResultService();
+        gradingService.gradeExam(exam, false);
+        StudentResult graded = resultService.getStudentResult(exam.getExamId(), STUDENT_ID).orElseThrow();
+        assertEquals(1 + 4 + 16 + 64, graded.getTotalScore());
+        assertEquals(1, graded.getRank());
+        assertTrue(graded.getGradedAt() > 0);
+
+        Question fixed = exam.getQuestions().get(1);
+        fixed.setCorrectAnswer("C");
+        gradingService.regradeQuestion(exam.getExamId(), fixed);
+        assertEquals(1 + 2 + 4 + 16 + 64, resultService.getStudentResult(exam.getExamId(), STUDENT_ID).orElseThrow().getTotalScore());
+        assertEquals(0, resultService.verifyAndRepairResults(exam.getExamId()));
+
+        // 绕过阅卷直接改坏成绩表，完整性检查发现后重建
+        try (Connection conn = DatabaseManager.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("UPDATE exam_results SET total_score = 0 WHERE exam_id = '" + exam.getExamId() + "'");
+        }
+        assertEquals(1, resultService.verifyAndRepairResults(exam.getExamId()));
+        assertEquals(1 + 2 + 4 + 16 + 64, resultService.getResultsForExam(exam.getExamId()).get(0).getTotalScore());
+    }
+
+    @Test
+    @DisplayName("Summary and answer sheet are streamed to CSV in rank and question order")
+    void testStreamingExport(@TempDir Path dir) throws SQLException, IOException {
+        ResultService resultService = new ResultService();
+        gradingService.gradeExam(exam, false);
+
+        Path summary = dir.resolve("results.csv");
+        assertEquals(1, resultService.exportSummaryCsv(exam.getExamId(), summary, (rows, total) -> true));
+        List<String> summaryLines = Files.readAllLines(summary, StandardCharsets.UTF_8);
+        assertEquals("\uFEFFRank,Student ID,Student Name,Total Score,Graded Answers,Answers", summaryLines.get(0));
+        assertEquals("1," + STUDENT_ID + ",Grading Test," + (1 + 4 + 16 + 64) + ",8,8", summaryLines.get(1));
+
+        Path sheet = dir.resolve("answers.csv");
+        assertEquals(8, resultService.exportAnswerSheetCsv(exam.getExamId(), sheet, (rows, total) -> true));
+        List<String> sheetLines = Files.readAllLines(sheet, StandardCharsets.UTF_8);
+        // 第 3 题的答案 "TRUE\n" 含换行，加引号后占两行
+        assertEquals(1 + 8 + 1, sheetLines.size());
+        assertEquals(STUDENT_ID + ",Grading Test,1,SINGLE_CHOICE 1,SINGLE_CHOICE,A, a ,1,1", sheetLines.get(1));
+        assertEquals(STUDENT_ID + ",Grading Test,3,JUDGE 4,JUDGE,true,\"TRUE", sheetLines.get(3));
+        assertEquals("\",4,4", sheetLines.get(4));
+        assertEquals(STUDENT_ID + ",Grading Test,8,SINGLE_CHOICE 128,SINGLE_CHOICE,A,,0,128", sheetLines.get(9));
+        assertFalse(Files.exists(dir.resolve("answers.csv.part")));
+    }
+
+    private void addQuestion(List<StudentAnswer> answers, QuestionType type, String correct, String submitted, int score) {
+        Question q = new Question();
+        q.setId(UUID.randomUUID().toString());
+        q.setTitle(type + " " + score);
+        q.setType(type);
+        q.setCorrectAnswer(correct);
+        q.setScore(score);
+        exam.getQuestions().add(q);
+
+        StudentAnswer answer = new StudentAnswer();
+        answer.setQuestionId(q.getId());
+        answer.setAnswer(submitted);
+        answers.add(answer);
+    }
+}
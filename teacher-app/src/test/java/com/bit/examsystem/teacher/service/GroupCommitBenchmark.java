@@ -0,0 +1,97 @@
+package com.bit.examsystem.teacher.service;
+
+import com.bit.examsystem.common.model.ExamPaper;
+import com.bit.examsystem.common.model.QuestionType;
+import com.bit.examsystem.common.model.StudentAnswer;
+import com.bit.examsystem.teacher.db.DatabaseManager;
+import com.bit.examsystem.teacher.db.dao.ExamDAO;
+import com.bit.examsystem.teacher.db.dao.ExamDAOImpl;
+import com.bit.examsystem.teacher.db.dao.StudentAnswerDAO;
+import com.bit.examsystem.teacher.db.dao.StudentAnswerDAOImpl;
+import com.bit.examsystem.teacher.network.TeacherServer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.bit.examsystem.teacher.BenchmarkFixtures.createExam;
+import static com.bit.examsystem.teacher.BenchmarkFixtures.answers;
+import static com.bit.examsystem.teacher.BenchmarkFixtures.createStudents;
+import static com.bit.examsystem.teacher.BenchmarkFixtures.cleanUp;
+import static com.bit.examsystem.teacher.BenchmarkFixtures.report;
+
+/**
+ * 考试结束时全体学生同时交卷的写入吞吐 (手动运行 main，不参与单元测试)
+ *
+ * 对比两种写法，提交线程数与 TeacherServer 的业务线程数相同：
+ * <ul>
+ *     <li>per-submission：每份答卷调用一次 saveBatch，各自一个连接、一个事务 (旧行为)</li>
+ *     <li>group-commit：经 SubmissionServiceImpl 排队，由单个写线程合并为少量事务</li>
+ * </ul>
+ * 使用当前目录下的 exam.db (与 DAO 测试相同)，结束后删除写入的数据。
+ *
+ * 用法：GroupCommitBenchmark [学生数，默认 500] [每份答卷题数，默认 20] [轮数，默认 3]
+ */
+public class GroupCommitBenchmark {
+
+    private static final String STUDENT_PREFIX = "BENCH-";
+
+    public static void main(String[] args) throws Exception {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int questions = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int threads = Math.max(1, TeacherServer.BUSINESS_THREADS);
+
+        DatabaseManager.initializeDatabase();
+        ExamPaper exam = createExam("Group commit benchmark", questions, 5, QuestionType.SINGLE_CHOICE);
+        ExamDAO examDAO = new ExamDAOImpl();
+        examDAO.save(exam);
+        createStudents(STUDENT_PREFIX, "Student ", students);
+
+        SubmissionService service = SubmissionServiceImpl.getInstance();
+        service.setActiveExam(exam);
+        StudentAnswerDAO answerDAO = new StudentAnswerDAOImpl();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round <= rounds; round++) {
+                String label = round == 0 ? "warmup" : "round " + round;
+
+                // 1. 旧写法：每份答卷一个事务
+                long start = System.nanoTime();
+                List<Future<?>> tasks = new ArrayList<>();
+                for (int i = 0; i < students; i++) {
+                    String studentId = STUDENT_PREFIX + i;
+                    List<StudentAnswer> answers = answers(exam, i);
+                    tasks.add(pool.submit(() -> {
+                        answerDAO.saveBatch(exam.getExamId(), studentId, answers);
+                        return null;
+                    }));
+                }
+                for (Future<?> task : tasks) {
+                    task.get();
+                }
+                report("per-submission", label, students, "submissions", System.nanoTime() - start, students);
+
+                // 2. 组提交：提交线程只负责入队，等待所有回执
+                start = System.nanoTime();
+                List<Future<CompletableFuture<Void>>> submitted = new ArrayList<>();
+                for (int i = 0; i < students; i++) {
+                    String studentId = STUDENT_PREFIX + i;
+                    List<StudentAnswer> answers = answers(exam, i);
+                    submitted.add(pool.submit(() -> service.processSubmission(studentId, answers)));
+                }
+                for (Future<CompletableFuture<Void>> future : submitted) {
+                    future.get().get(60, TimeUnit.SECONDS);
+                }
+                report("group-commit", label, students, "submissions", System.nanoTime() - start, students);
+            }
+        } finally {
+            pool.shutdownNow();
+            cleanUp(exam, STUDENT_PREFIX);
+        }
+    }
+}
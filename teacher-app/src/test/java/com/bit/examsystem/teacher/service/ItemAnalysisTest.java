@@ -0,0 +1,167 @@
+package com.bit.examsystem.teacher.service;
+
+import com.bit.examsystem.common.model.ExamPaper;
+import com.bit.examsystem.common.model.Question;
+import com.bit.examsystem.common.model.QuestionType;
+import com.bit.examsystem.common.model.StudentAnswer;
+import com.bit.examsystem.common.util.JsonUtil;
+import com.bit.examsystem.teacher.dto.ExamItemStats;
+import com.bit.examsystem.teacher.dto.GradedAnswer;
+import com.bit.examsystem.teacher.dto.ItemCounters;
+import com.bit.examsystem.teacher.dto.ItemStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemAnalysisTest {
+
+    private static final double EPS = 1e-9;
+
+    private final ExamPaper exam = createExam();
+
+    // 每行：单选 (A, 1 分)、判断 (T, 1 分)、多选 (AB, 2 分)、填空 (Java, 1 分)；总分依次为 5 4 3 2 1 0
+    private static final String[][] SHEETS = {
+            {"A", "T", "AB", "java"},
+            {"A", "T", "AB", ""},
+            {"A", "F", "AB", "x"},
+            {"B", "T", "AC", "Java"},
+            {"A", "F", "AC", " "},
+            {"C", "F", "A", null},
+    };
+
+    @Test
+    void testCountsAndIndexes() {
+        ItemAnalysis analysis = ItemAnalysis.forExam(exam);
+        for (int s = 0; s < SHEETS.length; s++) {
+            analysis.addStudent(sheet("S" + s, SHEETS[s]));
+        }
+        ExamItemStats stats = analysis.snapshot();
+        assertEquals(6, stats.getStudentCount());
+        List<ItemStats> items = stats.getItems();
+
+        // 6 名学生分组人数 round(6 * 0.27) = 2：高分组 S0 S1，低分组 S4 S5
+        ItemStats single = items.get(0);
+        assertEquals(List.of("A", "B", "C", "D"), single.getOptionLabels());
+        assertArrayEquals(new int[]{4, 1, 1, 0, 0}, single.getOptionCounts());
+        assertEquals(4.0 / 6, single.getDifficulty(), EPS);
+        assertEquals(1.0 - 0.5, single.getDiscrimination(), EPS);
+
+        ItemStats judge = items.get(1);
+        assertEquals(List.of("T", "F"), judge.getOptionLabels());
+        assertArrayEquals(new int[]{3, 3, 0}, judge.getOptionCounts());
+        assertEquals(1.0, judge.getDiscrimination(), EPS);
+
+        ItemStats multi = items.get(2);
+        assertArrayEquals(new int[]{6, 3, 2, 0, 0}, multi.getOptionCounts()); // 每个被选的选项各计一次
+        assertEquals(0.5, multi.getDifficulty(), EPS);
+
+        ItemStats fillIn = items.get(3);
+        assertEquals(3, fillIn.getBlanks());
+        assertEquals(0.5, fillIn.getBlankRate(), EPS);
+        assertEquals(2.0 / 6, fillIn.getDifficulty(), EPS);
+        assertEquals(0.5, fillIn.getDiscrimination(), EPS);
+    }
+
+    @Test
+    void testRemoveIsInverseOfAdd() {
+        ItemAnalysis analysis = ItemAnalysis.forExam(exam);
+        for (int s = 0; s < 3; s++) {
+            analysis.addStudent(sheet("S" + s, SHEETS[s]));
+        }
+        ExamItemStats before = analysis.snapshot();
+
+        List<GradedAnswer> extra = sheet("S5", SHEETS[5]);
+        analysis.addStudent(extra);
+        analysis.removeStudent(extra);
+        ExamItemStats after = analysis.snapshot();
+
+        assertEquals(before.getStudentCount(), after.getStudentCount());
+        for (int q = 0; q < before.getItems().size(); q++) {
+            ItemStats b = before.getItems().get(q);
+            ItemStats a = after.getItems().get(q);
+            assertArrayEquals(b.getOptionCounts(), a.getOptionCounts());
+            assertEquals(b.getDifficulty(), a.getDifficulty(), EPS);
+            assertEquals(b.getDiscrimination(), a.getDiscrimination(), EPS);
+        }
+    }
+
+    @Test
+    void testRestoreFromSavedCounters() {
+        ItemAnalysis analysis = ItemAnalysis.forExam(exam);
+        for (int s = 0; s < 3; s++) {
+            analysis.addStudent(sheet("S" + s, SHEETS[s]));
+        }
+        // 与 item_stats 中保存的一样经过 JSON
+        ItemCounters saved = JsonUtil.fromJson(JsonUtil.toJson(analysis.counters()), ItemCounters.class);
+        ItemAnalysis restored = ItemAnalysis.restore(exam, saved).orElseThrow();
+        for (int s = 3; s < SHEETS.length; s++) {
+            analysis.addStudent(sheet("S" + s, SHEETS[s]));
+            restored.addStudent(sheet("S" + s, SHEETS[s]));
+        }
+        assertEquals(JsonUtil.toJson(analysis.counters()), JsonUtil.toJson(restored.counters()));
+        assertEquals(6, restored.snapshot().getStudentCount());
+
+        // 满分改变后计数器的总分分桶不再适用，需要重新统计
+        ExamPaper changed = createExam();
+        changed.getQuestions().get(0).setScore(3);
+        assertTrue(ItemAnalysis.restore(changed, saved).isEmpty());
+    }
+
+    @Test
+    void testTiedTotalsHaveNoDiscrimination() {
+        ItemAnalysis analysis = ItemAnalysis.forExam(exam);
+        // 总分都是 1：高分组和低分组都落在同一个总分桶里，按比例计入
+        analysis.addStudent(sheet("S0", new String[]{"A", "F", "", ""}));
+        analysis.addStudent(sheet("S1", new String[]{"B", "T", "", ""}));
+        analysis.addStudent(sheet("S2", new String[]{"A", "F", "", ""}));
+        analysis.addStudent(sheet("S3", new String[]{"B", "T", "", ""}));
+        for (ItemStats item : analysis.snapshot().getItems()) {
+            assertEquals(0.0, item.getDiscrimination(), EPS);
+        }
+    }
+
+    /**
+     * 按标准答案 (忽略大小写、多选不计顺序) 判分后的一名学生的答案
+     */
+    private List<GradedAnswer> sheet(String studentId, String[] answers) {
+        AnswerKey answerKey = AnswerKey.compile(exam);
+        List<GradedAnswer> sheet = new ArrayList<>();
+        for (int q = 0; q < answers.length; q++) {
+            GradedAnswer answer = new GradedAnswer();
+            answer.setStudentId(studentId);
+            answer.setQuestionId(exam.getQuestions().get(q).getId());
+            answer.setAnswer(answers[q]);
+            StudentAnswer submitted = new StudentAnswer();
+            submitted.setQuestionId(answer.getQuestionId());
+            submitted.setAnswer(answers[q]);
+            answer.setScoreAwarded(answerKey.score(submitted));
+            sheet.add(answer);
+        }
+        return sheet;
+    }
+
+    private static ExamPaper createExam() {
+        ExamPaper exam = new ExamPaper();
+        exam.setExamId("ITEM-ANALYSIS");
+        exam.setQuestions(new ArrayList<>());
+        exam.getQuestions().add(question(QuestionType.SINGLE_CHOICE, "A", 1, List.of("A. one", "B. two", "C. three", "D. four")));
+        exam.getQuestions().add(question(QuestionType.JUDGE, "T", 1, null));
+        exam.getQuestions().add(question(QuestionType.MULTI_CHOICE, "AB", 2, List.of("A. one", "B. two", "C. three", "D. four")));
+        exam.getQuestions().add(question(QuestionType.FILL_IN, "Java", 1, null));
+        return exam;
+    }
+
+    private static Question question(QuestionType type, String correct, int score, List<String> options) {
+        Question q = new Question();
+        q.setId(type.name());
+        q.setTitle(type.name());
+        q.setType(type);
+        q.setCorrectAnswer(correct);
+        q.setScore(score);
+        q.setOptions(options);
+        return q;
+    }
+}
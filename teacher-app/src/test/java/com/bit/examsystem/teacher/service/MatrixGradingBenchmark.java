@@ -0,0 +1,216 @@
+package com.bit.examsystem.teacher.service;
+
+import com.bit.examsystem.common.model.ExamPaper;
+import com.bit.examsystem.common.model.Question;
+import com.bit.examsystem.common.model.QuestionType;
+import com.bit.examsystem.common.model.StudentAnswer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 客观题内存判分的吞吐 (手动运行 main，不参与单元测试，不访问数据库)
+ *
+ * 对同一份合成答卷 (单选 / 多选 / 判断) 计算每名学生的总分和每道题的答对人数，对比：
+ * <ul>
+ *     <li>per-answer：原 GradingServiceImpl.calculateScore 的写法，逐个答案 trim、equalsIgnoreCase、多选排序字符数组</li>
+ *     <li>answer-key：逐个答案调用预编译的 AnswerKey.score</li>
+ *     <li>matrix-scalar / matrix-swar：AnswerMatrix 逐字节比较 / 每次比较 8 个格子 (不含编码)</li>
+ *     <li>matrix-encode：把答案编码进矩阵的耗时</li>
+ * </ul>
+ *
+ * 用法：MatrixGradingBenchmark [学生数，默认 1000] [题数，默认 100] [每轮重复次数，默认 20] [轮数，默认 5]
+ */
+public class MatrixGradingBenchmark {
+
+    public static void main(String[] args) {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int questions = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        ExamPaper exam = createExam(questions);
+        List<List<StudentAnswer>> submissions = createSubmissions(exam, students);
+        AnswerKey answerKey = AnswerKey.compile(exam);
+        long answers = (long) students * questions * iterations;
+
+        for (int round = 0; round <= rounds; round++) {
+            String label = round == 0 ? "warmup" : "round " + round;
+
+            long start = System.nanoTime();
+            long checksum = 0;
+            for (int i = 0; i < iterations; i++) {
+                checksum += gradePerAnswer(exam, submissions);
+            }
+            report("per-answer", label, answers, System.nanoTime() - start, checksum);
+
+            start = System.nanoTime();
+            checksum = 0;
+            for (int i = 0; i < iterations; i++) {
+                checksum += gradeWithAnswerKey(answerKey, exam, submissions);
+            }
+            report("answer-key", label, answers, System.nanoTime() - start, checksum);
+
+            start = System.nanoTime();
+            AnswerMatrix matrix = null;
+            for (int i = 0; i < iterations; i++) {
+                matrix = AnswerMatrix.forExam(exam);
+                for (int s = 0; s < submissions.size(); s++) {
+                    matrix.addStudent("S" + s, submissions.get(s));
+                }
+            }
+            report("matrix-encode", label, answers, System.nanoTime() - start, matrix.getRowCount());
+
+            for (boolean swar : new boolean[]{false, true}) {
+                start = System.nanoTime();
+                checksum = 0;
+                for (int i = 0; i < iterations; i++) {
+                    AnswerMatrix.Result result = matrix.grade(swar);
+                    checksum += sum(result.totals()) + sum(result.correctCounts());
+                }
+                report(swar ? "matrix-swar" : "matrix-scalar", label, answers, System.nanoTime() - start, checksum);
+            }
+        }
+    }
+
+    /**
+     * 原 GradingServiceImpl 的逐题判分，外加按题目 ID 统计答对人数
+     */
+    private static long gradePerAnswer(ExamPaper exam, List<List<StudentAnswer>> submissions) {
+        Map<String, Question> questionMap = new HashMap<>();
+        for (Question q : exam.getQuestions()) {
+            questionMap.put(q.getId(), q);
+        }
+        Map<String, Integer> correctCounts = new HashMap<>();
+        long sum = 0;
+        for (List<StudentAnswer> answers : submissions) {
+            int total = 0;
+            for (StudentAnswer answer : answers) {
+                Question q = questionMap.get(answer.getQuestionId());
+                int score = legacyScore(q, answer);
+                if (score > 0) {
+                    total += score;
+                    correctCounts.merge(q.getId(), 1, Integer::sum);
+                }
+            }
+            sum += total;
+        }
+        for (int count : correctCounts.values()) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    private static int legacyScore(Question question, StudentAnswer studentAnswer) {
+        String correctAnswer = question.getCorrectAnswer();
+        String submitted = studentAnswer.getAnswer();
+        if (correctAnswer == null || submitted == null || submitted.trim().isEmpty()) {
+            return 0;
+        }
+        correctAnswer = correctAnswer.trim();
+        submitted = submitted.trim();
+        QuestionType type = question.getType();
+        if (type == QuestionType.SINGLE_CHOICE || type == QuestionType.FILL_IN || type == QuestionType.JUDGE) {
+            return correctAnswer.equalsIgnoreCase(submitted) ? question.getScore() : 0;
+        } else if (type == QuestionType.MULTI_CHOICE) {
+            char[] correctChars = correctAnswer.toCharArray();
+            char[] submittedChars = submitted.toCharArray();
+            Arrays.sort(correctChars);
+            Arrays.sort(submittedChars);
+            return Arrays.equals(correctChars, submittedChars) ? question.getScore() : 0;
+        }
+        return 0;
+    }
+
+    private static long gradeWithAnswerKey(AnswerKey answerKey, ExamPaper exam, List<List<StudentAnswer>> submissions) {
+        Map<String, Integer> correctCounts = new HashMap<>();
+        long sum = 0;
+        for (List<StudentAnswer> answers : submissions) {
+            int total = 0;
+            for (StudentAnswer answer : answers) {
+                int score = answerKey.score(answer);
+                if (score > 0) {
+                    total += score;
+                    correctCounts.merge(answer.getQuestionId(), 1, Integer::sum);
+                }
+            }
+            sum += total;
+        }
+        for (int count : correctCounts.values()) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    private static long sum(int[] values) {
+        long sum = 0;
+        for (int value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    private static void report(String mode, String label, long answers, long elapsed, long checksum) {
+        System.out.printf("%-14s %-8s %d answers in %9.2f ms   %7.2f ns/answer   (checksum %d)%n",
+                mode, label, answers, elapsed / 1e6, (double) elapsed / answers, checksum);
+    }
+
+    private static ExamPaper createExam(int count) {
+        List<Question> questions = new ArrayList<>();
+        String[] singles = {"A", "B", "C", "D"};
+        String[] multis = {"AC", "BD", "ABD", "CD"};
+        for (int i = 0; i < count; i++) {
+            Question q = new Question();
+            q.setId("Q" + i + "-" + Long.toHexString(Double.doubleToLongBits(Math.random())));
+            switch (i % 4) {
+                case 0, 1 -> {
+                    q.setType(QuestionType.SINGLE_CHOICE);
+                    q.setCorrectAnswer(singles[i % 4]);
+                }
+                case 2 -> {
+                    q.setType(QuestionType.MULTI_CHOICE);
+                    q.setCorrectAnswer(multis[(i / 4) % 4]);
+                }
+                default -> {
+                    q.setType(QuestionType.JUDGE);
+                    q.setCorrectAnswer(i % 8 == 3 ? "true" : "false");
+                }
+            }
+            q.setScore(1 + i % 3);
+            questions.add(q);
+        }
+        ExamPaper exam = new ExamPaper();
+        exam.setExamId("MATRIX-BENCH");
+        exam.setQuestions(questions);
+        return exam;
+    }
+
+    private static List<List<StudentAnswer>> createSubmissions(ExamPaper exam, int students) {
+        String[] singles = {"A", "B", "C", "D", "a", " b"};
+        String[] multis = {"AC", "CA", "BD", "ABD", "DBA", "CD", "A"};
+        String[] judges = {"true", "false", "TRUE", "False"};
+        Random random = new Random(7);
+        List<List<StudentAnswer>> submissions = new ArrayList<>(students);
+        for (int s = 0; s < students; s++) {
+            List<StudentAnswer> answers = new ArrayList<>();
+            for (Question q : exam.getQuestions()) {
+                String[] pool = switch (q.getType()) {
+                    case SINGLE_CHOICE -> singles;
+                    case MULTI_CHOICE -> multis;
+                    default -> judges;
+                };
+                StudentAnswer answer = new StudentAnswer();
+                answer.setQuestionId(q.getId());
+                // 大约 3/4 的概率答对，其余随机
+                answer.setAnswer(random.nextInt(4) > 0 ? q.getCorrectAnswer() : pool[random.nextInt(pool.length)]);
+                answers.add(answer);
+            }
+            submissions.add(answers);
+        }
+        return submissions;
+    }
+}
@@ -0,0 +1,102 @@
+package com.bit.examsystem.teacher.service;
+
+import com.bit.examsystem.common.model.ExamPaper;
+import com.bit.examsystem.common.model.QuestionType;
+import com.bit.examsystem.common.model.Student;
+import com.bit.examsystem.common.model.StudentAnswer;
+import com.bit.examsystem.teacher.db.DatabaseManager;
+import com.bit.examsystem.teacher.db.dao.ExamDAO;
+import com.bit.examsystem.teacher.db.dao.ExamDAOImpl;
+import com.bit.examsystem.teacher.db.dao.ExamResultDAO;
+import com.bit.examsystem.teacher.db.dao.StudentAnswerDAO;
+import com.bit.examsystem.teacher.db.dao.StudentAnswerDAOImpl;
+import com.bit.examsystem.teacher.db.dao.StudentDAO;
+import com.bit.examsystem.teacher.db.dao.StudentDAOImpl;
+import com.bit.examsystem.teacher.dto.StudentResult;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.bit.examsystem.teacher.BenchmarkFixtures.createExam;
+import static com.bit.examsystem.teacher.BenchmarkFixtures.answers;
+import static com.bit.examsystem.teacher.BenchmarkFixtures.createStudents;
+import static com.bit.examsystem.teacher.BenchmarkFixtures.cleanUp;
+import static com.bit.examsystem.teacher.BenchmarkFixtures.report;
+
+/**
+ * 成绩列表的加载耗时 (手动运行 main，不参与单元测试)
+ *
+ * 合成一场已批改的考试，对比：
+ * <ul>
+ *     <li>n-plus-one：findStudentsByExamId 之后每名学生一条 calculateTotalScore (旧的 getResultsForExam)</li>
+ *     <li>grouped：StudentAnswerDAO.findResultsByExamId，一条 GROUP BY 查询</li>
+ *     <li>materialized：ResultService.getResultsForExam，直接读取阅卷时维护的 exam_results 表</li>
+ *     <li>page：ResultService.getResultsPage，按名次取第一页 (50 行)</li>
+ * </ul>
+ * 使用当前目录下的 exam.db，结束后删除写入的数据。
+ *
+ * 用法：ResultsBenchmark [学生数，默认 1000] [题数，默认 50] [轮数，默认 5]
+ */
+public class ResultsBenchmark {
+
+    private static final String STUDENT_PREFIX = "RESULTS-BENCH-";
+
+    public static void main(String[] args) throws Exception {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int questions = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        DatabaseManager.initializeDatabase();
+        ExamPaper exam = createExam("Results benchmark", questions, 2, QuestionType.SINGLE_CHOICE);
+        ExamDAO examDAO = new ExamDAOImpl();
+        examDAO.save(exam);
+        createStudents(STUDENT_PREFIX, "Student ", students);
+        Map<String, List<StudentAnswer>> submissions = new LinkedHashMap<>();
+        for (int i = 0; i < students; i++) {
+            submissions.put(STUDENT_PREFIX + i, answers(exam, i));
+        }
+        StudentAnswerDAO answerDAO = new StudentAnswerDAOImpl();
+        answerDAO.saveSubmissions(exam.getExamId(), submissions);
+        new GradingServiceImpl().gradeExam(exam, false);
+
+        ResultService resultService = new ResultService();
+        StudentDAO studentDAO = new StudentDAOImpl();
+        try {
+            for (int round = 0; round <= rounds; round++) {
+                String label = round == 0 ? "warmup" : "round " + round;
+
+                long start = System.nanoTime();
+                long checksum = 0;
+                for (Student student : studentDAO.findStudentsByExamId(exam.getExamId())) {
+                    checksum += answerDAO.calculateTotalScore(exam.getExamId(), student.getId());
+                }
+                report("n-plus-one", label, students, "students", System.nanoTime() - start, checksum);
+
+                start = System.nanoTime();
+                checksum = 0;
+                for (StudentResult result : answerDAO.findResultsByExamId(exam.getExamId())) {
+                    checksum += result.getTotalScore();
+                }
+                report("grouped", label, students, "students", System.nanoTime() - start, checksum);
+
+                start = System.nanoTime();
+                checksum = 0;
+                for (StudentResult result : resultService.getResultsForExam(exam.getExamId())) {
+                    checksum += result.getTotalScore();
+                }
+                report("materialized", label, students, "students", System.nanoTime() - start, checksum);
+
+                start = System.nanoTime();
+                checksum = 0;
+                for (StudentResult result : resultService.getResultsPage(exam.getExamId(), ExamResultDAO.SortOrder.RANK, 0, 50)) {
+                    checksum += result.getTotalScore();
+                }
+                report("page", label, 50, "students", System.nanoTime() - start, checksum);
+            }
+        } finally {
+            cleanUp(exam, STUDENT_PREFIX);
+            DatabaseManager.shutdown();
+        }
+    }
+}